@@ -374,6 +374,10 @@ public class DataSeeder implements CommandLineRunner {
         userRepository.save(francesco);
         userRepository.save(sara);
         
+        // Le registrations sono state salvate direttamente (senza RegistrationService):
+        // allinea il contatore Match.activePlayers con un unico UPDATE
+        matchRepository.recountActivePlayers();
+        
         // Log finale con statistiche
         log.info("✅ Dati demo caricati: {} utenti, {} partite, {} registrazioni", 
                  userRepository.count(), matchRepository.count(), registrationRepository.count());
@@ -0,0 +1,35 @@
+package com.example.padel_app.config;
+
+import com.example.padel_app.service.FeedbackService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfill all'avvio dei totali feedback (User.feedbackSum / feedbackCount)
+ *
+ * Attivo solo con padel.feedback.backfill-totals=true:
+ * - database esistente: abilitarlo per un avvio, poi disabilitarlo
+ * - H2 in memoria (sviluppo): sempre attivo, il DataSeeder salva i feedback
+ *   direttamente con il repository, senza aggiornare i totali
+ *
+ * ApplicationReadyEvent: eseguito dopo i CommandLineRunner (DataSeeder),
+ * quindi include anche i dati demo.
+ */
+@Component
+@ConditionalOnProperty(name = "padel.feedback.backfill-totals", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class FeedbackTotalsBackfill {
+
+    private final FeedbackService feedbackService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int users = feedbackService.backfillFeedbackTotals();
+        log.info("⭐ Totali feedback ricalcolati per {} utenti", users);
+    }
+}
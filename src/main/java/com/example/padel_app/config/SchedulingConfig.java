@@ -0,0 +1,28 @@
+package com.example.padel_app.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Abilita i job schedulati (@Scheduled)
+ *
+ * Job attivi:
+ * - ExpiredMatchSweeper: marca FINISHED le partite CONFIRMED scadute
+ * - MatchReminderScheduler: tick ogni minuto della ruota dei promemoria
+ * - PerceivedLevelRecomputeJob: ricalcolo di tutti i perceived level (cron, disattivato di default)
+ * - PerceivedLevelUpdater: ricalcolo raggruppato dei livelli dopo i feedback
+ * - Leaderboard: ricostruzione periodica della classifica in memoria
+ * - PlayerPool: abbinamento dei giocatori in coda in partite 2 contro 2
+ *
+ * THREAD:
+ * spring.task.scheduling.pool.size=6 (uno per job): con il thread unico di default un giro lento
+ * (es. abbinamento PlayerPool o ricostruzione Leaderboard) ritardava tutti gli altri, compreso il flush
+ * di PerceivedLevelUpdater. Ogni job resta comunque sequenziale con sé stesso (fixedDelay/cron).
+ *
+ * Frequenze e dimensioni dei blocchi in application.properties (padel.sweeper.*, padel.reminders.*, padel.perceived-level.*,
+ * padel.leaderboard.*, padel.pairing.*)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
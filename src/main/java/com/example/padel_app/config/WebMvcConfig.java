@@ -0,0 +1,31 @@
+package com.example.padel_app.config;
+
+import com.example.padel_app.controller.IdempotencyInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configurazione Spring MVC - interceptor sulle richieste web
+ *
+ * Interceptor attivi:
+ * - IdempotencyInterceptor: POST duplicate (doppio click, retry) su join/leave/finish
+ *   e sull'invio dei feedback a tutti i giocatori ricevono l'esito della prima richiesta
+ *   senza rieseguirla
+ *
+ * TTL e dimensione della cache in application.properties (padel.idempotency.*)
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final IdempotencyInterceptor idempotencyInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(idempotencyInterceptor)
+            .addPathPatterns("/matches/*/join", "/matches/*/leave", "/matches/*/finish",
+                              "/matches/*/feedback/all");
+    }
+}
@@ -3,12 +3,17 @@ package com.example.padel_app.controller;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.repository.UserRepository;
+import com.example.padel_app.service.PasswordHasher;
 import com.example.padel_app.service.UserSessionService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -81,7 +86,11 @@ public class AuthController {
     
     private final UserRepository userRepository;
     private final UserSessionService userSessionService;
-    private final org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    
+    /**
+     * BCrypt su pool dedicato: gli hash non occupano i thread Tomcat oltre il limite del pool
+     */
+    private final PasswordHasher passwordHasher;
     
     /**
      * Mostra la pagina di login.
@@ -181,7 +190,8 @@ public class AuthController {
      * </pre>
      * 
      * <h3>✅ Sicurezza BCrypt:</h3>
-     * Questo metodo usa <code>passwordEncoder.matches()</code> per verificare password hashate.
+     * Questo metodo usa <code>passwordHasher.matches()</code> per verificare password hashate
+     * (BCrypt sul pool dedicato: pool saturo → 503, vedi {@link #passwordHashingBusy}).
      * Supporta anche password legacy in chiaro per retro-compatibilità (auto-upgrade).
      * 
      * @param email Email inserita dall'utente
@@ -221,7 +231,7 @@ public class AuthController {
         if (storedPassword.startsWith("$2a$") || storedPassword.startsWith("$2b$") || storedPassword.startsWith("$2y$")) {
             // Password è hashata con BCrypt (formato: $2a$, $2b$, $2y$ sono varianti BCrypt)
             log.debug("Verifica password BCrypt per user {}", user.getUsername());
-            passwordMatches = passwordEncoder.matches(password, storedPassword);
+            passwordMatches = passwordHasher.matches(password, storedPassword);
         } else {
             // Password in chiaro (legacy/seeding) - confronto diretto
             log.warn("ATTENZIONE: User {} ha password in chiaro (non sicuro!)", user.getUsername());
@@ -230,7 +240,7 @@ public class AuthController {
             // SECURITY IMPROVEMENT: Aggiorna password a BCrypt al prossimo login
             if (passwordMatches) {
                 log.info("Aggiornamento automatico password a BCrypt per user {}", user.getUsername());
-                user.setPassword(passwordEncoder.encode(password));
+                user.setPassword(passwordHasher.encode(password));
                 userRepository.save(user);
             }
         }
@@ -366,7 +376,7 @@ public class AuthController {
         newUser.setEmail(normalizedEmail);  // Salva email normalizzata
         
         // ✅ SECURITY: Hash password con BCrypt prima di salvare
-        String hashedPassword = passwordEncoder.encode(password);
+        String hashedPassword = passwordHasher.encode(password);
         newUser.setPassword(hashedPassword);
         log.debug("Password hashata con BCrypt per nuovo user {}", username);
         
@@ -421,4 +431,15 @@ public class AuthController {
         // Redirect a login con messaggio logout
         return "redirect:/login?logout";
     }
+    
+    /**
+     * Pool di hashing saturo (raffica di login/registrazioni): 503 immediato con Retry-After,
+     * il browser o l'utente ripetono dopo qualche secondo.
+     */
+    @ExceptionHandler(PasswordHasher.BusyException.class)
+    public ResponseEntity<String> passwordHashingBusy(PasswordHasher.BusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "2")
+            .body(e.getMessage());
+    }
 }
@@ -0,0 +1,168 @@
+package com.example.padel_app.controller;
+
+import com.example.padel_app.service.IdempotencyCache;
+import com.example.padel_app.service.SignedSessionCookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * IdempotencyInterceptor - Ripete l'esito delle POST duplicate senza rieseguirle
+ *
+ * <p>
+ * Registrato da WebMvcConfig su <code>/matches/{id}/join</code>, <code>/leave</code>, <code>/finish</code>
+ * e <code>/feedback/all</code>.
+ * La chiave arriva dall'header <code>Idempotency-Key</code> (client mobile) o dal campo nascosto
+ * <code>idempotencyKey</code> dei form (generato a ogni rendering della pagina).
+ * Senza chiave o senza sessione la richiesta procede come sempre.
+ *
+ * <h3>Flusso</h3>
+ * <pre>
+ * 1ª POST (chiave K)  → preHandle: begin(K) = null → controller → postHandle: salva redirect + flash
+ * 2ª POST (chiave K)  → preHandle: esito di K → stessi flash, stesso redirect (nessun service, nessun DB)
+ * </pre>
+ * Se la 2ª arriva mentre la 1ª è ancora in corso, attende il suo esito (al massimo {@link #WAIT_SECONDS}s).
+ *
+ * <p>
+ * La chiave è legata alla sessione e all'URL: la stessa chiave su un'altra partita
+ * o da un altro utente è una richiesta diversa.
+ * In modalità signed-cookie conta l'utente del cookie firmato e non la HttpSession:
+ * la sessione del container cambia da un nodo all'altro, l'utente no.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String PARAMETER = "idempotencyKey";
+
+    static final long WAIT_SECONDS = 10;
+
+    private static final String REDIRECT_PREFIX = "redirect:";
+    private static final String CACHE_KEY_ATTRIBUTE = IdempotencyInterceptor.class.getName() + ".cacheKey";
+
+    private final IdempotencyCache idempotencyCache;
+    private final SignedSessionCookie sessionCookie;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        String cacheKey = cacheKey(request);
+        if (cacheKey == null) {
+            return true;
+        }
+
+        CompletableFuture<IdempotencyCache.Outcome> previous = idempotencyCache.begin(cacheKey);
+        if (previous == null) {
+            // Prima richiesta con questa chiave: esegue il controller, l'esito viene salvato in postHandle
+            request.setAttribute(CACHE_KEY_ATTRIBUTE, cacheKey);
+            return true;
+        }
+
+        IdempotencyCache.Outcome outcome = await(previous);
+        if (outcome == null) {
+            // Prima richiesta fallita o ancora in corso dopo l'attesa: si procede normalmente
+            return true;
+        }
+        log.info("🔁 Richiesta duplicata {} {}: ripetuto l'esito precedente", request.getMethod(), request.getRequestURI());
+        replay(outcome, request, response);
+        return false;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           @Nullable ModelAndView modelAndView) {
+        String cacheKey = (String) request.getAttribute(CACHE_KEY_ATTRIBUTE);
+        if (cacheKey == null) {
+            return;
+        }
+
+        String viewName = modelAndView != null ? modelAndView.getViewName() : null;
+        if (viewName == null || !viewName.startsWith(REDIRECT_PREFIX)) {
+            idempotencyCache.abort(cacheKey);
+        } else {
+            // I flash attribute di RedirectAttributes sono già stati copiati nella FlashMap di output
+            FlashMap flashMap = RequestContextUtils.getOutputFlashMap(request);
+            idempotencyCache.complete(cacheKey, new IdempotencyCache.Outcome(
+                viewName.substring(REDIRECT_PREFIX.length()), flashMap != null ? flashMap : Map.of()));
+        }
+        // Solo dopo complete/abort: se falliscono, afterCompletion trova ancora la chiave e la libera
+        request.removeAttribute(CACHE_KEY_ATTRIBUTE);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                @Nullable Exception ex) {
+        // Ancora presente → il controller ha lanciato un'eccezione: nessun esito da ripetere
+        String cacheKey = (String) request.getAttribute(CACHE_KEY_ATTRIBUTE);
+        if (cacheKey != null) {
+            request.removeAttribute(CACHE_KEY_ATTRIBUTE);
+            idempotencyCache.abort(cacheKey);
+        }
+    }
+
+    /**
+     * sessione (o utente del cookie firmato) + URL + chiave del client; null se manca la chiave o la sessione
+     */
+    private String cacheKey(HttpServletRequest request) {
+        String key = request.getHeader(HEADER);
+        if (!StringUtils.hasText(key)) {
+            key = request.getParameter(PARAMETER);
+        }
+        if (!StringUtils.hasText(key)) {
+            return null;
+        }
+        String owner = owner(request);
+        return owner != null ? owner + " " + request.getRequestURI() + " " + key : null;
+    }
+
+    /**
+     * Chi ha inviato la richiesta: "user:id" dal cookie firmato, altrimenti l'ID della HttpSession
+     */
+    private String owner(HttpServletRequest request) {
+        if (sessionCookie.isEnabled()) {
+            // Nessuna response: il rinnovo del cookie resta a UserSessionService
+            Long userId = sessionCookie.read(request, null);
+            return userId != null ? "user:" + userId : null;
+        }
+        HttpSession session = request.getSession(false);
+        return session != null ? session.getId() : null;
+    }
+
+    private IdempotencyCache.Outcome await(CompletableFuture<IdempotencyCache.Outcome> previous) throws InterruptedException {
+        try {
+            return previous.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stessa risposta del controller: flash salvati per la pagina di destinazione + redirect 302
+     */
+    private void replay(IdempotencyCache.Outcome outcome, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        String location = request.getContextPath() + outcome.getRedirectUrl();
+        FlashMap flashMap = RequestContextUtils.getOutputFlashMap(request);
+        if (flashMap != null) {
+            flashMap.putAll(outcome.getFlashAttributes());
+            RequestContextUtils.saveOutputFlashMap(location, request, response);
+        }
+        response.sendRedirect(response.encodeRedirectURL(location));
+    }
+}
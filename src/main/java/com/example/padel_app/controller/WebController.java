@@ -1,13 +1,21 @@
 package com.example.padel_app.controller;
 
+import com.example.padel_app.model.Feedback;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.repository.CursorPage;
+import com.example.padel_app.repository.FeedbackStats;
+import com.example.padel_app.repository.MatchFeedItem;
 import com.example.padel_app.service.MatchService;
+import com.example.padel_app.service.PlayerPool;
+import com.example.padel_app.service.Matchmaker;
 import com.example.padel_app.service.RegistrationService;
+import com.example.padel_app.service.SeatLedger;
 import com.example.padel_app.service.UserService;
 import com.example.padel_app.service.FeedbackService;
+import com.example.padel_app.service.Leaderboard;
 import com.example.padel_app.service.UserSessionService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +26,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * WebController - Il Controller principale dell'applicazione nel pattern MVC.
@@ -79,6 +90,31 @@ public class WebController {
     private final RegistrationService registrationService;
     private final FeedbackService feedbackService;
     private final UserSessionService userSessionService;
+    private final SeatLedger seatLedger;
+    private final Leaderboard leaderboard;
+    private final Matchmaker matchmaker;
+    private final PlayerPool playerPool;
+    
+    /**
+     * Partite consigliate mostrate in cima alla home ("Partite per te")
+     */
+    static final int RECOMMENDED_MATCHES = 3;
+    
+    /**
+     * Token casuale per ogni pagina renderizzata, usato nei form come chiave di idempotenza.
+     * 
+     * <p>
+     * I form di join/leave/finish inviano <code>idempotencyKey = token-idPartita</code>:
+     * un doppio click invia due volte la stessa chiave e {@link IdempotencyInterceptor}
+     * ripete l'esito della prima richiesta invece di rieseguirla.
+     * Ricaricando la pagina il token cambia, quindi una nuova azione è una nuova richiesta.
+     * 
+     * @return token univoco disponibile nei template come <code>${idempotencyToken}</code>
+     */
+    @ModelAttribute("idempotencyToken")
+    public String idempotencyToken() {
+        return UUID.randomUUID().toString();
+    }
     
     /**
      * Home page - Mostra le partite disponibili per l'utente corrente.
@@ -118,6 +154,8 @@ public class WebController {
             HttpSession session,
             @RequestParam(required = false) String level,
             @RequestParam(required = false, defaultValue = "date") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
             Model model) {
         // Verifica autenticazione
         User currentUser = userSessionService.getCurrentUser(session);
@@ -125,40 +163,30 @@ public class WebController {
             return "redirect:/login";
         }
         
-        // STEP 1: Ottieni tutte le partite (con filtro level opzionale)
-        List<Match> allMatches;
+        // STEP 1: Filtro level opzionale (level non valido → tutte le partite)
+        Level levelEnum = null;
         if (level != null && !level.isEmpty()) {
             try {
-                Level levelEnum = Level.valueOf(level.toUpperCase());
-                allMatches = matchService.getMatchesByLevel(levelEnum);
+                levelEnum = Level.valueOf(level.toUpperCase());
             } catch (IllegalArgumentException e) {
-                // Level non valido, prendi tutte le partite
                 log.warn("Invalid level filter: {}, falling back to all matches", level);
-                allMatches = matchService.getAllMatches();
             }
-        } else {
-            allMatches = matchService.getAllMatches();
         }
         
-        // STEP 2: Applica sempre l'ordinamento usando Strategy Pattern (anche se level era invalido)
-        allMatches = matchService.sortMatches(allMatches, sort != null ? sort : "date");
+        // STEP 2: UNA pagina di partite WAITING/CONFIRMED a cui l'utente non è iscritto, con conteggio
+        // iscritti, già filtrata e ordinata dal DB secondo la strategia, a partire dal cursore "after" (keyset)
+        CursorPage<MatchFeedItem> page = matchService.getMatchFeedPage(currentUser, levelEnum,
+            sort != null ? sort : "date", after, CursorPage.clampSize(size));
         
-        // STEP 3: Filtra solo partite disponibili (non già iscritto, stato WAITING/CONFIRMED)
-        List<Match> availableMatches = allMatches.stream()
-            .filter(m -> m.getStatus() == MatchStatus.WAITING || m.getStatus() == MatchStatus.CONFIRMED)
-            .filter(m -> !registrationService.isUserRegistered(currentUser, m))
-            .collect(java.util.stream.Collectors.toList());
-        
-        // STEP 4: Calcola player count per ogni partita
-        java.util.Map<Long, Integer> playerCounts = new java.util.HashMap<>();
-        for (Match match : availableMatches) {
-            playerCounts.put(match.getId(), registrationService.getActiveRegistrationsCount(match));
-        }
-        
-        // STEP 5: Passa dati al template
+        // STEP 3: Passa dati al template (il conteggio giocatori è in match.joinedCount)
         model.addAttribute("currentUser", currentUser);
-        model.addAttribute("availableMatches", availableMatches);
-        model.addAttribute("playerCounts", playerCounts);
+        model.addAttribute("availableMatches", page.getItems());
+        // Consigli solo sulla prima pagina del feed: livello vicino al giocatore, partite quasi complete
+        model.addAttribute("recommendedMatches",
+            after == null ? matchmaker.recommend(currentUser, RECOMMENDED_MATCHES) : List.of());
+        model.addAttribute("poolSlot", playerPool.queuedSlot(currentUser.getId()));
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("size", size);
         model.addAttribute("level", level);
         model.addAttribute("sort", sort);
         
@@ -204,6 +232,9 @@ public class WebController {
             HttpSession session,
             @RequestParam(required = false) String status,
             @RequestParam(required = false, defaultValue = "date") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String finishedAfter,
+            @RequestParam(required = false) Integer size,
             Model model) {
         // Verifica autenticazione
         User currentUser = userSessionService.getCurrentUser(session);
@@ -211,37 +242,16 @@ public class WebController {
             return "redirect:/login";
         }
         
-        // STEP 1: Ottieni SOLO le partite con registration JOINED (esclude CANCELLED)
-        // Fix Bug: usare getActiveRegistrationsByUser() per evitare duplicati UI con registrations CANCELLED
-        List<Match> allMyMatches = registrationService.getActiveRegistrationsByUser(currentUser).stream()
-            .map(com.example.padel_app.model.Registration::getMatch)
-            .collect(java.util.stream.Collectors.toList());
-        
-        // STEP 2: Dividi tra registrate (non terminate) e finite
-        List<Match> myRegisteredMatches = allMyMatches.stream()
-            .filter(m -> m.getStatus() != MatchStatus.FINISHED)
-            .collect(java.util.stream.Collectors.toList());
-        
-        List<Match> myFinishedMatches = allMyMatches.stream()
-            .filter(m -> m.getStatus() == MatchStatus.FINISHED)
-            .collect(java.util.stream.Collectors.toList());
-        
-        // STEP 3: Applica filtro per stato (opzionale) SOLO alla sezione pertinente
+        // STEP 1: Status della sezione "registrate" (filtro opzionale, FINISHED non la restringe)
+        List<MatchStatus> registeredStatuses = List.of(MatchStatus.WAITING, MatchStatus.CONFIRMED);
         if (status != null && !status.isEmpty()) {
             try {
                 MatchStatus statusEnum = MatchStatus.valueOf(status.toUpperCase());
                 
-                // Se filtro per FINISHED: myFinishedMatches contiene già solo FINISHED, registered rimane intatta
-                if (statusEnum == MatchStatus.FINISHED) {
-                    // Non serve filtrare myFinishedMatches (già solo FINISHED dallo STEP 2)
-                    // myRegisteredMatches rimane invariata → mostra partite attive
-                }
                 // Se filtro per WAITING/CONFIRMED: filtra SOLO registeredMatches, lascia finished intatta
-                else {
-                    myRegisteredMatches = myRegisteredMatches.stream()
-                        .filter(m -> m.getStatus() == statusEnum)
-                        .collect(java.util.stream.Collectors.toList());
-                    // myFinishedMatches rimane invariata → mostra partite terminate
+                // Se filtro per FINISHED: registeredMatches rimane invariata → mostra partite attive
+                if (statusEnum != MatchStatus.FINISHED) {
+                    registeredStatuses = List.of(statusEnum);
                 }
             } catch (IllegalArgumentException e) {
                 // Status non valido, ignora filtro
@@ -249,17 +259,24 @@ public class WebController {
             }
         }
         
-        // STEP 4: Applica ordinamento usando Strategy Pattern a entrambe le liste
-        myRegisteredMatches = matchService.sortMatches(myRegisteredMatches, sort);
-        myFinishedMatches = matchService.sortMatches(myFinishedMatches, sort);
+        // STEP 2: Una pagina per sezione, ciascuna con il proprio cursore keyset
+        // Solo partite con registration JOINED (esclude CANCELLED), ordinate dal DB secondo la strategia
+        int pageSize = CursorPage.clampSize(size);
+        CursorPage<Match> registeredPage = matchService.getPlayerMatchesPage(
+            currentUser, registeredStatuses, sort, after, pageSize);
+        CursorPage<Match> finishedPage = matchService.getPlayerMatchesPage(
+            currentUser, List.of(MatchStatus.FINISHED), sort, finishedAfter, pageSize);
         
-        // STEP 5: Calcola contatori giocatori
+        List<Match> myRegisteredMatches = registeredPage.getItems();
+        List<Match> myFinishedMatches = finishedPage.getItems();
+        
+        // STEP 3: Calcola contatori giocatori (registrations già caricate con la pagina, nessuna query)
         java.util.Map<Long, Integer> playerCounts = new java.util.HashMap<>();
         for (Match match : myRegisteredMatches) {
-            playerCounts.put(match.getId(), registrationService.getActiveRegistrationsCount(match));
+            playerCounts.put(match.getId(), match.getActiveRegistrationsCount());
         }
         for (Match match : myFinishedMatches) {
-            playerCounts.put(match.getId(), registrationService.getAllRegistrationsCount(match));
+            playerCounts.put(match.getId(), match.getRegistrations().size());
         }
         
         model.addAttribute("currentUser", currentUser);
@@ -268,6 +285,11 @@ public class WebController {
         model.addAttribute("playerCounts", playerCounts);
         model.addAttribute("status", status);
         model.addAttribute("sort", sort);
+        model.addAttribute("after", after);
+        model.addAttribute("finishedAfter", finishedAfter);
+        model.addAttribute("nextCursor", registeredPage.getNextCursor());
+        model.addAttribute("finishedNextCursor", finishedPage.getNextCursor());
+        model.addAttribute("size", size);
         
         return "my-matches";
     }
@@ -295,6 +317,8 @@ public class WebController {
             HttpSession session,
             @RequestParam(required = false) String level,
             @RequestParam(required = false, defaultValue = "date") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
             Model model) {
         
         // Verifica autenticazione
@@ -303,51 +327,113 @@ public class WebController {
             return "redirect:/login";
         }
         
-        List<Match> matches;
-        
-        // STEP 1: Applica filtro per livello se fornito
+        // STEP 1: Filtro livello opzionale (level non valido → tutte le partite)
+        Level levelEnum = null;
         if (level != null && !level.isEmpty()) {
             try {
-                Level levelEnum = Level.valueOf(level.toUpperCase());
-                matches = matchService.getMatchesByLevel(levelEnum);
+                levelEnum = Level.valueOf(level.toUpperCase());
             } catch (IllegalArgumentException e) {
-                // Level non valido, prendi tutte le partite
                 log.warn("Invalid level filter: {}, falling back to all matches", level);
-                matches = matchService.getAllMatches();
             }
-        } else {
-            matches = matchService.getAllMatches();
         }
         
-        // STEP 2: Applica sempre ordinamento usando Strategy Pattern (anche se level era invalido)
-        matches = matchService.sortMatches(matches, sort != null ? sort : "date");
+        // STEP 2: Una pagina keyset, ordinata dal DB con il Sort della strategia (Strategy Pattern)
+        CursorPage<Match> page = matchService.getMatchesPage(levelEnum, sort != null ? sort : "date",
+            after, CursorPage.clampSize(size));
+        List<Match> matches = page.getItems();
         
         model.addAttribute("matches", matches);
         model.addAttribute("level", level);
         model.addAttribute("sort", sort);
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("size", size);
         
         return "matches";
     }
     
     /**
-     * Pagina elenco utenti.
+     * Pagina classifica utenti, una pagina alla volta.
      * 
+     * <p>
+     * Ordine: partite giocate, poi livello percepito. Posizioni e pagine vengono da
+     * {@link Leaderboard} (albero in memoria): nessun ORDER BY sull'intera tabella users,
+     * solo la query per gli utenti della pagina.
+     * 
+     * @param page Numero di pagina (0 = primi in classifica)
+     * @param size Giocatori per pagina (default/massimo in CursorPage)
      * @param model Il Model per passare dati alla vista
      * @return Il nome del template "users.html"
      */
     @GetMapping("/users")
-    public String users(HttpSession session, Model model) {
+    public String users(HttpSession session,
+                        @RequestParam(defaultValue = "0") int page,
+                        @RequestParam(required = false) Integer size,
+                        Model model) {
         // Verifica autenticazione
         User currentUser = userSessionService.getCurrentUser(session);
         if (currentUser == null) {
             return "redirect:/login";
         }
         
-        List<User> users = userService.getAllUsers();
-        model.addAttribute("users", users);
+        int pageSize = CursorPage.clampSize(size);
+        int pageNumber = Math.max(page, 0);
+        int myRank = leaderboard.rankOf(currentUser.getId());
+        int totalPlayers = leaderboard.size();
+        
+        model.addAttribute("standings", leaderboard.page(pageNumber, pageSize));
+        model.addAttribute("myRank", myRank);
+        model.addAttribute("totalPlayers", totalPlayers);
+        model.addAttribute("page", pageNumber);
+        model.addAttribute("hasNext", (long) (pageNumber + 1) * pageSize < totalPlayers);
+        model.addAttribute("size", size);
         return "users";
     }
     
+    /**
+     * Ingresso nella coda dell'abbinamento automatico ("trovami una partita a quest'ora").
+     * 
+     * <p>
+     * Il giocatore non sceglie una partita: {@link PlayerPool} lo abbina a tre giocatori
+     * di livello compatibile per la stessa fascia oraria e crea la partita già confermata.
+     * 
+     * @param slot Fascia oraria desiderata (formato datetime-local, arrotondata all'ora)
+     * @param redirectAttributes Per messaggi flash
+     * @return Redirect alla home
+     */
+    @PostMapping("/pool/join")
+    public String joinPool(HttpSession session, @RequestParam String slot, RedirectAttributes redirectAttributes) {
+        User currentUser = userSessionService.getCurrentUser(session);
+        if (currentUser == null) {
+            return "redirect:/login";
+        }
+        try {
+            LocalDateTime hour = playerPool.join(currentUser, LocalDateTime.parse(slot));
+            redirectAttributes.addFlashAttribute("success", "Sei in coda per le " + hour.format(DateTimeFormatter.ofPattern("dd/MM HH:mm"))
+                + ": la partita viene creata appena ci sono 4 giocatori del tuo livello.");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/";
+    }
+    
+    /**
+     * Uscita dalla coda dell'abbinamento automatico.
+     * 
+     * @param redirectAttributes Per messaggi flash
+     * @return Redirect alla home
+     */
+    @PostMapping("/pool/leave")
+    public String leavePool(HttpSession session, RedirectAttributes redirectAttributes) {
+        User currentUser = userSessionService.getCurrentUser(session);
+        if (currentUser == null) {
+            return "redirect:/login";
+        }
+        if (playerPool.leave(currentUser.getId())) {
+            redirectAttributes.addFlashAttribute("success", "Sei uscito dalla coda dell'abbinamento automatico.");
+        }
+        return "redirect:/";
+    }
+    
     /**
      * Form di creazione partita (visualizzazione del form vuoto).
      * 
@@ -526,6 +612,11 @@ public class WebController {
             if (currentUser == null) {
                 return "redirect:/login";
             }
+            // Partita piena secondo il ledger in memoria: rifiuto senza query né transazione
+            // (tranne per chi tiene uno dei posti: il join usa quello)
+            if (seatLedger.isFull(id) && !seatLedger.hasHold(id, currentUser.getId())) {
+                throw new IllegalStateException("Match is full - maximum 4 players allowed");
+            }
             Match match = matchService.getMatchById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Partita non trovata"));
             
@@ -542,6 +633,74 @@ public class WebController {
         return "redirect:/";
     }
     
+    /**
+     * Tiene un posto nella partita mentre l'utente completa l'iscrizione.
+     * 
+     * <p>
+     * Il posto resta riservato per qualche minuto (padel.holds.ttl) solo in memoria:
+     * gli altri utenti vedono la partita piena, l'iscrizione successiva dello stesso utente
+     * usa il posto tenuto. Alla scadenza il posto torna libero da solo.
+     * 
+     * @param id ID della partita
+     * @param redirectAttributes Per messaggi flash di conferma/errore
+     * @return Redirect alla home page
+     */
+    @PostMapping("/matches/{id}/hold")
+    public String holdSeat(HttpSession session, @PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            User currentUser = userSessionService.getCurrentUser(session);
+            if (currentUser == null) {
+                return "redirect:/login";
+            }
+            Match match = matchService.getMatchById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Partita non trovata"));
+            
+            LocalDateTime expiresAt = registrationService.holdSeat(currentUser, match);
+            
+            redirectAttributes.addFlashAttribute("success", 
+                "Posto tenuto per te fino alle " + expiresAt.format(DateTimeFormatter.ofPattern("HH:mm")) + ": completa l'iscrizione!");
+            
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        
+        return "redirect:/";
+    }
+    
+    /**
+     * Iscrizione alla lista d'attesa di una partita piena.
+     * 
+     * <p>
+     * Invece di riprovare "Iscriviti" finché si libera un posto, l'utente si mette in coda:
+     * quando un giocatore lascia la partita il primo in attesa viene iscritto automaticamente
+     * (vedi RegistrationService.leaveMatch) e riceve una notifica.
+     * 
+     * @param id ID della partita piena
+     * @param redirectAttributes Per messaggi flash di conferma/errore
+     * @return Redirect alla home page
+     */
+    @PostMapping("/matches/{id}/waitlist")
+    public String joinWaitlist(HttpSession session, @PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            User currentUser = userSessionService.getCurrentUser(session);
+            if (currentUser == null) {
+                return "redirect:/login";
+            }
+            Match match = matchService.getMatchById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Partita non trovata"));
+            
+            registrationService.joinWaitlist(currentUser, match);
+            
+            redirectAttributes.addFlashAttribute("success", 
+                "Sei in lista d'attesa: ti iscriveremo appena si libera un posto!");
+            
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        
+        return "redirect:/";
+    }
+    
     /**
      * Disiscrizione da una partita esistente.
      * 
@@ -738,66 +897,126 @@ public class WebController {
         return "redirect:/matches/" + id + "/feedback";
     }
     
+    /**
+     * Invio dei feedback a tutti i compagni di partita in un solo submit.
+     * 
+     * <p>
+     * Il form della pagina feedback ha un livello e un commento per ogni giocatore
+     * ancora da valutare; i giocatori lasciati senza livello vengono saltati.
+     * Rispetto a un submitFeedback per giocatore:
+     * <ul>
+     *   <li>una sola query per i compagni (registrazioni JOINED con JOIN FETCH user)</li>
+     *   <li>una sola query per i feedback già dati e INSERT in batch (FeedbackService.createFeedbacks)</li>
+     *   <li>un solo redirect e un solo ricaricamento della pagina</li>
+     * </ul>
+     * 
+     * @param id ID della partita
+     * @param request Livelli e commenti per ID giocatore (<code>levels[ID]</code>, <code>comments[ID]</code>)
+     * @param redirectAttributes Per messaggi flash
+     * @return Redirect al form di feedback
+     */
+    @PostMapping("/matches/{id}/feedback/all")
+    public String submitAllFeedback(HttpSession session,
+                                    @PathVariable Long id,
+                                    @ModelAttribute BulkFeedbackRequest request,
+                                    RedirectAttributes redirectAttributes) {
+        try {
+            User currentUser = userSessionService.getCurrentUser(session);
+            if (currentUser == null) {
+                return "redirect:/login";
+            }
+            Match match = matchService.getMatchById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Partita non trovata"));
+            
+            // Compagni di partita per ID: si possono valutare solo loro
+            java.util.Map<Long, User> coPlayers = registrationService.getActiveRegistrationsByMatch(match).stream()
+                .map(com.example.padel_app.model.Registration::getUser)
+                .filter(u -> !u.getId().equals(currentUser.getId()))
+                .collect(java.util.stream.Collectors.toMap(User::getId, u -> u));
+            
+            List<FeedbackService.Rating> ratings = new java.util.ArrayList<>();
+            for (java.util.Map.Entry<Long, String> entry : request.getLevels().entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isBlank()) {
+                    continue;  // giocatore non valutato in questo invio
+                }
+                User targetUser = coPlayers.get(entry.getKey());
+                if (targetUser == null) {
+                    throw new IllegalArgumentException("Puoi valutare solo i giocatori della partita");
+                }
+                String comment = request.getComments().get(entry.getKey());
+                ratings.add(new FeedbackService.Rating(targetUser, Level.valueOf(entry.getValue()),
+                    comment != null ? comment : ""));
+            }
+            if (ratings.isEmpty()) {
+                throw new IllegalArgumentException("Seleziona il livello di almeno un giocatore");
+            }
+            
+            feedbackService.createFeedbacks(currentUser, match, ratings);
+            
+            redirectAttributes.addFlashAttribute("success", 
+                "Feedback inviati a " + ratings.size() + " giocatori! I livelli percepiti verranno aggiornati a breve.");
+            
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        
+        return "redirect:/matches/" + id + "/feedback";
+    }
+    
     /**
      * Pagina profilo utente - Mostra statistiche e feedback.
      * 
      * <p>
      * Questa pagina mostra:
      * <ul>
-     *   <li>Feedback ricevuti dall'utente</li>
-     *   <li>Feedback dati dall'utente</li>
+     *   <li>Feedback ricevuti dall'utente (una pagina alla volta, cursore receivedAfter)</li>
+     *   <li>Feedback dati dall'utente (una pagina alla volta, cursore givenAfter)</li>
      *   <li>Statistiche: media del livello percepito, distribuzione per livello</li>
      * </ul>
      * 
+     * <p>
+     * Le statistiche arrivano da una query aggregata e le liste sono paginate:
+     * il costo della pagina non cresce con lo storico dei feedback.
+     * 
+     * @param receivedAfter Cursore keyset della lista feedback ricevuti (null = più recenti)
+     * @param givenAfter Cursore keyset della lista feedback dati (null = più recenti)
+     * @param size Elementi per pagina (default/massimo in CursorPage)
      * @param model Il Model per passare dati alla vista
      * @return Il nome del template "my-profile.html"
      */
     @GetMapping("/my-profile")
-    public String myProfile(HttpSession session, Model model) {
+    public String myProfile(HttpSession session,
+                            @RequestParam(required = false) String receivedAfter,
+                            @RequestParam(required = false) String givenAfter,
+                            @RequestParam(required = false) Integer size,
+                            Model model) {
         User currentUser = userSessionService.getCurrentUser(session);
         if (currentUser == null) {
             return "redirect:/login";
         }
         
-        // Recupera feedback ricevuti e dati
-        List<com.example.padel_app.model.Feedback> feedbackReceived = 
-            feedbackService.getFeedbacksByTargetUser(currentUser);
-        List<com.example.padel_app.model.Feedback> feedbackGiven = 
-            feedbackService.getFeedbacksByAuthor(currentUser);
-        
-        // Calcola la media del livello percepito dai feedback ricevuti
-        Double averageLevel = feedbackReceived.isEmpty() ? null : 
-            feedbackReceived.stream()
-                .mapToInt(f -> {
-                    switch(f.getSuggestedLevel()) {
-                        case PRINCIPIANTE: return 1;
-                        case INTERMEDIO: return 2;
-                        case AVANZATO: return 3;
-                        case PROFESSIONISTA: return 4;
-                        default: return 0;
-                    }
-                })
-                .average()
-                .orElse(0.0);
-        
-        // Calcola la distribuzione dei feedback per ogni livello
-        long countPrincipiante = feedbackReceived.stream()
-            .filter(f -> f.getSuggestedLevel() == Level.PRINCIPIANTE).count();
-        long countIntermedio = feedbackReceived.stream()
-            .filter(f -> f.getSuggestedLevel() == Level.INTERMEDIO).count();
-        long countAvanzato = feedbackReceived.stream()
-            .filter(f -> f.getSuggestedLevel() == Level.AVANZATO).count();
-        long countProfessionista = feedbackReceived.stream()
-            .filter(f -> f.getSuggestedLevel() == Level.PROFESSIONISTA).count();
+        // Statistiche: UNA query GROUP BY (istogramma per livello → totale e media)
+        FeedbackStats stats = feedbackService.getReceivedStats(currentUser);
+        
+        // Feedback ricevuti e dati: una pagina keyset ciascuno, dal più recente
+        int pageSize = CursorPage.clampSize(size);
+        CursorPage<Feedback> receivedPage = feedbackService.getFeedbacksReceivedPage(currentUser, receivedAfter, pageSize);
+        CursorPage<Feedback> givenPage = feedbackService.getFeedbacksGivenPage(currentUser, givenAfter, pageSize);
         
         model.addAttribute("currentUser", currentUser);
-        model.addAttribute("feedbackReceived", feedbackReceived);
-        model.addAttribute("feedbackGiven", feedbackGiven);
-        model.addAttribute("averageLevel", averageLevel);
-        model.addAttribute("countPrincipiante", countPrincipiante);
-        model.addAttribute("countIntermedio", countIntermedio);
-        model.addAttribute("countAvanzato", countAvanzato);
-        model.addAttribute("countProfessionista", countProfessionista);
+        model.addAttribute("feedbackReceived", receivedPage.getItems());
+        model.addAttribute("feedbackGiven", givenPage.getItems());
+        model.addAttribute("feedbackStats", stats);
+        model.addAttribute("averageLevel", stats.getAverageLevel());
+        model.addAttribute("countPrincipiante", stats.getCount(Level.PRINCIPIANTE));
+        model.addAttribute("countIntermedio", stats.getCount(Level.INTERMEDIO));
+        model.addAttribute("countAvanzato", stats.getCount(Level.AVANZATO));
+        model.addAttribute("countProfessionista", stats.getCount(Level.PROFESSIONISTA));
+        model.addAttribute("receivedAfter", receivedAfter);
+        model.addAttribute("givenAfter", givenAfter);
+        model.addAttribute("receivedNextCursor", receivedPage.getNextCursor());
+        model.addAttribute("givenNextCursor", givenPage.getNextCursor());
+        model.addAttribute("size", size);
         model.addAttribute("levels", Level.values());
         
         return "my-profile";
@@ -874,4 +1093,25 @@ public class WebController {
         public String getDateTime() { return dateTime; }
         public void setDateTime(String dateTime) { this.dateTime = dateTime; }
     }
+    
+    /**
+     * DTO del form "valuta tutti i giocatori" (submitAllFeedback).
+     * 
+     * <p>
+     * Spring fa il binding dei campi indicizzati nelle mappe, con la chiave convertita in Long:
+     * <pre>
+     * &lt;select name="levels[12]"&gt;     → request.getLevels().put(12L, ...)
+     * &lt;textarea name="comments[12]"&gt; → request.getComments().put(12L, ...)
+     * </pre>
+     */
+    public static class BulkFeedbackRequest {
+        private java.util.Map<Long, String> levels = new java.util.LinkedHashMap<>();
+        private java.util.Map<Long, String> comments = new java.util.HashMap<>();
+        
+        public java.util.Map<Long, String> getLevels() { return levels; }
+        public void setLevels(java.util.Map<Long, String> levels) { this.levels = levels; }
+        
+        public java.util.Map<Long, String> getComments() { return comments; }
+        public void setComments(java.util.Map<Long, String> comments) { this.comments = comments; }
+    }
 }
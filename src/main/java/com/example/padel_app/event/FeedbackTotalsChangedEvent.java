@@ -0,0 +1,46 @@
+package com.example.padel_app.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * OBSERVER PATTERN - Evento pubblicato quando cambiano i totali feedback di un utente.
+ *
+ * <h2>Quando viene pubblicato?</h2>
+ * FeedbackService aggiorna User.feedbackSum / feedbackCount (nuovo feedback, feedback eliminato,
+ * partita eliminata) e pubblica questo evento invece di ricalcolare subito il perceived level.
+ *
+ * <h2>Flusso:</h2>
+ * <pre>
+ * FeedbackService.createFeedback()
+ *   → INSERT feedback + UPDATE atomico dei totali
+ *   → publishEvent(FeedbackTotalsChangedEvent)
+ *     → (dopo il commit) PerceivedLevelUpdater.onFeedbackTotalsChanged()
+ *       → utente in coda, ricalcolato una volta sola a fine raffica
+ * </pre>
+ *
+ * La richiesta HTTP paga solo l'INSERT e l'UPDATE dei totali:
+ * i 12 feedback di fine partita producono 4 ricalcoli, non 12.
+ *
+ * @see com.example.padel_app.service.PerceivedLevelUpdater Listener che gestisce questo evento
+ * @author Padel App Team
+ */
+@Getter
+public class FeedbackTotalsChangedEvent extends ApplicationEvent {
+
+    /**
+     * Utente i cui totali feedback sono cambiati
+     */
+    private final Long userId;
+
+    /**
+     * Costruttore dell'evento.
+     *
+     * @param source L'oggetto che ha pubblicato l'evento (tipicamente FeedbackService)
+     * @param userId L'utente da ricalcolare
+     */
+    public FeedbackTotalsChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.padel_app.event;
+
+import com.example.padel_app.model.Match;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * OBSERVER PATTERN - Evento pubblicato quando cambiano i posti occupati di una partita.
+ *
+ * <h2>Quando viene pubblicato?</h2>
+ * RegistrationService dopo un'iscrizione (singola o di gruppo) e dopo un'uscita che libera un posto,
+ * con Match.activePlayers già allineato al valore nel DB.
+ * Non viene pubblicato quando il posto passa al primo in lista d'attesa (posti invariati).
+ *
+ * <h2>Flusso:</h2>
+ * <pre>
+ * RegistrationService.joinMatch()
+ *   → claim atomico del posto + registration salvata
+ *   → publishEvent(MatchSeatsChangedEvent)
+ *     → Matchmaker.onSeatsChanged(): partita spostata nel gruppo "posti liberi" giusto (dopo il commit)
+ * </pre>
+ *
+ * @see com.example.padel_app.service.Matchmaker Listener che gestisce questo evento
+ * @author Padel App Team
+ */
+@Getter
+public class MatchSeatsChangedEvent extends ApplicationEvent {
+
+    /**
+     * Partita con il contatore activePlayers aggiornato
+     */
+    private final Match match;
+
+    /**
+     * Costruttore dell'evento.
+     *
+     * @param source L'oggetto che ha pubblicato l'evento (tipicamente RegistrationService)
+     * @param match La partita i cui posti sono cambiati
+     */
+    public MatchSeatsChangedEvent(Object source, Match match) {
+        super(source);
+        this.match = match;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.padel_app.event;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * OBSERVER PATTERN - Evento pubblicato quando un utente passa dalla lista d'attesa alla partita.
+ *
+ * <h2>Quando viene pubblicato?</h2>
+ * Un giocatore lascia una partita piena che ha utenti in lista d'attesa:
+ * RegistrationService.leaveMatch promuove il primo in coda (WAITLISTED → JOINED)
+ * nella stessa transazione e pubblica questo evento.
+ *
+ * <h2>Flusso:</h2>
+ * <pre>
+ * RegistrationService.leaveMatch()
+ *   → promozione primo in attesa (FIFO)
+ *   → publishEvent(PlayerPromotedEvent)
+ *     → MatchEventListener.handlePlayerPromoted()
+ *       → notificationService.sendPlayerPromotedNotification()
+ * </pre>
+ *
+ * Come per {@link MatchConfirmedEvent}, il publisher non conosce chi riceve l'evento:
+ * l'utente promosso viene avvisato senza che RegistrationService dipenda da NotificationService.
+ *
+ * @see MatchConfirmedEvent Evento con la stessa struttura
+ * @see com.example.padel_app.listener.MatchEventListener Listener che gestisce questo evento
+ * @author Padel App Team
+ */
+@Getter
+public class PlayerPromotedEvent extends ApplicationEvent {
+
+    /**
+     * Partita in cui si è liberato il posto
+     */
+    private final Match match;
+
+    /**
+     * Utente promosso dalla lista d'attesa (ora JOINED)
+     */
+    private final User user;
+
+    /**
+     * Costruttore dell'evento.
+     *
+     * @param source L'oggetto che ha pubblicato l'evento (tipicamente RegistrationService)
+     * @param match La partita in cui l'utente è stato iscritto
+     * @param user L'utente promosso dalla lista d'attesa
+     */
+    public PlayerPromotedEvent(Object source, Match match, User user) {
+        super(source);
+        this.match = match;
+        this.user = user;
+    }
+}
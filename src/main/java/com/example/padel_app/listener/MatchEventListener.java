@@ -2,6 +2,7 @@ package com.example.padel_app.listener;
 
 import com.example.padel_app.event.MatchConfirmedEvent;
 import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.event.PlayerPromotedEvent;
 import com.example.padel_app.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,6 +47,7 @@ import org.springframework.stereotype.Component;
  * │ Registry interno di Spring:                     │
  * │  MatchConfirmedEvent → handleMatchConfirmed()   │
  * │  MatchFinishedEvent  → handleMatchFinished()    │
+ * │  PlayerPromotedEvent → handlePlayerPromoted()   │
  * └─────────────────────────────────────────────────┘
  * </pre>
  * 
@@ -134,6 +136,7 @@ import org.springframework.stereotype.Component;
  * 
  * @see MatchConfirmedEvent Evento quando una partita viene confermata
  * @see MatchFinishedEvent Evento quando una partita termina
+ * @see PlayerPromotedEvent Evento quando un utente passa dalla lista d'attesa alla partita
  * @see NotificationService Singleton che gestisce le notifiche
  * @see org.springframework.context.event.EventListener Annotazione Spring per listener
  * @author Padel App Team
@@ -214,4 +217,28 @@ public class MatchEventListener {
         // Trigger per richiedere feedback ai giocatori
         log.info("📝 Match {} terminata - Richiesta feedback attivata", match.getId());
     }
+    
+    /**
+     * Gestisce la promozione di un utente dalla lista d'attesa.
+     * 
+     * <p>Pubblicato da RegistrationService.leaveMatch: il listener è sincrono, quindi
+     * la notifica parte nella stessa transazione della promozione.
+     * 
+     * @param event L'evento con la partita e l'utente promosso
+     */
+    @EventListener
+    public void handlePlayerPromoted(PlayerPromotedEvent event) {
+        var match = event.getMatch();
+        var user = event.getUser();
+        log.info("⏫ Observer - Player Promoted: Match ID={}, User={}", 
+                 match.getId(), user.getUsername());
+        
+        // Invia notifica tramite Singleton NotificationService
+        notificationService.sendPlayerPromotedNotification(
+            user.getUsername(),
+            match.getLocation()
+        );
+        
+        log.info("✅ Utente {} promosso nella partita {} - Notifica inviata", user.getUsername(), match.getId());
+    }
 }
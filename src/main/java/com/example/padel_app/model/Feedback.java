@@ -45,7 +45,8 @@ import java.time.LocalDateTime;
 public class Feedback {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "feedbacks_seq")
+    @SequenceGenerator(name = "feedbacks_seq", sequenceName = "feedbacks_seq", allocationSize = 50)  // pooled: INSERT in batch (vedi User.id)
     private Long id;
     
     /**
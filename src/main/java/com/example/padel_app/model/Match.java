@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,14 +36,29 @@ import java.util.List;
  * - feedbacks (OneToMany Feedback): feedback post-partita
  */
 @Entity
-@Table(name = "matches")
+@Table(name = "matches", indexes = {
+    // Keyset pagination: WHERE (date_time, id) > (?, ?) ORDER BY date_time, id
+    @Index(name = "idx_matches_date_time_id", columnList = "date_time, id"),
+    // Ordinamento per livello (LevelSortingStrategy): ORDER BY level_rank, date_time, id
+    @Index(name = "idx_matches_level_rank", columnList = "level_rank, date_time, id"),
+    // Ordinamento per popolarità (PopularitySortingStrategy): ORDER BY active_players DESC, date_time, id
+    @Index(name = "idx_matches_active_players", columnList = "active_players DESC, date_time, id"),
+    // Sweeper partite scadute (ExpiredMatchSweeper): WHERE status = 'CONFIRMED' AND date_time < ? ORDER BY date_time, id
+    @Index(name = "idx_matches_status_date_time", columnList = "status, date_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Match {
     
+    /**
+     * Numero massimo di giocatori per partita (padel 2vs2)
+     */
+    public static final int MAX_PLAYERS = 4;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "matches_seq")
+    @SequenceGenerator(name = "matches_seq", sequenceName = "matches_seq", allocationSize = 50)  // pooled: INSERT in batch (vedi User.id)
     private Long id;
     
     /**
@@ -74,6 +90,19 @@ public class Match {
     @Enumerated(EnumType.STRING)
     private Level requiredLevel;
     
+    /**
+     * Rango numerico del livello richiesto (Level.ordinal()), per ordinare nel DB
+     * 
+     * PERCHÉ UNA COLONNA IN PIÙ?
+     * requiredLevel è salvato come STRING: "ORDER BY required_level" sarebbe alfabetico
+     * (AVANZATO < INTERMEDIO < PRINCIPIANTE < PROFESSIONISTA), non per difficoltà.
+     * level_rank (0..3) ordina correttamente e può stare in un indice.
+     * 
+     * Calcolato automaticamente da syncKeysetColumns() prima di INSERT/UPDATE.
+     */
+    @Column(name = "level_rank")
+    private Integer levelRank;
+    
     /**
      * Data e ora della partita
      * Usa LocalDateTime (Java 8+) invece di vecchio java.util.Date
@@ -132,21 +161,57 @@ public class Match {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
+    /**
+     * Giocatori iscritti (JOINED): contatore denormalizzato
+     * 
+     * PERCHÉ UNA COLONNA invece di contare le registrations?
+     * Contare richiedeva ogni volta la collezione lazy (stream in memoria) o una
+     * COUNT(*) su registrations: in PopularitySortingStrategy veniva fatto dentro il comparator,
+     * in joinMatch/leaveMatch/checkAndConfirmMatch più volte per la stessa operazione.
+     * Ora conteggio, isFull() e ordinamento per popolarità leggono un solo campo (indicizzato).
+     * 
+     * updatable = false: Hibernate NON scrive mai questa colonna nell'UPDATE dell'entità.
+     * Il valore cambia SOLO con UPDATE atomici nel DB (MatchRepository.claimSeat /
+     * decrementActivePlayers): due iscrizioni concorrenti non si sovrascrivono a vicenda
+     * (niente "lost update" da read-modify-write in Java).
+     * Il valore in memoria viene riallineato da RegistrationService dopo ogni UPDATE.
+     */
+    @Column(name = "active_players", nullable = false, updatable = false)
+    private int activePlayers = 0;
+    
+    // ==================== LIFECYCLE CALLBACKS ====================
+    
+    /**
+     * Allinea le colonne usate come chiave keyset prima di ogni INSERT/UPDATE
+     * 
+     * - levelRank = requiredLevel.ordinal()
+     * - dateTime troncato ai microsecondi: la colonna TIMESTAMP conserva 6 decimali,
+     *   LocalDateTime.now() può averne 9. Senza troncare, l'entità in memoria e la riga
+     *   nel DB differiscono e il cursore costruito dall'entità ripeterebbe la riga.
+     * 
+     * @PrePersist/@PreUpdate: callback JPA, invocati da Hibernate al flush
+     */
+    @PrePersist
+    @PreUpdate
+    void syncKeysetColumns() {
+        levelRank = requiredLevel != null ? requiredLevel.ordinal() : null;
+        if (dateTime != null) {
+            dateTime = dateTime.truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+    
     // ==================== BUSINESS LOGIC METHODS ====================
     
     /**
      * Conta quanti giocatori sono effettivamente iscritti (status JOINED)
      * 
-     * NOTA: Questo metodo funziona solo se registrations è già caricata.
-     * In WebController usiamo RegistrationRepository.countActiveRegistrationsByMatch()
-     * che fa una query COUNT diretta, più efficiente.
+     * Legge il contatore denormalizzato activePlayers: nessun accesso alla collezione
+     * registrations (niente lazy loading, niente stream), funziona anche su entità detached.
      * 
      * @return numero giocatori con status JOINED
      */
     public int getActiveRegistrationsCount() {
-        return (int) registrations.stream()
-            .filter(r -> r.getStatus() == com.example.padel_app.model.enums.RegistrationStatus.JOINED)
-            .count();
+        return activePlayers;
     }
     
     /**
@@ -155,11 +220,13 @@ public class Match {
      * Usato per:
      * - Bloccare nuove iscrizioni
      * - Triggerare auto-conferma (WAITING → CONFIRMED)
-     * - UI: disabilitare pulsante "Iscriviti"
+     * 
+     * NOTA: conta solo le iscrizioni nel DB. I posti tenuti (SeatLedger.hold) stanno in memoria:
+     * UI e lista d'attesa usano MatchFeedItem.isFull / SeatLedger.heldSeats, che li includono.
      * 
      * @return true se 4 o più giocatori JOINED
      */
     public boolean isFull() {
-        return getActiveRegistrationsCount() >= 4;
+        return activePlayers >= MAX_PLAYERS;
     }
 }
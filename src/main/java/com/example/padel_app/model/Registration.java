@@ -33,17 +33,23 @@ import java.time.LocalDateTime;
  * STATUS LIFECYCLE:
  * - JOINED: iscritto attivo, conta per raggiungere 4 giocatori
  * - CANCELLED: disiscritto, non conta più (ma record rimane per audit)
+ * - WAITLISTED: in lista d'attesa di una partita piena, promosso a JOINED quando si libera un posto
  */
 @Entity
 @Table(name = "registrations", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "match_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "match_id"}),
+       indexes = {
+           // Lista d'attesa FIFO: WHERE match_id = ? AND status = 'WAITLISTED' ORDER BY registered_at, id LIMIT 1
+           @Index(name = "idx_registrations_waitlist", columnList = "match_id, status, registered_at, id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Registration {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registrations_seq")
+    @SequenceGenerator(name = "registrations_seq", sequenceName = "registrations_seq", allocationSize = 50)  // pooled: INSERT in batch (vedi User.id)
     private Long id;
     
     /**
@@ -71,7 +77,7 @@ public class Registration {
     private Match match;
     
     /**
-     * Status iscrizione: JOINED o CANCELLED
+     * Status iscrizione: JOINED, CANCELLED o WAITLISTED
      * 
      * JOINED: utente attivo nella partita
      *   - Conta per raggiungere 4 giocatori
@@ -82,6 +88,10 @@ public class Registration {
      *   - Record rimane nel DB per storico/audit
      *   - La partita torna disponibile (posto libero)
      * 
+     * WAITLISTED: utente in coda per una partita piena
+     *   - Non conta per i 4 giocatori
+     *   - Ordine di promozione: registeredAt (FIFO)
+     * 
      * Default: JOINED (quando un utente si iscrive)
      */
     @NotNull(message = "Registration status is required")
@@ -92,7 +102,7 @@ public class Registration {
      * Timestamp iscrizione
      * Utile per:
      * - Audit: chi si è iscritto quando?
-     * - Business logic: iscrizioni in ordine cronologico
+     * - Business logic: iscrizioni in ordine cronologico (ordine della lista d'attesa)
      * - UI: mostrare "Iscritto il 15/10/2025"
      */
     @Column(name = "registered_at", nullable = false)
@@ -18,7 +18,7 @@ import java.util.List;
  * CONCETTI JPA DIMOSTRATI:
  * - @Entity: Marca questa classe come entità JPA mappata su tabella DB
  * - @Table: Specifica il nome della tabella (evita conflitti con keyword SQL)
- * - @Id + @GeneratedValue: Chiave primaria auto-incrementale
+ * - @Id + @GeneratedValue: Chiave primaria da sequence (pooled, compatibile con JDBC batching)
  * - @Column(unique=true): Vincolo di unicità su colonne
  * - @Enumerated: Mapping enum Java -> colonna stringa in DB
  * - @OneToMany: Relazione uno-a-molti con altre entità
@@ -39,10 +39,17 @@ public class User {
     
     /**
      * ID - Chiave primaria
-     * IDENTITY strategy: database genera automaticamente l'ID (auto-increment)
+     * SEQUENCE strategy con optimizer pooled: Hibernate riserva 50 ID per ogni
+     * chiamata alla sequence e li assegna in memoria.
+     * 
+     * PERCHÉ NON IDENTITY?
+     * Con IDENTITY l'ID si conosce solo DOPO l'INSERT: Hibernate deve eseguire ogni
+     * INSERT subito e da solo, e il JDBC batching (hibernate.jdbc.batch_size) viene disattivato.
+     * Con la sequence l'ID è noto prima: gli INSERT vengono accodati e inviati in batch al flush.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     /**
@@ -106,6 +113,23 @@ public class User {
     @Column(nullable = false)
     private Integer matchesPlayed = 0;
     
+    /**
+     * Totali dei feedback ricevuti: somma degli ordinal di suggestedLevel e numero di feedback
+     * 
+     * PERCHÉ DUE COLONNE?
+     * perceivedLevel = round(feedbackSum / feedbackCount): calcolo O(1), senza rileggere
+     * tutti i feedback ricevuti (che per un giocatore attivo crescono senza limite).
+     * 
+     * updatable = false (come Match.activePlayers): cambiano SOLO con UPDATE atomici nel DB
+     * (UserRepository.adjustFeedbackTotals), due feedback concorrenti non si sovrascrivono.
+     * FeedbackService.updatePerceivedLevel riallinea i valori in memoria.
+     */
+    @Column(name = "feedback_sum", nullable = false, updatable = false)
+    private long feedbackSum = 0;
+    
+    @Column(name = "feedback_count", nullable = false, updatable = false)
+    private int feedbackCount = 0;
+    
     /**
      * Relazione ONE-TO-MANY con Registration
      * Un utente può avere molte iscrizioni a partite.
@@ -17,6 +17,12 @@ package com.example.padel_app.model.enums;
  * - Il record rimane nel DB per audit/storico
  * - La partita torna disponibile (3/4 giocatori)
  * 
+ * WAITLISTED (In lista d'attesa):
+ * - Utente in coda per una partita piena (4/4)
+ * - NON conta per i 4 giocatori e non occupa posti
+ * - Coda FIFO per registeredAt: quando un giocatore JOINED lascia la partita,
+ *   il primo in attesa diventa JOINED nella stessa transazione (posto trasferito)
+ * 
  * PERCHÉ NON ELIMINARE IL RECORD?
  * 1. Audit trail: sapere chi si era iscritto e poi ritirato
  * 2. Statistiche: quante volte un utente si disiscritto?
@@ -28,8 +34,9 @@ package com.example.padel_app.model.enums;
  * - Storico completo: SELECT * (include anche CANCELLED)
  */
 public enum RegistrationStatus {
-    JOINED("Iscritto"),        // Attivo, conta per i 4 posti
-    CANCELLED("Cancellato");   // Disiscritto, non conta più
+    JOINED("Iscritto"),                // Attivo, conta per i 4 posti
+    CANCELLED("Cancellato"),           // Disiscritto, non conta più
+    WAITLISTED("In lista d'attesa");   // In coda per una partita piena, non conta
     
     private final String displayName;
     
@@ -0,0 +1,89 @@
+package com.example.padel_app.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * CursorPage - Una pagina di risultati con il cursore per la pagina successiva
+ *
+ * Costruita da un Window di Spring Data (Scroll API):
+ * - Window.getContent(): righe della pagina, già ordinate dal DB
+ * - Window.hasNext(): Spring Data legge una riga in più (LIMIT size + 1)
+ *   per sapere se esiste una pagina successiva, senza COUNT(*) separata
+ * - Window.positionAt(i): chiave keyset della riga i → codificata da KeysetCursor
+ *
+ * Uso nel template:
+ *   th:each="match : ${page.items}"
+ *   th:if="${page.hasNext()}" → link con after=${page.nextCursor}
+ *
+ * @param <T> tipo elementi (Match, MatchFeedItem, ...)
+ */
+@Getter
+@ToString
+public class CursorPage<T> {
+
+    /**
+     * Dimensione pagina di default e massima (protegge da ?size=100000)
+     */
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> items;
+
+    /**
+     * Cursore codificato dell'ultimo elemento (null se ultima pagina)
+     */
+    private final String nextCursor;
+
+    private CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Pagina con elementi e cursore già noti
+     */
+    public static <T> CursorPage<T> of(List<T> items, String nextCursor) {
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    /**
+     * Pagina da un Window di Spring Data letto con l'ordinamento indicato
+     *
+     * @param window risultato di FetchableFluentQuery.scroll(...)
+     * @param sort ordinamento della query (per codificare il cursore)
+     */
+    public static <T> CursorPage<T> of(Window<T> window, Sort sort) {
+        List<T> items = window.getContent();
+        String next = window.hasNext() && !items.isEmpty()
+                ? KeysetCursor.encode(window.positionAt(items.size() - 1), sort)
+                : null;
+        return new CursorPage<>(items, next);
+    }
+
+    /**
+     * Normalizza la dimensione richiesta dall'utente: null/&lt;=0 → default, oltre il massimo → massimo
+     */
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Stessa pagina (stesso cursore) con gli elementi convertiti, es. Match → MatchFeedItem
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -3,10 +3,17 @@ package com.example.padel_app.repository;
 import com.example.padel_app.model.Feedback;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -253,4 +260,101 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
            "WHEN f.suggestedLevel = 'PROFESSIONISTA' THEN 4 " +
            "END) FROM Feedback f WHERE f.targetUser = :targetUser")
     Double getAverageLevelForUser(User targetUser);
+    
+    /**
+     * Totali dei feedback ricevuti per utente: somma degli ordinal di suggestedLevel e conteggio
+     * 
+     * CASE WHEN come getAverageLevelForUser, ma con la scala di Level.ordinal() (0-3)
+     * usata da FeedbackService per il perceivedLevel.
+     * 
+     * SQL: SELECT target_user_id, SUM(CASE ... END), COUNT(*) FROM feedbacks GROUP BY target_user_id
+     * 
+     * Uso: FeedbackService.backfillFeedbackTotals (una riga per utente con almeno un feedback)
+     */
+    @Query("SELECT f.targetUser.id AS userId, SUM(" + LEVEL_ORDINAL + ") AS levelSum, COUNT(f) AS feedbacks " +
+           "FROM Feedback f GROUP BY f.targetUser.id")
+    List<ReceivedLevels> sumReceivedLevelsByUser();
+    
+    /**
+     * Come sumReceivedLevelsByUser, limitato ai feedback di una partita
+     * 
+     * Uso: FeedbackService.removeFeedbacksOfMatch, prima che il cascade li elimini con la partita
+     */
+    @Query("SELECT f.targetUser.id AS userId, SUM(" + LEVEL_ORDINAL + ") AS levelSum, COUNT(f) AS feedbacks " +
+           "FROM Feedback f WHERE f.match.id = :matchId GROUP BY f.targetUser.id")
+    List<ReceivedLevels> sumReceivedLevelsByMatch(Long matchId);
+    
+    /**
+     * Tra i destinatari indicati, quelli che l'autore ha già valutato in questa partita
+     * 
+     * SQL: SELECT target_user_id FROM feedbacks
+     *      WHERE author_id = ? AND match_id = ? AND target_user_id IN (?, ?, ?)
+     * 
+     * UNA query per tutti i compagni (usa l'indice del vincolo UNIQUE author/target/match),
+     * invece di un findByAuthorAndTargetUserAndMatch per ogni giocatore valutato.
+     * 
+     * Uso: FeedbackService.createFeedbacks (invio dei feedback a tutti i compagni insieme)
+     */
+    @Query("SELECT f.targetUser.id FROM Feedback f " +
+           "WHERE f.author = :author AND f.match = :match AND f.targetUser.id IN :targetUserIds")
+    List<Long> findRatedTargetIds(User author, Match match, Collection<Long> targetUserIds);
+    
+    /**
+     * Istogramma dei feedback ricevuti: quanti per ogni livello suggerito
+     * 
+     * SQL: SELECT suggested_level, COUNT(*) FROM feedbacks WHERE target_user_id = ? GROUP BY suggested_level
+     * 
+     * Al massimo 4 righe qualunque sia lo storico: totale e media si ricavano da qui
+     * (FeedbackStats), senza caricare i feedback né le loro relazioni.
+     * 
+     * Uso: pagina /my-profile (statistiche)
+     */
+    @Query("SELECT f.suggestedLevel AS level, COUNT(f) AS feedbacks FROM Feedback f " +
+           "WHERE f.targetUser = :targetUser GROUP BY f.suggestedLevel")
+    List<LevelCount> countReceivedByLevel(User targetUser);
+    
+    /**
+     * Una pagina keyset dei feedback ricevuti (Scroll API, come la lista partite)
+     * 
+     * @EntityGraph: author e match caricati con la pagina (il template li mostra),
+     * targetUser no (è l'utente del profilo).
+     * Spring Data genera: WHERE target_user_id = ? AND (created_at, id) < (?, ?)
+     *                     ORDER BY created_at DESC, id DESC FETCH FIRST limit + 1
+     * 
+     * Uso: pagina /my-profile (feedback ricevuti, dal più recente)
+     */
+    @EntityGraph(attributePaths = {"author", "match"})
+    Window<Feedback> findRecentByTargetUser(User targetUser, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Come findRecentByTargetUser, per i feedback scritti dall'utente (targetUser e match caricati)
+     */
+    @EntityGraph(attributePaths = {"targetUser", "match"})
+    Window<Feedback> findRecentByAuthor(User author, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Level.ordinal() di f.suggestedLevel in JPQL
+     */
+    String LEVEL_ORDINAL = "CASE " +
+           "WHEN f.suggestedLevel = 'PRINCIPIANTE' THEN 0 " +
+           "WHEN f.suggestedLevel = 'INTERMEDIO' THEN 1 " +
+           "WHEN f.suggestedLevel = 'AVANZATO' THEN 2 " +
+           "WHEN f.suggestedLevel = 'PROFESSIONISTA' THEN 3 END";
+    
+    /**
+     * Projection (interfaccia) per countReceivedByLevel
+     */
+    interface LevelCount {
+        Level getLevel();
+        long getFeedbacks();
+    }
+    
+    /**
+     * Projection (interfaccia) per le query sui totali: Spring Data mappa gli alias AS sui getter
+     */
+    interface ReceivedLevels {
+        Long getUserId();
+        long getLevelSum();
+        long getFeedbacks();
+    }
 }
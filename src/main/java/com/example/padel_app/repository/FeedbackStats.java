@@ -0,0 +1,59 @@
+package com.example.padel_app.repository;
+
+import com.example.padel_app.model.enums.Level;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FeedbackStats - Statistiche dei feedback ricevuti da un utente (pagina /my-profile)
+ *
+ * Costruite dalle (al massimo 4) righe di FeedbackRepository.countReceivedByLevel:
+ * - counts: feedback ricevuti per livello (tutti i Level presenti, anche a 0)
+ * - total: somma dei conteggi
+ * - averageLevel: media sulla scala 1-4 mostrata nel profilo
+ *   (PRINCIPIANTE=1 ... PROFESSIONISTA=4), null se nessun feedback
+ *
+ * Prima: tutti i feedback ricevuti caricati con JOIN FETCH e scorsi 5 volte in memoria
+ * (media + un filtro per livello), costo crescente con lo storico.
+ */
+@Getter
+@ToString
+public class FeedbackStats {
+
+    private final Map<Level, Long> counts;
+    private final long total;
+    private final Double averageLevel;
+
+    private FeedbackStats(Map<Level, Long> counts, long total, Double averageLevel) {
+        this.counts = counts;
+        this.total = total;
+        this.averageLevel = averageLevel;
+    }
+
+    public static FeedbackStats of(List<FeedbackRepository.LevelCount> rows) {
+        Map<Level, Long> counts = new EnumMap<>(Level.class);
+        for (Level level : Level.values()) {
+            counts.put(level, 0L);
+        }
+        long total = 0;
+        long weighted = 0;
+        for (FeedbackRepository.LevelCount row : rows) {
+            counts.put(row.getLevel(), row.getFeedbacks());
+            total += row.getFeedbacks();
+            weighted += (row.getLevel().ordinal() + 1) * row.getFeedbacks();
+        }
+        return new FeedbackStats(counts, total, total == 0 ? null : (double) weighted / total);
+    }
+
+    public long getCount(Level level) {
+        return counts.get(level);
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+}
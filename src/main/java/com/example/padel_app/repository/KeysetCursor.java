@@ -0,0 +1,100 @@
+package com.example.padel_app.repository;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * KeysetCursor - Codifica nell'URL della posizione keyset di una lista paginata
+ *
+ * Usato per le liste partite (MatchService) e per i feedback del profilo (FeedbackService).
+ *
+ * KEYSET (CURSOR) PAGINATION vs OFFSET:
+ * - OFFSET: "LIMIT 20 OFFSET 2000" → il DB legge e scarta 2000 righe, pagine profonde sempre più lente
+ * - KEYSET: "WHERE (date_time, id) > (?, ?) ORDER BY date_time, id LIMIT 20"
+ *   → il DB salta direttamente alla posizione tramite indice, ogni pagina costa come la prima
+ *
+ * La chiave è formata dai valori delle proprietà del Sort della strategia, nello stesso ordine,
+ * con "id" come ultimo elemento (tie-breaker: rende la chiave UNICA):
+ * - date:       dateTime, id                  → "2025-06-01T18:30_42"
+ * - popularity: activePlayers, dateTime, id   → "3_2025-06-01T18:30_42"
+ * - level:      levelRank, dateTime, id       → "1_2025-06-01T18:30_42"
+ * - feedback del profilo (FeedbackService): createdAt, id → "2025-06-01T18:30:12.345678_7"
+ *
+ * Spring Data (Scroll API) usa questi valori per generare la condizione keyset:
+ * KeysetScrollPosition = Map proprietà → valore dell'ultima riga vista.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "_";
+
+    /**
+     * Proprietà (di Match e Feedback) utilizzabili come chiave keyset e come leggerle dall'URL
+     */
+    private static final Map<String, Function<String, Object>> KEY_PARSERS = Map.of(
+        "id", Long::valueOf,
+        "dateTime", LocalDateTime::parse,
+        "activePlayers", Integer::valueOf,
+        "levelRank", Integer::valueOf,
+        "createdAt", LocalDateTime::parse);
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Decodifica il parametro URL "after" per l'ordinamento indicato
+     *
+     * Cursore assente, malformato (URL modificato a mano) o di un altro ordinamento
+     * (l'utente ha cambiato "Ordina per") → prima pagina, stesso comportamento "lenient"
+     * dei filtri level/status nei controller.
+     *
+     * @param token valore del parametro URL (può essere null)
+     * @param sort ordinamento completo usato per la query (id incluso)
+     */
+    public static ScrollPosition decode(String token, Sort sort) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String[] values = token.split(SEPARATOR, -1);
+        List<Sort.Order> orders = sort.toList();
+        if (values.length != orders.size()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < values.length; i++) {
+                String property = orders.get(i).getProperty();
+                Function<String, Object> parser = KEY_PARSERS.get(property);
+                if (parser == null) {
+                    return ScrollPosition.keyset();
+                }
+                keys.put(property, parser.apply(values[i]));
+            }
+        } catch (RuntimeException e) {
+            return ScrollPosition.keyset();
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Codifica la posizione keyset per il parametro URL "after"
+     *
+     * @param position posizione dell'ultima riga della pagina (Window.positionAt)
+     * @param sort ordinamento usato per la query: fissa l'ordine dei valori
+     */
+    public static String encode(ScrollPosition position, Sort sort) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        StringJoiner token = new StringJoiner(SEPARATOR);
+        for (Sort.Order order : sort) {
+            token.add(String.valueOf(keys.get(order.getProperty())));
+        }
+        return token.toString();
+    }
+}
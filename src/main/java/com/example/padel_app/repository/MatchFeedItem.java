@@ -0,0 +1,120 @@
+package com.example.padel_app.repository;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * MatchFeedItem - Riga "piatta" di una partita per il feed della home page
+ *
+ * PERCHÉ UN OGGETTO DEDICATO invece dell'entità Match?
+ * La home page mostra per ogni partita pochi campi + quanti giocatori sono iscritti (JOINED).
+ *
+ * Caricando solo le entità, il conteggio (e il controllo "già iscritto") costava una query per partita
+ * (isUserRegistered + getActiveRegistrationsCount → 2N+1 queries).
+ * Ora arrivano con la pagina stessa:
+ * - joinedCount: Match.activePlayers (colonna contatore, letta con la pagina)
+ * - partite dell'utente corrente: escluse dalla query (MatchSpecifications.notJoinedBy)
+ * - heldSeats / heldByViewer: posti tenuti in memoria (SeatLedger), aggiunti con withHolds
+ *
+ * Oggetto immutabile e staccato dal persistence context:
+ * nessun lazy loading possibile durante il rendering del template.
+ *
+ * NOTA: i getter (Lombok @Getter) servono a Thymeleaf: ${match.location}, ${match.joinedCount}
+ */
+@Getter
+@ToString
+public class MatchFeedItem {
+
+    private final Long id;
+    private final String location;
+    private final String description;
+    private final Level requiredLevel;
+    private final MatchStatus status;
+    private final LocalDateTime dateTime;
+
+    /**
+     * Nome e cognome del creatore (null per partite organizzate dal centro)
+     */
+    private final String creatorFirstName;
+    private final String creatorLastName;
+
+    /**
+     * Numero di iscrizioni JOINED
+     */
+    private final int joinedCount;
+
+    /**
+     * Posti tenuti da un hold (SeatLedger.hold): occupati ma non ancora iscrizioni nel DB
+     */
+    private final int heldSeats;
+
+    /**
+     * true se uno dei posti tenuti è dell'utente che guarda il feed
+     */
+    private final boolean heldByViewer;
+
+    public MatchFeedItem(Long id, String location, String description, Level requiredLevel,
+                         MatchStatus status, LocalDateTime dateTime,
+                         String creatorFirstName, String creatorLastName,
+                         int joinedCount) {
+        this(id, location, description, requiredLevel, status, dateTime,
+                creatorFirstName, creatorLastName, joinedCount, 0, false);
+    }
+
+    private MatchFeedItem(Long id, String location, String description, Level requiredLevel,
+                          MatchStatus status, LocalDateTime dateTime,
+                          String creatorFirstName, String creatorLastName,
+                          int joinedCount, int heldSeats, boolean heldByViewer) {
+        this.id = id;
+        this.location = location;
+        this.description = description;
+        this.requiredLevel = requiredLevel;
+        this.status = status;
+        this.dateTime = dateTime;
+        this.creatorFirstName = creatorFirstName;
+        this.creatorLastName = creatorLastName;
+        this.joinedCount = joinedCount;
+        this.heldSeats = heldSeats;
+        this.heldByViewer = heldByViewer;
+    }
+
+    /**
+     * Costruisce la riga da una partita (creator già caricato con la pagina)
+     *
+     * @param match partita della pagina
+     */
+    public static MatchFeedItem of(Match match) {
+        User creator = match.getCreator();
+        return new MatchFeedItem(match.getId(), match.getLocation(), match.getDescription(),
+                match.getRequiredLevel(), match.getStatus(), match.getDateTime(),
+                creator != null ? creator.getFirstName() : null,
+                creator != null ? creator.getLastName() : null,
+                match.getActivePlayers());
+    }
+
+    /**
+     * Copia con i posti tenuti della partita (letti da SeatLedger, non dal DB)
+     *
+     * @param heldSeats hold non scaduti della partita
+     * @param heldByViewer true se uno è dell'utente corrente
+     */
+    public MatchFeedItem withHolds(int heldSeats, boolean heldByViewer) {
+        return new MatchFeedItem(id, location, description, requiredLevel, status, dateTime,
+                creatorFirstName, creatorLastName, joinedCount, heldSeats, heldByViewer);
+    }
+
+    /**
+     * Stessa regola di SeatLedger.isFull(): 4 posti tra giocatori JOINED e posti tenuti
+     *
+     * Chi tiene un posto non vede la partita piena: il suo join usa il posto tenuto.
+     */
+    public boolean isFull() {
+        return !heldByViewer && joinedCount + heldSeats >= Match.MAX_PLAYERS;
+    }
+}
@@ -4,11 +4,17 @@ import com.example.padel_app.model.Match;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
 import com.example.padel_app.model.enums.MatchType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,7 +30,7 @@ import java.util.Optional;
  *    
  * 2. @Query CON ORDER BY
  *    - Ordinamento personalizzato dei risultati
- *    - SIZE(collection): conta elementi di una relazione @OneToMany
+ *    - Popolarità: contatore denormalizzato activePlayers (niente SIZE/COUNT su registrations)
  *    - Utile per sorting strategy (data, popolarità, livello)
  *    
  * 3. JOIN FETCH - SOLUZIONE A LazyInitializationException
@@ -42,9 +48,23 @@ import java.util.Optional;
  *    - Combinazione di più condizioni WHERE
  *    - Named parameters (:level, :status) per leggibilità
  *    - Utili per filtri complessi nell'interfaccia utente
+ *    
+ * 6. SPECIFICATION + SCROLL API (keyset pagination)
+ *    - JpaSpecificationExecutor: filtri componibili (MatchSpecifications)
+ *    - findBy(spec, q -> q.sortBy(sort).limit(n).scroll(position)): Window<Match>
+ *    - Sort fornito dalla MatchSortingStrategy → ORDER BY eseguito dal DB
+ *    - Keyset: WHERE (chiavi del sort) > (valori ultima riga), niente OFFSET
+ *    - Costo costante per ogni pagina grazie agli indici su matches
+ *    
+ * 7. @Modifying - UPDATE ATOMICI
+ *    - Contatore activePlayers aggiornato con "SET x = x + 1" eseguito dal DB
+ *    - Nessun read-modify-write in Java: iscrizioni concorrenti non perdono incrementi
+ *    - claimSeat: incremento condizionale (WHERE active_players < capacità) → niente overbooking
+ *    - claimSeats: stessa cosa per un gruppo (tutti i posti o nessuno)
+ *    - updateStatus: cambio di stato di un blocco di partite (sweeper partite scadute)
  */
 @Repository
-public interface MatchRepository extends JpaRepository<Match, Long> {
+public interface MatchRepository extends JpaRepository<Match, Long>, JpaSpecificationExecutor<Match> {
     
     /**
      * Trova tutti i match per status (PENDING, CONFIRMED, COMPLETED, CANCELLED)
@@ -108,19 +128,15 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     /**
      * Trova tutti i match ordinati per popolarità (iscritti)
      * 
-     * @Query CON SIZE() FUNCTION:
-     * SIZE(m.registrations): conta quante Registration ha questo Match
+     * ORDER BY sul contatore denormalizzato activePlayers (solo JOINED):
+     * nessun JOIN/GROUP BY su registrations, la colonna è indicizzata.
      * DESC: dal più popolare (più iscritti) al meno popolare
      * 
-     * SQL generato (semplificato):
-     *   SELECT m.*, COUNT(r.id) as reg_count
-     *   FROM matches m LEFT JOIN registrations r ON m.id = r.match_id
-     *   GROUP BY m.id
-     *   ORDER BY reg_count DESC
+     * SQL generato: SELECT * FROM matches ORDER BY active_players DESC
      * 
      * Uso tipico: sezione "Match più popolari" / "Trending"
      */
-    @Query("SELECT m FROM Match m ORDER BY SIZE(m.registrations) DESC")
+    @Query("SELECT m FROM Match m ORDER BY m.activePlayers DESC")
     List<Match> findAllOrderByPopularity();
     
     /**
@@ -149,6 +165,37 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
      */
     List<Match> findByDateTimeBefore(LocalDateTime dateTime);
     
+    /**
+     * ID delle partite con uno status e data antecedente a una soglia, a blocchi
+     * 
+     * Solo gli ID e al massimo "limit" righe: il costo non dipende dallo storico
+     * (le partite FINISHED degli anni passati non vengono lette).
+     * Indice idx_matches_status_date_time (status, date_time, id): il DB legge solo
+     * il tratto di indice status = ? AND date_time < ?, già nell'ordine richiesto.
+     * 
+     * SQL: SELECT id FROM matches WHERE status = ? AND date_time < ?
+     *      ORDER BY date_time, id LIMIT ?
+     * 
+     * Uso: MatchService.markExpiredMatchesAsFinished (partite CONFIRMED scadute)
+     */
+    @Query("SELECT m.id FROM Match m WHERE m.status = :status AND m.dateTime < :before ORDER BY m.dateTime, m.id")
+    List<Long> findIdsByStatusAndDateTimeBefore(MatchStatus status, LocalDateTime before, Limit limit);
+    
+    /**
+     * Blocca (lock di riga) le partite indicate che hanno ancora lo status atteso
+     * 
+     * Fino al commit nessun'altra transazione può cambiarle: l'UPDATE successivo
+     * tocca esattamente queste righe. Le partite cambiate nel frattempo
+     * (es. finishMatch concorrente) non vengono restituite.
+     * 
+     * SQL: SELECT * FROM matches WHERE id IN (?, ?, ...) AND status = ? FOR UPDATE
+     * 
+     * Uso: MatchService.markExpiredMatchesAsFinished
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Match m WHERE m.id IN :ids AND m.status = :status")
+    List<Match> lockByIdInAndStatus(Collection<Long> ids, MatchStatus status);
+    
     /**
      * Trova match per status con data futura (query composita)
      * 
@@ -271,15 +318,14 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     /**
      * Trova match ordinati per popolarità con dati EAGER-loaded
      * 
-     * JOIN FETCH + SIZE() + ORDER BY:
-     * Query complessa che combina:
+     * JOIN FETCH + ORDER BY:
+     * Query che combina:
      * - Caricamento eager (JOIN FETCH)
-     * - Conteggio registrazioni (SIZE)
-     * - Ordinamento per popolarità (ORDER BY DESC)
+     * - Ordinamento per popolarità sul contatore activePlayers (ORDER BY DESC)
      * 
      * Uso per sezione "Match più popolari" con rendering completo
      */
-    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.creator LEFT JOIN FETCH m.registrations ORDER BY SIZE(m.registrations) DESC")
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.creator LEFT JOIN FETCH m.registrations ORDER BY m.activePlayers DESC")
     List<Match> findAllOrderByPopularityWithCreator();
     
     /**
@@ -296,4 +342,120 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
      */
     @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.creator LEFT JOIN FETCH m.registrations ORDER BY m.requiredLevel ASC")
     List<Match> findAllOrderByLevelWithCreator();
+    
+    /**
+     * Inizializza le registrations di una pagina di partite con UNA query
+     * 
+     * SECONDA QUERY DELLA PAGINAZIONE ("two-phase fetch"):
+     * JOIN FETCH di una collection + LIMIT non si può tradurre in SQL (righe "partita × iscrizioni"):
+     * Hibernate ripiegherebbe sulla paginazione IN MEMORIA (warning HHH90003004).
+     * Quindi la pagina si legge senza registrations e poi si completa con questa query.
+     * 
+     * Le partite sono già nel persistence context (lette nella stessa transazione):
+     * Hibernate riconosce le stesse entità e popola la loro collection registrations.
+     * Il valore di ritorno può essere ignorato.
+     * 
+     * SQL: SELECT m.*, r.* FROM matches m LEFT JOIN registrations r ON r.match_id = m.id WHERE m.id IN (?, ?, ...)
+     */
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.registrations WHERE m IN :matches")
+    List<Match> fetchRegistrations(Collection<Match> matches);
+    
+    // ==================== CONTATORE GIOCATORI ATTIVI ====================
+    
+    /**
+     * Legge il contatore giocatori attivi direttamente dal DB
+     * 
+     * Valore aggiornato anche se l'entità Match in memoria è detached o vecchia
+     * (es. caricata dal controller in una transazione precedente).
+     * 
+     * SQL: SELECT active_players FROM matches WHERE id = ?  (lookup per PK)
+     */
+    @Query("SELECT m.activePlayers FROM Match m WHERE m.id = :matchId")
+    Optional<Integer> findActivePlayersById(Long matchId);
+    
+    /**
+     * Occupa un posto nella partita SOLO se non è piena (claim condizionale atomico)
+     * 
+     * PROBLEMA RISOLTO (overbooking):
+     * "leggi il contatore → se < 4 inserisci" non è atomico: due join concorrenti
+     * possono leggere entrambi 3 e portare la partita a 5 giocatori.
+     * 
+     * Qui controllo e incremento sono UN SOLO statement: il DB valuta la condizione
+     * sulla riga bloccata. Il secondo join concorrente attende il commit del primo,
+     * rivaluta la WHERE con il valore aggiornato e non aggiorna nulla se la partita è piena.
+     * Il lock è sulla singola riga: join su partite diverse non si bloccano a vicenda.
+     * 
+     * SQL: UPDATE matches SET active_players = active_players + 1
+     *      WHERE id = ? AND active_players < ?
+     * 
+     * @param matchId partita
+     * @param capacity numero massimo di giocatori (Match.MAX_PLAYERS)
+     * @return 1 se il posto è stato occupato, 0 se la partita è piena (o non esiste)
+     */
+    @Modifying
+    @Query("UPDATE Match m SET m.activePlayers = m.activePlayers + 1 " +
+           "WHERE m.id = :matchId AND m.activePlayers < :capacity")
+    int claimSeat(Long matchId, int capacity);
+    
+    /**
+     * Occupa più posti insieme (iscrizione di gruppo): tutti o nessuno
+     * 
+     * Come claimSeat, ma la condizione verifica che ci sia spazio per TUTTO il gruppo:
+     * 3 posti richiesti su una partita con 2 giocatori → 0 righe, nessun posto occupato.
+     * 
+     * SQL: UPDATE matches SET active_players = active_players + ?
+     *      WHERE id = ? AND active_players + ? <= ?
+     * 
+     * @param matchId partita
+     * @param seats posti richiesti (dimensione del gruppo)
+     * @param capacity numero massimo di giocatori (Match.MAX_PLAYERS)
+     * @return 1 se i posti sono stati occupati, 0 se non c'è spazio per tutti (o la partita non esiste)
+     */
+    @Modifying
+    @Query("UPDATE Match m SET m.activePlayers = m.activePlayers + :seats " +
+           "WHERE m.id = :matchId AND m.activePlayers + :seats <= :capacity")
+    int claimSeats(Long matchId, int seats, int capacity);
+    
+    /**
+     * Decrementa il contatore giocatori attivi (iscrizione JOINED → CANCELLED)
+     * 
+     * La condizione activePlayers > 0 impedisce valori negativi.
+     * 
+     * @return righe aggiornate (0 se la partita non esiste o il contatore è già 0)
+     */
+    @Modifying
+    @Query("UPDATE Match m SET m.activePlayers = m.activePlayers - 1 WHERE m.id = :matchId AND m.activePlayers > 0")
+    int decrementActivePlayers(Long matchId);
+    
+    /**
+     * Cambia lo status di un blocco di partite con UN solo UPDATE
+     * 
+     * La condizione sullo status attuale evita di sovrascrivere partite cambiate nel frattempo
+     * (es. terminate a mano con finishMatch mentre lo sweeper lavorava).
+     * 
+     * SQL: UPDATE matches SET status = ? WHERE id IN (?, ?, ...) AND status = ?
+     * 
+     * clearAutomatically: le Match già caricate non restano con il vecchio status
+     * 
+     * @return partite effettivamente aggiornate
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Match m SET m.status = :to WHERE m.id IN :ids AND m.status = :from")
+    int updateStatus(Collection<Long> ids, MatchStatus from, MatchStatus to);
+    
+    /**
+     * Ricalcola il contatore di TUTTE le partite contando le iscrizioni JOINED
+     * 
+     * Serve quando le registrations sono scritte senza passare da RegistrationService
+     * (es. DataSeeder che usa direttamente i repository).
+     * 
+     * SQL: UPDATE matches m SET active_players =
+     *        (SELECT COUNT(*) FROM registrations r WHERE r.match_id = m.id AND r.status = 'JOINED')
+     * 
+     * @return numero di partite aggiornate
+     */
+    @Modifying
+    @Query("UPDATE Match m SET m.activePlayers = " +
+           "(SELECT COUNT(r) FROM Registration r WHERE r.match = m AND r.status = 'JOINED')")
+    int recountActivePlayers();
 }
@@ -0,0 +1,94 @@
+package com.example.padel_app.repository;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.Registration;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * MatchSpecifications - Filtri componibili per le liste partite (Criteria API)
+ *
+ * PERCHÉ SPECIFICATION invece di un metodo @Query per ogni combinazione?
+ * I filtri delle pagine (livello, status, "solo le mie partite") si combinano con
+ * tre ordinamenti diversi e con la paginazione keyset. Con @Query servirebbe
+ * un metodo per ogni combinazione; con Specification si compongono a runtime:
+ *
+ *   Specification.allOf(withCreator(), statusIn(List.of(WAITING)), hasLevel(level))
+ *
+ * e Spring Data aggiunge ORDER BY (dal Sort della strategia) e la condizione keyset.
+ *
+ * Un filtro "non richiesto" (es. level == null) ritorna un predicate null:
+ * Spring Data lo ignora nella composizione.
+ */
+public final class MatchSpecifications {
+
+    private MatchSpecifications() {
+    }
+
+    /**
+     * Carica il creator nella stessa query (LEFT JOIN FETCH)
+     *
+     * Il fetch si applica solo alle query di selezione: nelle COUNT generate da Spring Data
+     * un JOIN FETCH non è valido, quindi viene saltato.
+     */
+    public static Specification<Match> withCreator() {
+        return (root, query, cb) -> {
+            Class<?> resultType = query.getResultType();
+            if (resultType != Long.class && resultType != long.class) {
+                root.fetch("creator", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Filtro livello richiesto (null = tutti i livelli)
+     */
+    public static Specification<Match> hasLevel(Level level) {
+        return (root, query, cb) -> level == null ? null : cb.equal(root.get("requiredLevel"), level);
+    }
+
+    /**
+     * Filtro status: WHERE m.status IN (...)
+     */
+    public static Specification<Match> statusIn(Collection<MatchStatus> statuses) {
+        return (root, query, cb) -> root.get("status").in(statuses);
+    }
+
+    /**
+     * Solo partite a cui il giocatore è iscritto (JOINED)
+     *
+     * EXISTS invece di JOIN: ogni partita compare una sola volta, senza DISTINCT.
+     * SQL: WHERE EXISTS (SELECT 1 FROM registrations r
+     *                    WHERE r.match_id = m.id AND r.user_id = ? AND r.status = 'JOINED')
+     */
+    public static Specification<Match> joinedBy(User player) {
+        return (root, query, cb) -> {
+            Subquery<Long> registration = query.subquery(Long.class);
+            var r = registration.from(Registration.class);
+            registration.select(r.get("id")).where(
+                cb.equal(r.get("match"), root),
+                cb.equal(r.get("user"), player),
+                cb.equal(r.get("status"), RegistrationStatus.JOINED));
+            return cb.exists(registration);
+        };
+    }
+
+    /**
+     * Solo partite a cui il giocatore NON è iscritto (feed della home: partite a cui unirsi)
+     *
+     * Filtro nella query e non sulla pagina già letta: ogni pagina keyset resta piena.
+     * SQL: WHERE NOT EXISTS (SELECT 1 FROM registrations r
+     *                        WHERE r.match_id = m.id AND r.user_id = ? AND r.status = 'JOINED')
+     */
+    public static Specification<Match> notJoinedBy(User player) {
+        return Specification.not(joinedBy(player));
+    }
+}
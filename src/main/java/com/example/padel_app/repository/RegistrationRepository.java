@@ -5,9 +5,11 @@ import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.RegistrationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,7 @@ import java.util.Optional;
  * - countActiveRegistrationsByMatch(): conta solo JOINED (determina se partita è piena)
  * - countAllRegistrationsByMatch(): conta TUTTI (anche CANCELLED, per storico completo)
  * - existsByUserAndMatchAndStatus(): previene iscrizioni duplicate
+ * - findFirstByMatchAndStatusOrderByRegisteredAtAscIdAsc(): testa della lista d'attesa (FIFO)
  */
 @Repository
 public interface RegistrationRepository extends JpaRepository<Registration, Long> {
@@ -123,22 +126,26 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
      * SQL: SELECT * FROM registrations WHERE user_id = ? AND match_id = ? AND status = ?
      * 
      * BUSINESS LOGIC:
-     * Usato per trovare registration CANCELLED da riattivare durante ri-iscrizione.
-     * Questo previene violazione del vincolo unique (user_id, match_id) permettendo
-     * iscrizioni multiple dopo disiscrizione.
-     * 
-     * Optional perché può non esistere (prima iscrizione o mai cancellata)
-     * 
-     * Uso in RegistrationService.joinMatch():
-     *   Optional<Registration> cancelled = 
-     *       registrationRepository.findByUserAndMatchAndStatus(user, match, CANCELLED);
-     *   if (cancelled.isPresent()) {
-     *       // Riattiva esistente invece di crearne nuova
-     *       cancelled.get().setStatus(JOINED);
-     *   }
+     * Registration di un utente in uno stato preciso (es. CANCELLED).
+     * 
+     * Optional perché può non esistere
+     * 
+     * NOTA: RegistrationService.joinMatch usa findByUserAndMatch: la riga da riattivare
+     * può essere CANCELLED ma anche WAITLISTED (vincolo unique (user_id, match_id)).
      */
     Optional<Registration> findByUserAndMatchAndStatus(User user, Match match, RegistrationStatus status);
     
+    /**
+     * Iscrizioni esistenti (qualsiasi status) di più utenti alla stessa partita
+     * 
+     * DERIVED QUERY METHOD - IN:
+     * SQL: SELECT * FROM registrations WHERE match_id = ? AND user_id IN (?, ?, ...)
+     * 
+     * UNA query per tutto il gruppo invece di un controllo per utente.
+     * Uso: RegistrationService.joinMatchAsGroup (duplicati + riuso registrations esistenti)
+     */
+    List<Registration> findByMatchAndUserIn(Match match, Collection<User> users);
+    
     /**
      * Trova iscrizioni ATTIVE (JOINED) per una partita (con JOIN FETCH)
      * 
@@ -158,7 +165,21 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
      */
     @Query("SELECT r FROM Registration r JOIN FETCH r.user WHERE r.match = :match AND r.status = :status")
     List<Registration> findByMatchAndStatus(Match match, RegistrationStatus status);
-    
+
+    /**
+     * Iscrizioni con un dato status di più partite (con JOIN FETCH)
+     *
+     * SQL:
+     *   SELECT r.*, u.* FROM registrations r
+     *   INNER JOIN users u ON r.user_id = u.id
+     *   WHERE r.match_id IN (?, ?, ...) AND r.status = ?
+     *
+     * UNA query per tutte le partite invece di findByMatchAndStatus per ognuna (N+1).
+     * Uso: MatchReminderScheduler.load (iscritti delle partite confermate all'avvio)
+     */
+    @Query("SELECT r FROM Registration r JOIN FETCH r.user WHERE r.match IN :matches AND r.status = :status")
+    List<Registration> findByMatchInAndStatus(Collection<Match> matches, RegistrationStatus status);
+
     /**
      * Conta iscrizioni ATTIVE (JOINED) per una partita
      * 
@@ -185,8 +206,8 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
     /**
      * Conta TUTTE le iscrizioni per una partita (JOINED + CANCELLED)
      * 
-     * @Query AGGREGATE - COUNT senza filtro status:
-     * SQL: SELECT COUNT(*) FROM registrations WHERE match_id = ?
+     * @Query AGGREGATE - COUNT (esclusa solo la lista d'attesa):
+     * SQL: SELECT COUNT(*) FROM registrations WHERE match_id = ? AND status <> 'WAITLISTED'
      * 
      * PERCHÉ SERVE?
      * Per partite FINISHED, vogliamo sapere quanti partecipanti totali ci sono stati,
@@ -198,9 +219,11 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
      * - countActiveRegistrationsByMatch(): 3 (solo JOINED)
      * - countAllRegistrationsByMatch(): 4 (TUTTI i partecipanti reali)
      * 
+     * Chi era solo in lista d'attesa (WAITLISTED) non ha mai occupato un posto: non è un partecipante.
+     * 
      * Uso: mostrare contatori corretti per partite finite e form feedback
      */
-    @Query("SELECT COUNT(r) FROM Registration r WHERE r.match = :match")
+    @Query("SELECT COUNT(r) FROM Registration r WHERE r.match = :match AND r.status <> 'WAITLISTED'")
     int countAllRegistrationsByMatch(Match match);
     
     /**
@@ -214,4 +237,72 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
      *       registrationRepository.findByUserAndStatus(user, RegistrationStatus.JOINED);
      */
     List<Registration> findByUserAndStatus(User user, RegistrationStatus status);
+    
+    /**
+     * Partite WAITING in cui l'utente ha già un posto o è in lista d'attesa
+     * 
+     * SQL: SELECT r.match_id FROM registrations r JOIN matches m ON m.id = r.match_id
+     *      WHERE r.user_id = ? AND r.status <> 'CANCELLED' AND m.status = 'WAITING'
+     * 
+     * Uso: Matchmaker.recommend esclude queste partite dai consigli
+     */
+    @Query("SELECT r.match.id FROM Registration r " +
+           "WHERE r.user = :user AND r.status <> 'CANCELLED' AND r.match.status = 'WAITING'")
+    List<Long> findOpenMatchIdsOf(User user);
+    
+    /**
+     * Giocatori JOINED per ogni partita che ne ha almeno uno (una riga per partita)
+     * 
+     * SQL: SELECT r.match_id, COUNT(*) FROM registrations r
+     *      WHERE r.status = 'JOINED' GROUP BY r.match_id
+     * 
+     * Uso: ricostruzione del SeatLedger all'avvio con UNA query
+     */
+    @Query("SELECT r.match.id AS matchId, COUNT(r) AS players FROM Registration r " +
+           "WHERE r.status = 'JOINED' GROUP BY r.match.id")
+    List<ActivePlayersCount> countActivePlayersByMatch();
+    
+    /**
+     * Primo utente in lista d'attesa per una partita (FIFO)
+     * 
+     * DERIVED QUERY METHOD - findFirst + OrderBy:
+     * SQL: SELECT * FROM registrations
+     *      WHERE match_id = ? AND status = 'WAITLISTED'
+     *      ORDER BY registered_at, id
+     *      LIMIT 1
+     * 
+     * PERFORMANCE:
+     * Con l'indice idx_registrations_waitlist (match_id, status, registered_at, id) il DB legge
+     * direttamente la prima voce dell'indice: costo costante, indipendente da quante
+     * iscrizioni (JOINED, CANCELLED, in attesa) ha la partita. Nessuna lista caricata in memoria.
+     * id come secondo criterio: ordine stabile anche con registeredAt identici.
+     * 
+     * Uso: RegistrationService.leaveMatch → promozione del primo in attesa
+     */
+    Optional<Registration> findFirstByMatchAndStatusOrderByRegisteredAtAscIdAsc(Match match, RegistrationStatus status);
+    
+    /**
+     * Promuove un'iscrizione dalla lista d'attesa a JOINED (UPDATE condizionale)
+     * 
+     * SQL: UPDATE registrations SET status = 'JOINED'
+     *      WHERE id = ? AND status = 'WAITLISTED'
+     * 
+     * PERCHÉ CONDIZIONALE?
+     * Due giocatori che lasciano la partita insieme leggono lo stesso primo in attesa:
+     * solo uno dei due UPDATE trova ancora WAITLISTED (ritorna 1), l'altro ritorna 0
+     * e passa al successivo in coda. Nessun utente promosso due volte, nessun posto perso.
+     * 
+     * @return 1 se promosso, 0 se nel frattempo non era più in attesa
+     */
+    @Modifying
+    @Query("UPDATE Registration r SET r.status = 'JOINED' WHERE r.id = :registrationId AND r.status = 'WAITLISTED'")
+    int promoteFromWaitlist(Long registrationId);
+    
+    /**
+     * Projection (interfaccia) per countActivePlayersByMatch: Spring Data mappa gli alias AS sui getter
+     */
+    interface ActivePlayersCount {
+        Long getMatchId();
+        long getPlayers();
+    }
 }
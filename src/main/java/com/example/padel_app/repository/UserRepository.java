@@ -3,9 +3,11 @@ package com.example.padel_app.repository;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -119,4 +121,153 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u ORDER BY u.matchesPlayed DESC")
     List<User> findAllOrderByMatchesPlayedDesc();
+    
+    /**
+     * Incrementa matchesPlayed di tutti i partecipanti di una partita (UN solo statement)
+     * 
+     * Partecipanti = creatore + utenti con iscrizione JOINED.
+     * Il creatore iscritto anche come JOINED viene aggiornato UNA volta sola:
+     * l'UPDATE tocca ogni riga di users al massimo una volta (niente Set per deduplicare).
+     * 
+     * SQL: UPDATE users SET matches_played = matches_played + 1
+     *      WHERE id IN (SELECT creator_id FROM matches WHERE id = ?)
+     *         OR id IN (SELECT user_id FROM registrations WHERE match_id = ? AND status = 'JOINED')
+     * 
+     * PERCHÉ UN UPDATE BULK?
+     * Prima: caricare creatore + registrations con i loro utenti, incrementare in Java,
+     * saveAll + dirty checking → diverse query per un'operazione aritmetica.
+     * Ora: nessuna entità caricata, il DB fa tutto in una volta.
+     * 
+     * @Modifying(flushAutomatically, clearAutomatically):
+     * - flush prima: le modifiche pendenti (es. status FINISHED) arrivano al DB prima dell'UPDATE
+     * - clear dopo: eventuali User in memoria non restano con il vecchio contatore
+     * 
+     * @param matchId partita terminata
+     * @return numero di utenti aggiornati
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.matchesPlayed = u.matchesPlayed + 1 " +
+           "WHERE u.id IN (SELECT m.creator.id FROM Match m WHERE m.id = :matchId) " +
+           "OR u.id IN (SELECT r.user.id FROM Registration r WHERE r.match.id = :matchId AND r.status = 'JOINED')")
+    int incrementMatchesPlayedForMatch(Long matchId);
+    
+    /**
+     * Totali dei feedback ricevuti (senza caricare l'entità né i feedback)
+     * 
+     * SQL: SELECT feedback_sum, feedback_count FROM users WHERE id = ?
+     * 
+     * Uso: FeedbackService.updatePerceivedLevel legge i valori appena aggiornati
+     * da adjustFeedbackTotals (l'entità in memoria può avere ancora quelli vecchi)
+     */
+    @Query("SELECT u.feedbackSum AS feedbackSum, u.feedbackCount AS feedbackCount FROM User u WHERE u.id = :userId")
+    Optional<FeedbackTotals> findFeedbackTotalsById(Long userId);
+    
+    /**
+     * Aggiunge (o sottrae, con valori negativi) feedback ai totali di un utente
+     * 
+     * SQL: UPDATE users SET feedback_sum = feedback_sum + ?, feedback_count = feedback_count + ?
+     *      WHERE id = ?
+     * 
+     * Atomico nel DB: due feedback concorrenti per lo stesso utente vengono sommati entrambi
+     * (niente read-modify-write in Java).
+     * 
+     * @Modifying(flushAutomatically): il feedback appena salvato arriva al DB prima dell'UPDATE.
+     * Niente clearAutomatically: author, target e match del chiamante restano gestiti.
+     * 
+     * @param userId destinatario dei feedback
+     * @param levelSum somma degli ordinal di suggestedLevel da aggiungere
+     * @param feedbacks numero di feedback da aggiungere
+     * @return 1 se l'utente esiste, 0 altrimenti
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.feedbackSum = u.feedbackSum + :levelSum, " +
+           "u.feedbackCount = u.feedbackCount + :feedbacks WHERE u.id = :userId")
+    int adjustFeedbackTotals(Long userId, long levelSum, int feedbacks);
+    
+    /**
+     * Totali feedback di più utenti, nella forma delle query aggregate di FeedbackRepository
+     * 
+     * SQL: SELECT id, feedback_sum, feedback_count FROM users WHERE id IN (?, ?, ...) AND feedback_count > 0
+     * 
+     * Uso: FeedbackService.refreshPerceivedLevels (utenti accodati da PerceivedLevelUpdater)
+     */
+    @Query("SELECT u.id AS userId, u.feedbackSum AS levelSum, u.feedbackCount AS feedbacks " +
+           "FROM User u WHERE u.id IN :userIds AND u.feedbackCount > 0")
+    List<FeedbackRepository.ReceivedLevels> findReceivedLevelsByIdIn(Collection<Long> userIds);
+    
+    /**
+     * Imposta lo stesso perceived level a un blocco di utenti
+     * 
+     * SQL: UPDATE users SET perceived_level = ? WHERE id IN (?, ?, ...)
+     * 
+     * Uso: PerceivedLevelRecomputeJob raggruppa gli utenti di un blocco per livello calcolato,
+     * quindi al massimo 4 UPDATE per blocco (uno per Level) invece di uno per utente.
+     * 
+     * @return numero di utenti aggiornati
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.perceivedLevel = :level WHERE u.id IN :userIds")
+    int updatePerceivedLevels(Collection<Long> userIds, Level level);
+    
+    /**
+     * Azzera i totali di tutti gli utenti (primo passo del backfill)
+     * 
+     * SQL: UPDATE users SET feedback_sum = 0, feedback_count = 0
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.feedbackSum = 0, u.feedbackCount = 0")
+    int resetFeedbackTotals();
+    
+    /**
+     * Chiavi di classifica di tutti gli utenti (solo tre colonne, nessuna entità)
+     * 
+     * SQL: SELECT id, matches_played, perceived_level FROM users
+     * 
+     * Uso: Leaderboard.rebuild (avvio e riallineamento periodico), niente ORDER BY:
+     * l'ordinamento lo tiene l'albero in memoria
+     */
+    @Query("SELECT u.id AS userId, u.matchesPlayed AS matchesPlayed, u.perceivedLevel AS perceivedLevel FROM User u")
+    List<LeaderboardRow> findLeaderboardRows();
+    
+    /**
+     * Chiavi di classifica di alcuni utenti
+     * 
+     * SQL: SELECT id, matches_played, perceived_level FROM users WHERE id IN (?, ?, ...)
+     * 
+     * Uso: Leaderboard.rankOf per un utente non ancora in classifica (es. appena registrato)
+     */
+    @Query("SELECT u.id AS userId, u.matchesPlayed AS matchesPlayed, u.perceivedLevel AS perceivedLevel " +
+           "FROM User u WHERE u.id IN :userIds")
+    List<LeaderboardRow> findLeaderboardRowsByIdIn(Collection<Long> userIds);
+    
+    /**
+     * Chiavi di classifica dei partecipanti di una partita (stessi utenti di incrementMatchesPlayedForMatch)
+     * 
+     * SQL: SELECT id, matches_played, perceived_level FROM users
+     *      WHERE id IN (SELECT creator_id FROM matches WHERE id = ?)
+     *         OR id IN (SELECT user_id FROM registrations WHERE match_id = ? AND status = 'JOINED')
+     * 
+     * Uso: Leaderboard.onMatchFinished legge i contatori appena incrementati
+     */
+    @Query("SELECT u.id AS userId, u.matchesPlayed AS matchesPlayed, u.perceivedLevel AS perceivedLevel " +
+           "FROM User u WHERE u.id IN (SELECT m.creator.id FROM Match m WHERE m.id = :matchId) " +
+           "OR u.id IN (SELECT r.user.id FROM Registration r WHERE r.match.id = :matchId AND r.status = 'JOINED')")
+    List<LeaderboardRow> findLeaderboardRowsByMatch(Long matchId);
+    
+    /**
+     * Projection (interfaccia) per findFeedbackTotalsById: Spring Data mappa gli alias AS sui getter
+     */
+    interface FeedbackTotals {
+        long getFeedbackSum();
+        int getFeedbackCount();
+    }
+    
+    /**
+     * Projection per le query di classifica: chiave di ordinamento di un utente
+     */
+    interface LeaderboardRow {
+        Long getUserId();
+        Integer getMatchesPlayed();
+        Level getPerceivedLevel();
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.padel_app.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AfterCommit - Esegue un'azione in memoria solo quando la transazione corrente va in commit
+ *
+ * Usato dalle strutture in memoria (cache, indici, timer) che devono rispecchiare il DB:
+ * aggiornarle prima del commit esporrebbe dati che un rollback poi annulla.
+ *
+ * SENZA TRANSAZIONE:
+ * l'azione viene eseguita subito (job schedulati, listener, test unitari):
+ * non c'è nessun commit da aspettare.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Dopo il commit della transazione corrente; subito se non c'è una transazione attiva
+     */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
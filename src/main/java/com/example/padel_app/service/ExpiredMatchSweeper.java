@@ -0,0 +1,79 @@
+package com.example.padel_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * ExpiredMatchSweeper - Job schedulato che termina le partite CONFIRMED scadute
+ *
+ * PROBLEMA RISOLTO:
+ * markExpiredMatchesAsFinished non veniva mai chiamato e, quando chiamato, caricava
+ * TUTTE le partite passate (anche FINISHED di anni fa) salvandole una per una.
+ *
+ * FUNZIONAMENTO:
+ * - ogni padel.sweeper.interval (default 1 minuto) il job parte in background
+ * - cutoff fissato all'inizio: partite con dateTime precedente sono scadute
+ * - blocchi di padel.sweeper.chunk-size partite, ognuno nella PROPRIA transazione
+ *   (MatchService.markExpiredMatchesAsFinished): lock brevi, un errore non annulla i blocchi già fatti
+ * - si ferma al primo blocco non pieno (partite selezionate &lt; chunk-size)
+ * - conta solo le partite marcate FINISHED dallo sweep, non quelle chiuse nel frattempo da finishMatch
+ *
+ * METRICHE (Micrometer, visibili su /actuator/metrics):
+ * - padel.matches.expiry.sweep: durata di ogni sweep (Timer)
+ * - padel.matches.expiry.finished: partite marcate FINISHED (Counter)
+ */
+@Component
+@Slf4j
+public class ExpiredMatchSweeper {
+
+    private final MatchService matchService;
+    private final int chunkSize;
+    private final Timer sweepTimer;
+    private final Counter finishedCounter;
+
+    public ExpiredMatchSweeper(MatchService matchService,
+                               MeterRegistry meterRegistry,
+                               @Value("${padel.sweeper.chunk-size:100}") int chunkSize) {
+        this.matchService = matchService;
+        this.chunkSize = chunkSize;
+        this.sweepTimer = Timer.builder("padel.matches.expiry.sweep")
+            .description("Durata dello sweep delle partite scadute")
+            .register(meterRegistry);
+        this.finishedCounter = Counter.builder("padel.matches.expiry.finished")
+            .description("Partite scadute marcate FINISHED")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Esegue uno sweep completo, blocco per blocco
+     *
+     * fixedDelay: il prossimo sweep parte solo dopo la fine del precedente (nessuna sovrapposizione)
+     *
+     * @return partite marcate FINISHED in questo sweep
+     */
+    @Scheduled(initialDelayString = "${padel.sweeper.interval:PT1M}", fixedDelayString = "${padel.sweeper.interval:PT1M}")
+    public int sweep() {
+        return sweepTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now();
+            int total = 0;
+            MatchService.ExpiredChunk chunk;
+            do {
+                chunk = matchService.markExpiredMatchesAsFinished(cutoff, chunkSize);
+                total += chunk.getFinished();
+            } while (chunk.getSelected() == chunkSize);
+
+            finishedCounter.increment(total);
+            if (total > 0) {
+                log.info("🧹 Sweep partite scadute: {} partite marcate FINISHED", total);
+            }
+            return total;
+        });
+    }
+}
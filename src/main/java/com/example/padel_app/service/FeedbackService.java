@@ -1,19 +1,34 @@
 package com.example.padel_app.service;
 
+import com.example.padel_app.event.FeedbackTotalsChangedEvent;
 import com.example.padel_app.model.Feedback;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.repository.CursorPage;
 import com.example.padel_app.repository.FeedbackRepository;
+import com.example.padel_app.repository.FeedbackStats;
+import com.example.padel_app.repository.KeysetCursor;
 import com.example.padel_app.repository.UserRepository;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * FeedbackService - Service per gestione feedback tra giocatori
@@ -76,6 +91,14 @@ import java.util.Optional;
  * - Arrotondamento: Math.round(2.33) = 2
  * - Risultato: AVANZATO
  * 
+ * CALCOLO INCREMENTALE (O(1)):
+ * La media non rilegge i feedback: User.feedbackSum (somma degli ordinal) e
+ * User.feedbackCount vengono aggiornati con un UPDATE atomico a ogni feedback
+ * inserito o eliminato, e perceivedLevel = round(feedbackSum / feedbackCount).
+ * backfillFeedbackTotals() ricalcola i totali dai feedback esistenti (una tantum).
+ * Il perceived level non viene ricalcolato nella richiesta: FeedbackTotalsChangedEvent →
+ * PerceivedLevelUpdater, che raggruppa gli utenti di una raffica di feedback (fine partita).
+ * 
  * Questo algoritmo permette di:
  * - Valutazione oggettiva basata su opinioni multiple
  * - Aggiustamento automatico livello con più partite
@@ -91,9 +114,45 @@ import java.util.Optional;
 @Slf4j
 public class FeedbackService {
     
+    /**
+     * Valutazione di un compagno nel form "valuta tutti" (createFeedbacks)
+     */
+    @Getter
+    public static class Rating {
+        private final User targetUser;
+        private final Level suggestedLevel;
+        private final String comment;
+        
+        public Rating(User targetUser, Level suggestedLevel, String comment) {
+            this.targetUser = targetUser;
+            this.suggestedLevel = suggestedLevel;
+            this.comment = comment;
+        }
+    }
+    
     private final FeedbackRepository feedbackRepository;
     private final UserRepository userRepository;
     
+    /**
+     * Publisher eventi Spring: FeedbackTotalsChangedEvent → PerceivedLevelUpdater
+     */
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Classifica in memoria: riceve i perceived level appena scritti
+     */
+    private final Leaderboard leaderboard;
+    
+    /**
+     * Copie degli utenti usate da UserSessionService: totali e livelli cambiano qui
+     */
+    private final UserCache userCache;
+    
+    /**
+     * Ordinamento delle pagine di feedback del profilo: più recenti prima, id come tie-breaker
+     */
+    private static final Sort RECENT_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    
     /**
      * Crea un nuovo feedback dopo una partita
      * 
@@ -114,12 +173,14 @@ public class FeedbackService {
      * @Transactional (senza readOnly) apre transazione write.
      * Se qualsiasi operazione fallisce → rollback completo:
      * - Feedback non salvato
-     * - perceivedLevel non aggiornato
+     * - totali feedback del targetUser non aggiornati
      * - Database rimane consistente
      * 
      * SIDE EFFECT IMPORTANTE:
-     * Dopo salvataggio feedback, chiama updatePerceivedLevel() per ricalcolare
-     * automaticamente il livello percepito del targetUser.
+     * Dopo salvataggio feedback, aggiunge il livello ai totali del targetUser
+     * e pubblica FeedbackTotalsChangedEvent: il livello percepito viene ricalcolato
+     * in background da PerceivedLevelUpdater (una volta per raffica di feedback),
+     * la richiesta paga solo INSERT + UPDATE dei totali.
      * 
      * @param author Utente che scrive il feedback (chi valuta)
      * @param targetUser Utente che riceve il feedback (chi viene valutato)
@@ -164,32 +225,102 @@ public class FeedbackService {
         log.info("Feedback created by {} for {} on match {}", 
                  author.getUsername(), targetUser.getUsername(), match.getId());
         
-        // SIDE EFFECT: aggiorna perceived level del target user
-        // Questo garantisce che il livello sia sempre aggiornato dopo ogni nuovo feedback
-        updatePerceivedLevel(targetUser.getId());
+        // SIDE EFFECT: aggiunge il feedback ai totali del target user (UPDATE atomico)
+        // Il perceived level viene ricalcolato dopo il commit da PerceivedLevelUpdater
+        userRepository.adjustFeedbackTotals(targetUser.getId(), suggestedLevel.ordinal(), 1);
+        userCache.invalidate(targetUser.getId());
+        eventPublisher.publishEvent(new FeedbackTotalsChangedEvent(this, targetUser.getId()));
         
         return saved;
     }
     
+    /**
+     * Crea in un colpo solo i feedback di un autore per più compagni della stessa partita
+     * 
+     * BUSINESS LOGIC:
+     * Stesse regole di createFeedback (un feedback per tripla author/target/match),
+     * ma per tutti i giocatori valutati nel form insieme:
+     * 1. UNA query per i compagni già valutati (findRatedTargetIds) → se ce n'è uno, nessun feedback salvato
+     * 2. saveAll: INSERT inviati in batch al flush (JDBC batching, ID da sequence pooled)
+     * 3. un UPDATE dei totali e un FeedbackTotalsChangedEvent per destinatario:
+     *    il perceived level viene ricalcolato una volta per utente, in background
+     * 
+     * TRANSACTIONAL:
+     * Tutto o niente: se un feedback fallisce, nessuno dei feedback del form viene salvato.
+     * 
+     * @param author Utente che scrive i feedback
+     * @param match Partita in cui hanno giocato insieme
+     * @param ratings Valutazioni, al massimo una per destinatario
+     * @return Feedback salvati con ID generato
+     * @throws IllegalArgumentException se lo stesso giocatore compare due volte
+     * @throws RuntimeException se l'autore ha già valutato uno dei giocatori in questa partita
+     */
+    @Transactional
+    public List<Feedback> createFeedbacks(User author, Match match, List<Rating> ratings) {
+        Set<Long> targetIds = new HashSet<>();
+        for (Rating rating : ratings) {
+            if (!targetIds.add(rating.getTargetUser().getId())) {
+                throw new IllegalArgumentException("Duplicate rating for user " + rating.getTargetUser().getId());
+            }
+        }
+        if (ratings.isEmpty()) {
+            return List.of();
+        }
+        
+        // VALIDAZIONE: una sola query per tutti i destinatari
+        if (!feedbackRepository.findRatedTargetIds(author, match, targetIds).isEmpty()) {
+            throw new RuntimeException("Feedback already exists for this user and match");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Feedback> feedbacks = new ArrayList<>(ratings.size());
+        for (Rating rating : ratings) {
+            Feedback feedback = new Feedback();
+            feedback.setAuthor(author);
+            feedback.setTargetUser(rating.getTargetUser());
+            feedback.setMatch(match);
+            feedback.setSuggestedLevel(rating.getSuggestedLevel());
+            feedback.setComment(rating.getComment());
+            feedback.setCreatedAt(now);
+            feedbacks.add(feedback);
+        }
+        
+        // PERSISTENZA: INSERT in batch (hibernate.jdbc.batch_size)
+        List<Feedback> saved = feedbackRepository.saveAll(feedbacks);
+        
+        for (Rating rating : ratings) {
+            Long targetId = rating.getTargetUser().getId();
+            userRepository.adjustFeedbackTotals(targetId, rating.getSuggestedLevel().ordinal(), 1);
+            eventPublisher.publishEvent(new FeedbackTotalsChangedEvent(this, targetId));
+        }
+        userCache.invalidate(targetIds);
+        log.info("{} feedbacks created by {} on match {}", saved.size(), author.getUsername(), match.getId());
+        return saved;
+    }
+    
     /**
      * Aggiorna il livello percepito di un utente basato sui feedback ricevuti
      * 
      * ALGORITMO CALCOLO PERCEIVED LEVEL:
      * 
-     * 1. Recupera tutti i feedback ricevuti dall'utente
-     * 2. Converte ogni suggestedLevel in numero usando ordinal():
+     * 1. Legge i totali dell'utente (User.feedbackSum, User.feedbackCount): una sola riga,
+     *    qualunque sia il numero di feedback ricevuti
+     * 2. feedbackSum è la somma dei suggestedLevel convertiti con ordinal():
      *    - PRINCIPIANTE (ordinal=0) → valore 0
      *    - INTERMEDIO (ordinal=1) → valore 1
      *    - AVANZATO (ordinal=2) → valore 2
      *    - PROFESSIONISTA (ordinal=3) → valore 3
-     * 3. Calcola media aritmetica
+     * 3. Calcola media aritmetica: feedbackSum / feedbackCount
      * 4. Arrotonda al livello più vicino con Math.round()
      * 5. Converte indice → Level usando Level.values()[index]
      * 
+     * I totali sono aggiornati PRIMA di questa chiamata con UserRepository.adjustFeedbackTotals
+     * (createFeedback, deleteFeedback, removeFeedbacksOfMatch).
+     * 
      * Esempio concreto:
      * - Bob ha ricevuto 5 feedback: [INTERMEDIO, AVANZATO, INTERMEDIO, AVANZATO, PROFESSIONISTA]
-     * - Conversione ordinal: [1, 2, 1, 2, 3]
-     * - Media: (1+2+1+2+3)/5 = 1.8
+     * - Totali: feedbackSum = 1+2+1+2+3 = 9, feedbackCount = 5
+     * - Media: 9/5 = 1.8
      * - Arrotondamento: Math.round(1.8) = 2
      * - Level.values()[2] = AVANZATO
      * - Bob.perceivedLevel = AVANZATO
@@ -203,9 +334,9 @@ public class FeedbackService {
      * Metodo write che modifica User.perceivedLevel.
      * In caso di errore durante salvataggio → rollback automatico.
      * 
-     * INVOCAZIONE AUTOMATICA:
-     * Chiamato automaticamente da createFeedback() dopo ogni nuovo feedback.
-     * Garantisce che perceivedLevel sia sempre sincronizzato con feedback ricevuti.
+     * INVOCAZIONE:
+     * Ricalcolo sincrono di un singolo utente (backfill, manutenzione).
+     * Dopo createFeedback() il ricalcolo è asincrono: PerceivedLevelUpdater → refreshPerceivedLevels().
      * 
      * @param userId ID dell'utente di cui aggiornare il perceived level
      * 
@@ -217,7 +348,7 @@ public class FeedbackService {
      * 
      * // Alice lascia feedback: AVANZATO
      * feedbackService.createFeedback(alice, bob, match1, AVANZATO, "Molto forte");
-     * // → updatePerceivedLevel chiamato automaticamente
+     * // → ricalcolo in background (PerceivedLevelUpdater), pochi secondi dopo
      * // → bob.perceivedLevel = AVANZATO (1 solo feedback)
      * 
      * // Charlie lascia feedback: INTERMEDIO
@@ -238,41 +369,147 @@ public class FeedbackService {
         
         User user = userOpt.get();
         
-        // RECUPERO FEEDBACK: tutti i feedback ricevuti da questo utente
-        List<Feedback> feedbacks = feedbackRepository.findByTargetUser(user);
+        // RECUPERO TOTALI: valori correnti nel DB (l'entità può avere quelli precedenti all'UPDATE)
+        UserRepository.FeedbackTotals totals = userRepository.findFeedbackTotalsById(userId).orElseThrow();
+        user.setFeedbackSum(totals.getFeedbackSum());
+        user.setFeedbackCount(totals.getFeedbackCount());
         
         // CASO BASE: nessun feedback ricevuto
-        if (feedbacks.isEmpty()) {
+        if (totals.getFeedbackCount() == 0) {
             log.debug("No feedbacks for user {}, perceived level unchanged", userId);
             return;
         }
         
-        // CALCOLO MEDIA: converti enum → int → calcola media
-        // Stream API:
-        // 1. feedbacks.stream(): crea stream da lista
-        // 2. .mapToInt(f -> f.getSuggestedLevel().ordinal()): estrae ordinal di ogni level
-        // 3. .average(): calcola media aritmetica
-        // 4. .orElse(0): default 0 se stream vuoto (impossibile qui, ma safety check)
-        double avgLevel = feedbacks.stream()
-            .mapToInt(f -> f.getSuggestedLevel().ordinal())
-            .average()
-            .orElse(0);
-        
-        // ARROTONDAMENTO: converte media decimale in indice intero
-        // Math.round(1.8) = 2, Math.round(2.5) = 3
-        int levelIndex = (int) Math.round(avgLevel);
-        
-        // CONVERSIONE: indice → enum Level
-        // Level.values() = [PRINCIPIANTE, INTERMEDIO, AVANZATO, PROFESSIONISTA]
-        // levelIndex=0 → PRINCIPIANTE, levelIndex=2 → AVANZATO, etc.
-        Level perceivedLevel = Level.values()[levelIndex];
+        Level perceivedLevel = levelFromTotals(totals.getFeedbackSum(), totals.getFeedbackCount());
         
         // AGGIORNAMENTO: salva nuovo perceived level
         user.setPerceivedLevel(perceivedLevel);
         userRepository.save(user);
+        leaderboard.updateLevels(List.of(userId), perceivedLevel);
+        userCache.invalidate(userId);
         
         log.info("Updated perceived level for user {} to {} (based on {} feedbacks)", 
-                 user.getUsername(), perceivedLevel, feedbacks.size());
+                 user.getUsername(), perceivedLevel, totals.getFeedbackCount());
+    }
+    
+    /**
+     * Elimina un feedback e lo toglie dai totali del destinatario
+     * 
+     * Il perceived level del destinatario viene ricalcolato in background sui feedback rimasti
+     * (invariato se non ne restano, come in updatePerceivedLevel).
+     * 
+     * @param feedback feedback da eliminare
+     */
+    @Transactional
+    public void deleteFeedback(Feedback feedback) {
+        Long targetId = feedback.getTargetUser().getId();
+        feedbackRepository.delete(feedback);
+        userRepository.adjustFeedbackTotals(targetId, -feedback.getSuggestedLevel().ordinal(), -1);
+        userCache.invalidate(targetId);
+        eventPublisher.publishEvent(new FeedbackTotalsChangedEvent(this, targetId));
+    }
+    
+    /**
+     * Toglie dai totali dei destinatari i feedback di una partita che sta per essere eliminata
+     * 
+     * I feedback vengono eliminati dal cascade di Match (MatchService.deleteMatch):
+     * qui si sottrae, per ogni destinatario, la somma e il numero dei suoi feedback
+     * in quella partita (una query aggregata, un UPDATE per destinatario).
+     * 
+     * @param matchId partita in eliminazione
+     */
+    @Transactional
+    public void removeFeedbacksOfMatch(Long matchId) {
+        for (FeedbackRepository.ReceivedLevels received : feedbackRepository.sumReceivedLevelsByMatch(matchId)) {
+            userRepository.adjustFeedbackTotals(received.getUserId(), -received.getLevelSum(),
+                                                (int) -received.getFeedbacks());
+            userCache.invalidate(received.getUserId());
+            eventPublisher.publishEvent(new FeedbackTotalsChangedEvent(this, received.getUserId()));
+        }
+    }
+    
+    /**
+     * Backfill una tantum: ricalcola feedbackSum, feedbackCount e perceivedLevel dai feedback esistenti
+     * 
+     * QUANDO SERVE:
+     * - dati inseriti prima dell'introduzione dei totali
+     * - feedback inseriti senza passare dal service (es. DataSeeder)
+     * - feedback eliminati da altri cascade (es. eliminazione di un utente autore)
+     * 
+     * FUNZIONAMENTO:
+     * 1. azzera i totali di tutti gli utenti (un UPDATE)
+     * 2. una query aggregata GROUP BY target_user_id
+     * 3. per ogni utente con feedback: totali + perceived level
+     * 
+     * Idempotente: eseguirlo più volte dà sempre lo stesso risultato.
+     * Avviato da FeedbackTotalsBackfill se padel.feedback.backfill-totals=true.
+     * 
+     * @return numero di utenti con almeno un feedback
+     */
+    @Transactional
+    public int backfillFeedbackTotals() {
+        userRepository.resetFeedbackTotals();
+        userCache.invalidateAll();
+        List<FeedbackRepository.ReceivedLevels> rows = feedbackRepository.sumReceivedLevelsByUser();
+        for (FeedbackRepository.ReceivedLevels received : rows) {
+            userRepository.adjustFeedbackTotals(received.getUserId(), received.getLevelSum(),
+                                                (int) received.getFeedbacks());
+            updatePerceivedLevel(received.getUserId());
+        }
+        return rows.size();
+    }
+    
+    /**
+     * Ricalcola il perceived level di più utenti dai loro totali (chiamato da PerceivedLevelUpdater)
+     * 
+     * Una query per i totali di tutti gli utenti (WHERE id IN ...), poi applyPerceivedLevels:
+     * al massimo un UPDATE per Level. Utenti senza feedback esclusi (livello invariato).
+     * 
+     * @param userIds utenti con totali cambiati
+     * @return utenti aggiornati
+     */
+    @Transactional
+    public int refreshPerceivedLevels(Collection<Long> userIds) {
+        return applyPerceivedLevels(userRepository.findReceivedLevelsByIdIn(userIds));
+    }
+    
+    /**
+     * Scrive il perceived level di un blocco di utenti (chiamato da PerceivedLevelRecomputeJob)
+     * 
+     * UN BLOCCO PER TRANSAZIONE:
+     * i livelli vengono calcolati in memoria dai totali aggregati e gli utenti raggruppati per livello:
+     * un UPDATE ... WHERE id IN (...) per ogni Level presente nel blocco (al massimo 4).
+     * Nessun User caricato, nessuna rilettura dei feedback.
+     * I nuovi livelli vanno anche alla Leaderboard (dopo il commit).
+     * 
+     * @param chunk totali dei feedback ricevuti (da FeedbackRepository.sumReceivedLevelsByUser)
+     * @return utenti aggiornati
+     */
+    @Transactional
+    public int applyPerceivedLevels(List<FeedbackRepository.ReceivedLevels> chunk) {
+        Map<Level, List<Long>> usersByLevel = new EnumMap<>(Level.class);
+        for (FeedbackRepository.ReceivedLevels received : chunk) {
+            Level level = levelFromTotals(received.getLevelSum(), (int) received.getFeedbacks());
+            usersByLevel.computeIfAbsent(level, l -> new ArrayList<>()).add(received.getUserId());
+        }
+        int updated = 0;
+        for (Map.Entry<Level, List<Long>> entry : usersByLevel.entrySet()) {
+            updated += userRepository.updatePerceivedLevels(entry.getValue(), entry.getKey());
+            leaderboard.updateLevels(entry.getValue(), entry.getKey());
+            userCache.invalidate(entry.getValue());
+        }
+        return updated;
+    }
+    
+    /**
+     * Media arrotondata degli ordinal → Level
+     * 
+     * Math.round(1.8) = 2, Math.round(2.5) = 3
+     * Level.values() = [PRINCIPIANTE, INTERMEDIO, AVANZATO, PROFESSIONISTA]
+     */
+    static Level levelFromTotals(long feedbackSum, int feedbackCount) {
+        int levelIndex = (int) Math.round((double) feedbackSum / feedbackCount);
+        return Level.values()[levelIndex];
     }
     
     /**
@@ -294,6 +531,47 @@ public class FeedbackService {
         return feedbackRepository.findByTargetUser(user);
     }
     
+    /**
+     * Statistiche dei feedback ricevuti (istogramma per livello, totale, media) con una query GROUP BY
+     * 
+     * BUSINESS LOGIC:
+     * Sezione "Analisi Feedback Ricevuti" del profilo: costo costante qualunque sia lo storico.
+     * 
+     * @param user Utente del profilo
+     * @return statistiche (vuote se nessun feedback ricevuto)
+     */
+    public FeedbackStats getReceivedStats(User user) {
+        return FeedbackStats.of(feedbackRepository.countReceivedByLevel(user));
+    }
+    
+    /**
+     * Una pagina dei feedback ricevuti, dal più recente (keyset su createdAt, id)
+     * 
+     * @param user Utente del profilo
+     * @param after cursore della pagina precedente (null = prima pagina)
+     * @param size elementi per pagina
+     * @return pagina con cursore per la successiva
+     */
+    public CursorPage<Feedback> getFeedbacksReceivedPage(User user, String after, int size) {
+        Window<Feedback> window = feedbackRepository.findRecentByTargetUser(
+            user, KeysetCursor.decode(after, RECENT_FIRST), RECENT_FIRST, Limit.of(size));
+        return CursorPage.of(window, RECENT_FIRST);
+    }
+    
+    /**
+     * Una pagina dei feedback scritti dall'utente, dal più recente (keyset su createdAt, id)
+     * 
+     * @param user Autore dei feedback
+     * @param after cursore della pagina precedente (null = prima pagina)
+     * @param size elementi per pagina
+     * @return pagina con cursore per la successiva
+     */
+    public CursorPage<Feedback> getFeedbacksGivenPage(User user, String after, int size) {
+        Window<Feedback> window = feedbackRepository.findRecentByAuthor(
+            user, KeysetCursor.decode(after, RECENT_FIRST), RECENT_FIRST, Limit.of(size));
+        return CursorPage.of(window, RECENT_FIRST);
+    }
+    
     /**
      * Recupera tutti i feedback scritti da un utente
      * 
@@ -0,0 +1,209 @@
+package com.example.padel_app.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HierarchicalTimingWheel - Timer in memoria per molti eventi futuri, costo O(1) per tick
+ *
+ * PROBLEMA RISOLTO:
+ * Per i promemoria delle partite servirebbe interrogare il DB ogni minuto
+ * ("partite che iniziano tra 2 ore?"). La ruota tiene i promemoria in memoria e
+ * a ogni tick guarda UNA sola casella, indipendentemente da quanti promemoria ci sono.
+ *
+ * STRUTTURA (come un orologio con più lancette):
+ * <pre>
+ * livello 0: 60 caselle da 1 minuto   → copre 1 ora
+ * livello 1: 24 caselle da 1 ora      → copre 1 giorno
+ * livello 2: 366 caselle da 1 giorno  → copre 1 anno
+ * oltre: lista "lontani", ricontrollata a ogni giro completo dell'ultimo livello
+ *        (tick × 60 × 24 × 366: una volta ogni 366 giorni), non a ogni tick
+ * </pre>
+ * (dimensioni di MatchReminderScheduler: tick e dimensioni sono parametri del costruttore)
+ *
+ * - add: l'elemento va nel livello più basso che copre la sua scadenza → O(1)
+ * - cancel: l'elemento ricorda la sua casella (HashSet) → rimozione O(1)
+ * - advance: a ogni tick si svuota la casella corrente del livello 0 (elementi scaduti).
+ *   Quando un livello superiore compie un passo, la sua casella viene "travasata" nei livelli
+ *   più bassi (cascata): ogni elemento viene spostato al massimo una volta per livello.
+ *
+ * Scadenze arrotondate al tick: un elemento scatta nel tick che contiene la sua scadenza.
+ *
+ * NOTA: la classe NON è thread-safe: chi la usa sincronizza l'accesso (MatchReminderScheduler).
+ *
+ * @param <T> dato associato a ogni scadenza
+ */
+public class HierarchicalTimingWheel<T> {
+
+    /**
+     * Elemento programmato: restituito da add, serve per cancel
+     */
+    public static final class Timeout<T> {
+        private final long deadline;
+        private final T payload;
+        private Set<Timeout<T>> bucket;
+
+        private Timeout(long deadline, T payload) {
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * true finché l'elemento è nella ruota (non ancora scattato né cancellato)
+         */
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private final long[] tickMillis;
+    private final List<List<Set<Timeout<T>>>> levels = new ArrayList<>();
+    private final Set<Timeout<T>> beyondHorizon = new HashSet<>();
+    private int size;
+
+    /**
+     * Istante corrente della ruota, multiplo del tick del livello 0
+     */
+    private long currentTime;
+
+    /**
+     * @param startMillis istante iniziale (epoch millis)
+     * @param baseTickMillis durata di una casella del livello 0
+     * @param wheelSizes numero di caselle per livello, dal più basso al più alto:
+     *                   il tick del livello i+1 = tick del livello i × wheelSizes[i]
+     */
+    public HierarchicalTimingWheel(long startMillis, long baseTickMillis, int... wheelSizes) {
+        if (baseTickMillis <= 0 || wheelSizes.length == 0) {
+            throw new IllegalArgumentException("Tick and at least one level are required");
+        }
+        this.tickMillis = new long[wheelSizes.length];
+        long tick = baseTickMillis;
+        for (int level = 0; level < wheelSizes.length; level++) {
+            tickMillis[level] = tick;
+            List<Set<Timeout<T>>> slots = new ArrayList<>(wheelSizes[level]);
+            for (int slot = 0; slot < wheelSizes[level]; slot++) {
+                slots.add(new HashSet<>());
+            }
+            levels.add(slots);
+            tick *= wheelSizes[level];
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, baseTickMillis);
+    }
+
+    /**
+     * Programma un elemento
+     *
+     * @return il Timeout da usare per cancel, oppure null se la scadenza è già nel tick
+     *         corrente o nel passato (il chiamante decide se eseguirlo subito o scartarlo)
+     */
+    public Timeout<T> add(long deadlineMillis, T payload) {
+        Timeout<T> timeout = new Timeout<>(deadlineMillis, payload);
+        return place(timeout) ? timeout : null;
+    }
+
+    /**
+     * Rimuove un elemento non ancora scattato (O(1))
+     *
+     * @return true se era ancora in attesa
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        timeout.bucket = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Avanza la ruota fino a nowMillis, un tick alla volta
+     *
+     * @return elementi scaduti, in ordine di tick
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMillis[0] <= nowMillis) {
+            currentTime += tickMillis[0];
+
+            // Cascata dall'alto: le caselle dei livelli superiori che iniziano ora scendono di livello
+            int top = levels.size() - 1;
+            if (top > 0 && currentTime % (tickMillis[top] * levels.get(top).size()) == 0) {
+                redistribute(beyondHorizon, expired);
+            }
+            for (int level = top; level > 0; level--) {
+                if (currentTime % tickMillis[level] == 0) {
+                    redistribute(slotFor(level, currentTime), expired);
+                }
+            }
+
+            drain(slotFor(0, currentTime), expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Elementi in attesa
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean place(Timeout<T> timeout) {
+        if (timeout.deadline < currentTime + tickMillis[0]) {
+            return false;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            long span = tickMillis[level] * levels.get(level).size();
+            long levelStart = currentTime - Math.floorMod(currentTime, tickMillis[level]);
+            if (timeout.deadline < levelStart + span) {
+                insert(timeout, slotFor(level, timeout.deadline));
+                return true;
+            }
+        }
+        insert(timeout, beyondHorizon);
+        return true;
+    }
+
+    private void insert(Timeout<T> timeout, Set<Timeout<T>> bucket) {
+        bucket.add(timeout);
+        timeout.bucket = bucket;
+        size++;
+    }
+
+    private void redistribute(Set<Timeout<T>> bucket, List<T> expired) {
+        List<Timeout<T>> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timeout<T> timeout : moving) {
+            timeout.bucket = null;
+            size--;
+            if (!place(timeout)) {
+                expired.add(timeout.payload);
+            }
+        }
+    }
+
+    private void drain(Set<Timeout<T>> bucket, List<T> expired) {
+        for (Timeout<T> timeout : bucket) {
+            timeout.bucket = null;
+            expired.add(timeout.payload);
+        }
+        size -= bucket.size();
+        bucket.clear();
+    }
+
+    private Set<Timeout<T>> slotFor(int level, long time) {
+        List<Set<Timeout<T>>> slots = levels.get(level);
+        return slots.get((int) Math.floorMod(Math.floorDiv(time, tickMillis[level]), (long) slots.size()));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.padel_app.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * IdempotencyCache - Esito delle richieste POST già eseguite, per chiave di idempotenza
+ *
+ * PROBLEMA RISOLTO:
+ * Doppio click o retry del browser mobile su "Iscriviti" / "Disiscrivi" / "Termina" eseguivano
+ * l'operazione due volte: la seconda apriva una transazione e finiva in eccezione
+ * ("già iscritto") mostrata come errore, anche se la prima era andata a buon fine.
+ * Con la chiave la ripetizione riceve l'esito della prima richiesta, senza service né DB.
+ *
+ * FUNZIONAMENTO (usato da IdempotencyInterceptor):
+ * - begin(key): la prima richiesta con quella chiave riceve null ed esegue il controller;
+ *   le ripetizioni ricevono il CompletableFuture dell'esito (anche se la prima è ancora in corso)
+ * - complete(key, outcome): la prima richiesta salva l'esito (redirect + messaggi flash)
+ * - abort(key): la prima richiesta non ha un esito riutilizzabile → chiave liberata
+ *
+ * LIMITI (cache in memoria, nessuna dipendenza esterna):
+ * - TTL fisso da padel.idempotency.ttl: le voci scadono nell'ordine di inserimento,
+ *   quindi la pulizia guarda solo la testa della LinkedHashMap
+ * - al massimo padel.idempotency.max-entries voci: oltre, viene rimossa la più vecchia
+ *
+ * NOTA: come SeatLedger, la cache è per singola istanza dell'applicazione.
+ */
+@Component
+public class IdempotencyCache {
+
+    /**
+     * Esito di una richiesta: dove fare redirect e quali messaggi flash mostrare
+     */
+    @Getter
+    public static class Outcome {
+        private final String redirectUrl;
+        private final Map<String, Object> flashAttributes;
+
+        public Outcome(String redirectUrl, Map<String, Object> flashAttributes) {
+            this.redirectUrl = redirectUrl;
+            // Non Map.copyOf: un messaggio flash può essere null (es. e.getMessage())
+            this.flashAttributes = Collections.unmodifiableMap(new HashMap<>(flashAttributes));
+        }
+    }
+
+    private static final class Entry {
+        private final long expiresAt;
+        private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+
+        private Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    @Autowired
+    public IdempotencyCache(@Value("${padel.idempotency.ttl:PT10M}") Duration ttl,
+                            @Value("${padel.idempotency.max-entries:10000}") int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+
+    IdempotencyCache(Duration ttl, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Registra la chiave oppure restituisce l'esito della richiesta che l'ha già usata
+     *
+     * @return null se questa è la prima richiesta (deve chiamare complete o abort),
+     *         altrimenti l'esito (eventualmente ancora in corso) della prima
+     */
+    public synchronized CompletableFuture<Outcome> begin(String key) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing.outcome;
+        }
+        entries.put(key, new Entry(now + ttlNanos));
+        return null;
+    }
+
+    /**
+     * Salva l'esito della prima richiesta e sblocca le ripetizioni in attesa
+     */
+    public void complete(String key, Outcome outcome) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            entry.outcome.complete(outcome);
+        }
+    }
+
+    /**
+     * Libera la chiave: le ripetizioni in attesa ricevono null e vengono eseguite normalmente
+     */
+    public void abort(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+        }
+        if (entry != null) {
+            entry.outcome.complete(null);
+        }
+    }
+
+    /**
+     * Voci presenti (scadute comprese, fino alla prossima pulizia)
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            if (eldest.expiresAt - now > 0) {
+                return;
+            }
+            iterator.remove();
+            eldest.outcome.complete(null);
+        }
+    }
+}
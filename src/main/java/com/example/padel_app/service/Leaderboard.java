@@ -0,0 +1,249 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.repository.UserRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Leaderboard - Classifica giocatori in memoria: top N, posizione e pagine in O(log n)
+ *
+ * PROBLEMA RISOLTO:
+ * La pagina /users caricava tutti gli utenti e la classifica (findAllOrderByMatchesPlayedDesc)
+ * ordinava l'intera tabella a ogni richiesta, anche solo per sapere "in che posizione sono?".
+ * Qui le chiavi di classifica stanno in un {@link OrderStatisticTree}:
+ * posizione di un utente O(log n), pagina di k utenti O(log n + k) + una query per ID.
+ *
+ * ORDINAMENTO:
+ * matchesPlayed DESC, perceivedLevel DESC (nessun feedback = in fondo), id ASC (pareggi stabili)
+ *
+ * CHI AGGIORNA LA CLASSIFICA:
+ * - avvio (ApplicationReadyEvent) e ogni padel.leaderboard.rebuild-interval: rebuild da una query a 3 colonne
+ * - MatchFinishedEvent: contatori dei partecipanti riletti (una query), dopo il commit
+ * - FeedbackService.applyPerceivedLevels: updateLevels con i livelli appena scritti, dopo il commit
+ * - utente assente (es. appena registrato): aggiunto alla prima rankOf
+ * Le modifiche fatte per altre vie (es. saveUser di un admin) rientrano al rebuild successivo.
+ *
+ * TRANSAZIONI:
+ * come MatchReminderScheduler, le modifiche chieste dentro una transazione
+ * vengono applicate solo dopo il commit (rollback → classifica invariata).
+ *
+ * NOTA: come SeatLedger, la classifica è per singola istanza dell'applicazione.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Leaderboard {
+
+    private static final Comparator<Entry> RANKING = Comparator
+        .comparingInt(Entry::getMatchesPlayed).reversed()
+        .thenComparing(Comparator.comparingInt(Entry::getLevelOrdinal).reversed())
+        .thenComparingLong(Entry::getUserId);
+
+    private final UserRepository userRepository;
+
+    private OrderStatisticTree<Entry> tree = new OrderStatisticTree<>(RANKING);
+
+    /**
+     * userId → chiave corrente nell'albero (serve a rimuoverla quando cambia)
+     */
+    private Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Utente in classifica con la sua posizione (1 = primo)
+     */
+    @Getter
+    public static class Standing {
+        private final int rank;
+        private final User user;
+
+        public Standing(int rank, User user) {
+            this.rank = rank;
+            this.user = user;
+        }
+    }
+
+    /**
+     * Chiave di ordinamento (immutabile: un cambio di punteggio è remove + add)
+     */
+    @Getter
+    static final class Entry {
+        private final long userId;
+        private final int matchesPlayed;
+        private final Level perceivedLevel;
+
+        Entry(long userId, int matchesPlayed, Level perceivedLevel) {
+            this.userId = userId;
+            this.matchesPlayed = matchesPlayed;
+            this.perceivedLevel = perceivedLevel;
+        }
+
+        int getLevelOrdinal() {
+            return perceivedLevel != null ? perceivedLevel.ordinal() : -1;
+        }
+    }
+
+    /**
+     * Ricostruisce la classifica da zero
+     *
+     * Avvio dopo il DataSeeder e riallineamento periodico (default ogni 15 minuti).
+     * SQL: 1 query (id, matches_played, perceived_level), nessun ORDER BY.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${padel.leaderboard.rebuild-interval:PT15M}",
+               initialDelayString = "${padel.leaderboard.rebuild-interval:PT15M}")
+    public void rebuild() {
+        OrderStatisticTree<Entry> rebuilt = new OrderStatisticTree<>(RANKING);
+        Map<Long, Entry> rebuiltEntries = new HashMap<>();
+        for (UserRepository.LeaderboardRow row : userRepository.findLeaderboardRows()) {
+            Entry entry = toEntry(row);
+            rebuilt.add(entry);
+            rebuiltEntries.put(entry.getUserId(), entry);
+        }
+        synchronized (this) {
+            tree = rebuilt;
+            entries = rebuiltEntries;
+        }
+        log.info("🏆 Classifica ricostruita: {} giocatori", rebuiltEntries.size());
+    }
+
+    /**
+     * Partita terminata: i partecipanti hanno matchesPlayed + 1
+     *
+     * Listener sincrono: la query vede l'incremento della transazione in corso,
+     * l'albero viene aggiornato dopo il commit.
+     */
+    @EventListener
+    public void onMatchFinished(MatchFinishedEvent event) {
+        List<UserRepository.LeaderboardRow> rows = userRepository.findLeaderboardRowsByMatch(event.getMatch().getId());
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                rows.forEach(row -> put(toEntry(row)));
+            }
+        });
+    }
+
+    /**
+     * Nuovo perceived level per alcuni utenti (matchesPlayed invariato, nessuna query)
+     *
+     * Utenti non ancora in classifica ignorati: entrano alla prima rankOf o al rebuild.
+     */
+    public void updateLevels(Collection<Long> userIds, Level level) {
+        List<Long> ids = List.copyOf(userIds);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Long userId : ids) {
+                    Entry current = entries.get(userId);
+                    if (current != null) {
+                        put(new Entry(userId, current.getMatchesPlayed(), level));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Posizione in classifica (1 = primo), O(log n)
+     *
+     * Un utente non ancora in classifica viene letto dal DB (una query) e inserito.
+     *
+     * @return 0 se l'utente non esiste
+     */
+    public int rankOf(Long userId) {
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                return tree.rank(entry) + 1;
+            }
+        }
+        List<UserRepository.LeaderboardRow> rows = userRepository.findLeaderboardRowsByIdIn(List.of(userId));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                entry = toEntry(rows.get(0));
+                put(entry);
+            }
+            return tree.rank(entry) + 1;
+        }
+    }
+
+    /**
+     * I primi n giocatori
+     */
+    public List<Standing> top(int n) {
+        return page(0, n);
+    }
+
+    /**
+     * Una pagina di classifica: posizioni da page*size+1 a (page+1)*size
+     *
+     * SQL: 1 query per gli utenti della pagina (WHERE id IN ...), riordinati secondo la classifica
+     *
+     * @param page numero di pagina (0 = prima)
+     * @param size giocatori per pagina
+     */
+    public List<Standing> page(int page, int size) {
+        int from = page * size;
+        List<Entry> slice;
+        synchronized (this) {
+            slice = tree.range(from, size);
+        }
+        if (slice.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> usersById = userRepository.findAllById(slice.stream().map(Entry::getUserId).toList())
+            .stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Standing> standings = new ArrayList<>(slice.size());
+        for (int i = 0; i < slice.size(); i++) {
+            User user = usersById.get(slice.get(i).getUserId());
+            if (user != null) {  // eliminato dopo l'ultimo rebuild
+                standings.add(new Standing(from + i + 1, user));
+            }
+        }
+        return standings;
+    }
+
+    /**
+     * Giocatori in classifica
+     */
+    public synchronized int size() {
+        return tree.size();
+    }
+
+    /**
+     * Inserisce o sposta un utente. Da chiamare tenendo il lock.
+     */
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.getUserId(), entry);
+        if (previous != null) {
+            tree.remove(previous);
+        }
+        tree.add(entry);
+    }
+
+    private static Entry toEntry(UserRepository.LeaderboardRow row) {
+        int matchesPlayed = row.getMatchesPlayed() != null ? row.getMatchesPlayed() : 0;
+        return new Entry(row.getUserId(), matchesPlayed, row.getPerceivedLevel());
+    }
+}
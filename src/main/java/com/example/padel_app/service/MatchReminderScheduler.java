@@ -0,0 +1,297 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchConfirmedEvent;
+import com.example.padel_app.event.PlayerPromotedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.Registration;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * MatchReminderScheduler - Promemoria ai giocatori prima delle partite confermate
+ *
+ * PROBLEMA RISOLTO:
+ * Per avvisare i giocatori 2 ore e 30 minuti prima della partita servirebbe interrogare
+ * la tabella matches ogni minuto ("partite che iniziano tra 2 ore?").
+ * Qui i promemoria stanno in memoria in una {@link HierarchicalTimingWheel}: ogni minuto
+ * il tick guarda una sola casella, nessuna query.
+ *
+ * CHI ALIMENTA LA RUOTA:
+ * - avvio (ApplicationReadyEvent): partite CONFIRMED future + loro iscritti JOINED (2 query)
+ * - MatchConfirmedEvent: promemoria per i 4 iscritti della partita appena confermata
+ * - PlayerPromotedEvent: promemoria per l'utente promosso dalla lista d'attesa
+ *
+ * CHI LI RIMUOVE:
+ * - RegistrationService.leaveMatch → cancel(matchId, userId)
+ * - MatchService.deleteMatch → cancelMatch(matchId)
+ *
+ * TRANSAZIONI:
+ * come SeatLedger.release, le modifiche alla ruota chieste dentro una transazione
+ * vengono applicate solo dopo il commit (rollback → nessun promemoria aggiunto o perso).
+ *
+ * Offset configurabili: padel.reminders.offsets (default PT2H,PT30M).
+ * Un promemoria già nel passato quando la partita viene confermata non viene inviato.
+ *
+ * NOTA: come SeatLedger, la ruota è per singola istanza dell'applicazione.
+ */
+@Component
+@Slf4j
+public class MatchReminderScheduler {
+
+    /**
+     * Ruota: caselle da 1 minuto × 60, da 1 ora × 24, da 1 giorno × 366
+     */
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int[] WHEEL_SIZES = {60, 24, 366};
+
+    private final MatchRepository matchRepository;
+    private final RegistrationRepository registrationRepository;
+    private final NotificationService notificationService;
+    private final List<Duration> offsets;
+
+    private final HierarchicalTimingWheel<Reminder> wheel;
+
+    /**
+     * matchId → userId → promemoria in attesa (per la cancellazione)
+     */
+    private final Map<Long, Map<Long, List<HierarchicalTimingWheel.Timeout<Reminder>>>> scheduled = new HashMap<>();
+
+    public MatchReminderScheduler(MatchRepository matchRepository,
+                                  RegistrationRepository registrationRepository,
+                                  NotificationService notificationService,
+                                  @Value("${padel.reminders.offsets:PT2H,PT30M}") List<Duration> offsets) {
+        this.matchRepository = matchRepository;
+        this.registrationRepository = registrationRepository;
+        this.notificationService = notificationService;
+        this.offsets = List.copyOf(offsets);
+        this.wheel = new HierarchicalTimingWheel<>(System.currentTimeMillis(), TICK_MILLIS, WHEEL_SIZES);
+    }
+
+    /**
+     * Promemoria programmato per un giocatore
+     */
+    @Getter
+    public static class Reminder {
+        private final Long matchId;
+        private final Long userId;
+        private final String username;
+        private final String location;
+        private final LocalDateTime matchDateTime;
+        private final Duration before;
+
+        Reminder(Match match, User user, Duration before) {
+            this.matchId = match.getId();
+            this.userId = user.getId();
+            this.username = user.getUsername();
+            this.location = match.getLocation();
+            this.matchDateTime = match.getDateTime();
+            this.before = before;
+        }
+    }
+
+    /**
+     * Carica i promemoria delle partite confermate future
+     *
+     * ApplicationReadyEvent: dopo il DataSeeder, come SeatLedger.rebuild
+     * SQL: 1 query per le partite + 1 per gli iscritti JOINED (JOIN FETCH user)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Match> upcoming = matchRepository.findByStatusAndDateTimeAfter(MatchStatus.CONFIRMED, LocalDateTime.now());
+        if (upcoming.isEmpty()) {
+            return;
+        }
+        Map<Long, Match> matchesById = upcoming.stream()
+            .collect(Collectors.toMap(Match::getId, Function.identity()));
+
+        int count = 0;
+        synchronized (this) {
+            for (Registration registration : registrationRepository.findByMatchInAndStatus(upcoming, RegistrationStatus.JOINED)) {
+                // getMatch().getId() non inizializza il proxy LAZY: la partita viene dalla prima query
+                Match match = matchesById.get(registration.getMatch().getId());
+                count += schedule(match, registration.getUser());
+            }
+        }
+        log.info("⏰ Promemoria caricati: {} per {} partite confermate", count, upcoming.size());
+    }
+
+    /**
+     * Partita confermata: promemoria per tutti gli iscritti
+     *
+     * Listener sincrono: la query vede le iscrizioni della transazione in corso,
+     * la ruota viene aggiornata dopo il commit.
+     */
+    @EventListener
+    public void onMatchConfirmed(MatchConfirmedEvent event) {
+        Match match = event.getMatch();
+        List<User> players = registrationRepository.findByMatchAndStatus(match, RegistrationStatus.JOINED).stream()
+            .map(Registration::getUser)
+            .toList();
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                players.forEach(player -> schedule(match, player));
+            }
+        });
+    }
+
+    /**
+     * Utente promosso dalla lista d'attesa in una partita confermata: promemoria anche per lui
+     */
+    @EventListener
+    public void onPlayerPromoted(PlayerPromotedEvent event) {
+        Match match = event.getMatch();
+        if (match.getStatus() != MatchStatus.CONFIRMED) {
+            return;
+        }
+        User user = event.getUser();
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                schedule(match, user);
+            }
+        });
+    }
+
+    /**
+     * Rimuove i promemoria di un giocatore (uscita dalla partita)
+     */
+    public void cancel(Long matchId, Long userId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Map<Long, List<HierarchicalTimingWheel.Timeout<Reminder>>> byUser = scheduled.get(matchId);
+                if (byUser != null) {
+                    cancelAll(byUser.remove(userId));
+                    if (byUser.isEmpty()) {
+                        scheduled.remove(matchId);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Rimuove tutti i promemoria di una partita (partita eliminata)
+     */
+    public void cancelMatch(Long matchId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Map<Long, List<HierarchicalTimingWheel.Timeout<Reminder>>> byUser = scheduled.remove(matchId);
+                if (byUser != null) {
+                    byUser.values().forEach(this::cancelAll);
+                }
+            }
+        });
+    }
+
+    /**
+     * Avanza la ruota e invia i promemoria scaduti
+     *
+     * fixedRate 1 minuto = tick della ruota. Se un tick salta (GC, carico),
+     * il successivo recupera tutti i minuti persi.
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void tick() {
+        tick(LocalDateTime.now());
+    }
+
+    /**
+     * @return promemoria inviati
+     */
+    int tick(LocalDateTime now) {
+        List<Reminder> due;
+        synchronized (this) {
+            due = wheel.advance(toMillis(now));
+            due.forEach(reminder -> prune(reminder.getMatchId(), reminder.getUserId()));
+        }
+        // Notifiche fuori dal lock: la ruota resta disponibile per join/leave
+        due.forEach(reminder -> notificationService.sendMatchReminderNotification(
+            reminder.getUsername(), reminder.getLocation(), reminder.getMatchDateTime(), reminder.getBefore()));
+        return due.size();
+    }
+
+    /**
+     * Promemoria in attesa (tutte le partite)
+     */
+    public synchronized int pendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Programma i promemoria di un giocatore, sostituendo quelli già presenti
+     * (evento ripetuto → nessun doppione). Da chiamare tenendo il lock.
+     *
+     * @return promemoria aggiunti
+     */
+    private int schedule(Match match, User user) {
+        Map<Long, List<HierarchicalTimingWheel.Timeout<Reminder>>> byUser =
+            scheduled.computeIfAbsent(match.getId(), id -> new HashMap<>());
+        cancelAll(byUser.remove(user.getId()));
+
+        List<HierarchicalTimingWheel.Timeout<Reminder>> timeouts = new ArrayList<>();
+        long start = toMillis(match.getDateTime());
+        for (Duration offset : offsets) {
+            var timeout = wheel.add(start - offset.toMillis(), new Reminder(match, user, offset));
+            if (timeout != null) {
+                timeouts.add(timeout);
+            }
+        }
+        if (timeouts.isEmpty()) {
+            if (byUser.isEmpty()) {
+                scheduled.remove(match.getId());
+            }
+        } else {
+            byUser.put(user.getId(), timeouts);
+        }
+        return timeouts.size();
+    }
+
+    /**
+     * Dopo l'invio: toglie dall'indice i promemoria non più in attesa
+     */
+    private void prune(Long matchId, Long userId) {
+        Map<Long, List<HierarchicalTimingWheel.Timeout<Reminder>>> byUser = scheduled.get(matchId);
+        if (byUser == null) {
+            return;
+        }
+        List<HierarchicalTimingWheel.Timeout<Reminder>> timeouts = byUser.get(userId);
+        if (timeouts != null) {
+            timeouts.removeIf(timeout -> !timeout.isPending());
+            if (timeouts.isEmpty()) {
+                byUser.remove(userId);
+            }
+        }
+        if (byUser.isEmpty()) {
+            scheduled.remove(matchId);
+        }
+    }
+
+    private void cancelAll(List<HierarchicalTimingWheel.Timeout<Reminder>> timeouts) {
+        if (timeouts != null) {
+            timeouts.forEach(wheel::cancel);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,20 +3,37 @@ package com.example.padel_app.service;
 import com.example.padel_app.event.MatchConfirmedEvent;
 import com.example.padel_app.event.MatchFinishedEvent;
 import com.example.padel_app.model.Match;
+import com.example.padel_app.model.Registration;
+import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.CursorPage;
+import com.example.padel_app.repository.KeysetCursor;
+import com.example.padel_app.repository.MatchFeedItem;
 import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.MatchSpecifications;
 import com.example.padel_app.strategy.MatchSortingStrategy;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * MatchService - Service layer per gestione partite (business logic core)
@@ -72,6 +89,26 @@ public class MatchService {
      */
     private final ApplicationEventPublisher eventPublisher;
     
+    /**
+     * Promemoria in memoria: rimossi quando la partita viene eliminata
+     */
+    private final MatchReminderScheduler reminderScheduler;
+    
+    /**
+     * Bucket delle partite aperte ("partite per te"): partita rimossa quando viene eliminata
+     */
+    private final Matchmaker matchmaker;
+    
+    /**
+     * Totali dei feedback: aggiornati quando la partita (e i suoi feedback) viene eliminata
+     */
+    private final FeedbackService feedbackService;
+    
+    /**
+     * Posti in memoria: partita rimossa dal ledger quando viene eliminata
+     */
+    private final SeatLedger seatLedger;
+    
     /**
      * Map di strategie di sorting (Strategy Pattern)
      * 
@@ -119,6 +156,104 @@ public class MatchService {
         return matchRepository.findByRequiredLevelWithCreator(level);
     }
     
+    /**
+     * Feed partite per la home page (UNA pagina, numero di query costante)
+     * 
+     * Ritorna una riga MatchFeedItem per ogni partita WAITING/CONFIRMED a cui il viewer
+     * NON è già iscritto, con:
+     * - dati partita + nome creatore
+     * - numero giocatori JOINED (joinedCount)
+     * - posti tenuti da un hold (SeatLedger, in memoria): contano per isFull come in joinMatch
+     * 
+     * UNA QUERY (indipendente dal numero di partite e dalla profondità della pagina):
+     * pagina di partite con creator, già ordinata dal DB secondo la strategia.
+     * Le partite del viewer sono escluse nella query (NOT EXISTS): la pagina è sempre piena.
+     * 
+     * @param viewer utente corrente
+     * @param level filtro livello opzionale (null = tutti)
+     * @param strategy nome ordinamento: "date", "popularity", "level"
+     * @param after cursore della pagina (null per la prima)
+     * @param size dimensione pagina
+     * @return pagina del feed con cursore per la successiva
+     */
+    public CursorPage<MatchFeedItem> getMatchFeedPage(User viewer, Level level, String strategy,
+                                                      String after, int size) {
+        return scroll(Specification.allOf(
+                MatchSpecifications.withCreator(),
+                MatchSpecifications.statusIn(FEED_STATUSES),
+                MatchSpecifications.hasLevel(level),
+                MatchSpecifications.notJoinedBy(viewer)), strategy, after, size)
+            .map(match -> MatchFeedItem.of(match).withHolds(
+                seatLedger.heldSeats(match.getId()),
+                viewer != null && seatLedger.hasHold(match.getId(), viewer.getId())));
+    }
+    
+    /**
+     * Status mostrati nel feed: partite ancora da giocare
+     */
+    private static final List<MatchStatus> FEED_STATUSES = List.of(MatchStatus.WAITING, MatchStatus.CONFIRMED);
+    
+    /**
+     * Pagina di partite con creator e registrations caricati, ordinata dal DB
+     * 
+     * DUE QUERY PER PAGINA, indipendentemente dalla profondità:
+     * 1. scroll: size + 1 partite con creator (ORDER BY + LIMIT applicati dal DB)
+     * 2. fetchRegistrations: iscrizioni delle sole partite della pagina
+     * Così match.getActiveRegistrationsCount() funziona nel template senza lazy loading.
+     * 
+     * @param level filtro livello opzionale (null = tutti)
+     * @param strategy nome ordinamento: "date", "popularity", "level"
+     * @param after cursore della pagina (null per la prima)
+     * @param size dimensione pagina
+     */
+    public CursorPage<Match> getMatchesPage(Level level, String strategy, String after, int size) {
+        return withRegistrations(scroll(Specification.allOf(
+                MatchSpecifications.withCreator(),
+                MatchSpecifications.hasLevel(level)), strategy, after, size));
+    }
+    
+    /**
+     * Pagina di partite a cui un giocatore è iscritto (JOINED), filtrate per status
+     * 
+     * Uso: "Le mie partite" → una pagina per le partite attive, una per quelle giocate
+     * 
+     * @param player giocatore
+     * @param statuses status da includere (es. WAITING + CONFIRMED oppure FINISHED)
+     * @param strategy nome ordinamento: "date", "popularity", "level"
+     * @param after cursore della pagina (null per la prima)
+     * @param size dimensione pagina
+     */
+    public CursorPage<Match> getPlayerMatchesPage(User player, Collection<MatchStatus> statuses, String strategy,
+                                                  String after, int size) {
+        return withRegistrations(scroll(Specification.allOf(
+                MatchSpecifications.withCreator(),
+                MatchSpecifications.joinedBy(player),
+                MatchSpecifications.statusIn(statuses)), strategy, after, size));
+    }
+    
+    /**
+     * Legge UNA pagina keyset ordinata secondo la strategia (Scroll API di Spring Data)
+     * 
+     * - Sort della strategia + "id" come tie-breaker univoco
+     * - after decodificato in KeysetScrollPosition per quel Sort
+     * - Spring Data genera: WHERE spec AND (chiavi) > (valori) ORDER BY sort FETCH FIRST size + 1
+     */
+    private CursorPage<Match> scroll(Specification<Match> spec, String strategy, String after, int size) {
+        Sort sort = resolveStrategy(strategy).getSort().and(Sort.by("id"));
+        Window<Match> window = matchRepository.findBy(spec, query -> query
+                .sortBy(sort)
+                .limit(size)
+                .scroll(KeysetCursor.decode(after, sort)));
+        return CursorPage.of(window, sort);
+    }
+    
+    private CursorPage<Match> withRegistrations(CursorPage<Match> page) {
+        if (!page.getItems().isEmpty()) {
+            matchRepository.fetchRegistrations(page.getItems());
+        }
+        return page;
+    }
+    
     // ==================== STRATEGY PATTERN IMPLEMENTATION ====================
     
     /**
@@ -127,9 +262,9 @@ public class MatchService {
      * COME FUNZIONA:
      * 1. Riceve stringa "date", "popularity", o "level"
      * 2. Costruisce chiave strategia: strategy + "Sorting" (es. "dateSorting")
-     * 3. Cerca nella Map la strategy corrispondente
-     * 4. Delega sorting alla strategy trovata
-     * 5. Fallback: ordina per data se strategy non trovata
+     * 3. Cerca nella Map la strategy corrispondente (fallback: data)
+     * 4. Chiede alla strategy il suo Sort e lo passa al repository
+     * 5. Il DB restituisce le righe già ordinate (ORDER BY), nessun sort in memoria
      * 
      * VANTAGGI STRATEGY PATTERN:
      * - Aggiungere nuova strategia = solo creare classe @Component, zero modifiche qui
@@ -140,18 +275,25 @@ public class MatchService {
      * @return lista partite ordinate secondo strategia
      */
     public List<Match> getMatchesOrderedBy(String strategy) {
-        String strategyKey = strategy + "Sorting";
-        MatchSortingStrategy sortingStrategy = sortingStrategies.get(strategyKey);
-        
-        if (sortingStrategy != null) {
-            List<Match> allMatches = matchRepository.findAllWithCreator();
-            log.debug("Using {} strategy to sort {} matches", sortingStrategy.getStrategyName(), allMatches.size());
-            return sortingStrategy.sort(allMatches);
+        MatchSortingStrategy sortingStrategy = resolveStrategy(strategy);
+        log.debug("Using {} strategy to sort matches in the database", sortingStrategy.getStrategyName());
+        return matchRepository.findAll(MatchSpecifications.withCreator(),
+                sortingStrategy.getSort().and(Sort.by("id")));
+    }
+    
+    /**
+     * Trova la strategia per nome ("date" → bean "dateSorting")
+     * 
+     * Fallback sulla strategia per data se il nome non corrisponde a nessun bean
+     * (parametro URL modificato a mano).
+     */
+    private MatchSortingStrategy resolveStrategy(String strategy) {
+        MatchSortingStrategy sortingStrategy = sortingStrategies.get(strategy + "Sorting");
+        if (sortingStrategy == null) {
+            log.warn("Strategy {} not found, using date sorting as fallback", strategy);
+            sortingStrategy = sortingStrategies.get("dateSorting");
         }
-        
-        // Safe fallback - direct repository call to avoid recursion
-        log.warn("Strategy {} not found, using date sorting as fallback", strategy);
-        return matchRepository.findAllOrderByDateWithCreator();
+        return sortingStrategy;
     }
     
     /**
@@ -228,11 +370,17 @@ public class MatchService {
      * Elimina partita per ID
      * 
      * Cascade delete: elimina anche tutte le Registration e Feedback associati
-     * (definito in Match entity con cascade=ALL)
+     * (definito in Match entity con cascade=ALL), i promemoria programmati, la partita nel Matchmaker
+     * e nel SeatLedger (dopo il commit).
+     * Prima del delete i feedback della partita vengono tolti dai totali dei destinatari.
      */
     @Transactional
     public void deleteMatch(Long id) {
+        feedbackService.removeFeedbacksOfMatch(id);
         matchRepository.deleteById(id);
+        reminderScheduler.cancelMatch(id);
+        matchmaker.removeMatch(id);
+        seatLedger.forget(id);
     }
     
     // ==================== BUSINESS LOGIC - OBSERVER PATTERN ====================
@@ -246,19 +394,15 @@ public class MatchService {
      * 2. Pubblica MatchConfirmedEvent
      * 3. MatchEventListener riceve evento e invia notifiche
      * 
-     * PERCHÉ QUERY REPOSITORY invece di match.getActiveRegistrationsCount()?
-     * - match.registrations potrebbe essere lazy e non caricata
-     * - COUNT query diretta è più efficiente e sempre accurata
+     * Legge il contatore activePlayers dell'entità (nessuna COUNT su registrations):
+     * RegistrationService.joinMatch lo ha appena allineato al valore nel DB.
      * 
      * @param match partita da verificare
      * @return match aggiornato se confermato, altrimenti match originale
      */
     @Transactional
     public Match checkAndConfirmMatch(Match match) {
-        // Use repository to get accurate count instead of entity collection
-        int activeCount = registrationRepository.countActiveRegistrationsByMatch(match);
-        
-        if (activeCount >= 4 && match.getStatus() == MatchStatus.WAITING) {
+        if (match.isFull() && match.getStatus() == MatchStatus.WAITING) {
             MatchStatus oldStatus = match.getStatus();
             match.setStatus(MatchStatus.CONFIRMED);
             Match savedMatch = matchRepository.save(match);
@@ -273,31 +417,69 @@ public class MatchService {
     }
     
     /**
-     * Marca partite scadute come FINISHED (cron job o scheduler)
+     * Marca come FINISHED un blocco di partite scadute (chiamato da ExpiredMatchSweeper)
      * 
      * BUSINESS LOGIC:
-     * Se Match.dateTime < now() E status = CONFIRMED:
+     * Se Match.dateTime < cutoff E status = CONFIRMED:
      * 1. Match.status: CONFIRMED → FINISHED
      * 2. Pubblica MatchFinishedEvent
      * 3. MatchEventListener invia notifiche "Lascia feedback!"
      * 
-     * NOTA: Non implementato come @Scheduled in questo progetto,
-     * ma potrebbe essere chiamato da un job schedulato
+     * UN BLOCCO PER TRANSAZIONE:
+     * 1. Al massimo chunkSize ID di partite CONFIRMED scadute (indice status, date_time)
+     * 2. Lock di riga sulle partite del blocco ancora CONFIRMED (MatchRepository.lockByIdInAndStatus):
+     *    quelle terminate nel frattempo da finishMatch restano fuori
+     * 3. UN UPDATE per le sole partite bloccate (MatchRepository.updateStatus)
+     * 4. Le partite bloccate vengono ricaricate (una query) per pubblicare gli eventi:
+     *    un evento per ogni riga cambiata da QUESTO update, mai per quelle chiuse da altri
+     * Prima: tutte le partite passate (anche FINISHED) caricate, salvate e notificate una per una.
+     * Lo sweeper richiama questo metodo finché restituisce blocchi pieni.
+     * 
+     * @param cutoff partite con dateTime precedente sono scadute (tipicamente now)
+     * @param chunkSize numero massimo di partite per blocco
+     * @return partite selezionate (se &lt; chunkSize non ne restano altre) e partite marcate FINISHED
      */
     @Transactional
-    public void markExpiredMatchesAsFinished() {
-        List<Match> expiredMatches = matchRepository.findByDateTimeBefore(LocalDateTime.now());
-        for (Match match : expiredMatches) {
-            if (match.getStatus() == MatchStatus.CONFIRMED) {
-                MatchStatus oldStatus = match.getStatus();
-                match.setStatus(MatchStatus.FINISHED);
-                Match savedMatch = matchRepository.save(match);
-                
-                // Publish Observer event
-                log.info("🏁 Publishing MatchFinishedEvent for match ID: {}", savedMatch.getId());
-                eventPublisher.publishEvent(new MatchFinishedEvent(this, savedMatch));
-            }
+    public ExpiredChunk markExpiredMatchesAsFinished(LocalDateTime cutoff, int chunkSize) {
+        List<Long> expiredIds = matchRepository.findIdsByStatusAndDateTimeBefore(
+            MatchStatus.CONFIRMED, cutoff, Limit.of(chunkSize));
+        if (expiredIds.isEmpty()) {
+            return new ExpiredChunk(0, 0);
+        }
+        
+        List<Long> lockedIds = matchRepository.lockByIdInAndStatus(expiredIds, MatchStatus.CONFIRMED).stream()
+            .map(Match::getId)
+            .toList();
+        if (lockedIds.isEmpty()) {
+            return new ExpiredChunk(expiredIds.size(), 0);
         }
+        
+        int finished = matchRepository.updateStatus(lockedIds, MatchStatus.CONFIRMED, MatchStatus.FINISHED);
+        log.info("🏁 {} partite scadute marcate FINISHED", finished);
+        
+        // Publish Observer events per il blocco: righe bloccate = righe aggiornate da questo UPDATE
+        for (Match match : matchRepository.findAllById(lockedIds)) {
+            log.info("🏁 Publishing MatchFinishedEvent for match ID: {}", match.getId());
+            eventPublisher.publishEvent(new MatchFinishedEvent(this, match));
+        }
+        return new ExpiredChunk(expiredIds.size(), finished);
+    }
+    
+    /**
+     * Esito di un blocco dello sweeper
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class ExpiredChunk {
+        /**
+         * Partite scadute selezionate: blocco pieno → lo sweeper chiede il successivo
+         */
+        private final int selected;
+        
+        /**
+         * Partite marcate FINISHED da questo blocco (escluse quelle terminate nel frattempo da altri)
+         */
+        private final int finished;
     }
     
     /**
@@ -318,44 +500,11 @@ public class MatchService {
                 match.setStatus(MatchStatus.FINISHED);
                 Match savedMatch = matchRepository.save(match);
                 
-                // BUG FIX: Incrementa matchesPlayed di TUTTI i partecipanti (creator + giocatori)
-                // 1. Ottieni tutti i giocatori con registration JOINED
-                List<com.example.padel_app.model.Registration> activeRegistrations = 
-                    registrationRepository.findByMatchAndStatus(match, com.example.padel_app.model.enums.RegistrationStatus.JOINED);
-                
-                // 2. Raccogli tutti gli utenti partecipanti
-                List<com.example.padel_app.model.User> playersToUpdate = new java.util.ArrayList<>();
-                
-                // Aggiungi il CREATOR (sempre partecipante della partita che ha creato)
-                com.example.padel_app.model.User creator = match.getCreator();
-                if (creator != null) {
-                    creator.setMatchesPlayed(creator.getMatchesPlayed() + 1);
-                    playersToUpdate.add(creator);
-                    log.info("📊 Incrementato matchesPlayed per CREATOR {} (ID: {}): {} partite giocate", 
-                        creator.getEmail(), creator.getId(), creator.getMatchesPlayed());
-                }
-                
-                // Aggiungi tutti gli altri giocatori con registration JOINED (se non già inclusi)
-                java.util.Set<Long> userIdsAlreadyAdded = new java.util.HashSet<>();
-                if (creator != null) {
-                    userIdsAlreadyAdded.add(creator.getId());
-                }
-                
-                for (com.example.padel_app.model.Registration reg : activeRegistrations) {
-                    com.example.padel_app.model.User player = reg.getUser();
-                    if (!userIdsAlreadyAdded.contains(player.getId())) {
-                        player.setMatchesPlayed(player.getMatchesPlayed() + 1);
-                        playersToUpdate.add(player);
-                        userIdsAlreadyAdded.add(player.getId());
-                        log.info("📊 Incrementato matchesPlayed per player {} (ID: {}): {} partite giocate", 
-                            player.getEmail(), player.getId(), player.getMatchesPlayed());
-                    }
-                }
-                
-                // 3. Salva tutti gli utenti aggiornati in batch
-                userRepository.saveAll(playersToUpdate);
+                // Incrementa matchesPlayed di TUTTI i partecipanti (creator + giocatori JOINED)
+                // con un solo UPDATE nel DB: nessun User caricato, creatore contato una volta sola
+                int updatedPlayers = userRepository.incrementMatchesPlayedForMatch(matchId);
                 log.info("✅ Aggiornato counter matchesPlayed per {} partecipanti (creator + giocatori) della partita ID: {}", 
-                    playersToUpdate.size(), matchId);
+                    updatedPlayers, matchId);
                 
                 // Publish Observer event
                 log.info("🏁 Manual finish - Publishing MatchFinishedEvent for match ID: {}", savedMatch.getId());
@@ -366,4 +515,97 @@ public class MatchService {
         }
         throw new IllegalArgumentException("Match not found or cannot be finished");
     }
+    
+    /**
+     * Crea le partite dei quartetti formati dal PlayerPool, in un'unica transazione
+     * 
+     * BUSINESS LOGIC:
+     * Ogni quartetto diventa una partita già CONFIRMED (4 giocatori, activePlayers = 4)
+     * con creatore il primo giocatore della squadra A e le squadre nella descrizione.
+     * 
+     * SQL (indipendente dal numero di quartetti, a parte i batch JDBC):
+     * - 1 SELECT degli utenti (WHERE id IN ...)
+     * - saveAll delle partite e poi delle registrations: INSERT in batch (hibernate.jdbc.batch_size)
+     * Un MatchConfirmedEvent per partita: notifiche e promemoria come per una conferma normale.
+     * 
+     * Quartetti con un utente non più esistente vengono saltati: gli altri tre giocatori
+     * vengono restituiti (PairedMatches.unmatched) perché PlayerPool li rimetta in coda.
+     * 
+     * @param foursomes quartetti da PairingEngine
+     * @param location luogo assegnato alle partite create
+     * @return partite create e giocatori dei quartetti saltati
+     */
+    @Transactional
+    public PairedMatches createPairedMatches(List<PairingEngine.Foursome> foursomes, String location) {
+        List<Long> userIds = foursomes.stream()
+            .flatMap(f -> f.getPlayers().stream())
+            .map(PairingEngine.Candidate::getUserId)
+            .toList();
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Match> matches = new ArrayList<>(foursomes.size());
+        List<Registration> registrations = new ArrayList<>(userIds.size());
+        List<PairingEngine.Candidate> unmatched = new ArrayList<>();
+        for (PairingEngine.Foursome foursome : foursomes) {
+            List<User> players = foursome.getPlayers().stream()
+                .map(candidate -> usersById.get(candidate.getUserId()))
+                .toList();
+            if (players.contains(null)) {
+                log.warn("Foursome for {} skipped: player no longer exists", foursome.getSlot());
+                foursome.getPlayers().stream()
+                    .filter(candidate -> usersById.containsKey(candidate.getUserId()))
+                    .forEach(unmatched::add);
+                continue;
+            }
+            Match match = new Match();
+            match.setLocation(location);
+            match.setDescription("Abbinamento automatico: " + players.get(0).getUsername() + " e "
+                + players.get(1).getUsername() + " contro " + players.get(2).getUsername() + " e "
+                + players.get(3).getUsername());
+            match.setRequiredLevel(foursome.getLevel());
+            match.setType(MatchType.FISSA);
+            match.setStatus(MatchStatus.CONFIRMED);
+            match.setDateTime(foursome.getSlot());
+            match.setCreator(players.get(0));
+            match.setCreatedAt(now);
+            match.setActivePlayers(Match.MAX_PLAYERS);
+            matches.add(match);
+            for (User player : players) {
+                Registration registration = new Registration();
+                registration.setUser(player);
+                registration.setMatch(match);
+                registration.setStatus(RegistrationStatus.JOINED);
+                registration.setRegisteredAt(now);
+                registrations.add(registration);
+            }
+        }
+        
+        List<Match> saved = matchRepository.saveAll(matches);
+        registrationRepository.saveAll(registrations);
+        
+        for (Match match : saved) {
+            eventPublisher.publishEvent(new MatchConfirmedEvent(this, match));
+        }
+        log.info("🤝 {} partite create da abbinamento automatico", saved.size());
+        return new PairedMatches(saved, unmatched);
+    }
+    
+    /**
+     * Esito di un blocco di abbinamenti automatici
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class PairedMatches {
+        /**
+         * Partite create (già CONFIRMED)
+         */
+        private final List<Match> created;
+        
+        /**
+         * Giocatori esistenti dei quartetti saltati: da rimettere in coda
+         */
+        private final List<PairingEngine.Candidate> unmatched;
+    }
 }
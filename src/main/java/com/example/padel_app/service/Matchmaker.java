@@ -0,0 +1,317 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchConfirmedEvent;
+import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.event.MatchSeatsChangedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Matchmaker - Partite consigliate a un giocatore ("partite per te"), senza query sulla tabella matches
+ *
+ * PROBLEMA RISOLTO:
+ * L'unico aiuto alla scelta era il filtro esatto su requiredLevel (getMatchesByLevel):
+ * nessuno teneva conto del livello del giocatore né delle partite quasi complete.
+ * Qui le partite WAITING future stanno in memoria, divise per livello e posti liberi.
+ *
+ * STRUTTURA:
+ * <pre>
+ * Level → [1 posto libero, 2 posti, 3 posti, 4 posti] → TreeSet ordinato per data (poi id)
+ * </pre>
+ * + indice matchId → Slot per spostare/rimuovere una partita in O(log n).
+ *
+ * CONSIGLIO (recommend):
+ * livello del giocatore = perceivedLevel (o declaredLevel se non ha feedback); ordine lessicografico:
+ * 1. distanza di livello (0 = stesso livello, poi ±1, ...)
+ * 2. posti liberi (1 = manca un solo giocatore → la partita si conferma prima)
+ * 3. data di inizio (più vicina prima)
+ * I gruppi si visitano in quest'ordine fermandosi a K risultati: costo O(K + gruppi) in memoria,
+ * poi una query per caricare le K partite e una per escludere quelle dove il giocatore è già iscritto.
+ *
+ * CHI AGGIORNA I BUCKET (mai una nuova scansione della tabella):
+ * - avvio (ApplicationReadyEvent): partite WAITING future (1 query)
+ * - MatchSeatsChangedEvent (join, join di gruppo, leave): partita spostata nel gruppo di posti giusto
+ * - MatchConfirmedEvent / MatchFinishedEvent / MatchService.deleteMatch: partita rimossa
+ * - partite iniziate senza essere confermate: rimosse alla prima recommend successiva
+ *
+ * TRANSAZIONI:
+ * come MatchReminderScheduler, le modifiche chieste dentro una transazione
+ * vengono applicate solo dopo il commit (rollback → bucket invariati).
+ *
+ * NOTA: come SeatLedger, i bucket sono per singola istanza dell'applicazione.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Matchmaker {
+
+    private static final Comparator<Slot> BY_START = Comparator
+        .comparing(Slot::getDateTime)
+        .thenComparingLong(Slot::getMatchId);
+
+    private final MatchRepository matchRepository;
+    private final RegistrationRepository registrationRepository;
+
+    /**
+     * Level → posti liberi (indice 0 = 1 posto) → partite per data di inizio
+     */
+    private final Map<Level, List<TreeSet<Slot>>> buckets = newBuckets();
+
+    /**
+     * matchId → posizione corrente nei bucket
+     */
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    /**
+     * Partita aperta nei bucket (immutabile: un cambio di posti è remove + add)
+     */
+    @Getter
+    static final class Slot {
+        private final long matchId;
+        private final Level level;
+        private final LocalDateTime dateTime;
+        private final int freeSeats;
+
+        Slot(long matchId, Level level, LocalDateTime dateTime, int freeSeats) {
+            this.matchId = matchId;
+            this.level = level;
+            this.dateTime = dateTime;
+            this.freeSeats = freeSeats;
+        }
+
+        static Slot of(Match match) {
+            return new Slot(match.getId(), match.getRequiredLevel(), match.getDateTime(),
+                            Match.MAX_PLAYERS - match.getActivePlayers());
+        }
+
+        /**
+         * true se la partita accetta ancora giocatori (WAITING, almeno un posto)
+         */
+        static boolean isOpen(Match match) {
+            return match.getStatus() == MatchStatus.WAITING && !match.isFull()
+                && match.getRequiredLevel() != null && match.getDateTime() != null;
+        }
+    }
+
+    /**
+     * Carica le partite WAITING future
+     *
+     * ApplicationReadyEvent: dopo il DataSeeder, come SeatLedger.rebuild
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Match> open = matchRepository.findByStatusAndDateTimeAfter(MatchStatus.WAITING, LocalDateTime.now());
+        synchronized (this) {
+            open.stream().filter(Slot::isOpen).map(Slot::of).forEach(this::put);
+        }
+        log.info("🎯 Matchmaker: {} partite aperte caricate", open.size());
+    }
+
+    /**
+     * Posti cambiati (join / leave): la partita cambia gruppo, oppure esce se piena o non più WAITING
+     */
+    @EventListener
+    public void onSeatsChanged(MatchSeatsChangedEvent event) {
+        Match match = event.getMatch();
+        // Stato letto ora (entità della transazione), applicato dopo il commit
+        Slot slot = Slot.isOpen(match) ? Slot.of(match) : null;
+        Long matchId = match.getId();
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                remove(matchId);
+                if (slot != null) {
+                    put(slot);
+                }
+            }
+        });
+    }
+
+    @EventListener
+    public void onMatchConfirmed(MatchConfirmedEvent event) {
+        removeMatch(event.getMatch().getId());
+    }
+
+    @EventListener
+    public void onMatchFinished(MatchFinishedEvent event) {
+        removeMatch(event.getMatch().getId());
+    }
+
+    /**
+     * Rimuove una partita (eliminata, confermata o terminata)
+     */
+    public void removeMatch(Long matchId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                remove(matchId);
+            }
+        });
+    }
+
+    /**
+     * Le K partite migliori per un giocatore, escluse quelle a cui è già iscritto
+     *
+     * SQL: 1 query per le partite aperte del giocatore + 1 per caricare le K partite (WHERE id IN ...)
+     *
+     * @param user giocatore
+     * @param k numero massimo di partite
+     * @return partite in ordine di consiglio
+     */
+    public List<Match> recommend(User user, int k) {
+        Level target = user.getPerceivedLevel() != null ? user.getPerceivedLevel() : user.getDeclaredLevel();
+        if (target == null || k <= 0) {
+            return List.of();
+        }
+        Set<Long> excluded = new HashSet<>(registrationRepository.findOpenMatchIdsOf(user));
+        List<Long> ids = select(target, k, excluded, LocalDateTime.now());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Match> matchesById = matchRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Match::getId, Function.identity()));
+        return ids.stream().map(matchesById::get).filter(m -> m != null).toList();
+    }
+
+    /**
+     * Selezione in memoria: gruppi visitati per (distanza di livello, posti liberi),
+     * dentro ogni gruppo le partite dei livelli alla stessa distanza unite per data
+     *
+     * @return ID delle partite consigliate, al massimo k
+     */
+    synchronized List<Long> select(Level target, int k, Collection<Long> excluded, LocalDateTime now) {
+        evictStarted(now);
+        List<Long> result = new ArrayList<>(k);
+        Level[] levels = Level.values();
+        for (int distance = 0; distance < levels.length && result.size() < k; distance++) {
+            List<Level> sameDistance = new ArrayList<>(2);
+            if (target.ordinal() - distance >= 0) {
+                sameDistance.add(levels[target.ordinal() - distance]);
+            }
+            if (distance > 0 && target.ordinal() + distance < levels.length) {
+                sameDistance.add(levels[target.ordinal() + distance]);
+            }
+            if (sameDistance.isEmpty()) {
+                continue;
+            }
+            for (int free = 1; free <= Match.MAX_PLAYERS && result.size() < k; free++) {
+                List<NavigableSet<Slot>> group = new ArrayList<>(sameDistance.size());
+                for (Level level : sameDistance) {
+                    group.add(buckets.get(level).get(free - 1));
+                }
+                collectByStart(group, k, excluded, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Partite aperte nei bucket
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Unisce per data i TreeSet del gruppo (al massimo 2) aggiungendo partite finché result non ha k elementi
+     */
+    private static void collectByStart(List<NavigableSet<Slot>> group, int k, Collection<Long> excluded,
+                                       List<Long> result) {
+        List<Iterator<Slot>> iterators = new ArrayList<>(group.size());
+        List<Slot> heads = new ArrayList<>(group.size());
+        for (NavigableSet<Slot> set : group) {
+            Iterator<Slot> iterator = set.iterator();
+            iterators.add(iterator);
+            heads.add(iterator.hasNext() ? iterator.next() : null);
+        }
+        while (result.size() < k) {
+            int best = -1;
+            for (int i = 0; i < heads.size(); i++) {
+                Slot head = heads.get(i);
+                if (head != null && (best < 0 || BY_START.compare(head, heads.get(best)) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            Slot next = heads.get(best);
+            if (!excluded.contains(next.getMatchId())) {
+                result.add(next.getMatchId());
+            }
+            Iterator<Slot> iterator = iterators.get(best);
+            heads.set(best, iterator.hasNext() ? iterator.next() : null);
+        }
+    }
+
+    /**
+     * Toglie le partite già iniziate (in testa a ogni TreeSet): ognuna viene rimossa una volta sola
+     */
+    private void evictStarted(LocalDateTime now) {
+        Slot probe = new Slot(Long.MAX_VALUE, null, now, 0);
+        for (List<TreeSet<Slot>> bySeats : buckets.values()) {
+            for (TreeSet<Slot> set : bySeats) {
+                NavigableSet<Slot> started = set.headSet(probe, true);
+                if (!started.isEmpty()) {
+                    started.forEach(slot -> slots.remove(slot.getMatchId()));
+                    started.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Da chiamare tenendo il lock
+     */
+    private void put(Slot slot) {
+        remove(slot.getMatchId());
+        slots.put(slot.getMatchId(), slot);
+        buckets.get(slot.getLevel()).get(slot.getFreeSeats() - 1).add(slot);
+    }
+
+    /**
+     * Da chiamare tenendo il lock
+     */
+    private void remove(Long matchId) {
+        Slot slot = slots.remove(matchId);
+        if (slot != null) {
+            buckets.get(slot.getLevel()).get(slot.getFreeSeats() - 1).remove(slot);
+        }
+    }
+
+    private static Map<Level, List<TreeSet<Slot>>> newBuckets() {
+        Map<Level, List<TreeSet<Slot>>> buckets = new EnumMap<>(Level.class);
+        for (Level level : Level.values()) {
+            List<TreeSet<Slot>> bySeats = new ArrayList<>(Match.MAX_PLAYERS);
+            for (int free = 1; free <= Match.MAX_PLAYERS; free++) {
+                bySeats.add(new TreeSet<>(BY_START));
+            }
+            buckets.put(level, bySeats);
+        }
+        return buckets;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.padel_app.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -261,6 +262,44 @@ public class NotificationService {
         log.info("📝 Richiesta feedback inviata a {} giocatori", playersCount);
     }
     
+    /**
+     * Invia notifica di promozione dalla lista d'attesa.
+     * 
+     * <p>Questo metodo viene chiamato dal {@link MatchEventListener} quando
+     * viene pubblicato un {@link com.example.padel_app.event.PlayerPromotedEvent}
+     * (un giocatore ha lasciato la partita e il primo in attesa ha preso il suo posto).
+     * 
+     * @param username Utente promosso
+     * @param matchLocation Luogo della partita
+     */
+    public void sendPlayerPromotedNotification(String username, String matchLocation) {
+        String message = String.format("⏫ Posto libero! %s è ora iscritto alla partita - Location: %s - %s", 
+                                       username, matchLocation, LocalDateTime.now().format(formatter));
+        
+        notifications.add(message);
+        log.info("📧 Notifica Promozione da Lista d'Attesa: {}", message);
+    }
+    
+    /**
+     * Invia promemoria di una partita confermata in arrivo.
+     *
+     * <p>Questo metodo viene chiamato da {@link MatchReminderScheduler} quando scatta
+     * un promemoria programmato (default: 2 ore e 30 minuti prima dell'inizio).
+     *
+     * @param username Giocatore da avvisare
+     * @param matchLocation Luogo della partita
+     * @param matchDateTime Data e ora di inizio
+     * @param before Anticipo del promemoria rispetto all'inizio
+     */
+    public void sendMatchReminderNotification(String username, String matchLocation,
+                                              LocalDateTime matchDateTime, Duration before) {
+        String message = String.format("⏰ Promemoria per %s: partita tra %d minuti - Location: %s - Inizio: %s",
+                                       username, before.toMinutes(), matchLocation, matchDateTime.format(formatter));
+
+        notifications.add(message);
+        log.info("📧 Notifica Promemoria Partita: {}", message);
+    }
+
     /**
      * Invia una notifica generica.
      * 
@@ -0,0 +1,239 @@
+package com.example.padel_app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * OrderStatisticTree - Insieme ordinato con posizione e accesso per indice in O(log n)
+ *
+ * PROBLEMA RISOLTO:
+ * Per la classifica servono "in che posizione è X?" e "elementi dalla posizione i alla j".
+ * Una lista ordinata richiede O(n) per spostare un elemento quando cambia il suo punteggio;
+ * un TreeSet non sa dire la posizione senza scorrere tutto.
+ *
+ * STRUTTURA (treap = albero binario di ricerca + heap sulle priorità casuali):
+ * <pre>
+ *            (B, size 5)
+ *           /           \
+ *     (A, size 1)    (D, size 3)
+ *                    /         \
+ *              (C, size 1)  (E, size 1)
+ * </pre>
+ * - ordinamento BST secondo il Comparator, priorità casuale → altezza attesa O(log n)
+ * - ogni nodo conosce la dimensione del suo sottoalbero:
+ *   rank = somma dei sottoalberi sinistri lasciati lungo il percorso dalla radice
+ * - add / remove con split e merge: O(log n) attesi
+ * - rank / get: O(log n); range(from, count): O(log n + count)
+ *
+ * Il Comparator deve distinguere tutti gli elementi (nessun pareggio tra elementi diversi):
+ * un elemento uguale a uno presente non viene aggiunto.
+ *
+ * NOTA: la classe NON è thread-safe: chi la usa sincronizza l'accesso (Leaderboard).
+ *
+ * @param <E> elementi ordinati
+ */
+public class OrderStatisticTree<E> {
+
+    private static final class Node<E> {
+        private final E value;
+        private final int priority;
+        private int size = 1;
+        private Node<E> left;
+        private Node<E> right;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super E> comparator;
+    private final Random random;
+    private Node<E> root;
+
+    public OrderStatisticTree(Comparator<? super E> comparator) {
+        this(comparator, new Random());
+    }
+
+    OrderStatisticTree(Comparator<? super E> comparator, Random random) {
+        this.comparator = comparator;
+        this.random = random;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @return false se un elemento uguale è già presente
+     */
+    public boolean add(E value) {
+        if (rank(value) >= 0) {
+            return false;
+        }
+        Node<E>[] parts = split(root, value);
+        root = merge(merge(parts[0], new Node<>(value, random.nextInt())), parts[1]);
+        return true;
+    }
+
+    /**
+     * @return false se l'elemento non è presente
+     */
+    public boolean remove(E value) {
+        int before = size();
+        root = remove(root, value);
+        return size() < before;
+    }
+
+    /**
+     * Posizione dell'elemento (0 = primo secondo il Comparator)
+     *
+     * @return -1 se l'elemento non è presente
+     */
+    public int rank(E value) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Elemento in posizione index (0-based)
+     *
+     * @throws IndexOutOfBoundsException se index non è in [0, size)
+     */
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Al massimo count elementi a partire dalla posizione from, in ordine
+     *
+     * Discesa fino all'elemento in posizione from (tenendo sullo stack gli antenati
+     * ancora da visitare), poi visita in-order: O(log n + count).
+     */
+    public List<E> range(int from, int count) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        if (from < 0 || from >= size() || count <= 0) {
+            return result;
+        }
+        Deque<Node<E>> stack = new ArrayDeque<>();
+        Node<E> node = root;
+        int index = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (index == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!stack.isEmpty() && result.size() < count) {
+            Node<E> next = stack.pop();
+            result.add(next.value);
+            for (Node<E> child = next.right; child != null; child = child.left) {
+                stack.push(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Divide il sottoalbero in [elementi &lt; value, elementi &gt;= value]
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})  // array generico: new Node[] è l'unico modo
+    private Node<E>[] split(Node<E> node, E value) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (comparator.compare(node.value, value) < 0) {
+            Node<E>[] parts = split(node.right, value);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node<E>[] parts = split(node.left, value);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    /**
+     * Unisce due sottoalberi con tutti gli elementi di left prima di quelli di right
+     */
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<E> remove(Node<E> node, E value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = remove(node.left, value);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, value);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static <E> void update(Node<E> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static <E> int size(Node<E> node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.enums.Level;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PairingEngine - Forma partite 2 contro 2 equilibrate da un insieme di giocatori in attesa
+ *
+ * PROBLEMA RISOLTO:
+ * Chi vuole solo "una partita domani sera al mio livello" doveva cercare una partita adatta
+ * tra quelle esistenti o crearne una e aspettare. Il PlayerPool raccoglie queste richieste
+ * e il motore le trasforma in quartetti pronti da giocare.
+ *
+ * ALGORITMO (O(n), nessun confronto tra coppie di giocatori):
+ * 1. raggruppamento per fascia oraria (HashMap slot → giocatori, in ordine di coda)
+ * 2. in ogni fascia, counting sort stabile sui 4 livelli:
+ *    stesso livello → chi aspetta da più tempo viene prima
+ * 3. finestre di 4 giocatori consecutivi: se la differenza di livello nella finestra
+ *    è al massimo {@link #MAX_LEVEL_SPREAD} il quartetto è formato, altrimenti
+ *    il primo giocatore resta in coda e la finestra scorre di uno
+ * 4. squadre equilibrate: con i livelli ordinati a ≤ b ≤ c ≤ d → (a + d) contro (b + c),
+ *    la divisione con la minima differenza tra le somme dei livelli
+ *
+ * Livello richiesto della partita = media dei quattro livelli, arrotondata.
+ *
+ * Classe senza stato Spring (come OrderStatisticTree): la usa PlayerPool, il benchmark la chiama direttamente.
+ */
+public class PairingEngine {
+
+    /**
+     * Differenza massima di livello tra i quattro giocatori di un quartetto
+     */
+    public static final int MAX_LEVEL_SPREAD = 1;
+
+    private static final int PLAYERS = 4;
+
+    /**
+     * Giocatore in attesa: livello (perceivedLevel, altrimenti declaredLevel) e fascia oraria voluta
+     */
+    @Getter
+    public static final class Candidate {
+        private final long userId;
+        private final Level level;
+        private final LocalDateTime slot;
+
+        public Candidate(long userId, Level level, LocalDateTime slot) {
+            this.userId = userId;
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Quartetto formato: due squadre da due giocatori
+     */
+    @Getter
+    public static final class Foursome {
+        private final LocalDateTime slot;
+        private final Level level;
+        private final List<Candidate> teamA;
+        private final List<Candidate> teamB;
+
+        Foursome(LocalDateTime slot, Level level, List<Candidate> teamA, List<Candidate> teamB) {
+            this.slot = slot;
+            this.level = level;
+            this.teamA = teamA;
+            this.teamB = teamB;
+        }
+
+        /**
+         * I quattro giocatori: squadra A poi squadra B
+         */
+        public List<Candidate> getPlayers() {
+            List<Candidate> players = new ArrayList<>(PLAYERS);
+            players.addAll(teamA);
+            players.addAll(teamB);
+            return players;
+        }
+    }
+
+    /**
+     * Forma tutti i quartetti possibili; i giocatori non abbinati restano fuori dal risultato
+     *
+     * @param candidates giocatori in ordine di coda (il primo aspetta da più tempo)
+     * @return quartetti, raggruppati per fascia oraria
+     */
+    public List<Foursome> pair(Collection<Candidate> candidates) {
+        Map<LocalDateTime, List<Candidate>> bySlot = new LinkedHashMap<>();
+        for (Candidate candidate : candidates) {
+            bySlot.computeIfAbsent(candidate.getSlot(), slot -> new ArrayList<>()).add(candidate);
+        }
+        List<Foursome> foursomes = new ArrayList<>(candidates.size() / PLAYERS);
+        for (Map.Entry<LocalDateTime, List<Candidate>> entry : bySlot.entrySet()) {
+            pairSlot(entry.getKey(), sortByLevel(entry.getValue()), foursomes);
+        }
+        return foursomes;
+    }
+
+    private static void pairSlot(LocalDateTime slot, Candidate[] sorted, List<Foursome> foursomes) {
+        int i = 0;
+        while (i + PLAYERS <= sorted.length) {
+            Candidate a = sorted[i];
+            Candidate d = sorted[i + PLAYERS - 1];
+            if (d.getLevel().ordinal() - a.getLevel().ordinal() > MAX_LEVEL_SPREAD) {
+                i++;  // a non ha tre compagni abbastanza vicini: resta in coda
+                continue;
+            }
+            Candidate b = sorted[i + 1];
+            Candidate c = sorted[i + 2];
+            int levelSum = a.getLevel().ordinal() + b.getLevel().ordinal()
+                + c.getLevel().ordinal() + d.getLevel().ordinal();
+            Level level = Level.values()[Math.round(levelSum / (float) PLAYERS)];
+            foursomes.add(new Foursome(slot, level, List.of(a, d), List.of(b, c)));
+            i += PLAYERS;
+        }
+    }
+
+    /**
+     * Counting sort stabile per livello: O(n), l'ordine di coda resta dentro ogni livello
+     */
+    private static Candidate[] sortByLevel(List<Candidate> candidates) {
+        int[] start = new int[Level.values().length + 1];
+        for (Candidate candidate : candidates) {
+            start[candidate.getLevel().ordinal() + 1]++;
+        }
+        for (int level = 1; level < start.length; level++) {
+            start[level] += start[level - 1];
+        }
+        Candidate[] sorted = new Candidate[candidates.size()];
+        for (Candidate candidate : candidates) {
+            sorted[start[candidate.getLevel().ordinal()]++] = candidate;
+        }
+        return sorted;
+    }
+}
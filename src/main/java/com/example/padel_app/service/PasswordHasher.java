@@ -0,0 +1,157 @@
+package com.example.padel_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordHasher - BCrypt (PasswordEncoder) su un pool di thread dedicato e limitato
+ *
+ * PROBLEMA RISOLTO:
+ * login e register eseguivano BCrypt sul thread Tomcat della richiesta: decine di ms di CPU
+ * per verifica. Durante una raffica di login (apertura prenotazioni del mattino) tutti i worker
+ * erano occupati a calcolare hash e anche la semplice navigazione si bloccava.
+ *
+ * FUNZIONAMENTO:
+ * - padel.password-hashing.threads thread (0 = numero di core): al massimo tanti hash in parallelo
+ * - coda di padel.password-hashing.queue-capacity richieste in attesa
+ * - coda piena → {@link BusyException} subito (AuthController risponde 503 con Retry-After),
+ *   senza occupare il thread Tomcat per il tempo di un hash
+ * - attesa oltre padel.password-hashing.timeout → BusyException (hash annullato se non ancora partito)
+ * Il thread della richiesta aspetta il risultato, ma i thread in attesa sono al massimo
+ * threads + queue-capacity: gli altri worker restano liberi per le pagine.
+ *
+ * METRICHE (Micrometer, visibili su /actuator/metrics):
+ * - padel.auth.password-hash: durata di ogni hash, tag operation=matches|encode (Timer)
+ * - padel.auth.password-hash.queue: richieste in coda (Gauge)
+ * - padel.auth.password-hash.rejected: richieste rifiutate per coda piena o timeout (Counter)
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    /**
+     * Pool di hashing saturo: la richiesta va ripetuta più tardi (HTTP 503)
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${padel.password-hashing.threads:0}") int threads,
+                          @Value("${padel.password-hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${padel.password-hashing.timeout:PT5S}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutNanos = timeout.toNanos();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchesTimer = Timer.builder("padel.auth.password-hash")
+            .description("Durata di un hash BCrypt")
+            .tag("operation", "matches")
+            .register(meterRegistry);
+        this.encodeTimer = Timer.builder("padel.auth.password-hash")
+            .description("Durata di un hash BCrypt")
+            .tag("operation", "encode")
+            .register(meterRegistry);
+        Gauge.builder("padel.auth.password-hash.queue", executor, e -> e.getQueue().size())
+            .description("Richieste di hash in coda")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("padel.auth.password-hash.rejected")
+            .description("Richieste di hash rifiutate (coda piena o timeout)")
+            .register(meterRegistry);
+        log.info("🔐 Password hashing: {} thread, coda da {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * PasswordEncoder.matches sul pool dedicato
+     *
+     * @throws BusyException se il pool è saturo
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * PasswordEncoder.encode sul pool dedicato
+     *
+     * @throws BusyException se il pool è saturo
+     */
+    public String encode(String rawPassword) {
+        return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Richieste in coda (non ancora in esecuzione)
+     */
+    public int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing saturated: {} in queue", queueSize());
+            throw new BusyException("Troppe richieste di accesso in questo momento, riprova tra qualche secondo");
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejectedCounter.increment();
+            throw new BusyException("Troppe richieste di accesso in questo momento, riprova tra qualche secondo");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new BusyException("Richiesta interrotta");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
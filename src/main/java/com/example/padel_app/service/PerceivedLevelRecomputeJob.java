@@ -0,0 +1,122 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.repository.FeedbackRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PerceivedLevelRecomputeJob - Ricalcolo del perceived level di TUTTI gli utenti
+ *
+ * PROBLEMA RISOLTO:
+ * Dopo una riparazione dei dati o un cambio della formula del livello, riallineare tutti
+ * richiedeva una chiamata a updatePerceivedLevel per utente (lettura utente + totali + UPDATE).
+ *
+ * FUNZIONAMENTO:
+ * - UNA query aggregata sui feedback (FeedbackRepository.sumReceivedLevelsByUser, GROUP BY target_user_id):
+ *   somma degli ordinal e numero di feedback per ogni utente valutato
+ * - blocchi di padel.perceived-level.chunk-size utenti, elaborati in parallelo
+ *   da padel.perceived-level.parallelism thread
+ * - ogni blocco nella PROPRIA transazione (FeedbackService.applyPerceivedLevels):
+ *   al massimo un UPDATE ... WHERE id IN (...) per Level
+ * - un blocco fallito viene registrato nel log, gli altri proseguono
+ * - avanzamento nel log a ogni blocco completato ("utenti elaborati / totale")
+ *
+ * AVVIO:
+ * - cron padel.perceived-level.recompute-cron (default "-" = disattivato)
+ * - oppure chiamata diretta a recompute() (es. dopo uno script di riparazione)
+ *
+ * METRICHE (Micrometer, visibili su /actuator/metrics):
+ * - padel.users.perceived-level.recompute: durata di ogni ricalcolo (Timer)
+ * - padel.users.perceived-level.updated: utenti aggiornati (Counter)
+ */
+@Component
+@Slf4j
+public class PerceivedLevelRecomputeJob {
+
+    private final FeedbackRepository feedbackRepository;
+    private final FeedbackService feedbackService;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Timer recomputeTimer;
+    private final Counter updatedCounter;
+
+    public PerceivedLevelRecomputeJob(FeedbackRepository feedbackRepository,
+                                      FeedbackService feedbackService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${padel.perceived-level.chunk-size:500}") int chunkSize,
+                                      @Value("${padel.perceived-level.parallelism:4}") int parallelism) {
+        this.feedbackRepository = feedbackRepository;
+        this.feedbackService = feedbackService;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.recomputeTimer = Timer.builder("padel.users.perceived-level.recompute")
+            .description("Durata del ricalcolo dei livelli percepiti")
+            .register(meterRegistry);
+        this.updatedCounter = Counter.builder("padel.users.perceived-level.updated")
+            .description("Utenti con perceived level ricalcolato")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ricalcola il perceived level di tutti gli utenti che hanno ricevuto feedback
+     *
+     * @return utenti aggiornati (esclusi quelli dei blocchi falliti)
+     */
+    @Scheduled(cron = "${padel.perceived-level.recompute-cron:-}")
+    public int recompute() {
+        return recomputeTimer.record(() -> {
+            List<FeedbackRepository.ReceivedLevels> rows = feedbackRepository.sumReceivedLevelsByUser();
+            List<List<FeedbackRepository.ReceivedLevels>> chunks = new ArrayList<>();
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                chunks.add(rows.subList(from, Math.min(from + chunkSize, rows.size())));
+            }
+            log.info("⭐ Ricalcolo perceived level: {} utenti in {} blocchi", rows.size(), chunks.size());
+
+            AtomicInteger processed = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, chunks.size())));
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (List<FeedbackRepository.ReceivedLevels> chunk : chunks) {
+                    results.add(executor.submit(() -> {
+                        int updated = feedbackService.applyPerceivedLevels(chunk);
+                        log.info("⭐ Ricalcolo perceived level: {}/{} utenti", processed.addAndGet(chunk.size()), rows.size());
+                        return updated;
+                    }));
+                }
+                int total = 0;
+                for (Future<Integer> result : results) {
+                    total += await(result);
+                }
+                updatedCounter.increment(total);
+                return total;
+            } finally {
+                executor.shutdown();
+            }
+        });
+    }
+
+    private int await(Future<Integer> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            log.warn("Blocco del ricalcolo perceived level fallito: {}", e.getCause().getMessage());
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.FeedbackTotalsChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * PerceivedLevelUpdater - Ricalcolo asincrono e raggruppato del perceived level
+ *
+ * PROBLEMA RISOLTO:
+ * A fine partita i 4 giocatori si valutano a vicenda: 12 createFeedback in pochi minuti,
+ * ognuno ricalcolava il livello del destinatario dentro la transazione della richiesta
+ * (3 ricalcoli per giocatore, tutti tranne l'ultimo inutili).
+ *
+ * FUNZIONAMENTO:
+ * - onFeedbackTotalsChanged (dopo il commit): l'utente entra in coda con l'istante dell'ultima richiesta
+ * - flush (ogni padel.perceived-level.coalesce-window, su un thread del pool di scheduling:
+ *   spring.task.scheduling.pool.size dà un thread a ogni job, il flush non aspetta sweeper o abbinamenti):
+ *   ricalcola in UNA transazione tutti gli utenti fermi da almeno una finestra
+ *   (FeedbackService.refreshPerceivedLevels: una query + un UPDATE per Level)
+ * - un utente che riceve altri feedback resta in coda: ricalcolato una volta a fine raffica
+ * - errore nel ricalcolo: gli utenti tornano in coda per il flush successivo
+ *
+ * Latenza: tra una e due finestre dall'ultimo feedback ricevuto.
+ *
+ * NOTA: come SeatLedger, la coda è per singola istanza e non sopravvive a un riavvio
+ * (i totali sono già nel DB: PerceivedLevelRecomputeJob riallinea tutti i livelli).
+ */
+@Component
+@Slf4j
+public class PerceivedLevelUpdater {
+
+    private final FeedbackService feedbackService;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    /**
+     * userId → istante (System.nanoTime) dell'ultima modifica dei totali
+     */
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PerceivedLevelUpdater(FeedbackService feedbackService,
+                                 @Value("${padel.perceived-level.coalesce-window:PT5S}") Duration window) {
+        this(feedbackService, window, System::nanoTime);
+    }
+
+    PerceivedLevelUpdater(FeedbackService feedbackService, Duration window, LongSupplier clock) {
+        this.feedbackService = feedbackService;
+        this.windowNanos = window.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Accoda l'utente (o ne sposta in avanti la scadenza se è già in coda)
+     *
+     * AFTER_COMMIT: un feedback annullato da rollback non produce ricalcoli;
+     * fallbackExecution: pubblicato fuori transazione → accodato subito.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeedbackTotalsChanged(FeedbackTotalsChangedEvent event) {
+        pending.put(event.getUserId(), clock.getAsLong());
+    }
+
+    /**
+     * Ricalcola gli utenti fermi da almeno una finestra
+     *
+     * @return utenti aggiornati
+     */
+    @Scheduled(fixedDelayString = "${padel.perceived-level.coalesce-window:PT5S}")
+    public int flush() {
+        long now = clock.getAsLong();
+        List<Long> ready = new ArrayList<>();
+        pending.forEach((userId, lastChange) -> {
+            // remove(key, value): un feedback arrivato nel frattempo lascia l'utente in coda
+            if (now - lastChange >= windowNanos && pending.remove(userId, lastChange)) {
+                ready.add(userId);
+            }
+        });
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        try {
+            int updated = feedbackService.refreshPerceivedLevels(ready);
+            log.debug("⭐ Perceived level ricalcolato per {} utenti", updated);
+            return updated;
+        } catch (RuntimeException e) {
+            log.warn("Ricalcolo perceived level fallito per {} utenti, riprovo: {}", ready.size(), e.getMessage());
+            ready.forEach(userId -> pending.putIfAbsent(userId, now));
+            return 0;
+        }
+    }
+
+    /**
+     * Utenti in attesa di ricalcolo
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PlayerPool - Coda dei giocatori che vogliono "una partita a quell'ora, al mio livello"
+ *
+ * FUNZIONAMENTO:
+ * - join(user, slot): il giocatore entra in coda per una fascia oraria (arrotondata all'ora);
+ *   livello = perceivedLevel, altrimenti declaredLevel. Un giocatore ha al massimo una richiesta:
+ *   una nuova richiesta sostituisce la precedente
+ * - leave(userId): esce dalla coda
+ * - pairAndCreate() (ogni padel.pairing.interval): {@link PairingEngine} forma i quartetti,
+ *   i giocatori abbinati escono dalla coda e MatchService.createPairedMatches crea partite
+ *   e registrations a blocchi di padel.pairing.chunk-size quartetti (una transazione per blocco)
+ *
+ * ERRORI:
+ * un blocco fallito viene annullato (rollback) e i suoi giocatori tornano in coda per il giro successivo.
+ * Un quartetto con un utente non più esistente non diventa partita: gli altri tre tornano in coda.
+ * Le richieste per fasce orarie già iniziate vengono scartate.
+ *
+ * NOTA: come SeatLedger, la coda è per singola istanza dell'applicazione e non sopravvive a un riavvio.
+ */
+@Component
+@Slf4j
+public class PlayerPool {
+
+    private final MatchService matchService;
+    private final String location;
+    private final int chunkSize;
+    private final PairingEngine engine = new PairingEngine();
+
+    /**
+     * userId → richiesta, in ordine di arrivo (il primo aspetta da più tempo)
+     */
+    private final Map<Long, PairingEngine.Candidate> queue = new LinkedHashMap<>();
+
+    public PlayerPool(MatchService matchService,
+                      @Value("${padel.pairing.location:Campo da assegnare}") String location,
+                      @Value("${padel.pairing.chunk-size:200}") int chunkSize) {
+        this.matchService = matchService;
+        this.location = location;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Mette il giocatore in coda per la fascia oraria indicata
+     *
+     * @return fascia oraria effettiva (arrotondata all'ora)
+     * @throws IllegalArgumentException se la fascia è già iniziata o l'utente non ha un livello
+     */
+    public LocalDateTime join(User user, LocalDateTime slot) {
+        LocalDateTime hour = slot.truncatedTo(ChronoUnit.HOURS);
+        if (!hour.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Scegli una fascia oraria futura");
+        }
+        Level level = user.getPerceivedLevel() != null ? user.getPerceivedLevel() : user.getDeclaredLevel();
+        if (level == null) {
+            throw new IllegalArgumentException("Imposta il tuo livello prima di entrare in coda");
+        }
+        synchronized (this) {
+            queue.remove(user.getId());
+            queue.put(user.getId(), new PairingEngine.Candidate(user.getId(), level, hour));
+        }
+        log.info("User {} queued for a {} match at {}", user.getUsername(), level, hour);
+        return hour;
+    }
+
+    /**
+     * @return false se il giocatore non era in coda
+     */
+    public synchronized boolean leave(Long userId) {
+        return queue.remove(userId) != null;
+    }
+
+    /**
+     * Fascia oraria per cui il giocatore è in coda, null se non è in coda
+     */
+    public synchronized LocalDateTime queuedSlot(Long userId) {
+        PairingEngine.Candidate candidate = queue.get(userId);
+        return candidate != null ? candidate.getSlot() : null;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Abbina i giocatori in coda e crea le partite
+     *
+     * @return partite create
+     */
+    @Scheduled(fixedDelayString = "${padel.pairing.interval:PT1M}")
+    public int pairAndCreate() {
+        return pairAndCreate(LocalDateTime.now());
+    }
+
+    int pairAndCreate(LocalDateTime now) {
+        List<PairingEngine.Foursome> foursomes;
+        synchronized (this) {
+            queue.values().removeIf(candidate -> !candidate.getSlot().isAfter(now));
+            foursomes = engine.pair(queue.values());
+            foursomes.forEach(foursome ->
+                foursome.getPlayers().forEach(player -> queue.remove(player.getUserId())));
+        }
+        if (foursomes.isEmpty()) {
+            return 0;
+        }
+
+        int created = 0;
+        for (int from = 0; from < foursomes.size(); from += chunkSize) {
+            List<PairingEngine.Foursome> chunk = foursomes.subList(from, Math.min(from + chunkSize, foursomes.size()));
+            try {
+                MatchService.PairedMatches result = matchService.createPairedMatches(chunk, location);
+                created += result.getCreated().size();
+                requeue(result.getUnmatched());
+            } catch (RuntimeException e) {
+                log.error("Pairing chunk of {} foursomes failed, players back in the pool", chunk.size(), e);
+                List<PairingEngine.Candidate> players = new ArrayList<>();
+                chunk.forEach(foursome -> players.addAll(foursome.getPlayers()));
+                requeue(players);
+            }
+        }
+        log.info("🤝 Abbinamento: {} partite create, {} giocatori ancora in coda", created, size());
+        return created;
+    }
+
+    /**
+     * Giocatori non abbinati di nuovo in coda (se nel frattempo non hanno fatto una nuova richiesta)
+     */
+    private synchronized void requeue(List<PairingEngine.Candidate> players) {
+        players.forEach(player -> queue.putIfAbsent(player.getUserId(), player));
+    }
+}
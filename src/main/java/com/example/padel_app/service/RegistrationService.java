@@ -1,33 +1,46 @@
 package com.example.padel_app.service;
 
+import com.example.padel_app.event.MatchSeatsChangedEvent;
+import com.example.padel_app.event.PlayerPromotedEvent;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
 import com.example.padel_app.repository.RegistrationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * RegistrationService - Gestisce iscrizioni utenti alle partite
  * 
  * RESPONSABILITÀ:
- * 1. Join Match: iscrizione con validazione vincoli business
+ * 1. Join Match: iscrizione con validazione vincoli business (singola o di gruppo)
  * 2. Leave Match: disiscrizione con logica speciale per creatore
  * 3. Query registrazioni: filtri per user, match, status
- * 4. Contatori: giocatori attivi vs totali
+ * 4. Lista d'attesa: coda FIFO per partite piene, promozione automatica in leaveMatch
+ * 5. Contatori: giocatori attivi vs totali
+ * 6. Posti tenuti: holdSeat blocca un posto in memoria per qualche minuto prima del join
+ *    - giocatori attivi = Match.activePlayers, tenuto allineato da joinMatch/leaveMatch
+ *      con UPDATE atomici (MatchRepository.claimSeat/decrementActivePlayers)
  * 
  * BUSINESS RULES IMPLEMENTATE:
- * - Max 4 giocatori per partita (vincolo hard)
+ * - Max 4 giocatori per partita (vincolo hard, garantito anche con join concorrenti)
  * - No iscrizioni duplicate (un utente può iscriversi 1 sola volta)
  * - Creatore che si disiscrivo → elimina partita intera
  * - Altri che si disiscrivono → status CANCELLED (partita rimane)
+ *   e il primo in lista d'attesa prende il posto (WAITLISTED → JOINED)
  * - Auto-conferma a 4 giocatori (delega a MatchService)
  * 
  * SPRING CONCEPTS:
@@ -47,7 +60,11 @@ public class RegistrationService {
     // ==================== DEPENDENCIES ====================
     
     private final RegistrationRepository registrationRepository;
+    private final MatchRepository matchRepository;  // Contatore activePlayers
+    private final SeatLedger seatLedger;  // Posti in memoria: rifiuta partite piene senza DB
     private final MatchService matchService;  // Per auto-conferma e delete match
+    private final ApplicationEventPublisher eventPublisher;  // Observer: notifica promozione da lista d'attesa
+    private final MatchReminderScheduler reminderScheduler;  // Promemoria: rimossi quando l'utente esce
     
     // ==================== QUERY METHODS ====================
     
@@ -102,6 +119,15 @@ public class RegistrationService {
         return registrationRepository.existsByUserAndMatchAndStatus(user, match, RegistrationStatus.JOINED);
     }
     
+    /**
+     * Verifica se utente è in lista d'attesa per una partita
+     * 
+     * CHECK: user + match + status = WAITLISTED
+     */
+    public boolean isUserWaitlisted(User user, Match match) {
+        return registrationRepository.existsByUserAndMatchAndStatus(user, match, RegistrationStatus.WAITLISTED);
+    }
+    
     /**
      * Alias per isUserRegisteredForMatch (retrocompatibilità)
      */
@@ -121,11 +147,12 @@ public class RegistrationService {
     /**
      * Conta giocatori ATTIVI (JOINED) in una partita
      * 
-     * COUNT query efficiente (no caricamento entità)
+     * Legge il contatore activePlayers dal DB (lookup per PK, niente COUNT su registrations):
+     * valore aggiornato anche se l'entità match passata è detached.
      * Uso: verificare se partita è piena (4/4) prima di join
      */
     public int getActiveRegistrationsCount(Match match) {
-        return registrationRepository.countActiveRegistrationsByMatch(match);
+        return matchRepository.findActivePlayersById(match.getId()).orElse(0);
     }
     
     /**
@@ -150,12 +177,24 @@ public class RegistrationService {
      * 4. ✅ Trigger auto-conferma se raggiunge 4 giocatori
      * 
      * FLOW COMPLETO:
-     * 1. Check duplicati (solo JOINED)
-     * 2. Check capacità massima
-     * 3. **RIUSA registration CANCELLED se esistente** (fix unique constraint)
-     *    - Se esiste registration CANCELLED → riattiva (status = JOINED)
+     * 0. Check duplicati (solo JOINED): una EXISTS, così chi è già iscritto
+     *    riceve "already registered" anche se la partita è piena
+     * 1. **Prenotazione nel SeatLedger** (in memoria, CAS)
+     *    Se l'utente ha un posto tenuto (holdSeat) viene usato quello.
+     *    Partita piena → eccezione senza claim né scritture (hot path delle partite più richieste).
+     *    In caso di rollback la prenotazione viene restituita automaticamente.
+     * 2. **Claim atomico del posto** (MatchRepository.claimSeat)
+     *    UPDATE ... SET active_players = active_players + 1 WHERE id = ? AND active_players < 4
+     *    - 1 riga aggiornata → posto occupato
+     *    - 0 righe → partita piena → eccezione
+     *    Controllo e incremento sono un'unica operazione nel DB: due join concorrenti
+     *    non possono vedere entrambi "3 giocatori" e portare la partita a 5.
+     *    Se un passo successivo fallisce, il rollback della transazione libera anche il posto.
+     * 3. **RIUSA registration esistente non JOINED** (fix unique constraint)
+     *    - Se esiste registration CANCELLED o WAITLISTED → riattiva (status = JOINED)
+     *      (WAITLISTED: il posto si è liberato senza promozione, es. leave concorrente)
      *    - Se non esiste → crea nuova registration
-     * 4. Log operazione
+     * 4. Allineamento di activePlayers nell'entità in memoria (valore riletto dal DB)
      * 5. **Chiama MatchService.checkAndConfirmMatch()**
      *    → Se 4° giocatore: WAITING → CONFIRMED + evento Observer
      * 
@@ -169,29 +208,38 @@ public class RegistrationService {
      */
     @Transactional  // Override readOnly: serve scrittura DB
     public Registration joinMatch(User user, Match match) {
-        // Check if already registered with JOINED status
+        // Check if already registered with JOINED status: prima del ledger, altrimenti
+        // chi è già iscritto a una partita piena riceverebbe "Match is full"
         if (isUserRegisteredForMatch(user, match)) {
             throw new IllegalStateException("User already registered for this match");
         }
         
-        // Check match capacity (max 4 players)
-        int currentPlayers = registrationRepository.countActiveRegistrationsByMatch(match);
-        if (currentPlayers >= 4) {
+        // Posto tenuto dall'utente (holdSeat) → già suo; altrimenti prenotazione nel ledger.
+        // Fast path: partita piena secondo il ledger → nessun claim né scrittura sul DB
+        if (!seatLedger.claimHold(match.getId(), user.getId()) && !seatLedger.tryReserve(match.getId())) {
             throw new IllegalStateException("Match is full - maximum 4 players allowed");
         }
         
-        // Try to find existing CANCELLED registration to reuse
-        Optional<Registration> existingCancelledReg = registrationRepository
-            .findByUserAndMatchAndStatus(user, match, RegistrationStatus.CANCELLED);
+        // Claim atomico del posto (max 4 players): nessun check-then-act
+        if (matchRepository.claimSeat(match.getId(), Match.MAX_PLAYERS) == 0) {
+            // Il ledger era indietro rispetto al DB: lo riallineo per le prossime richieste
+            seatLedger.reload(match.getId());
+            throw new IllegalStateException("Match is full - maximum 4 players allowed");
+        }
+        
+        // Registration esistente non JOINED (CANCELLED o WAITLISTED) da riusare:
+        // un utente può essere ancora in lista d'attesa quando un posto si libera
+        Optional<Registration> existingReg = registrationRepository.findByUserAndMatch(user, match);
         
         Registration registration;
-        if (existingCancelledReg.isPresent()) {
+        if (existingReg.isPresent()) {
             // Riusa registration esistente (fix unique constraint violation)
-            registration = existingCancelledReg.get();
+            registration = existingReg.get();
+            RegistrationStatus previousStatus = registration.getStatus();
             registration.setStatus(RegistrationStatus.JOINED);
             registration.setRegisteredAt(LocalDateTime.now());  // Aggiorna timestamp
-            log.info("User {} re-joined match {} (reactivating cancelled registration)", 
-                     user.getUsername(), match.getId());
+            log.info("User {} re-joined match {} (reactivating {} registration)", 
+                     user.getUsername(), match.getId(), previousStatus);
         } else {
             // Crea nuova registration (prima iscrizione)
             registration = new Registration();
@@ -204,7 +252,11 @@ public class RegistrationService {
         }
         
         Registration savedRegistration = registrationRepository.save(registration);
-        log.info("Match {} now has {}/{} players", match.getId(), currentPlayers + 1, 4);
+        
+        // Riallineo l'entità (la colonna non è updatable): il valore include il posto appena occupato
+        match.setActivePlayers(getActiveRegistrationsCount(match));
+        log.info("Match {} now has {}/{} players", match.getId(), match.getActivePlayers(), Match.MAX_PLAYERS);
+        eventPublisher.publishEvent(new MatchSeatsChangedEvent(this, match));
         
         // Check if match should be auto-confirmed (4 players)
         // Delega a MatchService che pubblica evento Observer se necessario
@@ -213,6 +265,181 @@ public class RegistrationService {
         return savedRegistration;
     }
     
+    /**
+     * Iscrive un gruppo di utenti (fino a 4) alla stessa partita: tutti o nessuno
+     * 
+     * PROBLEMA RISOLTO:
+     * Amici che prenotano insieme facevano fino a 4 POST /matches/{id}/join,
+     * ognuno con tutti i controlli di joinMatch e un checkAndConfirmMatch.
+     * Qui l'intero gruppo passa in UNA transazione:
+     * 1. Validazione input: da 1 a 4 utenti, nessun utente ripetuto
+     * 2. Prenotazione di tutti i posti nel SeatLedger (CAS unico, tutti o nessuno)
+     * 3. UNA query per le iscrizioni esistenti del gruppo (findByMatchAndUserIn)
+     *    - qualcuno già JOINED → eccezione
+     *    - registration CANCELLED o WAITLISTED → riattivata (vincolo unique)
+     * 4. UN claim atomico per tutti i posti (MatchRepository.claimSeats)
+     * 5. saveAll delle registrations del gruppo
+     * 6. UN solo checkAndConfirmMatch → al massimo un MatchConfirmedEvent
+     * 
+     * ATOMICITÀ:
+     * Qualsiasi eccezione annulla la transazione: nessuna registration salvata,
+     * contatore invariato, prenotazioni del ledger restituite dal rollback.
+     * 
+     * @param users utenti del gruppo
+     * @param match partita target
+     * @return registrations create o riattivate, nello stesso ordine di users
+     * @throws IllegalArgumentException se il gruppo è vuoto, supera 4 utenti o contiene duplicati
+     * @throws IllegalStateException se qualcuno è già iscritto o non c'è posto per tutti
+     */
+    @Transactional  // Override readOnly: serve scrittura DB
+    public List<Registration> joinMatchAsGroup(List<User> users, Match match) {
+        if (users == null || users.isEmpty() || users.size() > Match.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Group must have between 1 and 4 players");
+        }
+        if (users.stream().map(User::getId).distinct().count() != users.size()) {
+            throw new IllegalArgumentException("Group contains the same user more than once");
+        }
+        int seats = users.size();
+        
+        // Fast path: posti insufficienti secondo il ledger → nessun accesso al DB
+        if (!seatLedger.tryReserve(match.getId(), seats)) {
+            throw new IllegalStateException("Match is full - not enough seats for the whole group");
+        }
+        
+        // Iscrizioni esistenti del gruppo: una sola query
+        Map<Long, Registration> existing = registrationRepository.findByMatchAndUserIn(match, users).stream()
+            .collect(Collectors.toMap(r -> r.getUser().getId(), Function.identity()));
+        for (Registration registration : existing.values()) {
+            if (registration.getStatus() == RegistrationStatus.JOINED) {
+                throw new IllegalStateException(
+                    "User " + registration.getUser().getUsername() + " already registered for this match");
+            }
+        }
+        
+        // Claim atomico di tutti i posti: o c'è spazio per il gruppo intero o nessuno entra
+        if (matchRepository.claimSeats(match.getId(), seats, Match.MAX_PLAYERS) == 0) {
+            seatLedger.reload(match.getId());
+            throw new IllegalStateException("Match is full - not enough seats for the whole group");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Registration> registrations = new ArrayList<>(seats);
+        for (User user : users) {
+            Registration registration = existing.get(user.getId());
+            if (registration == null) {
+                registration = new Registration();
+                registration.setUser(user);
+                registration.setMatch(match);
+            }
+            registration.setStatus(RegistrationStatus.JOINED);
+            registration.setRegisteredAt(now);
+            registrations.add(registration);
+        }
+        List<Registration> saved = registrationRepository.saveAll(registrations);
+        
+        match.setActivePlayers(getActiveRegistrationsCount(match));
+        log.info("Group of {} joined match {} ({}/{} players)", 
+                 seats, match.getId(), match.getActivePlayers(), Match.MAX_PLAYERS);
+        eventPublisher.publishEvent(new MatchSeatsChangedEvent(this, match));
+        
+        // Un solo controllo per tutto il gruppo: al massimo un evento di conferma
+        matchService.checkAndConfirmMatch(match);
+        
+        return saved;
+    }
+    
+    /**
+     * Tiene un posto per l'utente mentre completa l'iscrizione
+     * 
+     * PROBLEMA RISOLTO:
+     * Con un solo posto libero, chi apre il flusso di iscrizione se lo vede portare via
+     * prima di confermare e riprova più volte. Con l'hold il posto resta suo per
+     * padel.holds.ttl (default 2 minuti): gli altri vedono la partita piena (SeatLedger.isFull).
+     * 
+     * FUNZIONAMENTO:
+     * - solo memoria (SeatLedger): nessuna scrittura nel DB
+     * - joinMatch entro la scadenza usa il posto tenuto
+     * - scaduto l'hold il posto torna libero da solo (nessuno sweep sul DB)
+     * - ripetere holdSeat rinnova la scadenza senza occupare un altro posto
+     * 
+     * @param user utente che vuole iscriversi
+     * @param match partita
+     * @return scadenza dell'hold
+     * @throws IllegalStateException se già iscritto o partita piena
+     */
+    public LocalDateTime holdSeat(User user, Match match) {
+        if (isUserRegisteredForMatch(user, match)) {
+            throw new IllegalStateException("User already registered for this match");
+        }
+        if (!seatLedger.hold(match.getId(), user.getId())) {
+            throw new IllegalStateException("Match is full - maximum 4 players allowed");
+        }
+        log.info("User {} holds a seat in match {} for {}", user.getUsername(), match.getId(), seatLedger.getHoldTtl());
+        return LocalDateTime.now().plus(seatLedger.getHoldTtl());
+    }
+    
+    /**
+     * Rilascia il posto tenuto (l'utente rinuncia prima della scadenza)
+     */
+    public void releaseSeatHold(User user, Match match) {
+        seatLedger.releaseHold(match.getId(), user.getId());
+    }
+    
+    /**
+     * Mette un utente in lista d'attesa per una partita piena
+     * 
+     * PROBLEMA RISOLTO:
+     * Con "Match is full" l'utente riprova finché qualcuno non lascia la partita:
+     * ogni tentativo è una richiesta (e una transazione) inutile. In lista d'attesa
+     * viene iscritto automaticamente da leaveMatch, senza dover riprovare.
+     * 
+     * VALIDAZIONI:
+     * 1. ❌ Utente già iscritto (JOINED) → eccezione
+     * 2. ❌ Utente già in lista d'attesa → eccezione
+     * 3. ❌ Partita con posti liberi → eccezione (deve iscriversi direttamente con joinMatch).
+     *    I posti tenuti (SeatLedger.heldSeats) contano come occupati; chi tiene un posto
+     *    lo usa con joinMatch invece di mettersi in coda
+     * 4. ✅ Registration con status = WAITLISTED (riusa quella CANCELLED se esiste, vincolo unique)
+     * 
+     * La posizione in coda è data da registeredAt: impostato ora, anche quando
+     * si riattiva una registration CANCELLED (chi torna si mette in fondo).
+     * Nessun contatore toccato: chi è in attesa non occupa posti.
+     * 
+     * NOTA: un hold che scade libera il posto senza passare da leaveMatch: la coda non avanza,
+     * il posto va al primo che si iscrive (anche chi è in attesa, con joinMatch).
+     * 
+     * @param user utente che si mette in coda
+     * @param match partita piena
+     * @return registration in lista d'attesa
+     * @throws IllegalStateException se già iscritto/in attesa o se la partita ha posti liberi
+     */
+    @Transactional  // Override readOnly: serve scrittura DB
+    public Registration joinWaitlist(User user, Match match) {
+        Optional<Registration> existing = registrationRepository.findByUserAndMatch(user, match);
+        if (existing.isPresent() && existing.get().getStatus() == RegistrationStatus.JOINED) {
+            throw new IllegalStateException("User already registered for this match");
+        }
+        if (existing.isPresent() && existing.get().getStatus() == RegistrationStatus.WAITLISTED) {
+            throw new IllegalStateException("User already in waitlist for this match");
+        }
+        if (seatLedger.hasHold(match.getId(), user.getId())
+                || getActiveRegistrationsCount(match) + seatLedger.heldSeats(match.getId()) < Match.MAX_PLAYERS) {
+            throw new IllegalStateException("Match has free seats - join it directly");
+        }
+        
+        Registration registration = existing.orElseGet(() -> {
+            Registration created = new Registration();
+            created.setUser(user);
+            created.setMatch(match);
+            return created;
+        });
+        registration.setStatus(RegistrationStatus.WAITLISTED);
+        registration.setRegisteredAt(LocalDateTime.now());  // Posizione in coda (FIFO)
+        
+        log.info("User {} added to waitlist of match {}", user.getUsername(), match.getId());
+        return registrationRepository.save(registration);
+    }
+    
     /**
      * Disiscrizione da partita con logica speciale per creatore
      * 
@@ -220,7 +447,11 @@ public class RegistrationService {
      * 1. Se creatore si disiscrivo → **elimina partita intera**
      *    Rationale: creatore organizza, se rinuncia la partita non ha senso
      * 2. Se giocatore normale → status CANCELLED (partita rimane)
-     *    La partita torna disponibile (posto libero)
+     *    - Lista d'attesa non vuota → il primo in coda diventa JOINED nella stessa
+     *      transazione: il posto passa a lui (activePlayers e SeatLedger invariati,
+     *      nessun nuovo arrivato può "rubarlo") e viene pubblicato PlayerPromotedEvent
+     *    - Lista d'attesa vuota → la partita torna disponibile (posto libero)
+     * 3. Se utente in lista d'attesa → status CANCELLED (esce dalla coda, nessun posto liberato)
      * 
      * VALIDAZIONI:
      * - ❌ Utente non iscritto → eccezione
@@ -250,17 +481,62 @@ public class RegistrationService {
         // Check if user is the creator - if so, delete the match entirely
         if (match.getCreator() != null && match.getCreator().getId().equals(user.getId())) {
             log.info("Creator {} leaving match {} - deleting entire match", user.getUsername(), match.getId());
-            matchService.deleteMatch(match.getId());
+            matchService.deleteMatch(match.getId());  // anche SeatLedger.forget
             // Hibernate cascade delete rimuove automaticamente tutte le registrations
+        } else if (registration.getStatus() == RegistrationStatus.WAITLISTED) {
+            // Uscita dalla lista d'attesa: non occupava posti, nessun contatore da aggiornare
+            registration.setStatus(RegistrationStatus.CANCELLED);
+            registrationRepository.save(registration);
+            log.info("User {} left the waitlist of match {}", user.getUsername(), match.getId());
         } else {
             // Normal leave: just cancel the registration
             registration.setStatus(RegistrationStatus.CANCELLED);
             registrationRepository.save(registration);
+            reminderScheduler.cancel(match.getId(), user.getId());
+            
+            Optional<Registration> promoted = promoteFirstWaitlisted(match);
+            if (promoted.isPresent()) {
+                // Posto trasferito al primo in attesa: activePlayers e ledger restano invariati
+                User promotedUser = promoted.get().getUser();
+                log.info("User {} left match {} - seat given to waitlisted user {}", 
+                         user.getUsername(), match.getId(), promotedUser.getUsername());
+                eventPublisher.publishEvent(new PlayerPromotedEvent(this, match, promotedUser));
+                return;
+            }
+            
+            // Contatore: decremento atomico, poi rileggo il valore per l'entità in memoria
+            matchRepository.decrementActivePlayers(match.getId());
+            match.setActivePlayers(getActiveRegistrationsCount(match));
+            seatLedger.release(match.getId());
+            eventPublisher.publishEvent(new MatchSeatsChangedEvent(this, match));
             
             log.info("User {} left match {} ({}/{} players remaining)", 
-                     user.getUsername(), match.getId(), 
-                     registrationRepository.countActiveRegistrationsByMatch(match), 4);
+                     user.getUsername(), match.getId(), match.getActivePlayers(), 4);
+        }
+    }
+    
+    /**
+     * Promuove il primo utente in lista d'attesa (FIFO) a JOINED
+     * 
+     * Per ogni tentativo: una lettura della testa della coda (indice, LIMIT 1)
+     * + un UPDATE condizionale. Se un leave concorrente ha già promosso la stessa
+     * registration (UPDATE → 0 righe) si passa alla successiva.
+     * 
+     * @return registration promossa, vuoto se la lista d'attesa è vuota
+     */
+    private Optional<Registration> promoteFirstWaitlisted(Match match) {
+        Optional<Registration> head;
+        while ((head = registrationRepository.findFirstByMatchAndStatusOrderByRegisteredAtAscIdAsc(
+                match, RegistrationStatus.WAITLISTED)).isPresent()) {
+            Registration candidate = head.get();
+            if (registrationRepository.promoteFromWaitlist(candidate.getId()) == 1) {
+                // Allineo l'entità in memoria con l'UPDATE appena eseguito
+                candidate.setStatus(RegistrationStatus.JOINED);
+                return Optional.of(candidate);
+            }
+            // 0 righe: nel DB non è più in attesa, la prossima lettura restituisce la successiva
         }
+        return Optional.empty();
     }
     
     // ==================== CRUD OPERATIONS ====================
@@ -0,0 +1,407 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * SeatLedger - Registro in memoria dei posti occupati per ogni partita
+ *
+ * PROBLEMA RISOLTO:
+ * Per le partite "calde" (serali, club popolari) molti utenti premono "Iscriviti" negli stessi secondi.
+ * Senza ledger ogni tentativo apre una transazione e fa un UPDATE nel DB che, a partita piena,
+ * fallisce comunque con "Match is full": lavoro (e lock di riga) sprecato.
+ *
+ * Il ledger sta DAVANTI a RegistrationService.joinMatch:
+ * - WebController.joinMatch chiama isFull() prima di caricare la partita e di aprire la transazione:
+ *   partita piena → rifiuto immediato, nessun accesso al DB
+ * - joinMatch prenota il posto in memoria (tryReserve), poi claim atomico nel DB (MatchRepository.claimSeat)
+ *
+ * CONCORRENZA (CAS, niente lock):
+ * - ConcurrentHashMap matchId → AtomicInteger (posti occupati)
+ * - tryReserve: compareAndSet(n, n + k) solo se n + k <= 4, ripetuto finché non riesce
+ *   → al massimo 4 prenotazioni per partita anche con centinaia di thread
+ *   → un gruppo (k > 1) prenota tutti i posti insieme o nessuno
+ * - partite diverse usano contatori diversi: nessuna contesa tra partite
+ *
+ * COERENZA CON IL DB (il DB resta la fonte di verità):
+ * - all'avvio il ledger si ricostruisce da RegistrationRepository (una query GROUP BY)
+ * - partita mai vista (creata dopo l'avvio) → valore letto una volta dal contatore Match.activePlayers
+ * - transazione di join annullata (rollback) → la prenotazione viene restituita
+ * - il DB rifiuta un claim che il ledger aveva accettato → il ledger ricarica quella partita
+ * - partita terminata (MatchFinishedEvent) o eliminata → rimossa dal ledger dopo il commit
+ *
+ * POSTI TENUTI (hold):
+ * - hold(matchId, userId): l'utente blocca un posto per padel.holds.ttl mentre completa l'iscrizione;
+ *   il posto conta come occupato (isFull, tryReserve) ma nel DB non viene scritto nulla
+ * - claimHold: al join il posto tenuto passa all'iscrizione senza una nuova prenotazione
+ * - scadenza: DelayQueue ordinata per scadenza; gli hold scaduti vengono liberati
+ *   all'accesso successivo al ledger (poll O(1) se nessuno è scaduto), senza query né job sul DB
+ * - un hold ricorda la partita, non il contatore: il contatore riletto dal DB (reload)
+ *   riparte da activePlayers + hold ancora validi, e scadenza o rilascio decrementano quello attuale
+ *
+ * NOTA: il ledger è per singola istanza dell'applicazione (come il DB H2 in memoria di questo progetto).
+ */
+@Component
+@Slf4j
+public class SeatLedger {
+
+    private final RegistrationRepository registrationRepository;
+    private final MatchRepository matchRepository;
+
+    /**
+     * Durata di un posto tenuto (padel.holds.ttl)
+     */
+    @Getter
+    private final Duration holdTtl;
+
+    private final LongSupplier clock;
+
+    /**
+     * matchId → posti occupati (JOINED + prenotazioni in corso + posti tenuti)
+     */
+    private final ConcurrentMap<Long, AtomicInteger> seats = new ConcurrentHashMap<>();
+
+    /**
+     * "matchId:userId" → posto tenuto ancora valido
+     */
+    private final ConcurrentMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+
+    /**
+     * Posti tenuti in ordine di scadenza: poll() restituisce solo quelli scaduti
+     */
+    private final DelayQueue<SeatHold> expiries = new DelayQueue<>();
+
+    @Autowired
+    public SeatLedger(RegistrationRepository registrationRepository,
+                      MatchRepository matchRepository,
+                      @Value("${padel.holds.ttl:PT2M}") Duration holdTtl) {
+        this(registrationRepository, matchRepository, holdTtl, System::nanoTime);
+    }
+
+    SeatLedger(RegistrationRepository registrationRepository, MatchRepository matchRepository,
+               Duration holdTtl, LongSupplier clock) {
+        this.registrationRepository = registrationRepository;
+        this.matchRepository = matchRepository;
+        this.holdTtl = holdTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Ricostruisce il ledger dalle iscrizioni JOINED presenti nel DB
+     *
+     * ApplicationReadyEvent: eseguito dopo i CommandLineRunner (DataSeeder),
+     * quindi include anche i dati demo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        seats.clear();
+        holds.clear();
+        expiries.clear();
+        registrationRepository.countActivePlayersByMatch().forEach(row ->
+            seats.put(row.getMatchId(), new AtomicInteger((int) row.getPlayers())));
+        log.info("🪑 SeatLedger ricostruito: {} partite con giocatori iscritti", seats.size());
+    }
+
+    /**
+     * true se la partita ha già 4 posti occupati (o prenotati, o tenuti da un hold)
+     *
+     * Sola lettura, nessun accesso al DB per le partite già nel ledger:
+     * pensato per il controllo PRIMA di aprire una transazione.
+     */
+    public boolean isFull(Long matchId) {
+        expireHolds();
+        AtomicInteger counter = counterFor(matchId);
+        return counter != null && counter.get() >= Match.MAX_PLAYERS;
+    }
+
+    /**
+     * Prenota un posto nella partita se non è piena (CAS, nessun lock)
+     *
+     * Se chiamato dentro una transazione, la prenotazione viene restituita
+     * automaticamente in caso di rollback (TransactionSynchronization.afterCompletion).
+     *
+     * @param matchId partita
+     * @return true se il posto è stato prenotato, false se la partita è piena (o non esiste)
+     */
+    public boolean tryReserve(Long matchId) {
+        return tryReserve(matchId, 1);
+    }
+    
+    /**
+     * Prenota più posti insieme (iscrizione di gruppo): tutti o nessuno
+     *
+     * @param matchId partita
+     * @param seats posti richiesti
+     * @return true se tutti i posti sono stati prenotati, false se non c'è spazio per tutti
+     */
+    public boolean tryReserve(Long matchId, int seats) {
+        expireHolds();
+        AtomicInteger counter = counterFor(matchId);
+        if (counter == null || !reserve(counter, seats)) {
+            return false;
+        }
+        returnOnRollback(counter, seats);
+        return true;
+    }
+
+    /**
+     * Tiene un posto per l'utente per {@link #getHoldTtl()} (nessuna scrittura nel DB)
+     *
+     * Non legato alla transazione: il posto resta tenuto finché scade, viene usato dal join
+     * (claimHold) o rilasciato (releaseHold). Un nuovo hold dello stesso utente
+     * sulla stessa partita rinnova la scadenza senza occupare un altro posto.
+     *
+     * @return true se il posto è tenuto, false se la partita è piena (o non esiste)
+     */
+    public boolean hold(Long matchId, Long userId) {
+        expireHolds();
+        String key = holdKey(matchId, userId);
+        SeatHold existing = holds.get(key);
+        SeatHold hold = new SeatHold(key, matchId, clock.getAsLong() + holdTtl.toNanos());
+        if (existing != null && holds.replace(key, existing, hold)) {
+            // Rinnovo: il posto resta occupato, cambia solo la scadenza
+            expiries.add(hold);
+            return true;
+        }
+        AtomicInteger counter = counterFor(matchId);
+        if (counter == null || !reserve(counter, 1)) {
+            return false;
+        }
+        if (holds.putIfAbsent(key, hold) != null) {
+            // Due primi hold concorrenti dello stesso utente: ha vinto l'altro, questo posto torna libero
+            decrement(counter, 1);
+            return true;
+        }
+        expiries.add(hold);
+        return true;
+    }
+
+    /**
+     * Usa il posto tenuto dall'utente per l'iscrizione (RegistrationService.joinMatch)
+     *
+     * Come tryReserve: in caso di rollback del join il posto viene liberato.
+     *
+     * @return true se l'utente aveva un posto tenuto non scaduto
+     */
+    public boolean claimHold(Long matchId, Long userId) {
+        expireHolds();
+        // Contatore letto prima di togliere l'hold: se viene riletto dal DB include ancora questo posto
+        AtomicInteger counter = counterFor(matchId);
+        if (holds.remove(holdKey(matchId, userId)) == null) {
+            return false;
+        }
+        returnOnRollback(counter, 1);
+        return true;
+    }
+
+    /**
+     * Rilascia il posto tenuto dall'utente (l'utente rinuncia prima della scadenza)
+     */
+    public void releaseHold(Long matchId, Long userId) {
+        if (holds.remove(holdKey(matchId, userId)) != null) {
+            decrement(seats.get(matchId), 1);
+        }
+    }
+
+    /**
+     * Libera i posti tenuti scaduti
+     *
+     * La voce in coda può essere già stata usata (claimHold), rilasciata o rinnovata:
+     * il posto si libera solo se è ancora l'hold attivo per quella chiave.
+     */
+    public void expireHolds() {
+        SeatHold expired;
+        while ((expired = expiries.poll()) != null) {
+            if (holds.remove(expired.key, expired)) {
+                decrement(seats.get(expired.matchId), 1);
+            }
+        }
+    }
+
+    /**
+     * CAS: occupa i posti solo se la partita ne ha abbastanza liberi
+     */
+    private static boolean reserve(AtomicInteger counter, int seats) {
+        int taken;
+        do {
+            taken = counter.get();
+            if (taken + seats > Match.MAX_PLAYERS) {
+                return false;
+            }
+        } while (!counter.compareAndSet(taken, taken + seats));
+        return true;
+    }
+
+    /**
+     * Dentro una transazione: restituisce i posti se la transazione non va in commit
+     */
+    private static void returnOnRollback(AtomicInteger counter, int seats) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Il contatore è catturato: se nel frattempo la partita viene ricaricata (reload),
+            // il rollback decrementa il vecchio oggetto, ormai scollegato, e non il nuovo
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        decrement(counter, seats);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Libera un posto (giocatore che lascia la partita)
+     *
+     * Dentro una transazione il posto torna disponibile solo DOPO il commit:
+     * fino ad allora il DB conta ancora il giocatore.
+     */
+    public void release(Long matchId) {
+        AfterCommit.run(() -> decrement(counterFor(matchId), 1));
+    }
+
+    /**
+     * Scarta il valore in memoria: al prossimo accesso viene riletto dal DB
+     *
+     * Uso: il DB ha rifiutato un claim accettato dal ledger (iscrizioni scritte
+     * senza passare da RegistrationService).
+     * Gli hold validi restano: il nuovo contatore li conta di nuovo (counterFor).
+     */
+    public void reload(Long matchId) {
+        seats.remove(matchId);
+    }
+
+    /**
+     * Rimuove la partita e i suoi hold dal ledger (partita eliminata o terminata)
+     *
+     * Dentro una transazione avviene dopo il commit: prima la partita esiste ancora nel DB
+     * e un accesso concorrente la rimetterebbe nel ledger.
+     */
+    public void forget(Long matchId) {
+        AfterCommit.run(() -> {
+            // Prima gli hold: un contatore riletto nel frattempo non deve contarli
+            String prefix = matchId + ":";
+            holds.keySet().removeIf(key -> key.startsWith(prefix));
+            seats.remove(matchId);
+        });
+    }
+
+    /**
+     * Partita terminata: nessun join possibile, il contatore non serve più
+     */
+    @EventListener
+    public void onMatchFinished(MatchFinishedEvent event) {
+        forget(event.getMatch().getId());
+    }
+
+    /**
+     * Posti tenuti da un hold non scaduto (nel DB non compaiono: activePlayers + heldSeats = posti occupati)
+     *
+     * Nessun accesso al DB: usato dal feed della home e dalla lista d'attesa.
+     */
+    public int heldSeats(Long matchId) {
+        expireHolds();
+        return countHolds(matchId);
+    }
+
+    /**
+     * true se l'utente tiene un posto non scaduto nella partita
+     */
+    public boolean hasHold(Long matchId, Long userId) {
+        expireHolds();
+        return holds.containsKey(holdKey(matchId, userId));
+    }
+
+    /**
+     * Posti occupati secondo il ledger (prenotazioni in corso incluse)
+     */
+    public int seatsTaken(Long matchId) {
+        expireHolds();
+        AtomicInteger counter = counterFor(matchId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Contatore della partita; se assente viene letto dal DB (Match.activePlayers)
+     * più gli hold ancora validi, che nel DB non compaiono
+     *
+     * La lettura dal DB avviene FUORI da computeIfAbsent (nessuna query mentre si tiene
+     * il lock interno della mappa). Id inesistenti non vengono memorizzati:
+     * ritorna null, così id casuali nell'URL non riempiono il ledger.
+     */
+    private AtomicInteger counterFor(Long matchId) {
+        AtomicInteger counter = seats.get(matchId);
+        if (counter != null) {
+            return counter;
+        }
+        return matchRepository.findActivePlayersById(matchId)
+            .map(players -> seats.computeIfAbsent(matchId, id -> new AtomicInteger(players + countHolds(id))))
+            .orElse(null);
+    }
+
+    /**
+     * Hold validi della partita (scansione delle chiavi: gli hold sono pochi e brevi)
+     */
+    private int countHolds(Long matchId) {
+        String prefix = matchId + ":";
+        return (int) holds.keySet().stream().filter(key -> key.startsWith(prefix)).count();
+    }
+
+    private static void decrement(AtomicInteger counter, int seats) {
+        if (counter != null) {
+            counter.getAndUpdate(taken -> Math.max(taken - seats, 0));
+        }
+    }
+
+    private static String holdKey(Long matchId, Long userId) {
+        return matchId + ":" + userId;
+    }
+
+    /**
+     * Posto tenuto: scade dopo holdTtl (Delayed per la DelayQueue)
+     *
+     * Ricorda la partita e non il contatore: alla scadenza libera il posto
+     * nel contatore attuale, anche se nel frattempo la partita è stata ricaricata.
+     */
+    private final class SeatHold implements Delayed {
+        private final String key;
+        private final Long matchId;
+        private final long expiresAt;
+
+        private SeatHold(String key, Long matchId, long expiresAt) {
+            this.key = key;
+            this.matchId = matchId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - clock.getAsLong(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAt, ((SeatHold) other).expiresAt);
+        }
+    }
+}
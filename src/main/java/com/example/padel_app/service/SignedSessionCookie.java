@@ -0,0 +1,186 @@
+package com.example.padel_app.service;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * SignedSessionCookie - Utente loggato in un cookie firmato HMAC, senza stato sul server
+ *
+ * PROBLEMA RISOLTO:
+ * con la HttpSession del container l'ID utente sta nella heap di un solo nodo: ogni utente
+ * resta legato a quel nodo (sticky session) e ogni sessione occupa memoria.
+ * Con padel.session.mode=signed-cookie l'ID utente e la scadenza viaggiano nel cookie:
+ * qualunque nodo con lo stesso padel.session.secret lo verifica da solo.
+ * LIMITE: la HttpSession del container viene comunque creata (parametro dei controller, messaggi flash):
+ * il login non dipende più dal nodo, i messaggi flash dopo un redirect sì.
+ *
+ * FORMATO (cookie PADEL_SESSION, HttpOnly, SameSite=Lax):
+ * <pre>
+ * userId.scadenzaEpochSecondi.firma      firma = Base64url(HMAC-SHA256(secret, "userId.scadenza"))
+ * </pre>
+ * - firma confrontata a tempo costante (MessageDigest.isEqual)
+ * - scadenza padel.session.ttl dal login; rinnovata quando resta meno di metà durata
+ * - logout: il cookie viene cancellato (Max-Age=0). Un cookie copiato prima del logout
+ *   resta valido fino alla scadenza: è il prezzo di nessuno stato condiviso
+ *
+ * SECRET:
+ * padel.session.secret va impostato (uguale su tutti i nodi). Se manca viene generato all'avvio:
+ * va bene per un solo nodo, ma i login non sopravvivono a un riavvio.
+ *
+ * NOTA: in modalità http-session (default) questa classe non viene usata da UserSessionService.
+ */
+@Component
+@Slf4j
+public class SignedSessionCookie {
+
+    static final String COOKIE_NAME = "PADEL_SESSION";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final boolean secure;
+    private final Clock clock;
+
+    @Autowired
+    public SignedSessionCookie(@Value("${padel.session.mode:http-session}") String mode,
+                               @Value("${padel.session.secret:}") String secret,
+                               @Value("${padel.session.ttl:PT12H}") Duration ttl,
+                               @Value("${padel.session.cookie-secure:false}") boolean secure) {
+        this(mode, secret, ttl, secure, Clock.systemUTC());
+    }
+
+    SignedSessionCookie(String mode, String secret, Duration ttl, boolean secure, Clock clock) {
+        this.enabled = "signed-cookie".equals(mode);
+        this.ttl = ttl;
+        this.secure = secure;
+        this.clock = clock;
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            if (enabled) {
+                log.warn("padel.session.secret non impostato: chiave casuale, i login non valgono su altri nodi né dopo un riavvio");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * true con padel.session.mode=signed-cookie
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * ID utente dal cookie della richiesta
+     *
+     * Se il cookie è valido ma a metà della sua durata, la risposta riceve un cookie rinnovato.
+     *
+     * @return null se il cookie manca, è alterato o scaduto
+     */
+    public Long read(HttpServletRequest request, HttpServletResponse response) {
+        String token = cookieValue(request);
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        String payload = parts[0] + "." + parts[1];
+        if (!MessageDigest.isEqual(sign(payload).getBytes(StandardCharsets.US_ASCII),
+                                   parts[2].getBytes(StandardCharsets.US_ASCII))) {
+            log.warn("Cookie di sessione con firma non valida");
+            return null;
+        }
+        long userId;
+        long expiresAt;
+        try {
+            userId = Long.parseLong(parts[0]);
+            expiresAt = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long now = clock.instant().getEpochSecond();
+        if (expiresAt <= now) {
+            return null;
+        }
+        if (response != null && expiresAt - now < ttl.getSeconds() / 2) {
+            write(response, userId);
+        }
+        return userId;
+    }
+
+    /**
+     * Imposta il cookie per l'utente con scadenza tra padel.session.ttl
+     */
+    public void write(HttpServletResponse response, Long userId) {
+        long expiresAt = clock.instant().getEpochSecond() + ttl.getSeconds();
+        String payload = userId + "." + expiresAt;
+        addCookie(response, payload + "." + sign(payload), ttl);
+    }
+
+    /**
+     * Cancella il cookie (logout o utente non più esistente)
+     */
+    public void clear(HttpServletResponse response) {
+        addCookie(response, "", Duration.ZERO);
+    }
+
+    private void addCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite("Lax")
+            .path("/")
+            .maxAge(maxAge)
+            .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC non disponibile", e);
+        }
+    }
+
+    private static String cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
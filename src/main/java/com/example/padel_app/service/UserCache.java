@@ -0,0 +1,268 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * UserCache - Copie immutabili degli utenti per ID, con TTL breve e dimensione massima
+ *
+ * PROBLEMA RISOLTO:
+ * UserSessionService.getCurrentUser faceva una findById a ogni richiesta, e alcune richieste
+ * la chiamavano più volte (AuthController.loginPage con isAuthenticated, clearSession solo per il log).
+ *
+ * DUE LIVELLI:
+ * 1. richiesta HTTP corrente (attributo di request): la stessa richiesta non carica mai due volte lo stesso utente
+ * 2. cache condivisa: voci valide per padel.user-cache.ttl, al massimo padel.user-cache.max-entries
+ *    (scadenza nell'ordine di inserimento, come IdempotencyCache)
+ *
+ * SNAPSHOT:
+ * in cache c'è una copia immutabile delle colonne; get() restituisce ogni volta un nuovo User
+ * (detached, collezioni vuote), quindi chi lo modifica non tocca la cache né le altre richieste.
+ *
+ * INVALIDAZIONE:
+ * - UserService e FeedbackService: invalidate(id) a ogni scrittura sull'utente
+ * - MatchFinishedEvent: matchesPlayed incrementato con un UPDATE bulk → cache svuotata
+ * - UserSessionService.setCurrentUser (login): la cache riceve l'utente appena letto
+ * La voce viene tolta subito e di nuovo dopo il commit ({@link AfterCommit}),
+ * così una lettura concorrente prima del commit non resta in cache. Le scritture fatte
+ * per altre vie compaiono entro il TTL.
+ *
+ * NOTA: come SeatLedger, la cache è per singola istanza dell'applicazione.
+ */
+@Component
+public class UserCache {
+
+    /**
+     * Attributo di request con gli snapshot già letti nella richiesta corrente
+     */
+    static final String REQUEST_ATTRIBUTE = UserCache.class.getName() + ".snapshots";
+
+    /**
+     * Colonne di un utente in un istante (immutabile)
+     */
+    static final class Snapshot {
+        private final Long id;
+        private final String username;
+        private final String email;
+        private final String password;
+        private final String firstName;
+        private final String lastName;
+        private final Level declaredLevel;
+        private final Level perceivedLevel;
+        private final Integer matchesPlayed;
+        private final long feedbackSum;
+        private final int feedbackCount;
+
+        private Snapshot(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.password = user.getPassword();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+            this.declaredLevel = user.getDeclaredLevel();
+            this.perceivedLevel = user.getPerceivedLevel();
+            this.matchesPlayed = user.getMatchesPlayed();
+            this.feedbackSum = user.getFeedbackSum();
+            this.feedbackCount = user.getFeedbackCount();
+        }
+
+        private User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setPassword(password);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setDeclaredLevel(declaredLevel);
+            user.setPerceivedLevel(perceivedLevel);
+            user.setMatchesPlayed(matchesPlayed);
+            user.setFeedbackSum(feedbackSum);
+            user.setFeedbackCount(feedbackCount);
+            return user;
+        }
+    }
+
+    private static final class Entry {
+        private final Snapshot snapshot;
+        private final long expiresAt;
+
+        private Entry(Snapshot snapshot, long expiresAt) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Long, Entry> entries;
+
+    @Autowired
+    public UserCache(UserRepository userRepository,
+                     @Value("${padel.user-cache.ttl:PT30S}") Duration ttl,
+                     @Value("${padel.user-cache.max-entries:10000}") int maxEntries) {
+        this(userRepository, ttl, maxEntries, System::nanoTime);
+    }
+
+    UserCache(UserRepository userRepository, Duration ttl, int maxEntries, LongSupplier clock) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Utente per ID: richiesta corrente, poi cache, poi DB (una findById)
+     *
+     * @return una nuova copia dell'utente, null se non esiste
+     */
+    public User get(Long userId) {
+        Map<Long, Snapshot> requestSnapshots = requestSnapshots();
+        Snapshot snapshot = requestSnapshots != null ? requestSnapshots.get(userId) : null;
+        if (snapshot == null) {
+            snapshot = cached(userId);
+        }
+        if (snapshot == null) {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null) {
+                return null;
+            }
+            snapshot = new Snapshot(user);
+            store(snapshot);
+        }
+        if (requestSnapshots != null) {
+            requestSnapshots.put(userId, snapshot);
+        }
+        return snapshot.toUser();
+    }
+
+    /**
+     * Mette in cache un utente appena letto o salvato (es. al login)
+     */
+    public void put(User user) {
+        Snapshot snapshot = new Snapshot(user);
+        store(snapshot);
+        Map<Long, Snapshot> requestSnapshots = requestSnapshots();
+        if (requestSnapshots != null) {
+            requestSnapshots.put(user.getId(), snapshot);
+        }
+    }
+
+    /**
+     * Toglie un utente dalla cache: subito e, dentro una transazione, di nuovo dopo il commit
+     */
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    public void invalidate(Collection<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        Runnable evict = () -> {
+            synchronized (this) {
+                ids.forEach(entries::remove);
+            }
+        };
+        evict.run();
+        Map<Long, Snapshot> requestSnapshots = requestSnapshots();
+        if (requestSnapshots != null) {
+            ids.forEach(requestSnapshots::remove);
+        }
+        AfterCommit.run(evict);
+    }
+
+    /**
+     * Svuota la cache (scritture bulk su utenti non noti, es. fine partita o backfill dei totali)
+     */
+    public void invalidateAll() {
+        Runnable clear = () -> {
+            synchronized (this) {
+                entries.clear();
+            }
+        };
+        clear.run();
+        Map<Long, Snapshot> requestSnapshots = requestSnapshots();
+        if (requestSnapshots != null) {
+            requestSnapshots.clear();
+        }
+        AfterCommit.run(clear);
+    }
+
+    /**
+     * Partita terminata: matchesPlayed dei partecipanti incrementato con un UPDATE bulk
+     */
+    @EventListener
+    public void onMatchFinished(MatchFinishedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Voci in cache (comprese quelle scadute non ancora rimosse)
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized Snapshot cached(Long userId) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        Entry entry = entries.get(userId);
+        return entry != null ? entry.snapshot : null;
+    }
+
+    private synchronized void store(Snapshot snapshot) {
+        entries.remove(snapshot.id);  // in coda: l'ordine di inserimento resta quello di scadenza
+        entries.put(snapshot.id, new Entry(snapshot, clock.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * Le voci scadono nell'ordine di inserimento: basta guardare la testa
+     */
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt - now <= 0) {
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Snapshot letti nella richiesta HTTP corrente, null fuori da una richiesta (job schedulati, listener asincroni)
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Snapshot> requestSnapshots() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Long, Snapshot> snapshots = (Map<Long, Snapshot>) attributes.getAttribute(REQUEST_ATTRIBUTE,
+                                                                                       RequestAttributes.SCOPE_REQUEST);
+        if (snapshots == null) {
+            snapshots = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, snapshots, RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshots;
+    }
+}
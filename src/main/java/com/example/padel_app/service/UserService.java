@@ -79,6 +79,11 @@ public class UserService {
     
     private final UserRepository userRepository;
     
+    /**
+     * Copie degli utenti usate da UserSessionService: invalidate a ogni scrittura
+     */
+    private final UserCache userCache;
+    
     /**
      * Recupera tutti gli utenti registrati
      * 
@@ -284,7 +289,9 @@ public class UserService {
      */
     @Transactional
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userCache.invalidate(saved.getId());
+        return saved;
     }
     
     /**
@@ -317,6 +324,7 @@ public class UserService {
     @Transactional
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userCache.invalidate(id);
     }
     
     /**
@@ -348,6 +356,7 @@ public class UserService {
     @Transactional
     public User incrementMatchesPlayed(User user) {
         user.setMatchesPlayed(user.getMatchesPlayed() + 1);
+        userCache.invalidate(user.getId());
         return userRepository.save(user);
     }
     
@@ -374,6 +383,7 @@ public class UserService {
     @Transactional
     public User updatePerceivedLevel(User user, Level newLevel) {
         user.setPerceivedLevel(newLevel);
+        userCache.invalidate(user.getId());
         return userRepository.save(user);
     }
     
@@ -408,6 +418,7 @@ public class UserService {
     @Transactional
     public User updateDeclaredLevel(User user, Level newLevel) {
         user.setDeclaredLevel(newLevel);
+        userCache.invalidate(user.getId());
         return userRepository.save(user);
     }
     
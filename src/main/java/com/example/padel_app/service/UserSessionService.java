@@ -1,13 +1,13 @@
 package com.example.padel_app.service;
 
 import com.example.padel_app.model.User;
-import com.example.padel_app.repository.UserRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-
-import java.util.Optional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * SERVIZIO PER GESTIONE SESSIONE UTENTE (HTTP SESSION).
@@ -39,6 +39,15 @@ import java.util.Optional;
  * userSessionService.clearSession();
  * </pre>
  * 
+ * <h2>Modalità cookie firmato (padel.session.mode=signed-cookie):</h2>
+ * L'ID utente non sta nella HttpSession ma in un cookie firmato HMAC ({@link SignedSessionCookie}):
+ * qualunque nodo riconosce l'utente senza sticky session.
+ * L'API non cambia: i controller passano ancora la HttpSession, request e response correnti
+ * arrivano da RequestContextHolder.
+ * NOTA: le sessioni del container NON spariscono: Spring crea la HttpSession per risolvere il
+ * parametro dei controller e vi salva i messaggi flash (SessionFlashMapManager). Esce dalla sessione
+ * solo l'ID utente.
+ * 
  * <h2>Alternativa Spring Security:</h2>
  * Normalmente si usa Spring Security per gestire autenticazione, ma per un progetto
  * universitario questo approccio con HTTP Session manuale è più semplice e didattico.
@@ -74,18 +83,29 @@ public class UserSessionService {
      */
     private static final String USER_ID_SESSION_KEY = "currentUserId";
     
-    private final UserRepository userRepository;
+    /**
+     * Utenti per ID: al massimo una lettura dal DB per richiesta, poi cache con TTL breve
+     */
+    private final UserCache userCache;
+    
+    /**
+     * Cookie firmato con l'ID utente (solo con padel.session.mode=signed-cookie)
+     */
+    private final SignedSessionCookie sessionCookie;
     
     /**
      * Recupera l'utente attualmente loggato dalla sessione HTTP.
      * 
      * <h3>Flusso operativo:</h3>
      * <pre>
-     * 1. Legge ID utente dalla sessione HTTP (getAttribute)
-     * 2. Se presente → carica User dal database
+     * 1. Legge ID utente dalla sessione HTTP (getAttribute) o dal cookie firmato
+     * 2. Se presente → User da {@link UserCache} (richiesta corrente, cache, oppure una findById)
      * 3. Se assente → ritorna null (utente non loggato)
      * </pre>
      * 
+     * <p>L'utente restituito è una copia: chiamare il metodo più volte nella stessa richiesta
+     * non fa altre query, e modificarlo non cambia la cache.
+     * 
      * <h3>Esempio utilizzo nel Controller:</h3>
      * <pre>
      * &#64;GetMapping("/my-matches")
@@ -108,25 +128,24 @@ public class UserSessionService {
      * @return L'utente loggato, oppure null se nessuno è autenticato
      */
     public User getCurrentUser(HttpSession session) {
-        // STEP 1: Leggi user ID dalla sessione
-        Long userId = (Long) session.getAttribute(USER_ID_SESSION_KEY);
+        // STEP 1: Leggi user ID dalla sessione (o dal cookie firmato)
+        Long userId = readUserId(session);
         
         if (userId == null) {
             log.debug("Nessun utente in sessione");
             return null;
         }
         
-        // STEP 2: Carica user dal database
-        Optional<User> userOpt = userRepository.findById(userId);
+        // STEP 2: Carica user (cache, altrimenti database)
+        User user = userCache.get(userId);
         
-        if (userOpt.isEmpty()) {
+        if (user == null) {
             // ID in sessione ma user non esiste più nel DB → invalida sessione
             log.warn("User ID {} in sessione ma non trovato nel database. Clearing session.", userId);
-            session.removeAttribute(USER_ID_SESSION_KEY);
+            forgetUserId(session);
             return null;
         }
         
-        User user = userOpt.get();
         log.debug("Utente recuperato dalla sessione: {} ({})", user.getUsername(), user.getId());
         return user;
     }
@@ -171,7 +190,17 @@ public class UserSessionService {
         }
         
         // Salva solo l'ID (non l'intero oggetto) per evitare problemi di serializzazione
-        session.setAttribute(USER_ID_SESSION_KEY, user.getId());
+        if (sessionCookie.isEnabled()) {
+            HttpServletResponse response = currentResponse();
+            if (response == null) {
+                throw new IllegalStateException("Signed session cookie requires an HTTP response");
+            }
+            sessionCookie.write(response, user.getId());
+        } else {
+            session.setAttribute(USER_ID_SESSION_KEY, user.getId());
+        }
+        // Utente appena letto (e se serve aggiornato) dal login: la prossima richiesta non lo rilegge
+        userCache.put(user);
         
         log.info("Utente {} salvato nella sessione (Session ID: {})", 
                  user.getUsername(), session.getId());
@@ -208,6 +237,9 @@ public class UserSessionService {
         
         // Invalida completamente la sessione (più sicuro di removeAttribute)
         session.invalidate();
+        if (sessionCookie.isEnabled()) {
+            forgetUserId(session);
+        }
         
         if (currentUser != null) {
             log.info("Logout utente: {} (Session ID: {})", currentUser.getUsername(), sessionId);
@@ -237,4 +269,39 @@ public class UserSessionService {
     public boolean isAuthenticated(HttpSession session) {
         return getCurrentUser(session) != null;
     }
+    
+    /**
+     * ID utente dalla HttpSession o, in modalità signed-cookie, dal cookie della richiesta corrente
+     */
+    private Long readUserId(HttpSession session) {
+        if (!sessionCookie.isEnabled()) {
+            return (Long) session.getAttribute(USER_ID_SESSION_KEY);
+        }
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        return attributes != null ? sessionCookie.read(attributes.getRequest(), attributes.getResponse()) : null;
+    }
+    
+    /**
+     * Dimentica l'utente: attributo di sessione rimosso oppure cookie cancellato
+     */
+    private void forgetUserId(HttpSession session) {
+        if (!sessionCookie.isEnabled()) {
+            session.removeAttribute(USER_ID_SESSION_KEY);
+            return;
+        }
+        HttpServletResponse response = currentResponse();
+        if (response != null) {
+            sessionCookie.clear(response);
+        }
+    }
+    
+    private static HttpServletResponse currentResponse() {
+        ServletRequestAttributes attributes = currentRequestAttributes();
+        return attributes != null ? attributes.getResponse() : null;
+    }
+    
+    private static ServletRequestAttributes currentRequestAttributes() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+            ? attributes : null;
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.padel_app.strategy;
 
 import com.example.padel_app.model.Match;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.util.Comparator;
@@ -177,6 +178,16 @@ public class DateSortingStrategy implements MatchSortingStrategy {
                 .toList();
     }
     
+    /**
+     * Ordinamento nel database: ORDER BY date_time ASC
+     * 
+     * <p>Usa l'indice (date_time, id) di matches.
+     */
+    @Override
+    public Sort getSort() {
+        return Sort.by(Sort.Direction.ASC, "dateTime");
+    }
+    
     /**
      * Restituisce il nome user-friendly di questa strategia.
      * 
@@ -1,6 +1,7 @@
 package com.example.padel_app.strategy;
 
 import com.example.padel_app.model.Match;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.util.Comparator;
@@ -242,6 +243,18 @@ public class LevelSortingStrategy implements MatchSortingStrategy {
                 .toList();
     }
     
+    /**
+     * Ordinamento nel database: livello crescente, poi data crescente
+     * 
+     * <p>Usa levelRank (ordinal persistito) e non requiredLevel: l'enum è salvato
+     * come stringa e l'ordine alfabetico non corrisponde alla difficoltà.
+     * Indice dedicato: (level_rank, date_time, id).
+     */
+    @Override
+    public Sort getSort() {
+        return Sort.by(Sort.Order.asc("levelRank"), Sort.Order.asc("dateTime"));
+    }
+    
     /**
      * Restituisce il nome user-friendly di questa strategia.
      * 
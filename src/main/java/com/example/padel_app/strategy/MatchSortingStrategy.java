@@ -1,6 +1,7 @@
 package com.example.padel_app.strategy;
 
 import com.example.padel_app.model.Match;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -90,10 +91,21 @@ import java.util.List;
  * <h2>Ruolo dell'interfaccia (Strategy):</h2>
  * Questa interfaccia definisce il <strong>contratto</strong> che tutte le strategie concrete devono rispettare:
  * <ul>
- *   <li><code>sort(matches)</code> - Logica di ordinamento specifica</li>
+ *   <li><code>sort(matches)</code> - Logica di ordinamento specifica (in memoria)</li>
+ *   <li><code>getSort()</code> - Stesso ordinamento espresso come ORDER BY per il database</li>
  *   <li><code>getStrategyName()</code> - Nome user-friendly per la UI</li>
  * </ul>
  * 
+ * <h2>sort() vs getSort(): memoria vs database</h2>
+ * <code>sort()</code> richiede di caricare TUTTE le partite e ordinarle nella JVM.
+ * <code>getSort()</code> restituisce un <code>Sort</code> di Spring Data: MatchService lo passa
+ * al repository, il DB restituisce le righe già ordinate (usando un indice) e la paginazione
+ * keyset legge solo la pagina richiesta.
+ * <pre>
+ * Sort sort = strategy.getSort().and(Sort.by("id"));  // id: tie-breaker univoco
+ * matchRepository.findBy(spec, q -&gt; q.sortBy(sort).limit(20).scroll(position));
+ * </pre>
+ * 
  * <h2>Come Spring auto-inietta le strategie in una Map:</h2>
  * <pre>
  * // Nel Service:
@@ -180,6 +192,17 @@ public interface MatchSortingStrategy {
      */
     List<Match> sort(List<Match> matches);
     
+    /**
+     * Restituisce l'ordinamento della strategia come Spring Data Sort (eseguito dal database).
+     * 
+     * <p>Deve produrre lo stesso ordine di {@link #sort(List)}. Le proprietà usate devono
+     * essere colonne (o formule) di Match: il chiamante aggiunge "id" come ultimo criterio
+     * per rendere l'ordinamento univoco (requisito della paginazione keyset).
+     * 
+     * @return Sort sulle proprietà di Match
+     */
+    Sort getSort();
+    
     /**
      * Restituisce il nome user-friendly della strategia per la UI.
      * 
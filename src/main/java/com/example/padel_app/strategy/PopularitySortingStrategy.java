@@ -1,6 +1,7 @@
 package com.example.padel_app.strategy;
 
 import com.example.padel_app.model.Match;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.util.Comparator;
@@ -48,7 +49,8 @@ import java.util.List;
  * <ul>
  *   <li>Le partite con più giocatori iscritti appaiono per prime</li>
  *   <li>Utile per mostrare le partite più "calde" o richieste</li>
- *   <li>Usa getActiveRegistrationsCount() che conta solo iscrizioni con status JOINED</li>
+ *   <li>Usa il contatore activePlayers di Match (solo iscrizioni JOINED): una lettura di campo
+ *       per confronto, nessun accesso alla collezione lazy registrations</li>
  * </ul>
  * 
  * <h2>Esempio pratico di ordinamento:</h2>
@@ -178,7 +180,8 @@ public class PopularitySortingStrategy implements MatchSortingStrategy {
      * </ul>
      * 
      * <p><strong>Implementazione:</strong>
-     * Usa Comparator.comparing() con .reversed() per ottenere ordine decrescente.
+     * Usa Comparator.comparingInt() sul contatore activePlayers con .reversed() per ottenere
+     * ordine decrescente (nessun conteggio delle registrations dentro il comparator).
      * 
      * @param matches Lista di partite da ordinare (non viene modificata)
      * @return Nuova lista ordinata per popolarità decrescente
@@ -186,10 +189,20 @@ public class PopularitySortingStrategy implements MatchSortingStrategy {
     @Override
     public List<Match> sort(List<Match> matches) {
         return matches.stream()
-                .sorted(Comparator.comparing(Match::getActiveRegistrationsCount).reversed())
+                .sorted(Comparator.comparingInt(Match::getActivePlayers).reversed())
                 .toList();
     }
     
+    /**
+     * Ordinamento nel database: iscritti decrescenti, poi data crescente
+     * 
+     * <p>activePlayers è la colonna contatore di Match (indicizzata con date_time, id).
+     */
+    @Override
+    public Sort getSort() {
+        return Sort.by(Sort.Order.desc("activePlayers"), Sort.Order.asc("dateTime"));
+    }
+    
     /**
      * Restituisce il nome user-friendly di questa strategia.
      * 
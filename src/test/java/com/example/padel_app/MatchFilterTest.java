@@ -1,13 +1,18 @@
 package com.example.padel_app;
 
 import com.example.padel_app.model.Match;
+import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
 import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.repository.CursorPage;
+import com.example.padel_app.repository.MatchFeedItem;
 import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
 import com.example.padel_app.repository.UserRepository;
 import com.example.padel_app.service.MatchService;
+import com.example.padel_app.service.SeatLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,6 +21,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +51,12 @@ class MatchFilterTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
     private User testUser;
     private Match waitingMatch;
     private Match confirmedMatch;
@@ -281,4 +293,124 @@ class MatchFilterTest {
             assertTrue(current.isBefore(next) || current.isEqual(next));
         }
     }
+
+    // ========== PAGINAZIONE KEYSET ==========
+
+    @Test
+    @DisplayName("Pagine consecutive - coprono tutte le partite senza duplicati")
+    void testMatchesPageCoversAllMatches() {
+        // GIVEN: partite di test + eventuali partite già presenti
+        int total = matchService.getAllMatches().size();
+
+        // WHEN: scorro tutte le pagine da 2 seguendo il cursore
+        List<Long> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        CursorPage<Match> page;
+        do {
+            page = matchService.getMatchesPage(null, "level", cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(m -> seen.add(m.getId()));
+            cursor = page.getNextCursor();
+        } while (page.hasNext());
+
+        // THEN
+        assertEquals(total, seen.size());
+        assertEquals(total, new java.util.HashSet<>(seen).size());
+    }
+
+    @Test
+    @DisplayName("Pagina feed home - ordinata per popolarità dal DB, solo WAITING/CONFIRMED")
+    void testMatchFeedPageSortedByPopularity() {
+        // WHEN
+        CursorPage<MatchFeedItem> page = matchService.getMatchFeedPage(testUser, null, "popularity",
+                null, CursorPage.DEFAULT_SIZE);
+
+        // THEN
+        List<MatchFeedItem> feed = page.getItems();
+        assertFalse(feed.isEmpty());
+        assertTrue(feed.stream().noneMatch(m -> m.getStatus() == MatchStatus.FINISHED));
+        for (int i = 0; i < feed.size() - 1; i++) {
+            assertTrue(feed.get(i).getJoinedCount() >= feed.get(i + 1).getJoinedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Pagina feed home - un posto tenuto completa la partita, tranne per chi lo tiene")
+    void testMatchFeedPageCountsHeldSeats() {
+        // GIVEN: 3 giocatori nel DB, l'ultimo posto tenuto da un altro utente
+        waitingMatch.setActivePlayers(3);
+        matchRepository.save(waitingMatch);
+        Long otherUserId = testUser.getId() + 1000;
+        assertTrue(seatLedger.hold(waitingMatch.getId(), otherUserId));
+
+        try {
+            // WHEN
+            MatchFeedItem heldByOther = feedItem(waitingMatch.getId());
+
+            // THEN: piena per testUser (lista d'attesa, non "Iscriviti")
+            assertEquals(1, heldByOther.getHeldSeats());
+            assertTrue(heldByOther.isFull());
+
+            // WHEN: il posto passa a testUser
+            seatLedger.releaseHold(waitingMatch.getId(), otherUserId);
+            assertTrue(seatLedger.hold(waitingMatch.getId(), testUser.getId()));
+            MatchFeedItem heldByViewer = feedItem(waitingMatch.getId());
+
+            // THEN: chi tiene il posto può ancora iscriversi
+            assertTrue(heldByViewer.isHeldByViewer());
+            assertFalse(heldByViewer.isFull());
+        } finally {
+            // Il ledger è condiviso tra i test e non segue il rollback
+            seatLedger.releaseHold(waitingMatch.getId(), otherUserId);
+            seatLedger.releaseHold(waitingMatch.getId(), testUser.getId());
+            seatLedger.reload(waitingMatch.getId());
+        }
+    }
+
+    private MatchFeedItem feedItem(Long matchId) {
+        return matchService.getMatchFeedPage(testUser, Level.PRINCIPIANTE, "date", null, CursorPage.MAX_SIZE)
+                .getItems().stream()
+                .filter(item -> item.getId().equals(matchId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Pagina feed home - filtro livello")
+    void testMatchFeedPageWithLevelFilter() {
+        // WHEN
+        CursorPage<MatchFeedItem> page = matchService.getMatchFeedPage(testUser, Level.PRINCIPIANTE, "level",
+                null, CursorPage.DEFAULT_SIZE);
+
+        // THEN
+        assertTrue(page.getItems().stream().anyMatch(m -> m.getId().equals(waitingMatch.getId())));
+        assertTrue(page.getItems().stream().allMatch(m -> m.getRequiredLevel() == Level.PRINCIPIANTE));
+    }
+
+    @Test
+    @DisplayName("Pagina feed home - partite dell'utente escluse dal DB, pagine sempre piene")
+    void testMatchFeedPageExcludesJoinedMatches() {
+        // GIVEN: l'utente è iscritto a waitingMatch
+        Registration registration = new Registration();
+        registration.setUser(testUser);
+        registration.setMatch(waitingMatch);
+        registrationRepository.save(registration);
+
+        // WHEN: tutto il feed a pagine da 2
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        CursorPage<MatchFeedItem> page;
+        do {
+            page = matchService.getMatchFeedPage(testUser, null, "date", cursor, 2);
+            if (page.hasNext()) {
+                assertEquals(2, page.getItems().size(), "Pagina intermedia incompleta");
+            }
+            page.getItems().forEach(m -> seen.add(m.getId()));
+            cursor = page.getNextCursor();
+        } while (page.hasNext());
+
+        // THEN
+        assertFalse(seen.contains(waitingMatch.getId()));
+        assertTrue(seen.contains(confirmedMatch.getId()));
+    }
 }
@@ -0,0 +1,159 @@
+package com.example.padel_app.business;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import com.example.padel_app.repository.UserRepository;
+import com.example.padel_app.service.MatchService;
+import com.example.padel_app.service.RegistrationService;
+import com.example.padel_app.service.SeatLedger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test: molti giocatori si iscrivono CONTEMPORANEAMENTE alla stessa partita.
+ *
+ * <h2>Problema verificato (overbooking)</h2>
+ * Con "conta iscritti → se &lt; 4 inserisci" due join concorrenti possono leggere entrambi
+ * 3 giocatori e portare la partita a 5. RegistrationService.joinMatch occupa il posto con
+ * un UPDATE condizionale atomico (MatchRepository.claimSeat): il test lo martella da più thread.
+ *
+ * <h2>Perché NON @Transactional</h2>
+ * Ogni thread deve eseguire la propria transazione reale (commit + lock di riga nel DB).
+ * Con un'unica transazione di test i thread non vedrebbero i dati di setup:
+ * i dati vengono quindi salvati davvero e rimossi in @AfterEach.
+ *
+ * <h2>Verifiche</h2>
+ * <ul>
+ *   <li>Esattamente 4 join riusciti, tutti gli altri rifiutati con "Match is full"</li>
+ *   <li>Contatore activePlayers = 4 e iscrizioni JOINED nel DB = 4</li>
+ *   <li>Partita auto-confermata (CONFIRMED)</li>
+ *   <li>SeatLedger allineato al DB: la partita risulta piena anche in memoria</li>
+ * </ul>
+ */
+@SpringBootTest
+public class JoinMatchConcurrencyTest {
+
+    private static final int PLAYERS = 16;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Match match;
+    private final List<User> players = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PLAYERS; i++) {
+            User user = new User();
+            user.setUsername("stress" + i);
+            user.setEmail("stress" + i + "@test.com");
+            user.setFirstName("Stress");
+            user.setLastName("Player" + i);
+            user.setPassword("password");
+            user.setDeclaredLevel(Level.INTERMEDIO);
+            user.setMatchesPlayed(0);
+            players.add(userRepository.save(user));
+        }
+
+        match = new Match();
+        match.setLocation("Campo Stress Test");
+        match.setDateTime(LocalDateTime.now().plusDays(3));
+        match.setRequiredLevel(Level.INTERMEDIO);
+        match.setType(MatchType.PROPOSTA);
+        match.setStatus(MatchStatus.WAITING);
+        match = matchRepository.save(match);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrationRepository.deleteAll(registrationRepository.findByMatch(match));
+        matchRepository.deleteById(match.getId());
+        userRepository.deleteAll(players);
+        players.clear();
+    }
+
+    @Test
+    @DisplayName("Join concorrenti: mai più di 4 giocatori sulla stessa partita")
+    void testConcurrentJoins_NeverOverbook() throws Exception {
+        // GIVEN: tutti i thread partono insieme
+        ExecutorService executor = Executors.newFixedThreadPool(PLAYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger rejectedFull = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (User player : players) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    // Ogni thread usa la propria copia della partita, come una richiesta HTTP
+                    Match own = matchService.getMatchById(match.getId()).orElseThrow();
+                    registrationService.joinMatch(player, own);
+                    joined.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    if (e.getMessage() != null && e.getMessage().contains("full")) {
+                        rejectedFull.incrementAndGet();
+                    } else {
+                        unexpected.add(e);
+                    }
+                } catch (Throwable t) {
+                    unexpected.add(t);
+                }
+            });
+        }
+
+        // WHEN
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Join non terminati entro il timeout");
+
+        // THEN
+        assertTrue(unexpected.isEmpty(), "Errori inattesi: " + unexpected);
+        assertEquals(Match.MAX_PLAYERS, joined.get());
+        assertEquals(PLAYERS - Match.MAX_PLAYERS, rejectedFull.get());
+
+        Match reloaded = matchRepository.findById(match.getId()).orElseThrow();
+        assertEquals(Match.MAX_PLAYERS, reloaded.getActivePlayers());
+        assertEquals(MatchStatus.CONFIRMED, reloaded.getStatus());
+        assertEquals(Match.MAX_PLAYERS,
+                registrationRepository.findByMatchAndStatus(reloaded, RegistrationStatus.JOINED).size());
+        assertTrue(seatLedger.isFull(match.getId()), "Ledger non allineato: partita piena vista come libera");
+    }
+}
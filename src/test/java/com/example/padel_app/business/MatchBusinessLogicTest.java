@@ -294,6 +294,7 @@ public class MatchBusinessLogicTest {
      *   <li>Status finale = FINISHED</li>
      *   <li>Match rimane nel database (non eliminato)</li>
      *   <li>Registrations rimangono (per storico feedback)</li>
+     *   <li>matchesPlayed +1 per ogni partecipante, creatore (anche JOINED) contato una volta</li>
      * </ul>
      */
     @Test
@@ -323,6 +324,11 @@ public class MatchBusinessLogicTest {
         List<Registration> regsAfterFinish = registrationService.getRegistrationsByMatch(finished);
         assertEquals(4, regsAfterFinish.size(),
             "Tutte le registrations devono rimanere per permettere feedback");
+        
+        // Verifica: contatori aggiornati dall'UPDATE bulk (letti dal DB)
+        assertEquals(1, userRepository.findById(creator.getId()).orElseThrow().getMatchesPlayed(),
+            "Il creatore iscritto deve avere 1 partita giocata, non 2");
+        assertEquals(1, userRepository.findById(player3.getId()).orElseThrow().getMatchesPlayed());
     }
 
     /**
@@ -394,6 +400,46 @@ public class MatchBusinessLogicTest {
             "Status rimane CONFIRMED anche sotto 4 giocatori (design choice)");
     }
 
+    /**
+     * Test: iscrizione di gruppo senza posti sufficienti per tutti.
+     * 
+     * <h3>Business Rule testata:</h3>
+     * "Il gruppo entra tutto insieme o nessuno entra"
+     * 
+     * <h3>Scenario:</h3>
+     * <ol>
+     *   <li>Partita con 2 giocatori (creatore + player1)</li>
+     *   <li>Gruppo di 3 (player2, player3, extra) prova a iscriversi: servono 3 posti, ne restano 2</li>
+     *   <li>Rifiuto: nessuno del gruppo risulta iscritto, contatore invariato</li>
+     *   <li>Gruppo di 2 (player2, player3): entrano entrambi → partita CONFIRMED</li>
+     * </ol>
+     */
+    @Test
+    void testGroupJoin_AllOrNothing() {
+        // ARRANGE
+        registrationService.joinMatch(creator, testMatch);
+        registrationService.joinMatch(player1, testMatch);
+        User extra = createUser("extra", "extra@test.com", "Paolo", "Gialli", Level.INTERMEDIO);
+
+        // ACT & ASSERT: 3 posti richiesti, 2 liberi → nessuno entra
+        List<User> tooBig = List.of(player2, player3, extra);
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> registrationService.joinMatchAsGroup(tooBig, testMatch));
+        assertTrue(error.getMessage().contains("full"));
+        assertEquals(2, registrationService.getActiveRegistrationsCount(testMatch));
+        assertFalse(registrationService.isUserRegisteredForMatch(player2, testMatch));
+        assertFalse(registrationService.isUserRegisteredForMatch(extra, testMatch));
+
+        // ACT: gruppo che ci sta
+        List<Registration> joined = registrationService.joinMatchAsGroup(List.of(player2, player3), testMatch);
+
+        // ASSERT
+        assertEquals(2, joined.size());
+        assertEquals(4, registrationService.getActiveRegistrationsCount(testMatch));
+        Match confirmed = matchRepository.findById(testMatch.getId()).orElseThrow();
+        assertEquals(MatchStatus.CONFIRMED, confirmed.getStatus());
+    }
+
     // Helper method per creare utenti
     private User createUser(String username, String email, String firstName, String lastName, Level level) {
         User user = new User();
@@ -0,0 +1,184 @@
+package com.example.padel_app.business;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import com.example.padel_app.repository.UserRepository;
+import com.example.padel_app.service.RegistrationService;
+import com.example.padel_app.service.SeatLedger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark: tentativi di iscrizione a una partita GIÀ PIENA ("partita calda").
+ *
+ * <h2>Percorsi confrontati</h2>
+ * <ul>
+ *   <li><strong>Ledger</strong>: stesso percorso di WebController.joinMatch → SeatLedger.isFull rifiuta
+ *       in memoria prima di aprire la transazione</li>
+ *   <li><strong>DB</strong>: percorso precedente al ledger → transazione con controllo duplicati
+ *       (existsByUserAndMatchAndStatus) + claim condizionale (MatchRepository.claimSeat)</li>
+ * </ul>
+ * Entrambi eseguiti con lo stesso numero di thread e tentativi; il throughput (tentativi/secondo)
+ * viene scritto nel log. Nessun confronto tra i tempi nelle asserzioni (dipendono dalla macchina):
+ * il test verifica solo che nessun tentativo riesca (la partita resta a 4 giocatori).
+ * L'allineamento ledger/DB nella suite normale è verificato da JoinMatchConcurrencyTest.
+ *
+ * <h2>Esecuzione (esclusa da mvn test)</h2>
+ * <pre>
+ * mvn test -Dtest=SeatLedgerBenchmarkTest -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ *
+ * <h2>Perché NON @Transactional</h2>
+ * Ogni tentativo deve essere una transazione reale come in produzione:
+ * i dati vengono salvati davvero e rimossi in @AfterEach.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class SeatLedgerBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 250;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Match match;
+    private User latecomer;
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        match = new Match();
+        match.setLocation("Campo Benchmark");
+        match.setDateTime(LocalDateTime.now().plusDays(1).withHour(19));
+        match.setRequiredLevel(Level.INTERMEDIO);
+        match.setType(MatchType.FISSA);
+        match.setStatus(MatchStatus.WAITING);
+        match = matchRepository.save(match);
+
+        // Partita piena: 4 iscritti tramite il servizio (DB e ledger allineati)
+        for (int i = 0; i < Match.MAX_PLAYERS; i++) {
+            registrationService.joinMatch(createUser("bench" + i), match);
+        }
+        latecomer = createUser("benchlate");
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrationRepository.deleteAll(registrationRepository.findByMatch(match));
+        matchRepository.deleteById(match.getId());
+        userRepository.deleteAll(users);
+        users.clear();
+    }
+
+    @Test
+    @DisplayName("Partita piena: throughput dei rifiuti, ledger in memoria vs percorso DB")
+    void benchmarkJoinThroughput_LedgerVsDatabase() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // WHEN: stesso carico sui due percorsi
+        double dbThroughput = measure("DB (transazione + claimSeat)", () ->
+            tx.executeWithoutResult(status -> {
+                registrationRepository.existsByUserAndMatchAndStatus(latecomer, match, RegistrationStatus.JOINED);
+                if (matchRepository.claimSeat(match.getId(), Match.MAX_PLAYERS) != 0) {
+                    throw new IllegalStateException("claim riuscito su partita piena");
+                }
+            }));
+
+        double ledgerThroughput = measure("Ledger (SeatLedger in memoria)", () -> {
+            if (!seatLedger.isFull(match.getId())) {
+                throw new IllegalStateException("ledger non allineato: partita piena vista come libera");
+            }
+        });
+
+        // THEN
+        log.info("📊 Join su partita piena: ledger {} op/s vs DB {} op/s (x{})",
+                 Math.round(ledgerThroughput), Math.round(dbThroughput),
+                 String.format("%.1f", ledgerThroughput / dbThroughput));
+        assertEquals(Match.MAX_PLAYERS, matchRepository.findActivePlayersById(match.getId()).orElseThrow());
+    }
+
+    /**
+     * Esegue THREADS × ATTEMPTS_PER_THREAD tentativi e ritorna i tentativi al secondo
+     */
+    private double measure(String label, Runnable attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    attempt.run();
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (var future : futures) {
+            future.get(60, TimeUnit.SECONDS);  // propaga eventuali errori dei thread
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        double throughput = THREADS * ATTEMPTS_PER_THREAD / (elapsed / 1_000_000_000.0);
+        log.info("⏱️ {}: {} tentativi in {} ms", label, THREADS * ATTEMPTS_PER_THREAD, elapsed / 1_000_000);
+        return throughput;
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.com");
+        user.setFirstName("Bench");
+        user.setLastName(username);
+        user.setPassword("password");
+        user.setDeclaredLevel(Level.INTERMEDIO);
+        user.setMatchesPlayed(0);
+        users.add(userRepository.save(user));
+        return user;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.padel_app.controller;
+
+import com.example.padel_app.service.IdempotencyCache;
+import com.example.padel_app.service.SignedSessionCookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import jakarta.servlet.http.Cookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unit per IdempotencyInterceptor (richieste servlet mock, cache reale)
+ *
+ * Simula quello che fa DispatcherServlet attorno al controller:
+ * preHandle → (controller) → postHandle → afterCompletion.
+ *
+ * VERIFICA:
+ * - la ripetizione con la stessa chiave non arriva al controller e riceve stesso redirect e flash
+ * - chiave diversa, nessuna chiave o errore del controller → la richiesta viene eseguita
+ * - modalità signed-cookie: la chiave è legata all'utente del cookie, non alla HttpSession
+ */
+@DisplayName("IdempotencyInterceptor Unit Tests")
+class IdempotencyInterceptorTest {
+
+    private MockHttpSession session;
+    private IdempotencyInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        session = new MockHttpSession();
+        interceptor = new IdempotencyInterceptor(new IdempotencyCache(Duration.ofMinutes(10), 100),
+                                                 new SignedSessionCookie("http-session", "", Duration.ofHours(12), false));
+    }
+
+    @Test
+    @DisplayName("Repeated key: controller skipped, same redirect and flash message")
+    void repeatedKey_shouldReplayFirstOutcome() throws Exception {
+        // GIVEN: prima richiesta eseguita dal controller con esito "success"
+        MockHttpServletRequest first = post("/matches/5/join", "abc-5");
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), this)).isTrue();
+        outputFlashMap(first).put("success", "Ti sei iscritta alla partita!");
+        interceptor.postHandle(first, new MockHttpServletResponse(), this, new ModelAndView("redirect:/"));
+
+        // WHEN: doppio click con la stessa chiave
+        MockHttpServletRequest repeat = post("/matches/5/join", "abc-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = interceptor.preHandle(repeat, response, this);
+
+        // THEN
+        assertThat(proceed).isFalse();
+        assertThat(response.getRedirectedUrl()).isEqualTo("/");
+        assertThat(outputFlashMap(repeat).get("success")).isEqualTo("Ti sei iscritta alla partita!");
+    }
+
+    @Test
+    @DisplayName("Different key, different URL or no key: request reaches the controller")
+    void otherRequests_shouldProceed() throws Exception {
+        // GIVEN
+        MockHttpServletRequest first = post("/matches/5/join", "abc-5");
+        interceptor.preHandle(first, new MockHttpServletResponse(), this);
+        interceptor.postHandle(first, new MockHttpServletResponse(), this, new ModelAndView("redirect:/"));
+
+        // WHEN / THEN
+        assertThat(interceptor.preHandle(post("/matches/5/join", "def-5"), new MockHttpServletResponse(), this)).isTrue();
+        assertThat(interceptor.preHandle(post("/matches/5/leave", "abc-5"), new MockHttpServletResponse(), this)).isTrue();
+        assertThat(interceptor.preHandle(post("/matches/5/join", null), new MockHttpServletResponse(), this)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Null flash message (exception without message): outcome saved and replayed")
+    void nullFlashValue_shouldBeReplayed() throws Exception {
+        // GIVEN: il controller mette e.getMessage() == null nel flash "error"
+        MockHttpServletRequest first = post("/matches/5/leave", "abc-5");
+        interceptor.preHandle(first, new MockHttpServletResponse(), this);
+        outputFlashMap(first).put("error", null);
+        interceptor.postHandle(first, new MockHttpServletResponse(), this, new ModelAndView("redirect:/my-matches"));
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), this, null);
+
+        // WHEN
+        MockHttpServletRequest repeat = post("/matches/5/leave", "abc-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = interceptor.preHandle(repeat, response, this);
+
+        // THEN
+        assertThat(proceed).isFalse();
+        assertThat(response.getRedirectedUrl()).isEqualTo("/my-matches");
+        assertThat(outputFlashMap(repeat).containsKey("error")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Controller exception: key released, retry is executed again")
+    void controllerException_shouldNotCacheOutcome() throws Exception {
+        // GIVEN: la prima richiesta termina con eccezione (nessun postHandle)
+        MockHttpServletRequest first = post("/matches/5/finish", "abc-5");
+        interceptor.preHandle(first, new MockHttpServletResponse(), this);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), this, new IllegalStateException("boom"));
+
+        // WHEN
+        boolean proceed = interceptor.preHandle(post("/matches/5/finish", "abc-5"), new MockHttpServletResponse(), this);
+
+        // THEN
+        assertThat(proceed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Signed-cookie mode: same user on another node is a duplicate, another user is not")
+    void signedCookie_shouldKeyOnCookieUser() throws Exception {
+        // GIVEN: stesso secret su tutti i nodi, HttpSession diversa a ogni richiesta
+        SignedSessionCookie cookie = new SignedSessionCookie("signed-cookie", "test-secret", Duration.ofHours(12), false);
+        IdempotencyInterceptor cookieInterceptor = new IdempotencyInterceptor(
+            new IdempotencyCache(Duration.ofMinutes(10), 100), cookie);
+        MockHttpServletRequest first = post("/matches/5/join", "abc-5");
+        first.setSession(new MockHttpSession());
+        first.setCookies(sessionCookie(cookie, 7L));
+        cookieInterceptor.preHandle(first, new MockHttpServletResponse(), this);
+        cookieInterceptor.postHandle(first, new MockHttpServletResponse(), this, new ModelAndView("redirect:/"));
+
+        // WHEN
+        MockHttpServletRequest repeat = post("/matches/5/join", "abc-5");
+        repeat.setSession(new MockHttpSession());
+        repeat.setCookies(sessionCookie(cookie, 7L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean repeatProceeds = cookieInterceptor.preHandle(repeat, response, this);
+
+        MockHttpServletRequest otherUser = post("/matches/5/join", "abc-5");
+        otherUser.setCookies(sessionCookie(cookie, 8L));
+        boolean otherUserProceeds = cookieInterceptor.preHandle(otherUser, new MockHttpServletResponse(), this);
+
+        // THEN
+        assertThat(repeatProceeds).isFalse();
+        assertThat(response.getRedirectedUrl()).isEqualTo("/");
+        assertThat(otherUserProceeds).isTrue();
+        assertThat(cookieInterceptor.preHandle(post("/matches/5/join", "abc-5"), new MockHttpServletResponse(), this))
+            .as("senza cookie: nessuna chiave").isTrue();
+    }
+
+    private static Cookie sessionCookie(SignedSessionCookie cookie, Long userId) {
+        MockHttpServletResponse login = new MockHttpServletResponse();
+        cookie.write(login, userId);
+        return login.getCookie("PADEL_SESSION");
+    }
+
+    private MockHttpServletRequest post(String uri, String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setSession(session);
+        if (key != null) {
+            request.addHeader(IdempotencyInterceptor.HEADER, key);
+        }
+        // Attributi impostati da DispatcherServlet per ogni richiesta
+        request.setAttribute(DispatcherServlet.OUTPUT_FLASH_MAP_ATTRIBUTE, new FlashMap());
+        request.setAttribute(DispatcherServlet.FLASH_MAP_MANAGER_ATTRIBUTE, new SessionFlashMapManager());
+        return request;
+    }
+
+    private FlashMap outputFlashMap(MockHttpServletRequest request) {
+        return (FlashMap) request.getAttribute(DispatcherServlet.OUTPUT_FLASH_MAP_ATTRIBUTE);
+    }
+}
@@ -5,6 +5,9 @@ import com.example.padel_app.model.User;
 import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.repository.CursorPage;
+import com.example.padel_app.repository.FeedbackStats;
+import com.example.padel_app.repository.MatchFeedItem;
 import com.example.padel_app.service.*;
 import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +21,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -25,8 +29,10 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -69,6 +75,9 @@ class WebControllerTest {
     @Mock
     private UserSessionService userSessionService;
 
+    @Mock
+    private SeatLedger seatLedger;
+
     @Mock
     private HttpSession session;
 
@@ -78,6 +87,15 @@ class WebControllerTest {
     @Mock
     private RedirectAttributes redirectAttributes;
 
+    @Mock
+    private Leaderboard leaderboard;
+
+    @Mock
+    private Matchmaker matchmaker;
+
+    @Mock
+    private PlayerPool playerPool;
+
     @InjectMocks
     private WebController webController;
 
@@ -106,23 +124,29 @@ class WebControllerTest {
     @DisplayName("home - should show matches when user authenticated")
     void home_shouldShowMatches_whenAuthenticated() {
         // Arrange
-        List<Match> matches = Arrays.asList(testMatch);
+        MatchFeedItem open = feedItem(1L, 2);
+        MatchFeedItem almostFull = feedItem(2L, 3);
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(matchService.getAllMatches()).thenReturn(matches);
-        when(matchService.sortMatches(any(), eq("date"))).thenReturn(matches);
-        when(registrationService.isUserRegistered(testUser, testMatch)).thenReturn(false);
-        when(registrationService.getActiveRegistrationsCount(testMatch)).thenReturn(2);
+        when(matchService.getMatchFeedPage(testUser, null, "date", null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Arrays.asList(open, almostFull), null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        String viewName = webController.home(session, null, "date", model);
+        String viewName = webController.home(session, null, "date", null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("index");
         verify(model).addAttribute(eq("currentUser"), eq(testUser));
-        verify(model).addAttribute(eq("availableMatches"), any());
-        verify(matchService).getAllMatches();
-        verify(matchService).sortMatches(any(), eq("date"));
+        verify(model).addAttribute("availableMatches", List.of(open, almostFull));
+        verify(model).addAttribute("nextCursor", null);
+        verify(matchService).getMatchFeedPage(testUser, null, "date", null, CursorPage.DEFAULT_SIZE);
+        // Nessuna query per singola partita (2N+1 eliminato)
+        verifyNoInteractions(registrationService);
+    }
+
+    private MatchFeedItem feedItem(Long id, int joined) {
+        return new MatchFeedItem(id, "Campo " + id, null, Level.INTERMEDIO, MatchStatus.WAITING,
+                LocalDateTime.now().plusDays(1), "Alice", "Rossi", joined);
     }
 
     @Test
@@ -132,11 +156,11 @@ class WebControllerTest {
         when(userSessionService.getCurrentUser(session)).thenReturn(null);
 
         // Act
-        String viewName = webController.home(session, null, "date", model);
+        String viewName = webController.home(session, null, "date", null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("redirect:/login");
-        verify(matchService, never()).getAllMatches();
+        verify(matchService, never()).getMatchFeedPage(any(), any(), any(), any(), anyInt());
     }
 
     // ==================== MY MATCHES ====================
@@ -145,24 +169,22 @@ class WebControllerTest {
     @DisplayName("myMatches - should show user's matches when authenticated")
     void myMatches_shouldShowUserMatches_whenAuthenticated() {
         // Arrange
-        Registration reg = new Registration();
-        reg.setMatch(testMatch);
-        List<Registration> registrations = Arrays.asList(reg);
-
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(registrationService.getActiveRegistrationsByUser(testUser)).thenReturn(registrations);
-        when(matchService.sortMatches(any(), eq("date"))).thenReturn(Arrays.asList(testMatch));
-        when(registrationService.getActiveRegistrationsCount(testMatch)).thenReturn(2);
+        when(matchService.getPlayerMatchesPage(testUser, List.of(MatchStatus.WAITING, MatchStatus.CONFIRMED),
+                "date", null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Arrays.asList(testMatch), null));
+        when(matchService.getPlayerMatchesPage(testUser, List.of(MatchStatus.FINISHED),
+                "date", null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Collections.emptyList(), null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        String viewName = webController.myMatches(session, null, "date", model);
+        String viewName = webController.myMatches(session, null, "date", null, null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("my-matches");
         verify(model).addAttribute(eq("currentUser"), eq(testUser));
-        verify(model).addAttribute(eq("registeredMatches"), any());
-        verify(registrationService).getActiveRegistrationsByUser(testUser);
+        verify(model).addAttribute("registeredMatches", List.of(testMatch));
     }
 
     @Test
@@ -172,11 +194,11 @@ class WebControllerTest {
         when(userSessionService.getCurrentUser(session)).thenReturn(null);
 
         // Act
-        String viewName = webController.myMatches(session, null, "date", model);
+        String viewName = webController.myMatches(session, null, "date", null, null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("redirect:/login");
-        verify(registrationService, never()).getActiveRegistrationsByUser(any());
+        verify(matchService, never()).getPlayerMatchesPage(any(), any(), any(), any(), anyInt());
     }
 
     // ==================== CREATE MATCH ====================
@@ -255,6 +277,79 @@ class WebControllerTest {
         verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
     }
 
+    @Test
+    @DisplayName("joinMatch - should reject full match from the seat ledger without loading it")
+    void joinMatch_shouldRejectFullMatch_fromLedger() {
+        // Arrange
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(seatLedger.isFull(1L)).thenReturn(true);
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        // Act
+        String viewName = webController.joinMatch(session, 1L, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/");
+        verify(matchService, never()).getMatchById(any());
+        verify(registrationService, never()).joinMatch(any(), any());
+        verify(redirectAttributes).addFlashAttribute(eq("error"), contains("full"));
+    }
+
+    @Test
+    @DisplayName("joinMatch - should let the user holding the last seat join a full match")
+    void joinMatch_shouldJoin_whenUserHoldsLastSeat() {
+        // Arrange: partita piena per il ledger, ma l'ultimo posto è tenuto da testUser
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(seatLedger.isFull(1L)).thenReturn(true);
+        when(seatLedger.hasHold(1L, testUser.getId())).thenReturn(true);
+        when(matchService.getMatchById(1L)).thenReturn(Optional.of(testMatch));
+        when(registrationService.joinMatch(testUser, testMatch)).thenReturn(new Registration());
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        // Act
+        String viewName = webController.joinMatch(session, 1L, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/");
+        verify(registrationService).joinMatch(testUser, testMatch);
+        verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
+    }
+
+    @Test
+    @DisplayName("joinWaitlist - should queue user on a full match")
+    void joinWaitlist_shouldQueueUser_whenAuthenticated() {
+        // Arrange
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(matchService.getMatchById(1L)).thenReturn(Optional.of(testMatch));
+        when(registrationService.joinWaitlist(testUser, testMatch)).thenReturn(new Registration());
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        // Act
+        String viewName = webController.joinWaitlist(session, 1L, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/");
+        verify(registrationService).joinWaitlist(testUser, testMatch);
+        verify(redirectAttributes).addFlashAttribute(eq("success"), contains("lista d'attesa"));
+    }
+
+    @Test
+    @DisplayName("holdSeat - should hold a seat and show its expiry")
+    void holdSeat_shouldHoldSeat_whenAuthenticated() {
+        // Arrange
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(matchService.getMatchById(1L)).thenReturn(Optional.of(testMatch));
+        when(registrationService.holdSeat(testUser, testMatch)).thenReturn(LocalDateTime.of(2030, 1, 1, 18, 32));
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        // Act
+        String viewName = webController.holdSeat(session, 1L, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/");
+        verify(redirectAttributes).addFlashAttribute(eq("success"), contains("18:32"));
+    }
+
     @Test
     @DisplayName("joinMatch - should handle match not found")
     void joinMatch_shouldHandleMatchNotFound() {
@@ -324,6 +419,24 @@ class WebControllerTest {
         verify(registrationService, never()).leaveMatch(any(), any());
     }
 
+    @Test
+    @DisplayName("joinPool - should queue the user for the chosen slot")
+    void joinPool_shouldQueueUser_whenAuthenticated() {
+        // Arrange
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(playerPool.join(testUser, slot)).thenReturn(slot);
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        // Act
+        String viewName = webController.joinPool(session, slot.toString(), redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/");
+        verify(playerPool).join(testUser, slot);
+        verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
+    }
+
     // ==================== MATCHES LIST ====================
 
     @Test
@@ -332,18 +445,17 @@ class WebControllerTest {
         // Arrange
         List<Match> matches = Arrays.asList(testMatch);
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(matchService.getAllMatches()).thenReturn(matches);
-        when(matchService.sortMatches(matches, "date")).thenReturn(matches);
+        when(matchService.getMatchesPage(null, "date", null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(matches, null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        String viewName = webController.matches(session, null, "date", model);
+        String viewName = webController.matches(session, null, "date", null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("matches");
         verify(model).addAttribute(eq("matches"), eq(matches));
-        verify(matchService).getAllMatches();
-        verify(matchService).sortMatches(matches, "date");
+        verify(matchService).getMatchesPage(null, "date", null, CursorPage.DEFAULT_SIZE);
     }
 
     // ==================== MY PROFILE ====================
@@ -353,36 +465,45 @@ class WebControllerTest {
     void myProfile_shouldShowProfile_whenAuthenticated() {
         // Arrange
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(feedbackService.getFeedbacksByTargetUser(testUser)).thenReturn(Collections.emptyList());
+        when(feedbackService.getReceivedStats(testUser)).thenReturn(FeedbackStats.of(Collections.emptyList()));
+        when(feedbackService.getFeedbacksReceivedPage(testUser, null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Collections.emptyList(), null));
+        when(feedbackService.getFeedbacksGivenPage(testUser, null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Collections.emptyList(), null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        String viewName = webController.myProfile(session, model);
+        String viewName = webController.myProfile(session, null, null, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("my-profile");
         verify(model).addAttribute(eq("currentUser"), eq(testUser));
-        verify(feedbackService).getFeedbacksByTargetUser(testUser);
+        verify(model).addAttribute(eq("countPrincipiante"), eq(0L));
+        verify(feedbackService, never()).getFeedbacksByTargetUser(any());
     }
 
     // ==================== USERS LIST ====================
 
     @Test
-    @DisplayName("users - should show users list when authenticated")
-    void users_shouldShowUsersList_whenAuthenticated() {
-        // Arrange
-        List<User> users = Arrays.asList(testUser);
+    @DisplayName("users - should show a leaderboard page with the current user's rank")
+    void users_shouldShowLeaderboardPage_whenAuthenticated() {
+        // Arrange: 25 giocatori, seconda pagina da 20
+        List<Leaderboard.Standing> standings = List.of(new Leaderboard.Standing(21, testUser));
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(userService.getAllUsers()).thenReturn(users);
+        when(leaderboard.rankOf(testUser.getId())).thenReturn(21);
+        when(leaderboard.size()).thenReturn(25);
+        when(leaderboard.page(1, CursorPage.DEFAULT_SIZE)).thenReturn(standings);
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        String viewName = webController.users(session, model);
+        String viewName = webController.users(session, 1, null, model);
 
         // Assert
         assertThat(viewName).isEqualTo("users");
-        verify(model).addAttribute(eq("users"), eq(users));
-        verify(userService).getAllUsers();
+        verify(model).addAttribute("standings", standings);
+        verify(model).addAttribute("myRank", 21);
+        verify(model).addAttribute("hasNext", false);
+        verify(userService, never()).getAllUsers();  // niente caricamento di tutta la tabella
     }
     // ==================== FINISH MATCH ====================
 
@@ -505,6 +626,66 @@ class WebControllerTest {
         verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
     }
 
+    @Test
+    @DisplayName("submitAllFeedback - should rate all selected co-players at once")
+    void submitAllFeedback_shouldSubmitAllRatings() {
+        // Arrange: Bob valutato, Carla lasciata senza livello
+        User bob = new User();
+        bob.setId(2L);
+        User carla = new User();
+        carla.setId(3L);
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(matchService.getMatchById(1L)).thenReturn(Optional.of(testMatch));
+        when(registrationService.getActiveRegistrationsByMatch(testMatch))
+            .thenReturn(List.of(registration(testUser), registration(bob), registration(carla)));
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        WebController.BulkFeedbackRequest request = new WebController.BulkFeedbackRequest();
+        request.getLevels().put(2L, "AVANZATO");
+        request.getLevels().put(3L, "");
+        request.getComments().put(2L, "Ottimo");
+
+        // Act
+        String viewName = webController.submitAllFeedback(session, 1L, request, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/matches/1/feedback");
+        verify(feedbackService).createFeedbacks(eq(testUser), eq(testMatch), argThat(ratings ->
+            ratings.size() == 1 && ratings.get(0).getTargetUser() == bob
+                && ratings.get(0).getSuggestedLevel() == Level.AVANZATO
+                && ratings.get(0).getComment().equals("Ottimo")));
+        verify(userService, never()).getUserById(anyLong());
+        verify(redirectAttributes).addFlashAttribute(eq("success"), anyString());
+    }
+
+    @Test
+    @DisplayName("submitAllFeedback - should reject players not in the match")
+    void submitAllFeedback_shouldRejectStrangers() {
+        // Arrange
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(matchService.getMatchById(1L)).thenReturn(Optional.of(testMatch));
+        when(registrationService.getActiveRegistrationsByMatch(testMatch)).thenReturn(List.of(registration(testUser)));
+        when(redirectAttributes.addFlashAttribute(anyString(), anyString())).thenReturn(redirectAttributes);
+
+        WebController.BulkFeedbackRequest request = new WebController.BulkFeedbackRequest();
+        request.getLevels().put(99L, "AVANZATO");
+
+        // Act
+        String viewName = webController.submitAllFeedback(session, 1L, request, redirectAttributes);
+
+        // Assert
+        assertThat(viewName).isEqualTo("redirect:/matches/1/feedback");
+        verify(feedbackService, never()).createFeedbacks(any(), any(), any());
+        verify(redirectAttributes).addFlashAttribute(eq("error"), anyString());
+    }
+
+    private Registration registration(User user) {
+        Registration registration = new Registration();
+        registration.setUser(user);
+        registration.setMatch(testMatch);
+        return registration;
+    }
+
     // ==================== FILTERS & SORTING ====================
 
     @Test
@@ -512,15 +693,15 @@ class WebControllerTest {
     void home_shouldFilterByLevel() {
         // Arrange
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(matchService.getMatchesByLevel(Level.INTERMEDIO)).thenReturn(Arrays.asList(testMatch));
-        when(matchService.sortMatches(any(), any())).thenReturn(Arrays.asList(testMatch));
+        when(matchService.getMatchFeedPage(testUser, Level.INTERMEDIO, "date", null, CursorPage.DEFAULT_SIZE))
+            .thenReturn(CursorPage.of(Collections.emptyList(), null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        webController.home(session, "INTERMEDIO", "date", model);
+        webController.home(session, "INTERMEDIO", "date", null, null, model);
 
         // Assert
-        verify(matchService).getMatchesByLevel(Level.INTERMEDIO);
+        verify(matchService).getMatchFeedPage(testUser, Level.INTERMEDIO, "date", null, CursorPage.DEFAULT_SIZE);
     }
 
     @Test
@@ -528,16 +709,33 @@ class WebControllerTest {
     void matches_shouldFilterByLevel() {
         // Arrange
         when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
-        when(matchService.getMatchesByLevel(Level.AVANZATO)).thenReturn(Collections.emptyList());
-        when(matchService.sortMatches(any(), any())).thenReturn(Collections.emptyList());
+        when(matchService.getMatchesPage(eq(Level.AVANZATO), eq("popularity"), any(), anyInt()))
+            .thenReturn(CursorPage.of(Collections.<Match>emptyList(), null));
         when(model.addAttribute(anyString(), any())).thenReturn(model);
 
         // Act
-        webController.matches(session, "AVANZATO", "popularity", model);
+        webController.matches(session, "AVANZATO", "popularity", null, null, model);
 
         // Assert
-        verify(matchService).getMatchesByLevel(Level.AVANZATO);
-        verify(matchService).sortMatches(any(), eq("popularity"));
+        verify(matchService).getMatchesPage(Level.AVANZATO, "popularity", null, CursorPage.DEFAULT_SIZE);
     }
 
+    // ==================== PAGINATION ====================
+
+    @Test
+    @DisplayName("home - should pass cursor and clamped size to the feed page")
+    void home_shouldPassCursorAndSize() {
+        // Arrange
+        String cursor = "2030-01-01T10:00_5";
+        when(userSessionService.getCurrentUser(session)).thenReturn(testUser);
+        when(matchService.getMatchFeedPage(testUser, null, "date", cursor, CursorPage.MAX_SIZE))
+            .thenReturn(CursorPage.of(Collections.emptyList(), null));
+        when(model.addAttribute(anyString(), any())).thenReturn(model);
+
+        // Act
+        webController.home(session, null, "date", cursor, 5000, model);
+
+        // Assert
+        verify(matchService).getMatchFeedPage(testUser, null, "date", cursor, CursorPage.MAX_SIZE);
+    }
 }
@@ -6,11 +6,15 @@ import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
 import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.repository.CursorPage;
+import com.example.padel_app.repository.FeedbackRepository;
+import com.example.padel_app.repository.FeedbackStats;
 import com.example.padel_app.repository.MatchRepository;
 import com.example.padel_app.repository.UserRepository;
 import com.example.padel_app.service.FeedbackService;
 import com.example.padel_app.service.MatchService;
 import com.example.padel_app.service.RegistrationService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +22,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,6 +77,12 @@ public class FeedbackValidationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private User playerA;
     private User playerB;
     private User playerC;
@@ -260,6 +271,107 @@ public class FeedbackValidationTest {
             "Media di PRINCIPIANTE(0), INTERMEDIO(1), INTERMEDIO(1) = 0.67 → INTERMEDIO(1)");
     }
 
+    /**
+     * Test: Verifica i totali feedback su User (somma ordinal + conteggio).
+     * 
+     * <h3>Scenario:</h3>
+     * PlayerD riceve AVANZATO (2) e PROFESSIONISTA (3), poi la partita viene eliminata
+     * (i feedback spariscono con il cascade di Match).
+     * 
+     * <h3>Verifica:</h3>
+     * Dopo i feedback: feedbackSum = 5, feedbackCount = 2; dopo il ricalcolo PROFESSIONISTA (2.5 → 3).
+     * Dopo l'eliminazione: totali a zero.
+     */
+    @Test
+    void testFeedbackTotals_UpdatedOnCreateAndMatchDelete() {
+        // ARRANGE + ACT: due feedback a PlayerD
+        feedbackService.createFeedback(playerA, playerD, finishedMatch, Level.AVANZATO, "Solido");
+        feedbackService.createFeedback(playerB, playerD, finishedMatch, Level.PROFESSIONISTA, "Fortissimo");
+
+        // ASSERT: totali nel DB
+        UserRepository.FeedbackTotals totals = userRepository.findFeedbackTotalsById(playerD.getId()).orElseThrow();
+        assertEquals(5, totals.getFeedbackSum());
+        assertEquals(2, totals.getFeedbackCount());
+
+        // ACT + ASSERT: ricalcolo come lo farebbe PerceivedLevelUpdater dopo il commit
+        assertEquals(1, feedbackService.refreshPerceivedLevels(List.of(playerD.getId(), playerC.getId())));
+        entityManager.clear();
+        assertEquals(Level.PROFESSIONISTA, userRepository.findById(playerD.getId()).orElseThrow().getPerceivedLevel());
+
+        // ACT: eliminazione partita → feedback eliminati in cascade
+        matchService.deleteMatch(finishedMatch.getId());
+
+        // ASSERT: feedback tolti dai totali
+        totals = userRepository.findFeedbackTotalsById(playerD.getId()).orElseThrow();
+        assertEquals(0, totals.getFeedbackSum());
+        assertEquals(0, totals.getFeedbackCount());
+    }
+
+    /**
+     * Test: Verifica il ricalcolo a blocchi del perceived level (PerceivedLevelRecomputeJob).
+     * 
+     * <h3>Scenario:</h3>
+     * PlayerD riceve AVANZATO (2) e PROFESSIONISTA (3), poi il suo livello viene alterato
+     * (es. dati riparati a mano). Il blocco calcolato dalla query aggregata lo ripristina.
+     * 
+     * <h3>Verifica:</h3>
+     * playerD.perceivedLevel = PROFESSIONISTA (2.5 → 3) con un UPDATE per livello.
+     */
+    @Test
+    void testApplyPerceivedLevels_FromAggregateQuery() {
+        // ARRANGE
+        feedbackService.createFeedback(playerA, playerD, finishedMatch, Level.AVANZATO, "Solido");
+        feedbackService.createFeedback(playerB, playerD, finishedMatch, Level.PROFESSIONISTA, "Fortissimo");
+        userRepository.updatePerceivedLevels(List.of(playerD.getId()), Level.PRINCIPIANTE);
+
+        // ACT
+        int updated = feedbackService.applyPerceivedLevels(feedbackRepository.sumReceivedLevelsByUser());
+
+        // ASSERT
+        assertTrue(updated >= 1);
+        entityManager.clear();
+        assertEquals(Level.PROFESSIONISTA, userRepository.findById(playerD.getId()).orElseThrow().getPerceivedLevel());
+    }
+
+    /**
+     * Test: Verifica statistiche e pagine del profilo (/my-profile).
+     * 
+     * <h3>Scenario:</h3>
+     * PlayerD riceve 3 feedback (PRINCIPIANTE, INTERMEDIO, INTERMEDIO), pagine da 2 elementi.
+     * 
+     * <h3>Verifica:</h3>
+     * <ul>
+     *   <li>Istogramma e totale dalla query GROUP BY</li>
+     *   <li>Prima pagina: 2 feedback e cursore; seconda pagina: il feedback rimanente, nessun cursore</li>
+     * </ul>
+     */
+    @Test
+    void testProfileStatsAndPages() {
+        // ARRANGE
+        feedbackService.createFeedback(playerA, playerD, finishedMatch, Level.PRINCIPIANTE, "Ancora inesperto");
+        feedbackService.createFeedback(playerB, playerD, finishedMatch, Level.INTERMEDIO, "Sta migliorando");
+        feedbackService.createFeedback(playerC, playerD, finishedMatch, Level.INTERMEDIO, "Discreto");
+        entityManager.flush();
+        entityManager.clear();
+
+        // ACT
+        FeedbackStats stats = feedbackService.getReceivedStats(playerD);
+        CursorPage<Feedback> first = feedbackService.getFeedbacksReceivedPage(playerD, null, 2);
+        CursorPage<Feedback> second = feedbackService.getFeedbacksReceivedPage(playerD, first.getNextCursor(), 2);
+
+        // ASSERT
+        assertEquals(3, stats.getTotal());
+        assertEquals(2, stats.getCount(Level.INTERMEDIO));
+        assertEquals(1, stats.getCount(Level.PRINCIPIANTE));
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasNext());
+        assertEquals(1, second.getItems().size());
+        assertFalse(second.hasNext());
+        assertEquals("Alice", second.getItems().get(0).getAuthor().getFirstName(),
+            "Il feedback più vecchio (di PlayerA) è nell'ultima pagina, con l'autore già caricato");
+        assertEquals(1, feedbackService.getFeedbacksGivenPage(playerA, null, 2).getItems().size());
+    }
+
     /**
      * Test: Verifica che il perceived level rimanga null se nessun feedback ricevuto.
      * 
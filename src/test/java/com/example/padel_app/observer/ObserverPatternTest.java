@@ -2,6 +2,7 @@ package com.example.padel_app.observer;
 
 import com.example.padel_app.event.MatchConfirmedEvent;
 import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.event.PlayerPromotedEvent;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
@@ -10,6 +11,7 @@ import com.example.padel_app.model.enums.MatchType;
 import com.example.padel_app.repository.MatchRepository;
 import com.example.padel_app.repository.UserRepository;
 import com.example.padel_app.service.MatchService;
+import com.example.padel_app.service.NotificationService;
 import com.example.padel_app.service.RegistrationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -74,6 +76,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * 
  * @see com.example.padel_app.event.MatchConfirmedEvent
  * @see com.example.padel_app.event.MatchFinishedEvent
+ * @see com.example.padel_app.event.PlayerPromotedEvent
  * @see com.example.padel_app.listener.MatchEventListener
  */
 @SpringBootTest
@@ -93,6 +96,9 @@ public class ObserverPatternTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationService notificationService;
+
     @Autowired
     private ApplicationEvents applicationEvents;  // Contiene gli eventi catturati
 
@@ -320,6 +326,76 @@ public class ObserverPatternTest {
         assertEquals(4, activeCount, "Dovrebbero esserci 4 giocatori attivi");
     }
 
+    /**
+     * Test: un gruppo di 4 riempie la partita con una sola richiesta.
+     * 
+     * <h3>Cosa verifica:</h3>
+     * <ul>
+     *   <li>Un solo MatchConfirmedEvent per tutto il gruppo (non uno per giocatore)</li>
+     *   <li>La partita diventa CONFIRMED con 4 giocatori</li>
+     * </ul>
+     */
+    @Test
+    void testGroupJoinPublishesSingleConfirmedEvent() {
+        // ACT
+        registrationService.joinMatchAsGroup(List.of(player1, player2, player3, player4), testMatch);
+
+        // ASSERT
+        assertEquals(1, applicationEvents.stream(MatchConfirmedEvent.class).count(),
+            "Il gruppo deve generare esattamente 1 MatchConfirmedEvent");
+        Match updated = matchRepository.findById(testMatch.getId()).orElseThrow();
+        assertEquals(MatchStatus.CONFIRMED, updated.getStatus());
+        assertEquals(4, updated.getActivePlayers());
+    }
+
+    /**
+     * Test: un giocatore lascia una partita piena con lista d'attesa.
+     * 
+     * <h3>Scenario:</h3>
+     * <ol>
+     *   <li>Partita piena (4/4), due utenti in lista d'attesa</li>
+     *   <li>Un giocatore lascia la partita</li>
+     *   <li>Il PRIMO in attesa diventa JOINED, il secondo resta in coda</li>
+     * </ol>
+     * 
+     * <h3>Cosa verifica:</h3>
+     * <ul>
+     *   <li>PlayerPromotedEvent pubblicato per l'utente giusto (FIFO)</li>
+     *   <li>Il listener ha inviato la notifica tramite NotificationService</li>
+     *   <li>Il contatore resta a 4: il posto è stato trasferito, non liberato</li>
+     * </ul>
+     */
+    @Test
+    void testPlayerPromotedEventPublishedWhenPlayerLeaves() {
+        // ARRANGE: partita piena + lista d'attesa
+        registrationService.joinMatch(player1, testMatch);
+        registrationService.joinMatch(player2, testMatch);
+        registrationService.joinMatch(player3, testMatch);
+        registrationService.joinMatch(player4, testMatch);
+        User firstWaiting = createUser("waiting1", "w1@test.com", "Waiting", "One", Level.INTERMEDIO);
+        User secondWaiting = createUser("waiting2", "w2@test.com", "Waiting", "Two", Level.INTERMEDIO);
+        registrationService.joinWaitlist(firstWaiting, testMatch);
+        registrationService.joinWaitlist(secondWaiting, testMatch);
+        notificationService.clearNotifications();
+
+        // ACT: un giocatore lascia la partita
+        registrationService.leaveMatch(player2, testMatch);
+
+        // ASSERT: promosso il primo in coda, evento e notifica
+        List<PlayerPromotedEvent> promotedEvents = applicationEvents.stream(PlayerPromotedEvent.class).toList();
+        assertEquals(1, promotedEvents.size(), "Dovrebbe essere pubblicato esattamente 1 PlayerPromotedEvent");
+        assertEquals(firstWaiting.getId(), promotedEvents.get(0).getUser().getId());
+
+        assertTrue(registrationService.isUserRegisteredForMatch(firstWaiting, testMatch));
+        assertTrue(registrationService.isUserWaitlisted(secondWaiting, testMatch));
+        assertFalse(registrationService.isUserRegisteredForMatch(player2, testMatch));
+        assertEquals(4, registrationService.getActiveRegistrationsCount(testMatch),
+            "Il posto passa al primo in attesa: sempre 4 giocatori");
+
+        assertTrue(notificationService.getAllNotifications().stream().anyMatch(n -> n.contains("waiting1")),
+            "Il listener deve notificare l'utente promosso");
+    }
+
     // Helper method per creare utenti
     private User createUser(String username, String email, String firstName, String lastName, Level level) {
         User user = new User();
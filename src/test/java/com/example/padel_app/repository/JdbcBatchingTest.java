@@ -0,0 +1,160 @@
+package com.example.padel_app.repository;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.service.RegistrationService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test del JDBC batching: quanti statement arrivano al DB per un'operazione bulk?
+ *
+ * <h2>Cosa verifica</h2>
+ * Con ID da sequence (optimizer pooled) e hibernate.jdbc.batch_size, gli INSERT dello stesso
+ * tipo vengono inviati in UN batch al flush. Con IDENTITY sarebbero N statement separati.
+ *
+ * <h2>Come si contano gli statement</h2>
+ * <ul>
+ *   <li>Hibernate Statistics (hibernate.generate_statistics): righe inserite (getEntityInsertCount)</li>
+ *   <li>{@link SqlRecorder} (StatementInspector): riceve l'SQL di ogni statement preparato.
+ *       Un batch prepara lo statement UNA volta per tutte le righe</li>
+ * </ul>
+ * Entrambi abilitati solo per questo test.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.padel_app.repository.JdbcBatchingTest$SqlRecorder"
+})
+@Transactional
+public class JdbcBatchingTest {
+
+    private static final int USERS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("saveAll di 20 utenti: 20 righe inserite con un solo statement INSERT")
+    void testSaveAllUsers_IsBatched() {
+        // GIVEN
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(newUser("batch" + i));
+        }
+
+        // WHEN
+        userRepository.saveAll(users);
+        entityManager.flush();
+
+        // THEN: 20 righe, un solo statement (batch) + al massimo una chiamata alla sequence
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(USERS);
+        assertThat(countStatements("insert into users")).isEqualTo(1);
+        assertThat(countStatements("users_seq")).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Iscrizione di gruppo: le 4 registrations vengono inserite in un solo batch")
+    void testGroupJoin_RegistrationsAreBatched() {
+        // GIVEN
+        List<User> group = new ArrayList<>();
+        for (int i = 0; i < Match.MAX_PLAYERS; i++) {
+            group.add(userRepository.save(newUser("group" + i)));
+        }
+        Match match = new Match();
+        match.setLocation("Campo Batch");
+        match.setDateTime(LocalDateTime.now().plusDays(1));
+        match.setRequiredLevel(Level.INTERMEDIO);
+        match.setType(MatchType.PROPOSTA);
+        match.setStatus(MatchStatus.WAITING);
+        match = matchRepository.save(match);
+        entityManager.flush();
+        statistics.clear();
+        SqlRecorder.STATEMENTS.clear();
+
+        // WHEN
+        registrationService.joinMatchAsGroup(group, match);
+        entityManager.flush();
+
+        // THEN
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(Match.MAX_PLAYERS);
+        assertThat(countStatements("insert into registrations")).isEqualTo(1);
+    }
+
+    /**
+     * Statement preparati il cui SQL contiene il frammento indicato
+     */
+    private long countStatements(String fragment) {
+        return SqlRecorder.STATEMENTS.stream()
+            .filter(sql -> sql.toLowerCase().contains(fragment))
+            .count();
+    }
+
+    /**
+     * StatementInspector che registra l'SQL di ogni statement preparato da Hibernate
+     *
+     * Istanziato da Hibernate tramite il nome della classe: deve essere public con costruttore vuoto.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    private User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.com");
+        user.setFirstName("Batch");
+        user.setLastName(username);
+        user.setPassword("password");
+        user.setDeclaredLevel(Level.INTERMEDIO);
+        user.setMatchesPlayed(0);
+        return user;
+    }
+}
@@ -6,11 +6,16 @@ import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
 import com.example.padel_app.model.enums.MatchType;
+import com.example.padel_app.model.enums.RegistrationStatus;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -59,6 +64,7 @@ class MatchRepositoryTest {
         entityManager.persist(unpopularMatch);
 
         entityManager.flush();
+        matchRepository.recountActivePlayers();
 
         // WHEN
         List<Match> result = matchRepository.findAllOrderByPopularity();
@@ -120,7 +126,153 @@ class MatchRepositoryTest {
         assertThat(result.get(0).getCreator().getUsername()).isEqualTo("creator");
     }
 
+    @Test
+    @DisplayName("scroll keyset per popolarità: ordine dal DB (activePlayers desc) e pagine senza salti")
+    void testScrollByPopularity() {
+        // GIVEN
+        User u1 = createUser("u1");
+        User u2 = createUser("u2");
+
+        Match popular = createMatch("Popular", MatchStatus.WAITING);
+        entityManager.persist(popular);
+        createRegistration(u1, popular);
+        createRegistration(u2, popular);
+
+        Match single = createMatch("Single", MatchStatus.WAITING);
+        entityManager.persist(single);
+        createRegistration(u1, single);
+        Registration cancelled = new Registration();
+        cancelled.setUser(u2);
+        cancelled.setMatch(single);
+        cancelled.setStatus(RegistrationStatus.CANCELLED);
+        entityManager.persist(cancelled);
+
+        Match empty = createMatch("Empty", MatchStatus.WAITING);
+        entityManager.persist(empty);
+        entityManager.flush();
+        matchRepository.recountActivePlayers();
+        entityManager.clear();
+
+        Sort sort = Sort.by(Sort.Order.desc("activePlayers"), Sort.Order.asc("dateTime"), Sort.Order.asc("id"));
+        Specification<Match> spec = MatchSpecifications.withCreator();
+
+        // WHEN: pagine da 2
+        Window<Match> first = matchRepository.findBy(spec, q -> q.sortBy(sort).limit(2).scroll(ScrollPosition.keyset()));
+        String cursor = KeysetCursor.encode(first.positionAt(1), sort);
+        Window<Match> second = matchRepository.findBy(spec,
+                q -> q.sortBy(sort).limit(2).scroll(KeysetCursor.decode(cursor, sort)));
+
+        // THEN
+        assertThat(first.getContent()).extracting(Match::getLocation).containsExactly("Popular", "Single");
+        assertThat(first.getContent()).extracting(Match::getActivePlayers).containsExactly(2, 1);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(Match::getLocation).containsExactly("Empty");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("levelRank: ordina per difficoltà e non alfabeticamente")
+    void testOrderByLevelRank() {
+        // GIVEN: alfabeticamente AVANZATO < INTERMEDIO < PRINCIPIANTE < PROFESSIONISTA
+        for (Level level : new Level[] {Level.PROFESSIONISTA, Level.AVANZATO, Level.PRINCIPIANTE, Level.INTERMEDIO}) {
+            Match m = createMatch(level.name(), MatchStatus.WAITING);
+            m.setRequiredLevel(level);
+            entityManager.persist(m);
+        }
+        entityManager.flush();
+
+        // WHEN
+        List<Match> result = matchRepository.findAll(Sort.by("levelRank", "id"));
+
+        // THEN
+        assertThat(result).extracting(Match::getRequiredLevel)
+                .containsExactly(Level.PRINCIPIANTE, Level.INTERMEDIO, Level.AVANZATO, Level.PROFESSIONISTA);
+    }
+
+    @Test
+    @DisplayName("claimSeat/decrementActivePlayers: UPDATE atomico del contatore, mai oltre la capacità né sotto zero")
+    void testActivePlayersCounter() {
+        // GIVEN
+        Match match = createMatch("Counter", MatchStatus.WAITING);
+        entityManager.persist(match);
+        entityManager.flush();
+        Long id = match.getId();
+
+        // WHEN: 5 claim su una partita da 4
+        int claimed = 0;
+        for (int i = 0; i < 5; i++) {
+            claimed += matchRepository.claimSeat(id, Match.MAX_PLAYERS);
+        }
+
+        // THEN: il quinto claim non aggiorna nulla
+        assertThat(claimed).isEqualTo(Match.MAX_PLAYERS);
+        assertThat(matchRepository.findActivePlayersById(id)).contains(Match.MAX_PLAYERS);
+
+        // WHEN: un giocatore esce → il posto torna disponibile
+        matchRepository.decrementActivePlayers(id);
+        assertThat(matchRepository.claimSeat(id, Match.MAX_PLAYERS)).isEqualTo(1);
+
+        // WHEN: decremento oltre lo zero
+        for (int i = 0; i < Match.MAX_PLAYERS; i++) {
+            matchRepository.decrementActivePlayers(id);
+        }
+        assertThat(matchRepository.decrementActivePlayers(id)).isZero();
+
+        // THEN
+        assertThat(matchRepository.findActivePlayersById(id)).contains(0);
+    }
+
+    @Test
+    @DisplayName("claimSeats: un gruppo occupa tutti i posti richiesti o nessuno")
+    void testClaimSeatsForGroup() {
+        // GIVEN: partita con 1 giocatore
+        Match match = createMatch("Group", MatchStatus.WAITING);
+        entityManager.persist(match);
+        entityManager.flush();
+        Long id = match.getId();
+        matchRepository.claimSeat(id, Match.MAX_PLAYERS);
+
+        // WHEN: gruppo da 4 → non c'è spazio per tutti
+        assertThat(matchRepository.claimSeats(id, 4, Match.MAX_PLAYERS)).isZero();
+        assertThat(matchRepository.findActivePlayersById(id)).contains(1);
+
+        // WHEN: gruppo da 3 → riempie la partita
+        assertThat(matchRepository.claimSeats(id, 3, Match.MAX_PLAYERS)).isEqualTo(1);
+        assertThat(matchRepository.findActivePlayersById(id)).contains(Match.MAX_PLAYERS);
+    }
+
+    @Test
+    @DisplayName("recountActivePlayers: ricalcola il contatore contando solo le iscrizioni JOINED")
+    void testRecountActivePlayers() {
+        // GIVEN: 1 JOINED + 1 CANCELLED inserite direttamente
+        User u1 = createUser("r1");
+        User u2 = createUser("r2");
+        Match match = createMatch("Recount", MatchStatus.WAITING);
+        entityManager.persist(match);
+        createRegistration(u1, match);
+        Registration cancelled = new Registration();
+        cancelled.setUser(u2);
+        cancelled.setMatch(match);
+        cancelled.setStatus(RegistrationStatus.CANCELLED);
+        entityManager.persist(cancelled);
+        entityManager.flush();
+
+        // WHEN
+        matchRepository.recountActivePlayers();
+
+        // THEN
+        assertThat(matchRepository.findActivePlayersById(match.getId())).contains(1);
+    }
+
     // Helpers
+    private User createUser(String username) {
+        User u = new User();
+        u.setUsername(username); u.setEmail(username + "@test.com"); u.setPassword("pwd");
+        u.setFirstName("F"); u.setLastName("L"); u.setDeclaredLevel(Level.INTERMEDIO);
+        entityManager.persist(u);
+        return u;
+    }
+
     private Match createMatch(String location, MatchStatus status) {
         Match m = new Match();
         m.setLocation(location);
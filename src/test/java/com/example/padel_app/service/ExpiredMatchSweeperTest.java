@@ -0,0 +1,94 @@
+package com.example.padel_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per ExpiredMatchSweeper (MatchService mock, SimpleMeterRegistry reale)
+ *
+ * VERIFICA:
+ * - blocchi richiesti finché l'ultimo non è pieno
+ * - durata dello sweep e partite marcate FINISHED registrate come metriche
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExpiredMatchSweeper Unit Tests")
+class ExpiredMatchSweeperTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    private MatchService matchService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredMatchSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new ExpiredMatchSweeper(matchService, meterRegistry, CHUNK_SIZE);
+    }
+
+    @Test
+    @DisplayName("sweep - should process chunks until one is not full")
+    void sweep_shouldProcessChunksUntilPartial() {
+        // Arrange: 2 + 2 + 1 partite scadute
+        when(matchService.markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE)))
+            .thenReturn(chunk(2, 2), chunk(2, 2), chunk(1, 1));
+
+        // Act
+        int total = sweeper.sweep();
+
+        // Assert
+        assertThat(total).isEqualTo(5);
+        verify(matchService, times(3)).markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE));
+        assertThat(meterRegistry.get("padel.matches.expiry.sweep").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("padel.matches.expiry.finished").counter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("sweep - should stop after one query when nothing expired")
+    void sweep_shouldStop_whenNothingExpired() {
+        // Arrange
+        when(matchService.markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE))).thenReturn(chunk(0, 0));
+
+        // Act
+        int total = sweeper.sweep();
+
+        // Assert: stesso cutoff per tutti i blocchi, nessuna partita
+        assertThat(total).isZero();
+        verify(matchService, times(1)).markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE));
+        assertThat(meterRegistry.get("padel.matches.expiry.sweep").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("sweep - should count only matches finished by the sweep, loop on selected ones")
+    void sweep_shouldCountFinishedNotSelected() {
+        // Arrange: blocco pieno ma una partita già terminata da finishMatch, poi blocco vuoto
+        when(matchService.markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE)))
+            .thenReturn(chunk(2, 1), chunk(0, 0));
+
+        // Act
+        int total = sweeper.sweep();
+
+        // Assert
+        assertThat(total).isEqualTo(1);
+        verify(matchService, times(2)).markExpiredMatchesAsFinished(any(LocalDateTime.class), eq(CHUNK_SIZE));
+        assertThat(meterRegistry.get("padel.matches.expiry.finished").counter().count()).isEqualTo(1.0);
+    }
+
+    private static MatchService.ExpiredChunk chunk(int selected, int finished) {
+        return new MatchService.ExpiredChunk(selected, finished);
+    }
+}
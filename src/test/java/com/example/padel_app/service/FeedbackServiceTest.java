@@ -1,10 +1,12 @@
 package com.example.padel_app.service;
 
+import com.example.padel_app.event.FeedbackTotalsChangedEvent;
 import com.example.padel_app.model.Feedback;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.repository.FeedbackRepository;
+import com.example.padel_app.repository.FeedbackStats;
 import com.example.padel_app.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,25 +15,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Test completo per FeedbackService
  *
  * BUSINESS LOGIC TESTATA:
- * - Creazione feedback con validazione unicità
+ * - Creazione feedback con validazione unicità (singolo e per tutti i compagni insieme)
  * - Calcolo perceived level (media aritmetica feedback)
  * - Query feedback per author/target/match
+ * - Totali feedback su User (somma ordinal + conteggio): incremento, eliminazione, backfill
  * - Edge cases: nessun feedback, user non trovato, duplicati
  *
  * ALGORITMO PERCEIVED LEVEL:
@@ -49,6 +58,15 @@ class FeedbackServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Leaderboard leaderboard;
+
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private FeedbackService feedbackService;
 
@@ -97,9 +115,6 @@ class FeedbackServiceTest {
         when(feedbackRepository.findByAuthorAndTargetUserAndMatch(alice, bob, testMatch))
             .thenReturn(Optional.empty());
         when(feedbackRepository.save(any(Feedback.class))).thenReturn(testFeedback);
-        when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Arrays.asList(testFeedback));
-        when(userRepository.save(bob)).thenReturn(bob);
 
         // Act
         Feedback result = feedbackService.createFeedback(
@@ -109,7 +124,12 @@ class FeedbackServiceTest {
         // Assert
         assertThat(result).isNotNull();
         verify(feedbackRepository).save(any(Feedback.class));
-        verify(userRepository).save(bob); // updatePerceivedLevel chiamato
+        verify(userRepository).adjustFeedbackTotals(bob.getId(), Level.INTERMEDIO.ordinal(), 1);
+        // Ricalcolo del livello rimandato a PerceivedLevelUpdater (dopo il commit)
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) ->
+            event instanceof FeedbackTotalsChangedEvent changed && changed.getUserId().equals(bob.getId())));
+        verify(userRepository, never()).save(any());
+        verify(feedbackRepository, never()).findByTargetUser(any()); // nessuna rilettura dei feedback
     }
 
     @Test
@@ -129,6 +149,67 @@ class FeedbackServiceTest {
         verify(feedbackRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("createFeedbacks - should check once, insert in batch and notify each target")
+    void createFeedbacks_shouldCreateAllRatingsAtOnce() {
+        // Arrange: Alice valuta Bob e Carla nello stesso invio
+        User carla = new User();
+        carla.setId(3L);
+        carla.setUsername("carla");
+        List<FeedbackService.Rating> ratings = List.of(
+            new FeedbackService.Rating(bob, Level.INTERMEDIO, "Buon giocatore"),
+            new FeedbackService.Rating(carla, Level.AVANZATO, ""));
+        when(feedbackRepository.findRatedTargetIds(eq(alice), eq(testMatch), anyCollection()))
+            .thenReturn(List.of());
+        when(feedbackRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Feedback> result = feedbackService.createFeedbacks(alice, testMatch, ratings);
+
+        // Assert
+        assertThat(result).extracting(Feedback::getTargetUser).containsExactly(bob, carla);
+        verify(feedbackRepository).findRatedTargetIds(eq(alice), eq(testMatch),
+            argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(2L, 3L))));
+        verify(feedbackRepository).saveAll(anyList());
+        verify(feedbackRepository, never()).save(any());
+        verify(feedbackRepository, never()).findByAuthorAndTargetUserAndMatch(any(), any(), any());
+        verify(userRepository).adjustFeedbackTotals(bob.getId(), Level.INTERMEDIO.ordinal(), 1);
+        verify(userRepository).adjustFeedbackTotals(carla.getId(), Level.AVANZATO.ordinal(), 1);
+        verify(eventPublisher, times(2)).publishEvent(any(FeedbackTotalsChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("createFeedbacks - should save nothing when a player was already rated")
+    void createFeedbacks_shouldThrowException_whenAnyAlreadyExists() {
+        // Arrange: Bob già valutato da Alice in questa partita
+        when(feedbackRepository.findRatedTargetIds(eq(alice), eq(testMatch), anyCollection()))
+            .thenReturn(List.of(bob.getId()));
+        List<FeedbackService.Rating> ratings = List.of(new FeedbackService.Rating(bob, Level.AVANZATO, ""));
+
+        // Act & Assert
+        assertThatThrownBy(() -> feedbackService.createFeedbacks(alice, testMatch, ratings))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("already exists");
+
+        verify(feedbackRepository, never()).saveAll(any());
+        verifyNoInteractions(userRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("createFeedbacks - should reject the same player rated twice")
+    void createFeedbacks_shouldRejectDuplicateTargets() {
+        // Arrange
+        List<FeedbackService.Rating> ratings = List.of(
+            new FeedbackService.Rating(bob, Level.INTERMEDIO, ""),
+            new FeedbackService.Rating(bob, Level.AVANZATO, ""));
+
+        // Act & Assert
+        assertThatThrownBy(() -> feedbackService.createFeedbacks(alice, testMatch, ratings))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(feedbackRepository);
+    }
+
     // ==================== UPDATE PERCEIVED LEVEL ====================
 
     @Test
@@ -138,7 +219,7 @@ class FeedbackServiceTest {
         Feedback feedback1 = createFeedback(alice, bob, testMatch, Level.AVANZATO);
 
         when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Arrays.asList(feedback1));
+        stubTotals(feedback1);
         when(userRepository.save(bob)).thenReturn(bob);
 
         // Act
@@ -162,7 +243,7 @@ class FeedbackServiceTest {
         Feedback f3 = createFeedback(alice, bob, match3, Level.INTERMEDIO);
 
         when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Arrays.asList(f1, f2, f3));
+        stubTotals(f1, f2, f3);
         when(userRepository.save(bob)).thenReturn(bob);
 
         // Act
@@ -181,7 +262,7 @@ class FeedbackServiceTest {
         Feedback f2 = createFeedback(alice, bob, testMatch, Level.PROFESSIONISTA);
 
         when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Arrays.asList(f1, f2));
+        stubTotals(f1, f2);
         when(userRepository.save(bob)).thenReturn(bob);
 
         // Act
@@ -197,7 +278,7 @@ class FeedbackServiceTest {
         // Arrange
         Level originalLevel = bob.getPerceivedLevel();
         when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Collections.emptyList());
+        stubTotals();
 
         // Act
         feedbackService.updatePerceivedLevel(bob.getId());
@@ -216,7 +297,7 @@ class FeedbackServiceTest {
         // Act & Assert: no exception thrown
         feedbackService.updatePerceivedLevel(999L);
 
-        verify(feedbackRepository, never()).findByTargetUser(any());
+        verify(userRepository, never()).findFeedbackTotalsById(any());
         verify(userRepository, never()).save(any());
     }
 
@@ -228,7 +309,7 @@ class FeedbackServiceTest {
         Feedback f2 = createFeedback(alice, bob, testMatch, Level.PRINCIPIANTE);
 
         when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
-        when(feedbackRepository.findByTargetUser(bob)).thenReturn(Arrays.asList(f1, f2));
+        stubTotals(f1, f2);
         when(userRepository.save(bob)).thenReturn(bob);
 
         // Act
@@ -238,8 +319,130 @@ class FeedbackServiceTest {
         assertThat(bob.getPerceivedLevel()).isEqualTo(Level.PRINCIPIANTE);
     }
 
+    // ==================== FEEDBACK TOTALS ====================
+
+    @Test
+    @DisplayName("deleteFeedback - should subtract the feedback from target totals")
+    void deleteFeedback_shouldSubtractFromTotals() {
+        // Act
+        feedbackService.deleteFeedback(testFeedback);
+
+        // Assert
+        verify(feedbackRepository).delete(testFeedback);
+        verify(userRepository).adjustFeedbackTotals(bob.getId(), -Level.INTERMEDIO.ordinal(), -1);
+        verify(eventPublisher).publishEvent(any(FeedbackTotalsChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("removeFeedbacksOfMatch - should subtract match feedbacks per target")
+    void removeFeedbacksOfMatch_shouldSubtractPerTarget() {
+        // Arrange: nella partita Bob ha ricevuto INTERMEDIO + AVANZATO (somma 3)
+        when(feedbackRepository.sumReceivedLevelsByMatch(testMatch.getId()))
+            .thenReturn(List.of(receivedLevels(bob.getId(), 3, 2)));
+
+        // Act
+        feedbackService.removeFeedbacksOfMatch(testMatch.getId());
+
+        // Assert
+        verify(userRepository).adjustFeedbackTotals(bob.getId(), -3L, -2);
+        verify(eventPublisher).publishEvent(any(FeedbackTotalsChangedEvent.class));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("backfillFeedbackTotals - should reset and rebuild totals from existing feedbacks")
+    void backfillFeedbackTotals_shouldRebuildTotals() {
+        // Arrange: Bob ha 3 feedback con somma 5 → media 1.67 → AVANZATO
+        when(feedbackRepository.sumReceivedLevelsByUser()).thenReturn(List.of(receivedLevels(bob.getId(), 5, 3)));
+        when(userRepository.findById(bob.getId())).thenReturn(Optional.of(bob));
+        stubTotals(createFeedback(alice, bob, testMatch, Level.INTERMEDIO),
+                   createFeedback(alice, bob, testMatch, Level.AVANZATO),
+                   createFeedback(alice, bob, testMatch, Level.AVANZATO));
+
+        // Act
+        int users = feedbackService.backfillFeedbackTotals();
+
+        // Assert
+        assertThat(users).isEqualTo(1);
+        var inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).resetFeedbackTotals();
+        inOrder.verify(userRepository).adjustFeedbackTotals(bob.getId(), 5L, 3);
+        assertThat(bob.getPerceivedLevel()).isEqualTo(Level.AVANZATO);
+        assertThat(bob.getFeedbackSum()).isEqualTo(5);
+        assertThat(bob.getFeedbackCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("applyPerceivedLevels - should issue one update per level in the chunk")
+    void applyPerceivedLevels_shouldGroupUsersByLevel() {
+        // Arrange: Alice 1/1 → INTERMEDIO, Bob 3/2 = 1.5 → AVANZATO, utente 3: 2/2 → INTERMEDIO
+        when(userRepository.updatePerceivedLevels(any(), any()))
+            .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // Act
+        int updated = feedbackService.applyPerceivedLevels(List.of(
+            receivedLevels(alice.getId(), 1, 1), receivedLevels(bob.getId(), 3, 2), receivedLevels(3L, 2, 2)));
+
+        // Assert
+        assertThat(updated).isEqualTo(3);
+        verify(userRepository).updatePerceivedLevels(List.of(alice.getId(), 3L), Level.INTERMEDIO);
+        verify(userRepository).updatePerceivedLevels(List.of(bob.getId()), Level.AVANZATO);
+        verify(leaderboard).updateLevels(List.of(alice.getId(), 3L), Level.INTERMEDIO);
+        verify(userRepository, never()).findById(any());
+        verifyNoInteractions(feedbackRepository);
+    }
+
+    @Test
+    @DisplayName("refreshPerceivedLevels - should read totals of all queued users in one query")
+    void refreshPerceivedLevels_shouldApplyLevelsFromTotals() {
+        // Arrange: Bob 5/3 = 1.67 → AVANZATO
+        when(userRepository.findReceivedLevelsByIdIn(List.of(alice.getId(), bob.getId())))
+            .thenReturn(List.of(receivedLevels(bob.getId(), 5, 3)));
+        when(userRepository.updatePerceivedLevels(List.of(bob.getId()), Level.AVANZATO)).thenReturn(1);
+
+        // Act
+        int updated = feedbackService.refreshPerceivedLevels(List.of(alice.getId(), bob.getId()));
+
+        // Assert
+        assertThat(updated).isEqualTo(1);
+        verify(userRepository, never()).findById(any());
+    }
+
     // ==================== QUERY METHODS ====================
 
+    @Test
+    @DisplayName("getReceivedStats - should build histogram, total and average from grouped counts")
+    void getReceivedStats_shouldAggregateGroupedCounts() {
+        // Arrange: 2 INTERMEDIO (2) + 1 PROFESSIONISTA (4) → media (2+2+4)/3 = 2.67
+        when(feedbackRepository.countReceivedByLevel(bob)).thenReturn(List.of(
+            levelCount(Level.INTERMEDIO, 2), levelCount(Level.PROFESSIONISTA, 1)));
+
+        // Act
+        FeedbackStats stats = feedbackService.getReceivedStats(bob);
+
+        // Assert
+        assertThat(stats.getTotal()).isEqualTo(3);
+        assertThat(stats.getCount(Level.PRINCIPIANTE)).isZero();
+        assertThat(stats.getCount(Level.INTERMEDIO)).isEqualTo(2);
+        assertThat(stats.getCount(Level.PROFESSIONISTA)).isEqualTo(1);
+        assertThat(stats.getAverageLevel()).isCloseTo(8.0 / 3, within(0.001));
+        verify(feedbackRepository, never()).findByTargetUser(any());
+    }
+
+    @Test
+    @DisplayName("getReceivedStats - should be empty without feedbacks")
+    void getReceivedStats_shouldBeEmpty_whenNoFeedbacks() {
+        // Arrange
+        when(feedbackRepository.countReceivedByLevel(bob)).thenReturn(List.of());
+
+        // Act
+        FeedbackStats stats = feedbackService.getReceivedStats(bob);
+
+        // Assert
+        assertThat(stats.isEmpty()).isTrue();
+        assertThat(stats.getAverageLevel()).isNull();
+    }
+
     @Test
     @DisplayName("getFeedbacksByTargetUser - should return all feedbacks received")
     void getFeedbacksByTargetUser_shouldReturnAllReceived() {
@@ -334,6 +537,33 @@ class FeedbackServiceTest {
 
     // ==================== HELPER METHODS ====================
 
+    /**
+     * Totali di Bob nel DB come li avrebbe accumulati adjustFeedbackTotals con questi feedback
+     */
+    private void stubTotals(Feedback... feedbacks) {
+        long sum = Arrays.stream(feedbacks).mapToLong(f -> f.getSuggestedLevel().ordinal()).sum();
+        when(userRepository.findFeedbackTotalsById(bob.getId())).thenReturn(Optional.of(
+            new UserRepository.FeedbackTotals() {
+                public long getFeedbackSum() { return sum; }
+                public int getFeedbackCount() { return feedbacks.length; }
+            }));
+    }
+
+    private FeedbackRepository.LevelCount levelCount(Level level, long feedbacks) {
+        return new FeedbackRepository.LevelCount() {
+            public Level getLevel() { return level; }
+            public long getFeedbacks() { return feedbacks; }
+        };
+    }
+
+    private FeedbackRepository.ReceivedLevels receivedLevels(Long userId, long levelSum, long count) {
+        return new FeedbackRepository.ReceivedLevels() {
+            public Long getUserId() { return userId; }
+            public long getLevelSum() { return levelSum; }
+            public long getFeedbacks() { return count; }
+        };
+    }
+
     /**
      * Helper per creare feedback con livello specifico
      */
@@ -0,0 +1,87 @@
+package com.example.padel_app.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unit per HierarchicalTimingWheel (nessun contesto Spring, tempo simulato)
+ *
+ * VERIFICA:
+ * - ogni elemento scatta nel tick che contiene la sua scadenza, anche dopo la cascata dai livelli alti
+ * - cancel rimuove l'elemento prima che scatti
+ * - scadenze oltre l'orizzonte della ruota vengono recuperate
+ */
+@DisplayName("HierarchicalTimingWheel Unit Tests")
+class HierarchicalTimingWheelTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long START = 1_000 * MINUTE;
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(START, MINUTE, 60, 24, 366);
+
+    @Test
+    @DisplayName("advance - elements fire in their tick across all levels")
+    void advance_shouldFireEachElementInItsTick() {
+        // Arrange: livello 0 (5 min), livello 1 (3 ore), livello 2 (2 giorni)
+        wheel.add(START + 5 * MINUTE, "5m");
+        wheel.add(START + 180 * MINUTE + 30_000, "3h");
+        wheel.add(START + 2 * 1440 * MINUTE, "2d");
+
+        // Act: un minuto alla volta, registrando il minuto in cui scatta ciascuno
+        List<String> fired = new ArrayList<>();
+        List<Long> firedAt = new ArrayList<>();
+        for (long minute = 1; minute <= 3 * 1440; minute++) {
+            for (String payload : wheel.advance(START + minute * MINUTE)) {
+                fired.add(payload);
+                firedAt.add(minute);
+            }
+        }
+
+        // Assert
+        assertThat(fired).containsExactly("5m", "3h", "2d");
+        assertThat(firedAt).containsExactly(5L, 180L, 2L * 1440);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("cancel - removed element never fires")
+    void cancel_shouldRemoveElement() {
+        // Arrange
+        var kept = wheel.add(START + 90 * MINUTE, "kept");
+        var cancelled = wheel.add(START + 90 * MINUTE, "cancelled");
+
+        // Act
+        boolean removed = wheel.cancel(cancelled);
+        List<String> fired = wheel.advance(START + 120 * MINUTE);
+
+        // Assert
+        assertThat(removed).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        assertThat(fired).containsExactly("kept");
+        assertThat(kept.isPending()).isFalse();
+    }
+
+    @Test
+    @DisplayName("add - past deadlines are rejected, far deadlines wait beyond the horizon")
+    void add_shouldHandlePastAndFarDeadlines() {
+        // Arrange
+        long farAway = START + 400L * 1440 * MINUTE;
+
+        // Act
+        var past = wheel.add(START - MINUTE, "past");
+        wheel.add(farAway, "far");
+        List<String> early = wheel.advance(farAway - MINUTE);
+        List<String> onTime = wheel.advance(farAway);
+
+        // Assert
+        assertThat(past).isNull();
+        assertThat(early).isEmpty();
+        assertThat(onTime).containsExactly("far");
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.padel_app.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unit per IdempotencyCache (orologio simulato)
+ *
+ * VERIFICA:
+ * - la ripetizione riceve l'esito della prima richiesta
+ * - abort libera la chiave, le voci scadono dopo il TTL
+ * - mai più di max-entries voci
+ */
+@DisplayName("IdempotencyCache Unit Tests")
+class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final IdempotencyCache cache = new IdempotencyCache(Duration.ofMinutes(10), 3, now::get);
+
+    @Test
+    @DisplayName("begin - repeated key returns the outcome of the first request")
+    void begin_shouldReturnFirstOutcome_forRepeatedKey() {
+        // Arrange
+        assertThat(cache.begin("k1")).isNull();
+        IdempotencyCache.Outcome outcome = new IdempotencyCache.Outcome("/", Map.of("success", "Iscritto!"));
+
+        // Act
+        CompletableFuture<IdempotencyCache.Outcome> pending = cache.begin("k1");
+        cache.complete("k1", outcome);
+
+        // Assert: anche la ripetizione arrivata prima del complete riceve l'esito
+        assertThat(pending).isCompletedWithValue(outcome);
+        assertThat(cache.begin("k1")).isCompletedWithValue(outcome);
+    }
+
+    @Test
+    @DisplayName("abort - key can be used again and waiters get no outcome")
+    void abort_shouldReleaseKey() {
+        // Arrange
+        cache.begin("k1");
+        CompletableFuture<IdempotencyCache.Outcome> waiter = cache.begin("k1");
+
+        // Act
+        cache.abort("k1");
+
+        // Assert
+        assertThat(waiter).isCompletedWithValue(null);
+        assertThat(cache.begin("k1")).isNull();
+    }
+
+    @Test
+    @DisplayName("begin - entries expire after the TTL and the cache stays bounded")
+    void begin_shouldExpireAndEvictEntries() {
+        // Arrange
+        cache.begin("old");
+        cache.complete("old", new IdempotencyCache.Outcome("/", Map.of()));
+
+        // Act: 10 minuti dopo la voce è scaduta
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        CompletableFuture<IdempotencyCache.Outcome> afterTtl = cache.begin("old");
+        for (int i = 0; i < 5; i++) {
+            cache.begin("k" + i);
+        }
+
+        // Assert
+        assertThat(afterTtl).isNull();
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.begin("k4")).isNotNull();
+    }
+}
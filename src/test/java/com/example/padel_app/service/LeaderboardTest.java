@@ -0,0 +1,124 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchFinishedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per Leaderboard (UserRepository mock, nessuna transazione → aggiornamenti immediati)
+ *
+ * VERIFICA:
+ * - ordinamento matchesPlayed DESC, perceivedLevel DESC (null in fondo), id ASC
+ * - pagine con posizione e una sola query per gli utenti della pagina
+ * - MatchFinishedEvent e updateLevels spostano gli utenti senza ricostruire la classifica
+ * - rankOf aggiunge gli utenti non ancora in classifica
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Leaderboard Unit Tests")
+class LeaderboardTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private Leaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new Leaderboard(userRepository);
+        // alice 5 partite, bob 5 partite ma livello più alto, carla 2 partite senza feedback
+        when(userRepository.findLeaderboardRows()).thenReturn(List.of(
+            row(1L, 5, Level.INTERMEDIO), row(2L, 5, Level.AVANZATO), row(3L, 2, null)));
+        leaderboard.rebuild();
+    }
+
+    @Test
+    @DisplayName("page - should list users in rank order with their positions")
+    void page_shouldReturnStandingsInRankOrder() {
+        // Arrange
+        when(userRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(user(1L), user(2L)));
+        when(userRepository.findAllById(List.of(3L))).thenReturn(List.of(user(3L)));
+
+        // Act
+        List<Leaderboard.Standing> first = leaderboard.page(0, 2);
+        List<Leaderboard.Standing> second = leaderboard.page(1, 2);
+
+        // Assert: bob (5, AVANZATO) > alice (5, INTERMEDIO) > carla (2)
+        assertThat(first).extracting(Leaderboard.Standing::getRank).containsExactly(1, 2);
+        assertThat(first).extracting(standing -> standing.getUser().getId()).containsExactly(2L, 1L);
+        assertThat(second).extracting(Leaderboard.Standing::getRank).containsExactly(3);
+        assertThat(leaderboard.page(2, 2)).isEmpty();
+        assertThat(leaderboard.rankOf(1L)).isEqualTo(2);
+        verify(userRepository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("onMatchFinished - should move participants with their new counters")
+    void onMatchFinished_shouldMoveParticipants() {
+        // Arrange: carla e alice hanno giocato, carla passa a 6 partite
+        Match match = new Match();
+        match.setId(10L);
+        when(userRepository.findLeaderboardRowsByMatch(10L)).thenReturn(List.of(
+            row(3L, 6, null), row(1L, 6, Level.INTERMEDIO)));
+
+        // Act
+        leaderboard.onMatchFinished(new MatchFinishedEvent(this, match));
+
+        // Assert: alice (6, INTERMEDIO) > carla (6, nessun livello) > bob (5)
+        assertThat(leaderboard.rankOf(1L)).isEqualTo(1);
+        assertThat(leaderboard.rankOf(3L)).isEqualTo(2);
+        assertThat(leaderboard.rankOf(2L)).isEqualTo(3);
+        assertThat(leaderboard.size()).isEqualTo(3);
+        verify(userRepository, times(1)).findLeaderboardRows();
+    }
+
+    @Test
+    @DisplayName("rankOf/updateLevels - new users are added on demand, levels move users")
+    void rankOf_shouldAddMissingUser_andUpdateLevelsShouldReorder() {
+        // Arrange: dave registrato dopo il rebuild
+        when(userRepository.findLeaderboardRowsByIdIn(List.of(4L))).thenReturn(List.of(row(4L, 0, null)));
+
+        // Act
+        int daveRank = leaderboard.rankOf(4L);
+        leaderboard.updateLevels(List.of(1L), Level.PROFESSIONISTA);
+
+        // Assert
+        assertThat(daveRank).isEqualTo(4);
+        assertThat(leaderboard.rankOf(1L)).isEqualTo(1);
+        assertThat(leaderboard.rankOf(2L)).isEqualTo(2);
+        verify(userRepository, times(1)).findLeaderboardRowsByIdIn(any());
+    }
+
+    private UserRepository.LeaderboardRow row(Long userId, int matchesPlayed, Level level) {
+        return new UserRepository.LeaderboardRow() {
+            @Override
+            public Long getUserId() { return userId; }
+
+            @Override
+            public Integer getMatchesPlayed() { return matchesPlayed; }
+
+            @Override
+            public Level getPerceivedLevel() { return level; }
+        };
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchConfirmedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.Registration;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per MatchReminderScheduler (repository e NotificationService mock, nessuna transazione)
+ *
+ * VERIFICA:
+ * - MatchConfirmedEvent programma i promemoria (2 ore e 30 minuti prima) per ogni iscritto
+ * - caricamento all'avvio dalle partite confermate future
+ * - cancel / cancelMatch rimuovono i promemoria prima che scattino
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatchReminderScheduler Unit Tests")
+class MatchReminderSchedulerTest {
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @Mock
+    private RegistrationRepository registrationRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private MatchReminderScheduler scheduler;
+    private Match match;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new MatchReminderScheduler(matchRepository, registrationRepository, notificationService,
+                                               List.of(Duration.ofHours(2), Duration.ofMinutes(30)));
+
+        match = new Match();
+        match.setId(1L);
+        match.setLocation("Campo Centrale");
+        match.setStatus(MatchStatus.CONFIRMED);
+        match.setDateTime(LocalDateTime.now().plusHours(5).truncatedTo(ChronoUnit.MINUTES));
+
+        alice = newUser(10L, "alice");
+        bob = newUser(11L, "bob");
+    }
+
+    @Test
+    @DisplayName("onMatchConfirmed - should send both reminders to every player")
+    void onMatchConfirmed_shouldScheduleRemindersForPlayers() {
+        // Arrange
+        when(registrationRepository.findByMatchAndStatus(match, RegistrationStatus.JOINED))
+            .thenReturn(List.of(joined(alice), joined(bob)));
+
+        // Act
+        scheduler.onMatchConfirmed(new MatchConfirmedEvent(this, match));
+        int beforeFirst = scheduler.tick(match.getDateTime().minusHours(2).minusMinutes(1));
+        int atFirst = scheduler.tick(match.getDateTime().minusHours(2));
+        int atSecond = scheduler.tick(match.getDateTime().minusMinutes(30));
+
+        // Assert
+        assertThat(beforeFirst).isZero();
+        assertThat(atFirst).isEqualTo(2);
+        assertThat(atSecond).isEqualTo(2);
+        verify(notificationService).sendMatchReminderNotification(
+            "alice", "Campo Centrale", match.getDateTime(), Duration.ofHours(2));
+        verify(notificationService).sendMatchReminderNotification(
+            "bob", "Campo Centrale", match.getDateTime(), Duration.ofMinutes(30));
+        assertThat(scheduler.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("load - should schedule reminders for upcoming confirmed matches")
+    void load_shouldScheduleUpcomingConfirmedMatches() {
+        // Arrange
+        when(matchRepository.findByStatusAndDateTimeAfter(eq(MatchStatus.CONFIRMED), any(LocalDateTime.class)))
+            .thenReturn(List.of(match));
+        when(registrationRepository.findByMatchInAndStatus(List.of(match), RegistrationStatus.JOINED))
+            .thenReturn(List.of(joined(alice)));
+
+        // Act
+        scheduler.load();
+
+        // Assert
+        assertThat(scheduler.pendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("cancel - player who left gets no reminders")
+    void cancel_shouldRemovePlayerReminders() {
+        // Arrange
+        when(registrationRepository.findByMatchAndStatus(match, RegistrationStatus.JOINED))
+            .thenReturn(List.of(joined(alice), joined(bob)));
+        scheduler.onMatchConfirmed(new MatchConfirmedEvent(this, match));
+
+        // Act
+        scheduler.cancel(match.getId(), alice.getId());
+        scheduler.tick(match.getDateTime());
+
+        // Assert
+        verify(notificationService, never()).sendMatchReminderNotification(eq("alice"), anyString(), any(), any());
+        verify(notificationService, times(2)).sendMatchReminderNotification(eq("bob"), anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("cancelMatch - deleted match sends no reminders")
+    void cancelMatch_shouldRemoveAllReminders() {
+        // Arrange
+        when(registrationRepository.findByMatchAndStatus(match, RegistrationStatus.JOINED))
+            .thenReturn(List.of(joined(alice), joined(bob)));
+        scheduler.onMatchConfirmed(new MatchConfirmedEvent(this, match));
+
+        // Act
+        scheduler.cancelMatch(match.getId());
+        int sent = scheduler.tick(match.getDateTime());
+
+        // Assert
+        assertThat(sent).isZero();
+        assertThat(scheduler.pendingCount()).isZero();
+        verifyNoInteractions(notificationService);
+    }
+
+    private Registration joined(User user) {
+        Registration registration = new Registration();
+        registration.setUser(user);
+        registration.setMatch(match);
+        registration.setStatus(RegistrationStatus.JOINED);
+        return registration;
+    }
+
+    private User newUser(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
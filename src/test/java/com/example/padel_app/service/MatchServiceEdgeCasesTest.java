@@ -181,6 +181,36 @@ public class MatchServiceEdgeCasesTest {
         assertThat(fromDb.getStatus()).isEqualTo(MatchStatus.FINISHED);
     }
     
+    @Test
+    @DisplayName("Partite scadute: solo le CONFIRMED passate, a blocchi di dimensione massima")
+    void testMarkExpiredMatchesAsFinished_InChunks() {
+        // GIVEN: 3 CONFIRMED scadute, 1 CONFIRMED futura, 1 WAITING scaduta
+        User creator = createUser("sweeper", "sweeper@test.com");
+        Match expired1 = createAndSaveMatch(creator, "Scaduta 1", LocalDateTime.now().minusHours(3), MatchStatus.CONFIRMED);
+        Match expired2 = createAndSaveMatch(creator, "Scaduta 2", LocalDateTime.now().minusHours(2), MatchStatus.CONFIRMED);
+        Match expired3 = createAndSaveMatch(creator, "Scaduta 3", LocalDateTime.now().minusHours(1), MatchStatus.CONFIRMED);
+        Match future = createAndSaveMatch(creator, "Futura", LocalDateTime.now().plusDays(1), MatchStatus.CONFIRMED);
+        Match waiting = createAndSaveMatch(creator, "Mai confermata", LocalDateTime.now().minusHours(1), MatchStatus.WAITING);
+        LocalDateTime cutoff = LocalDateTime.now();
+        
+        // WHEN: blocchi da 2
+        MatchService.ExpiredChunk firstChunk = matchService.markExpiredMatchesAsFinished(cutoff, 2);
+        MatchService.ExpiredChunk secondChunk = matchService.markExpiredMatchesAsFinished(cutoff, 2);
+        MatchService.ExpiredChunk thirdChunk = matchService.markExpiredMatchesAsFinished(cutoff, 2);
+        
+        // THEN: 2 + 1, poi nulla da fare
+        assertThat(firstChunk.getSelected()).isEqualTo(2);
+        assertThat(firstChunk.getFinished()).isEqualTo(2);
+        assertThat(secondChunk.getSelected()).isEqualTo(1);
+        assertThat(secondChunk.getFinished()).isEqualTo(1);
+        assertThat(thirdChunk.getSelected()).isZero();
+        for (Match match : List.of(expired1, expired2, expired3)) {
+            assertThat(matchRepository.findById(match.getId()).orElseThrow().getStatus()).isEqualTo(MatchStatus.FINISHED);
+        }
+        assertThat(matchRepository.findById(future.getId()).orElseThrow().getStatus()).isEqualTo(MatchStatus.CONFIRMED);
+        assertThat(matchRepository.findById(waiting.getId()).orElseThrow().getStatus()).isEqualTo(MatchStatus.WAITING);
+    }
+    
     // ==================== FILTRI EDGE CASES ====================
     
     @Test
@@ -5,8 +5,8 @@ import com.example.padel_app.event.MatchFinishedEvent;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
-import com.example.padel_app.model.enums.RegistrationStatus;
 import com.example.padel_app.repository.MatchRepository;
 import com.example.padel_app.repository.RegistrationRepository;
 import com.example.padel_app.repository.UserRepository;
@@ -15,15 +15,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -58,6 +64,18 @@ class MatchServiceUnitTest {
     @Mock
     private Map<String, MatchSortingStrategy> sortingStrategies;
 
+    @Mock
+    private MatchReminderScheduler reminderScheduler;
+
+    @Mock
+    private FeedbackService feedbackService;
+
+    @Mock
+    private Matchmaker matchmaker;
+
+    @Mock
+    private SeatLedger seatLedger;
+
     @InjectMocks
     private MatchService matchService;
 
@@ -95,7 +113,7 @@ class MatchServiceUnitTest {
     @DisplayName("checkAndConfirmMatch: deve confermare match e pubblicare evento se 4 giocatori")
     void testCheckAndConfirmMatch_With4Players() {
         // GIVEN
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(4);
+        testMatch.setActivePlayers(4);
         when(matchRepository.save(any(Match.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // WHEN
@@ -111,7 +129,7 @@ class MatchServiceUnitTest {
     @DisplayName("checkAndConfirmMatch: NON deve confermare se meno di 4 giocatori")
     void testCheckAndConfirmMatch_WithLessThan4Players() {
         // GIVEN
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(3);
+        testMatch.setActivePlayers(3);
 
         // WHEN
         Match result = matchService.checkAndConfirmMatch(testMatch);
@@ -131,15 +149,8 @@ class MatchServiceUnitTest {
         // Mock finding the match
         when(matchRepository.findById(100L)).thenReturn(Optional.of(testMatch));
         when(matchRepository.save(any(Match.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        
-        // Mock active registrations (players)
-        User player2 = new User(); player2.setId(2L); player2.setMatchesPlayed(5);
-        Registration reg = new Registration();
-        reg.setUser(player2);
-        reg.setStatus(RegistrationStatus.JOINED);
-        
-        when(registrationRepository.findByMatchAndStatus(testMatch, RegistrationStatus.JOINED))
-            .thenReturn(Collections.singletonList(reg));
+        // Creator + 1 giocatore JOINED aggiornati nel DB
+        when(userRepository.incrementMatchesPlayedForMatch(100L)).thenReturn(2);
 
         // WHEN
         Match result = matchService.finishMatch(100L);
@@ -147,17 +158,49 @@ class MatchServiceUnitTest {
         // THEN
         assertEquals(MatchStatus.FINISHED, result.getStatus());
         
-        // Verify creator stats updated
-        assertEquals(1, testUser.getMatchesPlayed());
-        // Verify player stats updated
-        assertEquals(6, player2.getMatchesPlayed());
-        
-        verify(userRepository, times(1)).saveAll(anyList());
+        // Contatori aggiornati con UN update bulk, senza caricare registrations né utenti
+        verify(userRepository, times(1)).incrementMatchesPlayedForMatch(100L);
+        verify(userRepository, never()).saveAll(anyList());
+        verifyNoInteractions(registrationRepository);
         verify(eventPublisher, times(1)).publishEvent(any(MatchFinishedEvent.class));
     }
 
     @Test
-    @DisplayName("getMatchesOrderedBy: deve delegare alla strategia corretta")
+    @DisplayName("markExpiredMatchesAsFinished: eventi e conteggio solo per le partite aggiornate da questo blocco")
+    void testMarkExpiredMatchesAsFinished_SkipsMatchesFinishedConcurrently() {
+        // GIVEN: 2 partite scadute selezionate, la 101 terminata nel frattempo da finishMatch
+        testMatch.setStatus(MatchStatus.CONFIRMED);
+        List<Long> selected = List.of(100L, 101L);
+        when(matchRepository.findIdsByStatusAndDateTimeBefore(eq(MatchStatus.CONFIRMED), any(LocalDateTime.class), any()))
+            .thenReturn(selected);
+        when(matchRepository.lockByIdInAndStatus(selected, MatchStatus.CONFIRMED)).thenReturn(List.of(testMatch));
+        when(matchRepository.updateStatus(List.of(100L), MatchStatus.CONFIRMED, MatchStatus.FINISHED)).thenReturn(1);
+        when(matchRepository.findAllById(List.of(100L))).thenReturn(List.of(testMatch));
+
+        // WHEN
+        MatchService.ExpiredChunk chunk = matchService.markExpiredMatchesAsFinished(LocalDateTime.now(), 2);
+
+        // THEN
+        assertEquals(2, chunk.getSelected());
+        assertEquals(1, chunk.getFinished());
+        verify(eventPublisher, times(1)).publishEvent(any(MatchFinishedEvent.class));
+    }
+
+    @Test
+    @DisplayName("deleteMatch: deve rimuovere la partita anche da promemoria, Matchmaker e SeatLedger")
+    void testDeleteMatch_ClearsInMemoryState() {
+        // WHEN
+        matchService.deleteMatch(100L);
+
+        // THEN
+        verify(matchRepository, times(1)).deleteById(100L);
+        verify(reminderScheduler, times(1)).cancelMatch(100L);
+        verify(matchmaker, times(1)).removeMatch(100L);
+        verify(seatLedger, times(1)).forget(100L);
+    }
+
+    @Test
+    @DisplayName("getMatchesOrderedBy: deve usare il Sort della strategia corretta nel repository")
     void testGetMatchesOrderedBy_DelegatesToStrategy() {
         // GIVEN
         String strategyName = "date";
@@ -166,15 +209,51 @@ class MatchServiceUnitTest {
         
         when(sortingStrategies.get(strategyKey)).thenReturn(mockStrategy);
         when(mockStrategy.getStrategyName()).thenReturn("Date Sorting");
-        when(matchRepository.findAllWithCreator()).thenReturn(Collections.singletonList(testMatch));
-        when(mockStrategy.sort(anyList())).thenReturn(Collections.singletonList(testMatch));
+        when(mockStrategy.getSort()).thenReturn(Sort.by("dateTime"));
+        when(matchRepository.findAll(ArgumentMatchers.<Specification<Match>>any(), eq(Sort.by("dateTime", "id"))))
+            .thenReturn(Collections.singletonList(testMatch));
 
         // WHEN
         List<Match> result = matchService.getMatchesOrderedBy(strategyName);
 
         // THEN
-        assertNotNull(result);
+        assertEquals(List.of(testMatch), result);
         verify(sortingStrategies, times(1)).get(strategyKey);
-        verify(mockStrategy, times(1)).sort(anyList());
+        verify(mockStrategy, never()).sort(anyList());
+    }
+
+    @Test
+    @DisplayName("createPairedMatches: partite CONFIRMED e registrations salvate in blocco, un evento per partita")
+    void testCreatePairedMatches_SavesInBatch() {
+        // GIVEN
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        List<PairingEngine.Candidate> candidates = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            candidates.add(new PairingEngine.Candidate(id, Level.INTERMEDIO, slot));
+            User user = new User();
+            user.setId(id);
+            user.setUsername("player" + id);
+            users.add(user);
+        }
+        List<PairingEngine.Foursome> foursomes = new PairingEngine().pair(candidates);
+        when(userRepository.findAllById(anyList())).thenReturn(users);
+        when(matchRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        List<Match> result = matchService.createPairedMatches(foursomes, "Campo 1").getCreated();
+
+        // THEN
+        assertEquals(2, result.size());
+        for (Match match : result) {
+            assertEquals(MatchStatus.CONFIRMED, match.getStatus());
+            assertEquals(4, match.getActivePlayers());
+            assertEquals(slot, match.getDateTime());
+            assertEquals("Campo 1", match.getLocation());
+        }
+        verify(userRepository, times(1)).findAllById(anyList());
+        verify(matchRepository, times(1)).saveAll(anyList());
+        verify(registrationRepository, times(1)).saveAll(argThat((List<Registration> registrations) -> registrations.size() == 8));
+        verify(eventPublisher, times(2)).publishEvent(any(MatchConfirmedEvent.class));
     }
 }
@@ -0,0 +1,137 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.MatchConfirmedEvent;
+import com.example.padel_app.event.MatchSeatsChangedEvent;
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.model.enums.MatchStatus;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per Matchmaker (repository mock, nessuna transazione → aggiornamenti immediati)
+ *
+ * VERIFICA:
+ * - ordine dei consigli: distanza di livello, poi posti liberi, poi data
+ * - join / leave / conferma spostano o rimuovono la partita senza query sulla tabella matches
+ * - partite già iniziate ed esclusioni (partite dove il giocatore è iscritto)
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Matchmaker Unit Tests")
+class MatchmakerTest {
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @Mock
+    private RegistrationRepository registrationRepository;
+
+    private Matchmaker matchmaker;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        matchmaker = new Matchmaker(matchRepository, registrationRepository);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @Test
+    @DisplayName("select - same level first, then fewer free seats, then earlier start")
+    void select_shouldOrderByLevelDistanceSeatsAndDate() {
+        // Arrange
+        open(1L, Level.INTERMEDIO, 3, 5);      // stesso livello, 3 posti liberi
+        open(2L, Level.INTERMEDIO, 1, 48);     // stesso livello, manca 1 giocatore (più tardi)
+        open(3L, Level.INTERMEDIO, 1, 24);     // stesso livello, manca 1 giocatore
+        open(4L, Level.AVANZATO, 1, 2);        // livello vicino
+        open(5L, Level.PROFESSIONISTA, 1, 1);  // livello lontano
+
+        // Act
+        List<Long> top4 = matchmaker.select(Level.INTERMEDIO, 4, Set.of(), now);
+
+        // Assert
+        assertThat(top4).containsExactly(3L, 2L, 1L, 4L);
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    @DisplayName("events - join moves a match, confirmation removes it")
+    void events_shouldUpdateBucketsIncrementally() {
+        // Arrange
+        Match match = open(1L, Level.INTERMEDIO, 3, 5);
+        open(2L, Level.INTERMEDIO, 2, 1);
+
+        // Act: due giocatori si iscrivono alla partita 1 → 1 posto libero
+        match.setActivePlayers(3);
+        matchmaker.onSeatsChanged(new MatchSeatsChangedEvent(this, match));
+        List<Long> afterJoin = matchmaker.select(Level.INTERMEDIO, 2, Set.of(), now);
+
+        // Act: quarto giocatore, partita confermata
+        match.setActivePlayers(4);
+        match.setStatus(MatchStatus.CONFIRMED);
+        matchmaker.onMatchConfirmed(new MatchConfirmedEvent(this, match));
+        List<Long> afterConfirm = matchmaker.select(Level.INTERMEDIO, 2, Set.of(), now);
+
+        // Assert
+        assertThat(afterJoin).containsExactly(1L, 2L);
+        assertThat(afterConfirm).containsExactly(2L);
+        assertThat(matchmaker.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("recommend - skips started and already joined matches, loads only the results")
+    void recommend_shouldSkipStartedAndJoinedMatches() {
+        // Arrange: partita 1 già iniziata, partita 2 dove Bob è iscritto
+        Match started = open(1L, Level.AVANZATO, 1, 1);
+        started.setDateTime(LocalDateTime.now().minusMinutes(10));
+        matchmaker.onSeatsChanged(new MatchSeatsChangedEvent(this, started));
+        open(2L, Level.AVANZATO, 1, 2);
+        Match suggested = open(3L, Level.AVANZATO, 2, 3);
+
+        User bob = new User();
+        bob.setId(7L);
+        bob.setDeclaredLevel(Level.INTERMEDIO);
+        bob.setPerceivedLevel(Level.AVANZATO);
+        when(registrationRepository.findOpenMatchIdsOf(bob)).thenReturn(List.of(2L));
+        when(matchRepository.findAllById(List.of(3L))).thenReturn(List.of(suggested));
+
+        // Act
+        List<Match> result = matchmaker.recommend(bob, 3);
+
+        // Assert
+        assertThat(result).containsExactly(suggested);
+        assertThat(matchmaker.size()).isEqualTo(2);
+        verify(matchRepository, never()).findByStatusAndDateTimeAfter(any(), any());
+        verify(matchRepository).findAllById(eq(List.of(3L)));
+    }
+
+    /**
+     * Partita WAITING aggiunta ai bucket tramite l'evento di join
+     */
+    private Match open(Long id, Level level, int freeSeats, int hoursFromNow) {
+        Match match = new Match();
+        match.setId(id);
+        match.setRequiredLevel(level);
+        match.setStatus(MatchStatus.WAITING);
+        match.setDateTime(now.plusHours(hoursFromNow));
+        match.setActivePlayers(Match.MAX_PLAYERS - freeSeats);
+        matchmaker.onSeatsChanged(new MatchSeatsChangedEvent(this, match));
+        return match;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.padel_app.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test unit per OrderStatisticTree (nessun contesto Spring, priorità con seed fisso)
+ *
+ * VERIFICA:
+ * - rank, get e range coincidono con una lista ordinata dopo inserimenti e rimozioni casuali
+ * - duplicati rifiutati, rimozione di elementi assenti senza effetti
+ * - range ai bordi (fine lista, indici fuori intervallo)
+ */
+@DisplayName("OrderStatisticTree Unit Tests")
+class OrderStatisticTreeTest {
+
+    private final OrderStatisticTree<Integer> tree =
+        new OrderStatisticTree<>(Comparator.reverseOrder(), new Random(42));
+
+    @Test
+    @DisplayName("rank/get/range - match a sorted list after random updates")
+    void operations_shouldMatchSortedList() {
+        // Arrange: stesse operazioni su albero e TreeSet di riferimento
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>(Comparator.reverseOrder());
+        for (int i = 0; i < 2_000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertThat(tree.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(tree.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(expected);
+
+        // Act & Assert
+        assertThat(tree.size()).isEqualTo(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(tree.get(i)).isEqualTo(sorted.get(i));
+            assertThat(tree.rank(sorted.get(i))).isEqualTo(i);
+        }
+        assertThat(tree.range(0, sorted.size())).isEqualTo(sorted);
+        assertThat(tree.range(37, 20)).isEqualTo(sorted.subList(37, 57));
+    }
+
+    @Test
+    @DisplayName("add/remove - duplicates rejected, missing elements ignored")
+    void addRemove_shouldHandleDuplicatesAndMissing() {
+        // Act
+        boolean first = tree.add(10);
+        boolean duplicate = tree.add(10);
+        boolean missing = tree.remove(99);
+
+        // Assert
+        assertThat(first).isTrue();
+        assertThat(duplicate).isFalse();
+        assertThat(missing).isFalse();
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.rank(99)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("range - clipped at the end, empty outside bounds")
+    void range_shouldClipAtBounds() {
+        // Arrange: ordine decrescente → [5, 4, 3, 2, 1]
+        for (int value = 1; value <= 5; value++) {
+            tree.add(value);
+        }
+
+        // Act & Assert
+        assertThat(tree.range(3, 10)).containsExactly(2, 1);
+        assertThat(tree.range(5, 10)).isEmpty();
+        assertThat(tree.range(-1, 2)).isEmpty();
+        assertThatThrownBy(() -> tree.get(5)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.enums.Level;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark di PairingEngine su code da 1k a 1M giocatori
+ *
+ * Escluso dalla build normale; per eseguirlo:
+ * <pre>
+ * mvn test -Dtest=PairingEngineBenchmark -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ *
+ * Per ogni dimensione: giocatori con livello e fascia oraria casuali (seed fisso, 48 fasce),
+ * 3 giri di riscaldamento del JIT e poi il migliore di 5 giri misurati.
+ * Stampa tempo, quartetti formati e giocatori rimasti in coda.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("PairingEngine Benchmark")
+class PairingEngineBenchmark {
+
+    private static final int[] POOL_SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int SLOTS = 48;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private final PairingEngine engine = new PairingEngine();
+
+    @Test
+    @DisplayName("pair - 1k to 1M queued players")
+    void pair_scalesLinearly() {
+        long bestAt100k = 0;
+        for (int size : POOL_SIZES) {
+            List<PairingEngine.Candidate> candidates = randomPool(size);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                engine.pair(candidates);
+            }
+            long best = Long.MAX_VALUE;
+            int foursomes = 0;
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long start = System.nanoTime();
+                foursomes = engine.pair(candidates).size();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%,10d giocatori: %8.2f ms, %,d quartetti, %,d in coda%n",
+                              size, best / 1e6, foursomes, size - foursomes * 4);
+            if (size == 100_000) {
+                bestAt100k = best;
+            }
+        }
+
+        // Obiettivo: 100k giocatori in coda abbinati ben sotto il secondo
+        assertThat(bestAt100k).isLessThan(1_000_000_000L);
+    }
+
+    private static List<PairingEngine.Candidate> randomPool(int size) {
+        Random random = new Random(42);
+        Level[] levels = Level.values();
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        List<PairingEngine.Candidate> candidates = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            candidates.add(new PairingEngine.Candidate(id, levels[random.nextInt(levels.length)],
+                                                       base.plusHours(random.nextInt(SLOTS))));
+        }
+        return candidates;
+    }
+}
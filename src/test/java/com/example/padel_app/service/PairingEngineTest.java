@@ -0,0 +1,97 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.enums.Level;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unit per PairingEngine (classe pura, nessun mock)
+ *
+ * VERIFICA:
+ * - squadre equilibrate: (più debole + più forte) contro (i due centrali)
+ * - differenza di livello massima nel quartetto, giocatori non abbinabili lasciati in coda
+ * - quartetti solo tra giocatori della stessa fascia oraria
+ */
+@DisplayName("PairingEngine Unit Tests")
+class PairingEngineTest {
+
+    private final PairingEngine engine = new PairingEngine();
+    private final LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    @Test
+    @DisplayName("pair - weakest and strongest play together against the two middle players")
+    void pair_shouldBalanceTeams() {
+        // Arrange
+        List<PairingEngine.Candidate> candidates = List.of(
+            candidate(1L, Level.AVANZATO, tomorrow),
+            candidate(2L, Level.INTERMEDIO, tomorrow),
+            candidate(3L, Level.AVANZATO, tomorrow),
+            candidate(4L, Level.INTERMEDIO, tomorrow));
+
+        // Act
+        List<PairingEngine.Foursome> foursomes = engine.pair(candidates);
+
+        // Assert
+        assertThat(foursomes).hasSize(1);
+        PairingEngine.Foursome foursome = foursomes.get(0);
+        assertThat(ids(foursome.getTeamA())).containsExactly(2L, 3L);
+        assertThat(ids(foursome.getTeamB())).containsExactly(4L, 1L);
+        assertThat(foursome.getSlot()).isEqualTo(tomorrow);
+        assertThat(foursome.getLevel()).isEqualTo(Level.AVANZATO);  // media 1.5 arrotondata
+    }
+
+    @Test
+    @DisplayName("pair - players too far from the others stay unmatched")
+    void pair_shouldRespectMaxLevelSpread() {
+        // Arrange: il principiante non ha tre compagni entro un livello
+        List<PairingEngine.Candidate> candidates = List.of(
+            candidate(1L, Level.PRINCIPIANTE, tomorrow),
+            candidate(2L, Level.AVANZATO, tomorrow),
+            candidate(3L, Level.PROFESSIONISTA, tomorrow),
+            candidate(4L, Level.AVANZATO, tomorrow),
+            candidate(5L, Level.PROFESSIONISTA, tomorrow));
+
+        // Act
+        List<PairingEngine.Foursome> foursomes = engine.pair(candidates);
+
+        // Assert
+        assertThat(foursomes).hasSize(1);
+        assertThat(ids(foursomes.get(0).getPlayers())).containsExactlyInAnyOrder(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("pair - only players of the same time slot are grouped, longest waiting first")
+    void pair_shouldGroupBySlot() {
+        // Arrange
+        LocalDateTime later = tomorrow.plusHours(2);
+        List<PairingEngine.Candidate> candidates = List.of(
+            candidate(1L, Level.INTERMEDIO, tomorrow),
+            candidate(2L, Level.INTERMEDIO, later),
+            candidate(3L, Level.INTERMEDIO, tomorrow),
+            candidate(4L, Level.INTERMEDIO, later),
+            candidate(5L, Level.INTERMEDIO, tomorrow),
+            candidate(6L, Level.INTERMEDIO, tomorrow),
+            candidate(7L, Level.INTERMEDIO, tomorrow));
+
+        // Act
+        List<PairingEngine.Foursome> foursomes = engine.pair(candidates);
+
+        // Assert: 5 giocatori alle "tomorrow" → un quartetto, il 7 (ultimo arrivato) aspetta; 2 soli alle "later"
+        assertThat(foursomes).hasSize(1);
+        assertThat(ids(foursomes.get(0).getPlayers())).containsExactlyInAnyOrder(1L, 3L, 5L, 6L);
+    }
+
+    private static PairingEngine.Candidate candidate(long userId, Level level, LocalDateTime slot) {
+        return new PairingEngine.Candidate(userId, level, slot);
+    }
+
+    private static List<Long> ids(List<PairingEngine.Candidate> players) {
+        return players.stream().map(PairingEngine.Candidate::getUserId).toList();
+    }
+}
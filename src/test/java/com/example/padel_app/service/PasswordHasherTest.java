@@ -0,0 +1,83 @@
+package com.example.padel_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per PasswordHasher (PasswordEncoder mock, registry Micrometer in memoria)
+ *
+ * VERIFICA:
+ * - delega a PasswordEncoder e registra la durata per operazione
+ * - coda piena → BusyException immediata, contata nelle metriche
+ */
+@DisplayName("PasswordHasher Unit Tests")
+class PasswordHasherTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHasher hasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    @DisplayName("matches / encode - delegate to the encoder and record the hash latency")
+    void matchesAndEncode_shouldDelegateAndRecordLatency() {
+        // Arrange
+        when(passwordEncoder.matches("secret", "$2a$hash")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("$2a$new");
+
+        // Act
+        boolean matches = hasher.matches("secret", "$2a$hash");
+        String encoded = hasher.encode("secret");
+
+        // Assert
+        assertThat(matches).isTrue();
+        assertThat(encoded).isEqualTo("$2a$new");
+        assertThat(meterRegistry.get("padel.auth.password-hash").tag("operation", "matches").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("padel.auth.password-hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("matches - full queue is rejected at once with BusyException")
+    void matches_shouldRejectWhenQueueIsFull() throws Exception {
+        // Arrange: 1 thread occupato + 1 richiesta in coda
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> hasher.matches("a", "$2a$a"));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hasher.matches("b", "$2a$b"));
+        while (hasher.queueSize() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> hasher.matches("c", "$2a$c")).isInstanceOf(PasswordHasher.BusyException.class);
+        assertThat(meterRegistry.get("padel.auth.password-hash.queue").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("padel.auth.password-hash.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
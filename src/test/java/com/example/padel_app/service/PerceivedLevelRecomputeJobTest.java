@@ -0,0 +1,99 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.repository.FeedbackRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per PerceivedLevelRecomputeJob (repository e FeedbackService mock, SimpleMeterRegistry reale)
+ *
+ * VERIFICA:
+ * - una sola query aggregata, poi blocchi di chunk-size utenti elaborati in parallelo
+ * - un blocco fallito non ferma gli altri
+ * - durata e utenti aggiornati registrati come metriche
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PerceivedLevelRecomputeJob Unit Tests")
+class PerceivedLevelRecomputeJobTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    private FeedbackRepository feedbackRepository;
+
+    @Mock
+    private FeedbackService feedbackService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PerceivedLevelRecomputeJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new PerceivedLevelRecomputeJob(feedbackRepository, feedbackService, meterRegistry, CHUNK_SIZE, 2);
+    }
+
+    @Test
+    @DisplayName("recompute - should apply levels in chunks after one aggregate query")
+    void recompute_shouldProcessAllChunks() {
+        // Arrange: 5 utenti → blocchi 2 + 2 + 1
+        when(feedbackRepository.sumReceivedLevelsByUser()).thenReturn(rows(5));
+        when(feedbackService.applyPerceivedLevels(any()))
+            .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        // Act
+        int updated = job.recompute();
+
+        // Assert
+        assertThat(updated).isEqualTo(5);
+        verify(feedbackRepository, times(1)).sumReceivedLevelsByUser();
+        verify(feedbackService, times(2)).applyPerceivedLevels(argThat(chunk -> chunk.size() == CHUNK_SIZE));
+        verify(feedbackService, times(1)).applyPerceivedLevels(argThat(chunk -> chunk.size() == 1));
+        assertThat(meterRegistry.get("padel.users.perceived-level.recompute").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("padel.users.perceived-level.updated").counter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("recompute - failed chunk should not stop the others")
+    void recompute_shouldContinue_whenChunkFails() {
+        // Arrange: il blocco con l'utente 1 fallisce
+        when(feedbackRepository.sumReceivedLevelsByUser()).thenReturn(rows(4));
+        when(feedbackService.applyPerceivedLevels(any())).thenAnswer(invocation -> {
+            List<FeedbackRepository.ReceivedLevels> chunk = invocation.getArgument(0);
+            if (chunk.get(0).getUserId() == 1L) {
+                throw new IllegalStateException("lock timeout");
+            }
+            return chunk.size();
+        });
+
+        // Act
+        int updated = job.recompute();
+
+        // Assert
+        assertThat(updated).isEqualTo(2);
+        verify(feedbackService, times(2)).applyPerceivedLevels(any());
+    }
+
+    private List<FeedbackRepository.ReceivedLevels> rows(int users) {
+        return LongStream.rangeClosed(1, users)
+            .mapToObj(userId -> (FeedbackRepository.ReceivedLevels) new FeedbackRepository.ReceivedLevels() {
+                public Long getUserId() { return userId; }
+                public long getLevelSum() { return 1; }
+                public long getFeedbacks() { return 1; }
+            })
+            .toList();
+    }
+}
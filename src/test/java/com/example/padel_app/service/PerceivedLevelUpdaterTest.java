@@ -0,0 +1,112 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.event.FeedbackTotalsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per PerceivedLevelUpdater (FeedbackService mock, orologio simulato)
+ *
+ * VERIFICA:
+ * - più feedback per lo stesso utente → un solo ricalcolo a fine raffica
+ * - un utente che continua a ricevere feedback resta in coda
+ * - errore nel ricalcolo → utenti di nuovo in coda
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PerceivedLevelUpdater Unit Tests")
+class PerceivedLevelUpdaterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+
+    @Mock
+    private FeedbackService feedbackService;
+
+    private final AtomicLong now = new AtomicLong();
+    private PerceivedLevelUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        updater = new PerceivedLevelUpdater(feedbackService, WINDOW, now::get);
+    }
+
+    @Test
+    @DisplayName("flush - burst of feedbacks recomputes each user once")
+    void flush_shouldCoalesceBurstPerUser() {
+        // Arrange: 3 feedback a Bob (2), 1 ad Alice (1) nella stessa raffica
+        changed(2L);
+        changed(1L);
+        advance(1);
+        changed(2L);
+        changed(2L);
+        when(feedbackService.refreshPerceivedLevels(any())).thenReturn(2);
+
+        // Act
+        int early = updater.flush();
+        advance(5);
+        int updated = updater.flush();
+
+        // Assert
+        assertThat(early).isZero();
+        assertThat(updated).isEqualTo(2);
+        verify(feedbackService, times(1)).refreshPerceivedLevels(
+            argThat(userIds -> userIds.size() == 2 && userIds.containsAll(List.of(1L, 2L))));
+        assertThat(updater.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("flush - user still receiving feedbacks waits for a quiet window")
+    void flush_shouldWaitForQuietWindow() {
+        // Arrange
+        changed(1L);
+        changed(2L);
+        advance(4);
+        changed(2L);
+        advance(1);
+        when(feedbackService.refreshPerceivedLevels(any())).thenReturn(1);
+
+        // Act
+        updater.flush();
+
+        // Assert: Alice ricalcolata, Bob ancora in coda
+        verify(feedbackService).refreshPerceivedLevels(List.of(1L));
+        assertThat(updater.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("flush - failed recompute keeps users queued")
+    void flush_shouldRequeue_whenRefreshFails() {
+        // Arrange
+        changed(1L);
+        advance(5);
+        when(feedbackService.refreshPerceivedLevels(any())).thenThrow(new IllegalStateException("db down"));
+
+        // Act
+        int updated = updater.flush();
+
+        // Assert
+        assertThat(updated).isZero();
+        assertThat(updater.pendingCount()).isEqualTo(1);
+    }
+
+    private void changed(Long userId) {
+        updater.onFeedbackTotalsChanged(new FeedbackTotalsChangedEvent(this, userId));
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per PlayerPool (MatchService mock)
+ *
+ * VERIFICA:
+ * - i giocatori abbinati escono dalla coda, gli altri restano
+ * - un blocco fallito rimette in coda i suoi giocatori
+ * - i giocatori di un quartetto saltato (utente non più esistente) tornano in coda
+ * - richieste per fasce passate rifiutate, richieste scadute scartate
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PlayerPool Unit Tests")
+class PlayerPoolTest {
+
+    private static final String LOCATION = "Campo da assegnare";
+
+    @Mock
+    private MatchService matchService;
+
+    private PlayerPool pool;
+    private LocalDateTime tomorrow;
+
+    @BeforeEach
+    void setUp() {
+        pool = new PlayerPool(matchService, LOCATION, 1);
+        tomorrow = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Test
+    @DisplayName("pairAndCreate - matched players leave the pool, the others wait")
+    void pairAndCreate_shouldRemoveMatchedPlayers() {
+        // Arrange
+        for (long id = 1; id <= 5; id++) {
+            pool.join(user(id, Level.INTERMEDIO), tomorrow.plusMinutes(30));
+        }
+        when(matchService.createPairedMatches(anyList(), eq(LOCATION))).thenReturn(created(1));
+
+        // Act
+        int created = pool.pairAndCreate(LocalDateTime.now());
+
+        // Assert
+        assertThat(created).isEqualTo(1);
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(pool.queuedSlot(5L)).isEqualTo(tomorrow);
+        assertThat(pool.queuedSlot(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("pairAndCreate - a failed chunk puts its players back, other chunks are created")
+    void pairAndCreate_shouldRequeueFailedChunk() {
+        // Arrange: 8 giocatori → 2 quartetti, blocchi da 1 quartetto
+        for (long id = 1; id <= 8; id++) {
+            pool.join(user(id, Level.AVANZATO), tomorrow);
+        }
+        when(matchService.createPairedMatches(anyList(), eq(LOCATION)))
+            .thenThrow(new IllegalStateException("DB down"))
+            .thenReturn(created(1));
+
+        // Act
+        int created = pool.pairAndCreate(LocalDateTime.now());
+
+        // Assert
+        assertThat(created).isEqualTo(1);
+        assertThat(pool.size()).isEqualTo(4);
+        verify(matchService, times(2)).createPairedMatches(anyList(), eq(LOCATION));
+    }
+
+    @Test
+    @DisplayName("pairAndCreate - survivors of a skipped foursome go back to the pool")
+    void pairAndCreate_shouldRequeueSkippedFoursomeSurvivors() {
+        // Arrange: il giocatore 4 non esiste più, il quartetto viene saltato
+        for (long id = 1; id <= 4; id++) {
+            pool.join(user(id, Level.INTERMEDIO), tomorrow);
+        }
+        when(matchService.createPairedMatches(anyList(), eq(LOCATION))).thenAnswer(invocation -> {
+            List<PairingEngine.Foursome> chunk = invocation.getArgument(0);
+            List<PairingEngine.Candidate> survivors = chunk.get(0).getPlayers().stream()
+                .filter(player -> player.getUserId() != 4L)
+                .toList();
+            return new MatchService.PairedMatches(List.of(), survivors);
+        });
+
+        // Act
+        int created = pool.pairAndCreate(LocalDateTime.now());
+
+        // Assert
+        assertThat(created).isZero();
+        assertThat(pool.size()).isEqualTo(3);
+        assertThat(pool.queuedSlot(1L)).isEqualTo(tomorrow);
+        assertThat(pool.queuedSlot(4L)).isNull();
+    }
+
+    @Test
+    @DisplayName("join / pairAndCreate - past slots are rejected, expired requests dropped")
+    void join_shouldRejectPastSlotsAndDropExpired() {
+        // Arrange
+        pool.join(user(1L, Level.INTERMEDIO), tomorrow);
+
+        // Act & Assert
+        assertThatThrownBy(() -> pool.join(user(2L, Level.INTERMEDIO), LocalDateTime.now().minusHours(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(pool.pairAndCreate(tomorrow.plusMinutes(1))).isZero();
+        assertThat(pool.size()).isZero();
+        verifyNoInteractions(matchService);
+    }
+
+    private static MatchService.PairedMatches created(int matches) {
+        List<Match> created = new ArrayList<>();
+        for (int i = 0; i < matches; i++) {
+            created.add(new Match());
+        }
+        return new MatchService.PairedMatches(created, List.of());
+    }
+
+    private static User user(long id, Level level) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("player" + id);
+        user.setDeclaredLevel(level);
+        return user;
+    }
+}
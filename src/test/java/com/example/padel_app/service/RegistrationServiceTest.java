@@ -1,20 +1,25 @@
 package com.example.padel_app.service;
 
+import com.example.padel_app.event.PlayerPromotedEvent;
 import com.example.padel_app.model.Match;
 import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.User;
 import com.example.padel_app.model.enums.Level;
 import com.example.padel_app.model.enums.MatchStatus;
 import com.example.padel_app.model.enums.RegistrationStatus;
+import com.example.padel_app.repository.MatchRepository;
 import com.example.padel_app.repository.RegistrationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +40,8 @@ import static org.mockito.Mockito.*;
  * - Query registrazioni per user/match/status
  * - Contatori attivi vs totali
  * - Riuso registration CANCELLED (fix unique constraint)
+ * - Lista d'attesa: iscrizione in coda e promozione FIFO in leaveMatch
+ * - Iscrizione di gruppo: tutti o nessuno, un solo checkAndConfirmMatch
  *
  * PATTERN UTILIZZATI:
  * - AAA (Arrange-Act-Assert)
@@ -48,9 +55,21 @@ class RegistrationServiceTest {
     @Mock
     private RegistrationRepository registrationRepository;
 
+    @Mock
+    private MatchRepository matchRepository;
+
     @Mock
     private MatchService matchService;
 
+    @Mock
+    private SeatLedger seatLedger;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MatchReminderScheduler reminderScheduler;
+
     @InjectMocks
     private RegistrationService registrationService;
 
@@ -163,17 +182,17 @@ class RegistrationServiceTest {
     }
 
     @Test
-    @DisplayName("getActiveRegistrationsCount - should count only JOINED registrations")
-    void getActiveRegistrationsCount_shouldCountOnlyJoined() {
+    @DisplayName("getActiveRegistrationsCount - should read the activePlayers counter")
+    void getActiveRegistrationsCount_shouldReadCounter() {
         // Arrange
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(3);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
 
         // Act
         int count = registrationService.getActiveRegistrationsCount(testMatch);
 
         // Assert
         assertThat(count).isEqualTo(3);
-        verify(registrationRepository).countActiveRegistrationsByMatch(testMatch);
+        verify(registrationRepository, never()).countActiveRegistrationsByMatch(any());
     }
 
     @Test
@@ -196,11 +215,12 @@ class RegistrationServiceTest {
     @DisplayName("joinMatch - should create new registration successfully")
     void joinMatch_shouldCreateNewRegistration_whenValid() {
         // Arrange
+        when(seatLedger.tryReserve(testMatch.getId())).thenReturn(true);
         when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
             .thenReturn(false);
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(2);
-        when(registrationRepository.findByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.CANCELLED))
-            .thenReturn(Optional.empty());
+        when(matchRepository.claimSeat(testMatch.getId(), Match.MAX_PLAYERS)).thenReturn(1);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
         when(registrationRepository.save(any(Registration.class))).thenReturn(testRegistration);
         when(matchService.checkAndConfirmMatch(testMatch)).thenReturn(testMatch);
 
@@ -210,6 +230,8 @@ class RegistrationServiceTest {
         // Assert
         assertThat(result).isNotNull();
         verify(registrationRepository).save(any(Registration.class));
+        verify(matchRepository).claimSeat(testMatch.getId(), Match.MAX_PLAYERS);
+        assertThat(testMatch.getActivePlayers()).isEqualTo(3);
         verify(matchService).checkAndConfirmMatch(testMatch);
     }
 
@@ -217,6 +239,7 @@ class RegistrationServiceTest {
     @DisplayName("joinMatch - should reactivate CANCELLED registration")
     void joinMatch_shouldReactivateCancelled_whenExists() {
         // Arrange: utente aveva registration CANCELLED che viene riusata
+        when(seatLedger.tryReserve(testMatch.getId())).thenReturn(true);
         Registration cancelledReg = new Registration();
         cancelledReg.setUser(testUser);
         cancelledReg.setMatch(testMatch);
@@ -224,9 +247,9 @@ class RegistrationServiceTest {
 
         when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
             .thenReturn(false);
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(2);
-        when(registrationRepository.findByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.CANCELLED))
-            .thenReturn(Optional.of(cancelledReg));
+        when(matchRepository.claimSeat(testMatch.getId(), Match.MAX_PLAYERS)).thenReturn(1);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.of(cancelledReg));
         when(registrationRepository.save(cancelledReg)).thenReturn(cancelledReg);
 
         // Act
@@ -238,6 +261,32 @@ class RegistrationServiceTest {
         verify(matchService).checkAndConfirmMatch(testMatch);
     }
 
+    @Test
+    @DisplayName("joinMatch - should reuse WAITLISTED registration when a seat is free")
+    void joinMatch_shouldReuseWaitlisted_whenSeatFree() {
+        // Arrange: l'utente è rimasto in lista d'attesa ma un leave concorrente ha liberato un posto
+        when(seatLedger.tryReserve(testMatch.getId())).thenReturn(true);
+        Registration waitlistedReg = new Registration();
+        waitlistedReg.setUser(testUser);
+        waitlistedReg.setMatch(testMatch);
+        waitlistedReg.setStatus(RegistrationStatus.WAITLISTED);
+
+        when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
+            .thenReturn(false);
+        when(matchRepository.claimSeat(testMatch.getId(), Match.MAX_PLAYERS)).thenReturn(1);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(4));
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.of(waitlistedReg));
+        when(registrationRepository.save(waitlistedReg)).thenReturn(waitlistedReg);
+
+        // Act
+        Registration result = registrationService.joinMatch(testUser, testMatch);
+
+        // Assert: stessa riga riattivata, nessuna seconda registration (vincolo unique)
+        assertThat(result).isSameAs(waitlistedReg);
+        assertThat(result.getStatus()).isEqualTo(RegistrationStatus.JOINED);
+        verify(registrationRepository, times(1)).save(any(Registration.class));
+    }
+
     // ==================== JOIN MATCH - VALIDATION FAILURES ====================
 
     @Test
@@ -253,15 +302,32 @@ class RegistrationServiceTest {
             .hasMessageContaining("already registered");
 
         verify(registrationRepository, never()).save(any());
+        verify(seatLedger, never()).tryReserve(any());
+    }
+
+    @Test
+    @DisplayName("joinMatch - already registered user re-posting on a full match is told so, not 'full'")
+    void joinMatch_shouldReportAlreadyRegistered_whenMatchFull() {
+        // Arrange: il ledger direbbe "piena", ma il check duplicati viene prima
+        when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
+            .thenReturn(true);
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinMatch(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("already registered");
+
+        verifyNoInteractions(seatLedger, matchRepository);
     }
 
     @Test
     @DisplayName("joinMatch - should throw exception when match is full")
     void joinMatch_shouldThrowException_whenMatchFull() {
         // Arrange
+        when(seatLedger.tryReserve(testMatch.getId())).thenReturn(true);
         when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
             .thenReturn(false);
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(4);
+        when(matchRepository.claimSeat(testMatch.getId(), Match.MAX_PLAYERS)).thenReturn(0);
 
         // Act & Assert
         assertThatThrownBy(() -> registrationService.joinMatch(testUser, testMatch))
@@ -269,6 +335,79 @@ class RegistrationServiceTest {
             .hasMessageContaining("full");
 
         verify(registrationRepository, never()).save(any());
+        verify(matchService, never()).checkAndConfirmMatch(any());
+        verify(seatLedger).reload(testMatch.getId());
+    }
+
+    @Test
+    @DisplayName("joinMatch - should reject full match from the seat ledger without claiming a seat")
+    void joinMatch_shouldRejectWithoutDb_whenLedgerFull() {
+        // Arrange
+        when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
+            .thenReturn(false);
+        when(seatLedger.tryReserve(testMatch.getId())).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinMatch(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("full");
+
+        // Solo il check duplicati: nessun claim, nessuna scrittura
+        verify(registrationRepository, never()).save(any());
+        verifyNoInteractions(matchRepository, matchService);
+    }
+
+    // ==================== SEAT HOLD ====================
+
+    @Test
+    @DisplayName("joinMatch - should use the seat held by the user instead of a new reservation")
+    void joinMatch_shouldUseHeldSeat() {
+        // Arrange
+        when(seatLedger.claimHold(testMatch.getId(), testUser.getId())).thenReturn(true);
+        when(matchRepository.claimSeat(testMatch.getId(), Match.MAX_PLAYERS)).thenReturn(1);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(4));
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
+        when(registrationRepository.save(any(Registration.class))).thenReturn(testRegistration);
+        when(matchService.checkAndConfirmMatch(testMatch)).thenReturn(testMatch);
+
+        // Act
+        registrationService.joinMatch(testUser, testMatch);
+
+        // Assert
+        verify(seatLedger, never()).tryReserve(any());
+        verify(matchRepository).claimSeat(testMatch.getId(), Match.MAX_PLAYERS);
+    }
+
+    @Test
+    @DisplayName("holdSeat - should hold a seat in the ledger and return its expiry")
+    void holdSeat_shouldHoldSeat_whenAvailable() {
+        // Arrange
+        when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
+            .thenReturn(false);
+        when(seatLedger.hold(testMatch.getId(), testUser.getId())).thenReturn(true);
+        when(seatLedger.getHoldTtl()).thenReturn(Duration.ofMinutes(2));
+
+        // Act
+        LocalDateTime expiresAt = registrationService.holdSeat(testUser, testMatch);
+
+        // Assert: nessuna scrittura nel DB
+        assertThat(expiresAt).isBetween(LocalDateTime.now().plusMinutes(1), LocalDateTime.now().plusMinutes(2));
+        verify(registrationRepository, never()).save(any());
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    @DisplayName("holdSeat - should reject when the match is full")
+    void holdSeat_shouldThrowException_whenMatchFull() {
+        // Arrange
+        when(registrationRepository.existsByUserAndMatchAndStatus(testUser, testMatch, RegistrationStatus.JOINED))
+            .thenReturn(false);
+        when(seatLedger.hold(testMatch.getId(), testUser.getId())).thenReturn(false);
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.holdSeat(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("full");
     }
 
     // ==================== LEAVE MATCH ====================
@@ -289,7 +428,7 @@ class RegistrationServiceTest {
         when(registrationRepository.findByUserAndMatch(normalUser, testMatch))
             .thenReturn(Optional.of(reg));
         when(registrationRepository.save(reg)).thenReturn(reg);
-        when(registrationRepository.countActiveRegistrationsByMatch(testMatch)).thenReturn(2);
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(2));
 
         // Act
         registrationService.leaveMatch(normalUser, testMatch);
@@ -297,6 +436,10 @@ class RegistrationServiceTest {
         // Assert
         assertThat(reg.getStatus()).isEqualTo(RegistrationStatus.CANCELLED);
         verify(registrationRepository).save(reg);
+        verify(matchRepository).decrementActivePlayers(testMatch.getId());
+        assertThat(testMatch.getActivePlayers()).isEqualTo(2);
+        verify(seatLedger).release(testMatch.getId());
+        verify(reminderScheduler).cancel(testMatch.getId(), normalUser.getId());
         verify(matchService, never()).deleteMatch(any());
     }
 
@@ -343,6 +486,244 @@ class RegistrationServiceTest {
             .hasMessageContaining("already left");
     }
 
+    // ==================== GROUP JOIN ====================
+
+    @Test
+    @DisplayName("joinMatchAsGroup - should register everyone with one claim and one confirm check")
+    void joinMatchAsGroup_shouldRegisterAll_whenSeatsAvailable() {
+        // Arrange: bob aveva una registration CANCELLED, carol è nuova
+        User bob = new User();
+        bob.setId(2L);
+        bob.setUsername("bob");
+        User carol = new User();
+        carol.setId(3L);
+        carol.setUsername("carol");
+        Registration bobCancelled = new Registration();
+        bobCancelled.setUser(bob);
+        bobCancelled.setMatch(testMatch);
+        bobCancelled.setStatus(RegistrationStatus.CANCELLED);
+        List<User> group = List.of(testUser, bob, carol);
+
+        when(seatLedger.tryReserve(testMatch.getId(), 3)).thenReturn(true);
+        when(registrationRepository.findByMatchAndUserIn(testMatch, group)).thenReturn(List.of(bobCancelled));
+        when(matchRepository.claimSeats(testMatch.getId(), 3, Match.MAX_PLAYERS)).thenReturn(1);
+        when(registrationRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
+
+        // Act
+        List<Registration> result = registrationService.joinMatchAsGroup(group, testMatch);
+
+        // Assert
+        assertThat(result).hasSize(3)
+            .allMatch(r -> r.getStatus() == RegistrationStatus.JOINED);
+        assertThat(result.get(1)).isSameAs(bobCancelled);
+        assertThat(testMatch.getActivePlayers()).isEqualTo(3);
+        verify(registrationRepository).saveAll(anyList());
+        verify(matchService, times(1)).checkAndConfirmMatch(testMatch);
+    }
+
+    @Test
+    @DisplayName("joinMatchAsGroup - should reject the whole group when one member is already registered")
+    void joinMatchAsGroup_shouldRejectAll_whenOneAlreadyJoined() {
+        // Arrange
+        User bob = new User();
+        bob.setId(2L);
+        bob.setUsername("bob");
+        Registration bobJoined = new Registration();
+        bobJoined.setUser(bob);
+        bobJoined.setMatch(testMatch);
+        bobJoined.setStatus(RegistrationStatus.JOINED);
+        List<User> group = List.of(testUser, bob);
+
+        when(seatLedger.tryReserve(testMatch.getId(), 2)).thenReturn(true);
+        when(registrationRepository.findByMatchAndUserIn(testMatch, group)).thenReturn(List.of(bobJoined));
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinMatchAsGroup(group, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("bob already registered");
+        verify(matchRepository, never()).claimSeats(any(), anyInt(), anyInt());
+        verify(registrationRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("joinMatchAsGroup - should reject when there is no room for the whole group")
+    void joinMatchAsGroup_shouldRejectAll_whenNotEnoughSeats() {
+        // Arrange
+        User bob = new User();
+        bob.setId(2L);
+        List<User> group = List.of(testUser, bob);
+        when(seatLedger.tryReserve(testMatch.getId(), 2)).thenReturn(true);
+        when(registrationRepository.findByMatchAndUserIn(testMatch, group)).thenReturn(List.of());
+        when(matchRepository.claimSeats(testMatch.getId(), 2, Match.MAX_PLAYERS)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinMatchAsGroup(group, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("full");
+        verify(seatLedger).reload(testMatch.getId());
+        verify(registrationRepository, never()).saveAll(anyList());
+        verify(matchService, never()).checkAndConfirmMatch(any());
+    }
+
+    @Test
+    @DisplayName("joinMatchAsGroup - should reject invalid groups before touching the DB")
+    void joinMatchAsGroup_shouldRejectInvalidGroups() {
+        // Act & Assert: vuoto, duplicati, più di 4
+        assertThatThrownBy(() -> registrationService.joinMatchAsGroup(List.of(), testMatch))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registrationService.joinMatchAsGroup(List.of(testUser, testUser), testMatch))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("more than once");
+        assertThatThrownBy(() -> registrationService.joinMatchAsGroup(
+                List.of(testUser, new User(), new User(), new User(), new User()), testMatch))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(seatLedger, registrationRepository, matchRepository, matchService);
+    }
+
+    // ==================== WAITLIST ====================
+
+    @Test
+    @DisplayName("joinWaitlist - should queue user when match is full")
+    void joinWaitlist_shouldCreateWaitlistedRegistration_whenMatchFull() {
+        // Arrange
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(4));
+        when(registrationRepository.save(any(Registration.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        Registration result = registrationService.joinWaitlist(testUser, testMatch);
+
+        // Assert: in coda, nessun posto occupato
+        assertThat(result.getStatus()).isEqualTo(RegistrationStatus.WAITLISTED);
+        assertThat(result.getUser()).isEqualTo(testUser);
+        verify(matchRepository, never()).claimSeat(any(), anyInt());
+        verify(seatLedger, never()).tryReserve(any());
+    }
+
+    @Test
+    @DisplayName("joinWaitlist - should count held seats: 3 players + 1 hold is full")
+    void joinWaitlist_shouldQueueUser_whenLastSeatIsHeld() {
+        // Arrange
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
+        when(seatLedger.heldSeats(testMatch.getId())).thenReturn(1);
+        when(registrationRepository.save(any(Registration.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        Registration result = registrationService.joinWaitlist(testUser, testMatch);
+
+        // Assert
+        assertThat(result.getStatus()).isEqualTo(RegistrationStatus.WAITLISTED);
+    }
+
+    @Test
+    @DisplayName("joinWaitlist - should reject user holding a seat in the match")
+    void joinWaitlist_shouldThrowException_whenUserHoldsSeat() {
+        // Arrange
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
+        when(seatLedger.hasHold(testMatch.getId(), testUser.getId())).thenReturn(true);
+
+        // Act & Assert: il posto tenuto si usa con joinMatch
+        assertThatThrownBy(() -> registrationService.joinWaitlist(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("join it directly");
+        verify(registrationRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("joinWaitlist - should reject when match has free seats")
+    void joinWaitlist_shouldThrowException_whenSeatsAvailable() {
+        // Arrange
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch)).thenReturn(Optional.empty());
+        when(matchRepository.findActivePlayersById(testMatch.getId())).thenReturn(Optional.of(3));
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinWaitlist(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("free seats");
+        verify(registrationRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("joinWaitlist - should reject user already waiting")
+    void joinWaitlist_shouldThrowException_whenAlreadyWaitlisted() {
+        // Arrange
+        testRegistration.setStatus(RegistrationStatus.WAITLISTED);
+        when(registrationRepository.findByUserAndMatch(testUser, testMatch))
+            .thenReturn(Optional.of(testRegistration));
+
+        // Act & Assert
+        assertThatThrownBy(() -> registrationService.joinWaitlist(testUser, testMatch))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("already in waitlist");
+    }
+
+    @Test
+    @DisplayName("leaveMatch - should give the seat to the first waitlisted user")
+    void leaveMatch_shouldPromoteFirstWaitlisted() {
+        // Arrange: bob lascia, carol è la prima in coda
+        User bob = new User();
+        bob.setId(2L);
+        bob.setUsername("bob");
+        Registration bobReg = new Registration();
+        bobReg.setUser(bob);
+        bobReg.setMatch(testMatch);
+        bobReg.setStatus(RegistrationStatus.JOINED);
+
+        User carol = new User();
+        carol.setId(3L);
+        carol.setUsername("carol");
+        Registration carolReg = new Registration();
+        carolReg.setId(30L);
+        carolReg.setUser(carol);
+        carolReg.setMatch(testMatch);
+        carolReg.setStatus(RegistrationStatus.WAITLISTED);
+
+        when(registrationRepository.findByUserAndMatch(bob, testMatch)).thenReturn(Optional.of(bobReg));
+        when(registrationRepository.findFirstByMatchAndStatusOrderByRegisteredAtAscIdAsc(
+                testMatch, RegistrationStatus.WAITLISTED)).thenReturn(Optional.of(carolReg));
+        when(registrationRepository.promoteFromWaitlist(30L)).thenReturn(1);
+
+        // Act
+        registrationService.leaveMatch(bob, testMatch);
+
+        // Assert: posto trasferito, contatore e ledger invariati, evento pubblicato
+        assertThat(bobReg.getStatus()).isEqualTo(RegistrationStatus.CANCELLED);
+        assertThat(carolReg.getStatus()).isEqualTo(RegistrationStatus.JOINED);
+        verify(matchRepository, never()).decrementActivePlayers(any());
+        verify(seatLedger, never()).release(any());
+
+        ArgumentCaptor<PlayerPromotedEvent> event = ArgumentCaptor.forClass(PlayerPromotedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getUser()).isEqualTo(carol);
+        assertThat(event.getValue().getMatch()).isEqualTo(testMatch);
+    }
+
+    @Test
+    @DisplayName("leaveMatch - waitlisted user leaves the queue without freeing a seat")
+    void leaveMatch_waitlistedUser_shouldOnlyLeaveQueue() {
+        // Arrange
+        User dave = new User();
+        dave.setId(4L);
+        dave.setUsername("dave");
+        Registration daveReg = new Registration();
+        daveReg.setUser(dave);
+        daveReg.setMatch(testMatch);
+        daveReg.setStatus(RegistrationStatus.WAITLISTED);
+        when(registrationRepository.findByUserAndMatch(dave, testMatch)).thenReturn(Optional.of(daveReg));
+
+        // Act
+        registrationService.leaveMatch(dave, testMatch);
+
+        // Assert
+        assertThat(daveReg.getStatus()).isEqualTo(RegistrationStatus.CANCELLED);
+        verify(registrationRepository).save(daveReg);
+        verify(registrationRepository, never()).promoteFromWaitlist(any());
+        verifyNoInteractions(matchRepository, seatLedger, eventPublisher);
+    }
+
     // ==================== CRUD OPERATIONS ====================
 
     @Test
@@ -0,0 +1,267 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.Match;
+import com.example.padel_app.repository.MatchRepository;
+import com.example.padel_app.repository.RegistrationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per SeatLedger (nessun contesto Spring, nessuna transazione attiva)
+ *
+ * VERIFICA:
+ * - mai più di 4 prenotazioni per partita, anche con molti thread concorrenti
+ * - ricostruzione da RegistrationRepository e lettura lazy dal DB per partite nuove
+ * - release/reload riallineano il contatore, gli hold validi sopravvivono a reload
+ * - forget toglie partita e hold dal ledger
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SeatLedger Unit Tests")
+class SeatLedgerTest {
+
+    @Mock
+    private RegistrationRepository registrationRepository;
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @InjectMocks
+    private SeatLedger seatLedger;
+
+    @Test
+    @DisplayName("tryReserve - at most 4 seats per match under contention")
+    void tryReserve_shouldHandOutAtMostFourSeats_underContention() throws Exception {
+        // Arrange
+        when(matchRepository.findActivePlayersById(1L)).thenReturn(Optional.of(0));
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (seatLedger.tryReserve(1L)) {
+                    reserved.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Assert
+        assertThat(reserved.get()).isEqualTo(Match.MAX_PLAYERS);
+        assertThat(seatLedger.seatsTaken(1L)).isEqualTo(Match.MAX_PLAYERS);
+        assertThat(seatLedger.isFull(1L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("rebuild - should load JOINED counts and reject full matches without DB lookups")
+    void rebuild_shouldLoadCountsFromRegistrations() {
+        // Arrange
+        RegistrationRepository.ActivePlayersCount full = count(7L, 4);
+        RegistrationRepository.ActivePlayersCount half = count(8L, 2);
+        when(registrationRepository.countActivePlayersByMatch()).thenReturn(List.of(full, half));
+
+        // Act
+        seatLedger.rebuild();
+
+        // Assert
+        assertThat(seatLedger.tryReserve(7L)).isFalse();
+        assertThat(seatLedger.tryReserve(8L)).isTrue();
+        assertThat(seatLedger.seatsTaken(8L)).isEqualTo(3);
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    @DisplayName("release / reload - should free a seat and re-read the DB counter")
+    void releaseAndReload_shouldRealignCounter() {
+        // Arrange
+        when(matchRepository.findActivePlayersById(5L)).thenReturn(Optional.of(4), Optional.of(1));
+
+        // Act & Assert: piena, poi un giocatore esce
+        assertThat(seatLedger.tryReserve(5L)).isFalse();
+        seatLedger.release(5L);
+        assertThat(seatLedger.seatsTaken(5L)).isEqualTo(3);
+
+        // Act & Assert: reload rilegge il contatore dal DB
+        seatLedger.reload(5L);
+        assertThat(seatLedger.seatsTaken(5L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("tryReserve(seats) - group gets all seats or none")
+    void tryReserveGroup_shouldBeAllOrNothing() {
+        // Arrange
+        when(matchRepository.findActivePlayersById(6L)).thenReturn(Optional.of(1));
+
+        // Act & Assert: 4 posti su una partita con 1 giocatore → rifiuto, nulla prenotato
+        assertThat(seatLedger.tryReserve(6L, 4)).isFalse();
+        assertThat(seatLedger.seatsTaken(6L)).isEqualTo(1);
+
+        // Act & Assert: 3 posti → partita piena
+        assertThat(seatLedger.tryReserve(6L, 3)).isTrue();
+        assertThat(seatLedger.isFull(6L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("unknown match id - should not be cached nor reserved")
+    void unknownMatch_shouldNotBeCached() {
+        // Arrange
+        when(matchRepository.findActivePlayersById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThat(seatLedger.isFull(99L)).isFalse();
+        assertThat(seatLedger.tryReserve(99L)).isFalse();
+        verify(matchRepository, times(2)).findActivePlayersById(99L);
+    }
+
+    @Test
+    @DisplayName("hold - held seat counts toward isFull and is freed on expiry")
+    void hold_shouldCountUntilExpiry() {
+        // Arrange: orologio simulato, partita con 3 giocatori
+        AtomicLong now = new AtomicLong();
+        SeatLedger ledger = new SeatLedger(registrationRepository, matchRepository, Duration.ofMinutes(2), now::get);
+        when(matchRepository.findActivePlayersById(3L)).thenReturn(Optional.of(3));
+
+        // Act & Assert: l'ultimo posto è tenuto → gli altri trovano la partita piena
+        assertThat(ledger.hold(3L, 10L)).isTrue();
+        assertThat(ledger.isFull(3L)).isTrue();
+        assertThat(ledger.tryReserve(3L)).isFalse();
+        assertThat(ledger.hold(3L, 11L)).isFalse();
+        assertThat(ledger.heldSeats(3L)).isEqualTo(1);
+        assertThat(ledger.hasHold(3L, 10L)).isTrue();
+        assertThat(ledger.hasHold(3L, 11L)).isFalse();
+
+        // Act & Assert: dopo 2 minuti il posto torna libero senza accessi al DB
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(ledger.isFull(3L)).isFalse();
+        assertThat(ledger.seatsTaken(3L)).isEqualTo(3);
+        assertThat(ledger.heldSeats(3L)).isZero();
+        verify(matchRepository, times(1)).findActivePlayersById(3L);
+    }
+
+    @Test
+    @DisplayName("hold - concurrent first holds of the same user take a single seat")
+    void hold_shouldTakeOneSeat_whenSameUserHoldsConcurrently() throws Exception {
+        // Arrange
+        SeatLedger ledger = new SeatLedger(registrationRepository, matchRepository, Duration.ofMinutes(2), () -> 0L);
+        when(matchRepository.findActivePlayersById(5L)).thenReturn(Optional.of(0));
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger held = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (ledger.hold(5L, 10L)) {
+                    held.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Assert: tutti ottengono l'hold, ma il posto occupato è uno solo e il rilascio lo libera
+        assertThat(held.get()).isEqualTo(threads);
+        assertThat(ledger.seatsTaken(5L)).isEqualTo(1);
+        ledger.releaseHold(5L, 10L);
+        assertThat(ledger.seatsTaken(5L)).isZero();
+    }
+
+    @Test
+    @DisplayName("claimHold - held seat passes to the join, renewal keeps one seat")
+    void claimHold_shouldTransferHeldSeat() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        SeatLedger ledger = new SeatLedger(registrationRepository, matchRepository, Duration.ofMinutes(2), now::get);
+        when(matchRepository.findActivePlayersById(4L)).thenReturn(Optional.of(2));
+        ledger.hold(4L, 10L);
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        ledger.hold(4L, 10L);  // rinnovo: stesso posto, nuova scadenza
+
+        // Act
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        boolean claimed = ledger.claimHold(4L, 10L);
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        // Assert: il posto resta occupato dall'iscrizione anche dopo la scadenza originale
+        assertThat(claimed).isTrue();
+        assertThat(ledger.claimHold(4L, 10L)).isFalse();
+        assertThat(ledger.seatsTaken(4L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("reload - live holds still count on the counter read again from the database")
+    void reload_shouldKeepLiveHolds() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        SeatLedger ledger = new SeatLedger(registrationRepository, matchRepository, Duration.ofMinutes(2), now::get);
+        when(matchRepository.findActivePlayersById(7L)).thenReturn(Optional.of(3));
+        ledger.hold(7L, 10L);
+
+        // Act
+        ledger.reload(7L);
+        boolean fullAfterReload = ledger.isFull(7L);
+        now.addAndGet(Duration.ofMinutes(3).toNanos());
+
+        // Assert: l'hold conta sul nuovo contatore e alla scadenza libera proprio quello
+        assertThat(fullAfterReload).isTrue();
+        assertThat(ledger.seatsTaken(7L)).isEqualTo(3);
+        verify(matchRepository, times(2)).findActivePlayersById(7L);
+    }
+
+    @Test
+    @DisplayName("forget - drops the counter and the holds of the match")
+    void forget_shouldDropCounterAndHolds() {
+        // Arrange
+        SeatLedger ledger = new SeatLedger(registrationRepository, matchRepository, Duration.ofMinutes(2), () -> 0L);
+        when(matchRepository.findActivePlayersById(8L)).thenReturn(Optional.of(1), Optional.empty());
+        ledger.hold(8L, 10L);
+
+        // Act
+        ledger.forget(8L);
+
+        // Assert
+        assertThat(ledger.claimHold(8L, 10L)).isFalse();
+        assertThat(ledger.seatsTaken(8L)).isZero();
+    }
+
+        private static RegistrationRepository.ActivePlayersCount count(Long matchId, long players) {
+        return new RegistrationRepository.ActivePlayersCount() {
+            @Override
+            public Long getMatchId() {
+                return matchId;
+            }
+
+            @Override
+            public long getPlayers() {
+                return players;
+            }
+        };
+    }
+}
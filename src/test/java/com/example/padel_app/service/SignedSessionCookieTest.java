@@ -0,0 +1,93 @@
+package com.example.padel_app.service;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test unit per SignedSessionCookie (orologio fisso)
+ *
+ * VERIFICA:
+ * - il cookie scritto al login viene riconosciuto da un'altra istanza con lo stesso secret
+ * - firma alterata o secret diverso → nessun utente
+ * - scadenza e rinnovo a metà durata
+ */
+@DisplayName("SignedSessionCookie Unit Tests")
+class SignedSessionCookieTest {
+
+    private static final Duration TTL = Duration.ofHours(12);
+    private static final Instant LOGIN = Instant.parse("2025-03-01T08:00:00Z");
+
+    @Test
+    @DisplayName("read - cookie written by one node is accepted by another with the same secret")
+    void read_shouldAcceptCookieFromAnotherNode() {
+        // Arrange
+        Cookie cookie = login(42L, "shared-secret");
+        SignedSessionCookie otherNode = cookieAt("shared-secret", LOGIN.plusSeconds(60));
+
+        // Act
+        Long userId = otherNode.read(request(cookie), new MockHttpServletResponse());
+
+        // Assert
+        assertThat(userId).isEqualTo(42L);
+        assertThat(cookie.isHttpOnly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("read - tampered user id or different secret is rejected")
+    void read_shouldRejectTamperedCookie() {
+        // Arrange
+        Cookie cookie = login(42L, "shared-secret");
+        Cookie tampered = new Cookie(cookie.getName(), cookie.getValue().replaceFirst("^42\\.", "1."));
+
+        // Act
+        Long fromTampered = cookieAt("shared-secret", LOGIN).read(request(tampered), null);
+        Long fromOtherSecret = cookieAt("another-secret", LOGIN).read(request(cookie), null);
+
+        // Assert
+        assertThat(fromTampered).isNull();
+        assertThat(fromOtherSecret).isNull();
+    }
+
+    @Test
+    @DisplayName("read - renewed past half of the TTL, rejected after expiry")
+    void read_shouldRenewAndExpire() {
+        // Arrange
+        Cookie cookie = login(42L, "shared-secret");
+        MockHttpServletResponse lateResponse = new MockHttpServletResponse();
+
+        // Act
+        Long late = cookieAt("shared-secret", LOGIN.plus(Duration.ofHours(7))).read(request(cookie), lateResponse);
+        Long expired = cookieAt("shared-secret", LOGIN.plus(TTL)).read(request(cookie), null);
+
+        // Assert
+        assertThat(late).isEqualTo(42L);
+        assertThat(lateResponse.getCookie("PADEL_SESSION")).isNotNull();
+        assertThat(expired).isNull();
+    }
+
+    private static Cookie login(Long userId, String secret) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cookieAt(secret, LOGIN).write(response, userId);
+        return response.getCookie("PADEL_SESSION");
+    }
+
+    private static SignedSessionCookie cookieAt(String secret, Instant now) {
+        return new SignedSessionCookie("signed-cookie", secret, TTL, false, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static MockHttpServletRequest request(Cookie cookie) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        return request;
+    }
+}
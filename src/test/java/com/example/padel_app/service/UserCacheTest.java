@@ -0,0 +1,121 @@
+package com.example.padel_app.service;
+
+import com.example.padel_app.model.User;
+import com.example.padel_app.model.enums.Level;
+import com.example.padel_app.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unit per UserCache (repository mock, orologio simulato)
+ *
+ * VERIFICA:
+ * - una sola findById entro il TTL, copie indipendenti a ogni get
+ * - dentro una richiesta HTTP nessuna seconda lettura, anche dopo la scadenza
+ * - invalidate e dimensione massima
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserCache Unit Tests")
+class UserCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final AtomicLong now = new AtomicLong();
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(userRepository, TTL, 2, now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("get - one query within the TTL, every call returns an independent copy")
+    void get_shouldLoadOnceAndReturnCopies() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "alice")));
+
+        // Act
+        User first = cache.get(1L);
+        first.setDeclaredLevel(Level.PROFESSIONISTA);
+        User second = cache.get(1L);
+        now.addAndGet(TTL.toNanos());
+        User afterTtl = cache.get(1L);
+
+        // Assert
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getDeclaredLevel()).isEqualTo(Level.INTERMEDIO);
+        assertThat(afterTtl.getUsername()).isEqualTo("alice");
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("get - same HTTP request never loads the same user twice")
+    void get_shouldReuseSnapshotWithinRequest() {
+        // Arrange
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "alice")));
+
+        // Act: la voce condivisa scade e viene espulsa da altri utenti, la richiesta no
+        cache.get(1L);
+        now.addAndGet(TTL.toNanos());
+        cache.put(user(2L, "bob"));
+        cache.put(user(3L, "carla"));
+        User again = cache.get(1L);
+
+        // Assert
+        assertThat(again.getUsername()).isEqualTo("alice");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("invalidate - next get reads the database again, unknown users are not cached")
+    void invalidate_shouldForceReload() {
+        // Arrange
+        when(userRepository.findById(1L))
+            .thenReturn(Optional.of(user(1L, "alice")))
+            .thenReturn(Optional.of(user(1L, "alice.new")));
+        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+        cache.get(1L);
+
+        // Act
+        cache.invalidate(1L);
+        User reloaded = cache.get(1L);
+        User missing = cache.get(99L);
+
+        // Assert
+        assertThat(reloaded.getUsername()).isEqualTo("alice.new");
+        assertThat(missing).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setDeclaredLevel(Level.INTERMEDIO);
+        return user;
+    }
+}
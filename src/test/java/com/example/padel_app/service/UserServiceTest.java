@@ -44,6 +44,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private UserService userService;
 
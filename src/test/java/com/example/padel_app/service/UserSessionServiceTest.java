@@ -3,18 +3,25 @@ package com.example.padel_app.service;
 import com.example.padel_app.model.User;
 import com.example.padel_app.repository.UserRepository;
 import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,7 +47,6 @@ class UserSessionServiceTest {
     @Mock
     private HttpSession session;
 
-    @InjectMocks
     private UserSessionService userSessionService;
 
     private User testUser;
@@ -48,12 +54,20 @@ class UserSessionServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Cache reale sopra il repository mock: le query restano verificabili su userRepository
+        userSessionService = new UserSessionService(new UserCache(userRepository, Duration.ofSeconds(30), 100),
+                                                    new SignedSessionCookie("http-session", "", Duration.ofHours(12), false));
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("alice");
         testUser.setEmail("alice@example.com");
     }
 
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
     // ==================== GET CURRENT USER ====================
 
     @Test
@@ -212,6 +226,35 @@ class UserSessionServiceTest {
 
     // ==================== SESSION LIFECYCLE INTEGRATION ====================
 
+    @Test
+    @DisplayName("signed-cookie mode - user id travels in the cookie, nothing stored in the HttpSession")
+    void signedCookieMode_shouldKeepUserInCookie() {
+        // Arrange
+        SignedSessionCookie cookie = new SignedSessionCookie("signed-cookie", "test-secret", Duration.ofHours(12), false);
+        UserSessionService cookieSessions = new UserSessionService(
+            new UserCache(userRepository, Duration.ofSeconds(30), 100), cookie);
+        MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest(), loginResponse));
+        cookieSessions.setCurrentUser(session, testUser);
+
+        // Act: richiesta successiva (anche su un altro nodo) con il cookie ricevuto al login
+        MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.setCookies(loginResponse.getCookie("PADEL_SESSION"));
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(nextRequest, new MockHttpServletResponse()));
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        UserSessionService otherNode = new UserSessionService(
+            new UserCache(userRepository, Duration.ofSeconds(30), 100),
+            new SignedSessionCookie("signed-cookie", "test-secret", Duration.ofHours(12), false));
+        User result = otherNode.getCurrentUser(session);
+
+        // Assert
+        assertThat(result.getUsername()).isEqualTo("alice");
+        verify(session, never()).setAttribute(anyString(), any());
+        verify(session, never()).getAttribute(anyString());
+    }
+
     @Test
     @DisplayName("Session lifecycle - login, check, logout flow")
     void sessionLifecycle_shouldWorkCorrectly() {
@@ -222,9 +265,8 @@ class UserSessionServiceTest {
         userSessionService.setCurrentUser(session, testUser);
         verify(session).setAttribute(SESSION_KEY, testUser.getId());
 
-        // 2. CHECK AUTHENTICATION: verifica utente loggato
+        // 2. CHECK AUTHENTICATION: verifica utente loggato (già in cache dal login, nessuna query)
         when(session.getAttribute(SESSION_KEY)).thenReturn(testUser.getId());
-        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
         boolean isAuth = userSessionService.isAuthenticated(session);
         assertThat(isAuth).isTrue();
@@ -232,6 +274,7 @@ class UserSessionServiceTest {
         User currentUser = userSessionService.getCurrentUser(session);
         assertThat(currentUser).isNotNull();
         assertThat(currentUser.getUsername()).isEqualTo("alice");
+        verify(userRepository, never()).findById(any());
 
         // 3. LOGOUT: pulisce sessione
         doNothing().when(session).invalidate();
@@ -5,6 +5,7 @@ import com.example.padel_app.model.Registration;
 import com.example.padel_app.model.enums.Level;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -69,21 +70,24 @@ class StrategyPatternTest {
         match1.setLocation("Location 1");
         match1.setDateTime(LocalDateTime.now().plusDays(3));
         match1.setRequiredLevel(Level.AVANZATO);
-        match1.setRegistrations(createRegistrations(2)); // 2 players
+        match1.setRegistrations(createRegistrations(2));
+        match1.setActivePlayers(2); // 2 players
 
         match2 = new Match();
         match2.setId(2L);
         match2.setLocation("Location 2");
         match2.setDateTime(LocalDateTime.now().plusDays(1));
         match2.setRequiredLevel(Level.PRINCIPIANTE);
-        match2.setRegistrations(createRegistrations(4)); // 4 players
+        match2.setRegistrations(createRegistrations(4));
+        match2.setActivePlayers(4); // 4 players
 
         match3 = new Match();
         match3.setId(3L);
         match3.setLocation("Location 3");
         match3.setDateTime(LocalDateTime.now().plusDays(2));
         match3.setRequiredLevel(Level.INTERMEDIO);
-        match3.setRegistrations(createRegistrations(1)); // 1 player
+        match3.setRegistrations(createRegistrations(1));
+        match3.setActivePlayers(1); // 1 player
 
         matches = new ArrayList<>(Arrays.asList(match1, match2, match3));
     }
@@ -300,4 +304,25 @@ class StrategyPatternTest {
         assertEquals(1, sorted.size());
         assertEquals(match1.getId(), sorted.get(0).getId());
     }
+
+    /**
+     * Testa il Sort che ogni strategia fornisce al database.
+     * 
+     * <h3>Perché è importante</h3>
+     * Le liste paginate non ordinano in memoria: MatchService passa getSort() a Spring Data,
+     * che lo traduce in ORDER BY. Il Sort deve esprimere lo stesso criterio di sort():
+     * <ul>
+     *   <li>date: dateTime crescente</li>
+     *   <li>popularity: activePlayers decrescente, poi dateTime</li>
+     *   <li>level: levelRank crescente (ordinal, non alfabetico), poi dateTime</li>
+     * </ul>
+     */
+    @Test
+    void testGetSort_MatchesInMemoryCriteria() {
+        assertEquals(Sort.by(Sort.Order.asc("dateTime")), new DateSortingStrategy().getSort());
+        assertEquals(Sort.by(Sort.Order.desc("activePlayers"), Sort.Order.asc("dateTime")),
+                new PopularitySortingStrategy().getSort());
+        assertEquals(Sort.by(Sort.Order.asc("levelRank"), Sort.Order.asc("dateTime")),
+                new LevelSortingStrategy().getSort());
+    }
 }